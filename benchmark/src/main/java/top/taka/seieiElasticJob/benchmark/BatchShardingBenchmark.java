@@ -0,0 +1,80 @@
+package top.taka.seieiElasticJob.benchmark;
+
+import com.dangdang.ddframe.job.lite.internal.schedule.JobRegistry;
+import com.dangdang.ddframe.job.lite.internal.schedule.JobScheduleController;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 简单作业逐个分片项执行与批量分片执行的对比
+ * 两个作业都是 64 个分片、全部分配给本实例，每个分片项的数据都在同一张表中，每次操作手动触发一次作业并等待执行完成。
+ * 辅助计数器 roundTrips 为每秒访问数据库的往返次数，除以每秒操作数即每次触发的往返次数（逐个执行为 64，批量执行为 1），
+ * roundTripLatencyMicros 为每次往返增加的模拟网络延迟
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchShardingBenchmark {
+
+    @Param({"perItemShardBenchmarkJob", "batchShardBenchmarkJob"})
+    private String jobName;
+
+    @Param({"0", "1000"})
+    private long roundTripLatencyMicros;
+
+    private JobScheduleController jobScheduleController;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ShardDatabase.init(64);
+        ShardDatabase.setRoundTripLatencyMicros(roundTripLatencyMicros);
+        BenchmarkEnvironment.start();
+        jobScheduleController = JobRegistry.getInstance().getJobScheduleController(jobName);
+        BenchmarkSignals.reset(jobName);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkEnvironment.stop();
+    }
+
+    @Benchmark
+    public void triggerAndWait(RoundTripCounters counters) throws InterruptedException {
+        long roundTrips = ShardDatabase.getRoundTrips();
+        jobScheduleController.triggerJob();
+        BenchmarkSignals.await(jobName, 10000L);
+        counters.roundTrips += ShardDatabase.getRoundTrips() - roundTrips;
+    }
+
+    /**
+     * 数据库往返次数，与操作数一样按每秒输出
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class RoundTripCounters {
+
+        public long roundTrips;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            roundTrips = 0L;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package top.taka.seieiElasticJob.benchmark;
+
+import org.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import top.taka.seieiElasticJob.annotation.EnableSeieiElasticJob;
+
+/**
+ * 基准测试使用的 Spring 应用，作业由 SeieiElasticJobConfigParser 解析并注册
+ */
+@SpringBootApplication(exclude = {DataSourceAutoConfiguration.class, MybatisAutoConfiguration.class})
+@EnableSeieiElasticJob
+public class BenchmarkApplication {
+}
@@ -0,0 +1,19 @@
+package top.taka.seieiElasticJob.benchmark;
+
+import com.dangdang.ddframe.job.executor.ShardingContexts;
+import com.dangdang.ddframe.job.lite.api.listener.ElasticJobListener;
+
+/**
+ * 作业执行完成后发出信号，所有类型的作业（包括脚本作业）都会在执行完成后调用 afterJobExecuted
+ */
+public class BenchmarkCompletionListener implements ElasticJobListener {
+
+    @Override
+    public void beforeJobExecuted(ShardingContexts shardingContexts) {
+    }
+
+    @Override
+    public void afterJobExecuted(ShardingContexts shardingContexts) {
+        BenchmarkSignals.completed(shardingContexts.getJobName());
+    }
+}
@@ -0,0 +1,75 @@
+package top.taka.seieiElasticJob.benchmark;
+
+import com.dangdang.ddframe.job.executor.JobFacade;
+import com.dangdang.ddframe.job.lite.api.JobScheduler;
+import org.apache.curator.test.TestingServer;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import top.taka.seieiElasticJob.scheduler.JobSchedulerAccessor;
+
+/**
+ * 基准测试环境：进程内的 Curator TestingServer 代替 Zookeeper，并启动 BenchmarkApplication
+ * 每个 JMH fork 是独立的 JVM，同一个 fork 内的所有基准测试共用一个环境
+ */
+public final class BenchmarkEnvironment {
+
+    // 不会自然触发的 cron 表达式，作业只由基准测试手动触发
+    public static final String MANUAL_CRON = "0 0 0 1 1 ? 2099";
+
+    private static TestingServer testingServer;
+
+    private static ConfigurableApplicationContext applicationContext;
+
+    private static int referenceCount;
+
+    private BenchmarkEnvironment() {
+    }
+
+    /**
+     * 启动环境，已启动时只增加引用计数
+     * @param properties 额外的配置项，如 elastic.job.zk.schedulerMode=shared
+     */
+    public static synchronized void start(String... properties) throws Exception {
+        if (referenceCount++ > 0) {
+            return;
+        }
+        testingServer = new TestingServer(true);
+        String[] allProperties = new String[properties.length + 2];
+        allProperties[0] = "elastic.job.zk.serverLists=" + testingServer.getConnectString();
+        allProperties[1] = "elastic.job.zk.namespace=seiei-elastic-job-benchmark";
+        System.arraycopy(properties, 0, allProperties, 2, properties.length);
+        applicationContext = new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(allProperties)
+                .run();
+    }
+
+    /**
+     * 关闭环境，引用计数归零时才真正关闭
+     */
+    public static synchronized void stop() throws Exception {
+        if (--referenceCount > 0) {
+            return;
+        }
+        // elastic-job 的作业调度器不随 spring 容器关闭，Quartz 线程和修复服务线程不是守护线程，需要先关闭作业实例，否则 JMH 的 fork 无法正常退出
+        for (JobScheduler each : applicationContext.getBeansOfType(JobScheduler.class).values()) {
+            each.getSchedulerFacade().shutdownInstance();
+        }
+        applicationContext.close();
+        testingServer.close();
+    }
+
+    public static ConfigurableApplicationContext getApplicationContext() {
+        return applicationContext;
+    }
+
+    /**
+     * 获取作业的 JobFacade
+     * @param jobName 作业名称
+     * @return
+     */
+    public static JobFacade getJobFacade(String jobName) {
+        return JobSchedulerAccessor.getJobFacade(applicationContext.getBean(jobName + "SpringJobScheduler", JobScheduler.class));
+    }
+}
@@ -0,0 +1,53 @@
+package top.taka.seieiElasticJob.benchmark;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 作业执行完成信号，基准测试触发作业后等待该信号
+ */
+public final class BenchmarkSignals {
+
+    private static final ConcurrentMap<String, Semaphore> SEMAPHORES = new ConcurrentHashMap<>();
+
+    private BenchmarkSignals() {
+    }
+
+    private static Semaphore getSemaphore(String jobName) {
+        Semaphore result = SEMAPHORES.get(jobName);
+        if (null == result) {
+            SEMAPHORES.putIfAbsent(jobName, new Semaphore(0));
+            result = SEMAPHORES.get(jobName);
+        }
+        return result;
+    }
+
+    /**
+     * 作业执行完成
+     * @param jobName 作业名称
+     */
+    public static void completed(String jobName) {
+        getSemaphore(jobName).release();
+    }
+
+    /**
+     * 等待作业执行完成
+     * @param jobName 作业名称
+     * @param timeoutMilliseconds 超时时间
+     */
+    public static void await(String jobName, long timeoutMilliseconds) throws InterruptedException {
+        if (!getSemaphore(jobName).tryAcquire(timeoutMilliseconds, TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("等待作业 " + jobName + " 执行完成超时");
+        }
+    }
+
+    /**
+     * 清除遗留的信号
+     * @param jobName 作业名称
+     */
+    public static void reset(String jobName) {
+        getSemaphore(jobName).drainPermits();
+    }
+}
@@ -0,0 +1,73 @@
+package top.taka.seieiElasticJob.benchmark;
+
+import com.dangdang.ddframe.job.event.JobEventListener;
+import com.dangdang.ddframe.job.event.rdb.JobEventRdbListener;
+import com.dangdang.ddframe.job.event.type.JobExecutionEvent;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import top.taka.seieiElasticJob.enums.EventTraceMode;
+import top.taka.seieiElasticJob.event.BatchJobEventRdbConfiguration;
+import top.taka.seieiElasticJob.event.BatchJobEventRdbWriter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 作业事件追踪写入一个分片项执行开始、结束事件的开销
+ * sync 为 elastic-job 的 JobEventRdbListener，每个事件一次 INSERT 或 UPDATE；async 为 BatchJobEventRdbWriter，只放入缓冲区。
+ * 使用 H2 内存数据库代替 MySQL，实际数据库的网络延迟会进一步放大两者的差距
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventTraceBenchmark {
+
+    @Param({"sync", "async"})
+    private String eventTraceMode;
+
+    private BatchJobEventRdbWriter writer;
+
+    private JobEventListener jobEventListener;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:event_trace_benchmark;DB_CLOSE_DELAY=-1;MODE=MySQL");
+        if (EventTraceMode.ASYNC.value.equals(eventTraceMode)) {
+            // 使用 block 策略，保证测得的是持续写入时的吞吐量而不是丢弃事件的速度
+            writer = new BatchJobEventRdbWriter(dataSource, 8192, 200, 1000, "block");
+            writer.start();
+            jobEventListener = new BatchJobEventRdbConfiguration(writer).createJobEventListener();
+        } else {
+            jobEventListener = new JobEventRdbListener(dataSource);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (null != writer) {
+            writer.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void executionEvents() {
+        JobExecutionEvent startEvent = new JobExecutionEvent("benchmark-task", "eventTraceBenchmarkJob", JobExecutionEvent.ExecutionSource.NORMAL_TRIGGER, 0);
+        jobEventListener.listen(startEvent);
+        jobEventListener.listen(startEvent.executionSuccess());
+    }
+}
@@ -0,0 +1,86 @@
+package top.taka.seieiElasticJob.benchmark;
+
+import com.dangdang.ddframe.job.lite.internal.schedule.JobRegistry;
+import com.dangdang.ddframe.job.lite.internal.schedule.JobScheduleController;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import top.taka.seieiElasticJob.executor.JobExecutorServices;
+import top.taka.seieiElasticJob.executor.MonitoredExecutorService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 作业执行线程池预设的对比
+ * 每个作业 128 个分片、全部分配给本实例，每次操作手动触发一次作业并等待所有分片项执行完成，
+ * workload 为 cpu 时每个分片项做固定次数的计算，为 io 时每个分片项等待 2 毫秒。
+ * 辅助计数器 callerRuns 为每秒线程池饱和后由作业触发线程直接执行的分片项数（default 预设不统计）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutorPresetBenchmark {
+
+    @Param({"defaultExecutorBenchmarkJob", "sharedExecutorBenchmarkJob", "shardingExecutorBenchmarkJob", "cpuBoundExecutorBenchmarkJob", "ioBoundExecutorBenchmarkJob"})
+    private String jobName;
+
+    @Param({ShardWorkload.CPU, ShardWorkload.IO})
+    private String workload;
+
+    private JobScheduleController jobScheduleController;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ShardWorkload.setWorkload(workload);
+        BenchmarkEnvironment.start();
+        jobScheduleController = JobRegistry.getInstance().getJobScheduleController(jobName);
+        BenchmarkSignals.reset(jobName);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkEnvironment.stop();
+    }
+
+    @Benchmark
+    public void triggerAndWait(ExecutorCounters counters) throws InterruptedException {
+        MonitoredExecutorService executorService = JobExecutorServices.get(jobName);
+        long callerRuns = null == executorService ? 0L : executorService.getCallerRunsCount();
+        jobScheduleController.triggerJob();
+        BenchmarkSignals.await(jobName, 60000L);
+        // 线程池在作业第一次执行时创建
+        executorService = JobExecutorServices.get(jobName);
+        if (null != executorService) {
+            counters.callerRuns += executorService.getCallerRunsCount() - callerRuns;
+        }
+    }
+
+    /**
+     * 由作业触发线程直接执行的分片项数，与操作数一样按每秒输出
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class ExecutorCounters {
+
+        public long callerRuns;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            callerRuns = 0L;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package top.taka.seieiElasticJob.benchmark;
+
+import com.dangdang.ddframe.job.executor.JobFacade;
+import com.dangdang.ddframe.job.executor.ShardingContexts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import top.taka.seieiElasticJob.benchmark.job.ShardedSimpleBenchmarkJob;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 作业执行流程中单个步骤的开销：分片上下文构建、监听调用
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JobFacadeBenchmark {
+
+    private JobFacade jobFacade;
+
+    private ShardingContexts shardingContexts;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkEnvironment.start();
+        jobFacade = BenchmarkEnvironment.getJobFacade(ShardedSimpleBenchmarkJob.JOB_NAME);
+        // 第一次获取分片上下文时由主节点完成分片
+        shardingContexts = jobFacade.getShardingContexts();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkEnvironment.stop();
+    }
+
+    /**
+     * 构建分片上下文：读取作业配置、分片结果（注册中心缓存）及失效转移信息
+     */
+    @Benchmark
+    public ShardingContexts shardingContexts() {
+        return jobFacade.getShardingContexts();
+    }
+
+    /**
+     * 调用作业执行前后的监听
+     */
+    @Benchmark
+    public void listenerDispatch() {
+        jobFacade.beforeJobExecuted(shardingContexts);
+        jobFacade.afterJobExecuted(shardingContexts);
+    }
+}
@@ -0,0 +1,60 @@
+package top.taka.seieiElasticJob.benchmark;
+
+import com.dangdang.ddframe.job.lite.internal.schedule.JobRegistry;
+import com.dangdang.ddframe.job.lite.internal.schedule.JobScheduleController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 作业触发到执行完成的耗时
+ * 每次操作手动触发一次作业并等待执行完成，覆盖 Quartz 触发、作业执行环境检查、分片上下文构建、监听调用、分片项执行的完整流程，
+ * 作业本身为空，结果即 starter 与 elastic-job 在作业外围增加的开销；SampleTime 模式输出 p50、p90、p99 等分位数
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JobTriggerBenchmark {
+
+    @Param({"simpleBenchmarkJob", "shardedSimpleBenchmarkJob", "streamingDataflowBenchmarkJob", "oneOffDataflowBenchmarkJob", "scriptBenchmarkJob"})
+    private String jobName;
+
+    // 作业调度模式，standalone 或 shared
+    @Param({"standalone", "shared"})
+    private String schedulerMode;
+
+    private JobScheduleController jobScheduleController;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkEnvironment.start("elastic.job.zk.schedulerMode=" + schedulerMode);
+        jobScheduleController = JobRegistry.getInstance().getJobScheduleController(jobName);
+        BenchmarkSignals.reset(jobName);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkEnvironment.stop();
+    }
+
+    @Benchmark
+    public void triggerAndWait() throws InterruptedException {
+        jobScheduleController.triggerJob();
+        BenchmarkSignals.await(jobName, 10000L);
+    }
+}
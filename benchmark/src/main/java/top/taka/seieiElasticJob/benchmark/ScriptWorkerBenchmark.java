@@ -0,0 +1,56 @@
+package top.taka.seieiElasticJob.benchmark;
+
+import com.dangdang.ddframe.job.lite.internal.schedule.JobRegistry;
+import com.dangdang.ddframe.job.lite.internal.schedule.JobScheduleController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 脚本作业创建进程模式与常驻工作进程模式的对比
+ * 两个作业都是 16 个分片、由 sh 执行的空脚本，每次操作手动触发一次作业并等待所有分片项执行完成，
+ * 差值即每次触发为每个分片项创建进程、启动解释器的开销
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScriptWorkerBenchmark {
+
+    @Param({"forkingScriptBenchmarkJob", "workerScriptBenchmarkJob"})
+    private String jobName;
+
+    private JobScheduleController jobScheduleController;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkEnvironment.start();
+        jobScheduleController = JobRegistry.getInstance().getJobScheduleController(jobName);
+        BenchmarkSignals.reset(jobName);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkEnvironment.stop();
+    }
+
+    @Benchmark
+    public void triggerAndWait() throws InterruptedException {
+        jobScheduleController.triggerJob();
+        BenchmarkSignals.await(jobName, 10000L);
+    }
+}
@@ -0,0 +1,103 @@
+package top.taka.seieiElasticJob.benchmark;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 按分片项存放数据的 H2 内存数据库，统计作业访问数据库的往返次数
+ * 每次查询获取一个连接、执行一条 SELECT，计为一次往返；H2 内存数据库没有网络开销，
+ * 可以通过 setRoundTripLatencyMicros 为每次往返增加固定延迟，模拟访问远程数据库
+ */
+public final class ShardDatabase {
+
+    public static final int ROWS_PER_SHARD = 100;
+
+    private static final JdbcDataSource DATA_SOURCE = new JdbcDataSource();
+
+    private static final AtomicLong ROUND_TRIPS = new AtomicLong();
+
+    private static volatile long roundTripLatencyNanos;
+
+    static {
+        DATA_SOURCE.setURL("jdbc:h2:mem:shard_benchmark;DB_CLOSE_DELAY=-1");
+    }
+
+    private ShardDatabase() {
+    }
+
+    /**
+     * 建表并为每个分片项写入 ROWS_PER_SHARD 行数据，已存在时跳过
+     * @param shardingTotalCount 分片总数
+     */
+    public static synchronized void init(int shardingTotalCount) throws SQLException {
+        try (Connection connection = DATA_SOURCE.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS shard_data (id BIGINT AUTO_INCREMENT PRIMARY KEY, shard INT NOT NULL, amount INT NOT NULL)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_shard_data_shard ON shard_data (shard)");
+            try (ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM shard_data")) {
+                resultSet.next();
+                if (resultSet.getLong(1) > 0) {
+                    return;
+                }
+            }
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO shard_data (shard, amount) VALUES (?, ?)")) {
+                for (int shard = 0; shard < shardingTotalCount; shard++) {
+                    for (int row = 0; row < ROWS_PER_SHARD; row++) {
+                        insert.setInt(1, shard);
+                        insert.setInt(2, row);
+                        insert.addBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * 一次往返查询多个分片项的数据
+     * @param shards 分片项
+     * @return 查询到的行数
+     */
+    public static int query(Collection<Integer> shards) {
+        StringBuilder sql = new StringBuilder("SELECT id, amount FROM shard_data WHERE shard IN (");
+        for (int i = 0; i < shards.size(); i++) {
+            sql.append(0 == i ? "?" : ", ?");
+        }
+        sql.append(")");
+        ROUND_TRIPS.incrementAndGet();
+        if (roundTripLatencyNanos > 0L) {
+            LockSupport.parkNanos(roundTripLatencyNanos);
+        }
+        int result = 0;
+        try (Connection connection = DATA_SOURCE.getConnection(); PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (int each : shards) {
+                statement.setInt(index++, each);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    result++;
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+
+    public static long getRoundTrips() {
+        return ROUND_TRIPS.get();
+    }
+
+    public static void setRoundTripLatencyMicros(long roundTripLatencyMicros) {
+        roundTripLatencyNanos = TimeUnit.MICROSECONDS.toNanos(roundTripLatencyMicros);
+    }
+}
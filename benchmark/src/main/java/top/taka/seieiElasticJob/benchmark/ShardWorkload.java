@@ -0,0 +1,50 @@
+package top.taka.seieiElasticJob.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 分片项的模拟负载，供线程池预设对比使用
+ *     cpu：每个分片项做固定次数的计算，不等待
+ *     io：每个分片项等待固定时间，模拟访问远程服务
+ */
+public final class ShardWorkload {
+
+    public static final String CPU = "cpu";
+
+    public static final String IO = "io";
+
+    // cpu 负载每个分片项的计算次数
+    private static final int CPU_ITERATIONS = 200000;
+
+    // io 负载每个分片项的等待时间
+    private static final long IO_WAIT_MICROS = 2000L;
+
+    private static volatile String workload = CPU;
+
+    // 防止计算被 JIT 消除
+    private static volatile long sink;
+
+    private ShardWorkload() {
+    }
+
+    public static void setWorkload(String workload) {
+        ShardWorkload.workload = workload;
+    }
+
+    /**
+     * 执行一个分片项的负载
+     * @param item 分片项
+     */
+    public static void run(int item) {
+        if (IO.equals(workload)) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(IO_WAIT_MICROS));
+            return;
+        }
+        long result = item;
+        for (int i = 0; i < CPU_ITERATIONS; i++) {
+            result = result * 6364136223846793005L + 1442695040888963407L;
+        }
+        sink = result;
+    }
+}
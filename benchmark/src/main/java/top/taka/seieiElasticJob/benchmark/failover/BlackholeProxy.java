@@ -0,0 +1,130 @@
+package top.taka.seieiElasticJob.benchmark.failover;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 作业实例与 Zookeeper 之间的 TCP 代理，用于模拟网络分区
+ * 开启黑洞后连接保持打开但暂停转发数据，新连接也只接受不转发，两端都只能等待超时，与实际的网络分区一致；
+ * 恢复后继续转发暂停期间收到的数据，与网络分区恢复后 TCP 重传的效果一致，未超时的会话可以继续使用
+ */
+public class BlackholeProxy implements Closeable {
+
+    private final int targetPort;
+
+    private final ServerSocket serverSocket;
+
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+
+    private volatile boolean blackhole;
+
+    private final Object lock = new Object();
+
+    private volatile boolean closed;
+
+    /**
+     * @param targetPort 本机 Zookeeper 端口
+     */
+    public BlackholeProxy(int targetPort) throws IOException {
+        this.targetPort = targetPort;
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                accept();
+            }
+        }, "failover-proxy-" + serverSocket.getLocalPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public String getConnectString() {
+        return "127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    // 暂停转发所有数据
+    public void blackhole() {
+        blackhole = true;
+    }
+
+    // 恢复转发
+    public void restore() {
+        synchronized (lock) {
+            blackhole = false;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        serverSocket.close();
+        for (Socket each : sockets) {
+            each.close();
+        }
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket client = serverSocket.accept();
+                sockets.add(client);
+                Socket server = new Socket(InetAddress.getLoopbackAddress(), targetPort);
+                sockets.add(server);
+                pump(client.getInputStream(), server.getOutputStream());
+                pump(server.getInputStream(), client.getOutputStream());
+            } catch (IOException e) {
+                // 代理已关闭或 Zookeeper 不可用，客户端会重连
+            }
+        }
+    }
+
+    /**
+     * 在新线程中转发数据，黑洞开启期间读取的数据等到恢复后再转发
+     */
+    private void pump(final InputStream inputStream, final OutputStream outputStream) {
+        Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                byte[] buffer = new byte[8192];
+                try {
+                    int length;
+                    while ((length = inputStream.read(buffer)) >= 0) {
+                        awaitRestore();
+                        outputStream.write(buffer, 0, length);
+                        outputStream.flush();
+                    }
+                } catch (IOException e) {
+                    // 连接已关闭
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "failover-proxy-pump");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void awaitRestore() throws InterruptedException, IOException {
+        synchronized (lock) {
+            while (blackhole && !closed) {
+                lock.wait();
+            }
+        }
+        if (closed) {
+            throw new IOException("Proxy closed.");
+        }
+    }
+}
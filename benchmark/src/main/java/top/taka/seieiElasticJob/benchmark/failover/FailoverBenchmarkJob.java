@@ -0,0 +1,34 @@
+package top.taka.seieiElasticJob.benchmark.failover;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.api.simple.SimpleJob;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+
+/**
+ * 失效转移对比使用的作业，每秒触发，每个分片项执行 EXECUTION_MILLISECONDS 毫秒，开始和结束时向标准输出写一行，由 FailoverHarness 解析
+ * 不加 @Component，只由 FailoverNodeApplication 导入，避免被 BenchmarkApplication 扫描到 JMH 基准测试中
+ */
+@SeieiElasticJobConfig(jobName = FailoverBenchmarkJob.JOB_NAME, cron = "0/1 * * * * ?", shardingTotalCount = FailoverBenchmarkJob.SHARDING_TOTAL_COUNT,
+        failover = true, monitorExecution = true, misfire = false, overwrite = true)
+public class FailoverBenchmarkJob implements SimpleJob {
+
+    public static final String JOB_NAME = "failoverBenchmarkJob";
+
+    public static final int SHARDING_TOTAL_COUNT = 6;
+
+    public static final long EXECUTION_MILLISECONDS = 300L;
+
+    // 输出行的前缀，格式：前缀 START|END 分片项 时间戳
+    public static final String OUTPUT_PREFIX = "FAILOVER-ITEM";
+
+    @Override
+    public void execute(ShardingContext shardingContext) {
+        System.out.println(OUTPUT_PREFIX + " START " + shardingContext.getShardingItem() + " " + System.currentTimeMillis());
+        try {
+            Thread.sleep(EXECUTION_MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println(OUTPUT_PREFIX + " END " + shardingContext.getShardingItem() + " " + System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,356 @@
+package top.taka.seieiElasticJob.benchmark.failover;
+
+import org.apache.curator.test.TestingServer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 失效转移恢复时间对比
+ * 进程内的 Curator TestingServer 作为 Zookeeper，启动多个 FailoverNodeApplication 子进程运行同一个 FailoverBenchmarkJob，
+ * 每个子进程经过一个 BlackholeProxy 连接 Zookeeper。作业稳定运行后，让其中一个实例失效：
+ *     crash：实例空闲时强制结束进程，连接随进程关闭，但会话要等超时才会被 Zookeeper 删除；
+ *     zombie：实例空闲时代理停止转发数据，进程仍在运行，模拟网络分区或长时间停顿的实例；
+ *     pause：实例空闲时代理停止转发心跳超时时间 2 倍的时间后恢复，会话未超时，模拟短暂的网络分区；
+ *     busy：实例正在执行分片项时代理停止转发数据，运行状态节点保留到会话超时，其他实例不应在此之前接管。
+ * 分别使用 session（elastic-job 默认行为）和 heartbeat（快速失效转移）模式，统计：
+ *     恢复时间：从实例失效到它的每个分片项都在其他实例上重新开始执行的时间；
+ *     重复执行：同一分片项在不同实例上执行时间重叠的次数；
+ *     失效后自身执行：失效实例此后开始的执行次数，pause 场景统计恢复转发之后的执行，heartbeat 模式下被隔离的实例恢复后应重新参与分片。
+ * 运行方式：mvn -f benchmark/pom.xml compile exec:java -Dstart-class=top.taka.seieiElasticJob.benchmark.failover.FailoverHarness
+ * 可选参数：-Dfailover.sessionTimeout=20000（会话超时时间，毫秒）、-Dfailover.heartbeatTimeout=5000（心跳超时时间，毫秒）、
+ *     -Dfailover.nodes=3（实例数）、-Dfailover.scenarios=crash,zombie,pause,busy（场景）、-Dfailover.verbose=true（输出子进程日志）
+ */
+public final class FailoverHarness {
+
+    private static final int SESSION_TIMEOUT_MILLISECONDS = Integer.getInteger("failover.sessionTimeout", 20000);
+
+    private static final int HEARTBEAT_TIMEOUT_MILLISECONDS = Integer.getInteger("failover.heartbeatTimeout", 5000);
+
+    private static final String[] SCENARIOS = System.getProperty("failover.scenarios", "crash,zombie,pause,busy").split(",");
+
+    private static final int NODE_COUNT = Integer.getInteger("failover.nodes", 3);
+
+    private static final boolean VERBOSE = Boolean.getBoolean("failover.verbose");
+
+    // 等待所有实例开始执行的最长时间，子进程启动 spring 容器较慢
+    private static final long STARTUP_TIMEOUT_MILLISECONDS = 180000L;
+
+    // 所有实例开始执行后等待分片稳定的时间
+    private static final long WARM_UP_MILLISECONDS = 5000L;
+
+    // pause 场景恢复转发后的观察时间
+    private static final long RESTORE_OBSERVE_MILLISECONDS = 15000L;
+
+    private FailoverHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("实例数 " + NODE_COUNT + "，分片总数 " + FailoverBenchmarkJob.SHARDING_TOTAL_COUNT
+                + "，会话超时 " + SESSION_TIMEOUT_MILLISECONDS + " ms，心跳超时 " + HEARTBEAT_TIMEOUT_MILLISECONDS + " ms，作业每秒触发，每个分片项执行 " + FailoverBenchmarkJob.EXECUTION_MILLISECONDS + " ms");
+        List<String> rows = new ArrayList<>();
+        try (TestingServer testingServer = new TestingServer(true)) {
+            for (String scenario : SCENARIOS) {
+                for (String failoverMode : new String[] {"session", "heartbeat"}) {
+                    rows.add(runTrial(testingServer, scenario, failoverMode));
+                }
+            }
+        }
+        System.out.println(String.format("%-8s %-10s %-14s %14s %10s %14s", "场景", "模式", "失效实例分片项", "恢复时间(ms)", "重复执行", "失效后自身执行"));
+        for (String each : rows) {
+            System.out.println(each);
+        }
+        System.exit(0);
+    }
+
+    private static String runTrial(TestingServer testingServer, String scenario, String failoverMode) throws Exception {
+        System.out.println("开始 " + scenario + " / " + failoverMode);
+        String namespace = "seiei-failover-" + scenario + "-" + failoverMode;
+        List<Node> nodes = new ArrayList<>(NODE_COUNT);
+        try {
+            for (int i = 0; i < NODE_COUNT; i++) {
+                nodes.add(new Node("node" + i, testingServer.getPort(), namespace, failoverMode));
+            }
+            awaitAllExecuting(nodes);
+            Thread.sleep(WARM_UP_MILLISECONDS);
+            Node victim = nodes.get(0);
+            Set<Integer> victimItems = "busy".equals(scenario) ? victim.awaitBusy() : victim.awaitIdle();
+            long failedTime = System.currentTimeMillis();
+            if ("crash".equals(scenario)) {
+                victim.process.destroyForcibly();
+            } else {
+                victim.proxy.blackhole();
+            }
+            long observeSince = failedTime;
+            if ("pause".equals(scenario)) {
+                // 超过心跳超时时间，heartbeat 模式下其他实例会隔离它，但会话仍然有效
+                Thread.sleep(HEARTBEAT_TIMEOUT_MILLISECONDS * 2L);
+                victim.proxy.restore();
+                observeSince = System.currentTimeMillis();
+                Thread.sleep(RESTORE_OBSERVE_MILLISECONDS);
+            } else {
+                // 覆盖会话超时，以及 zombie 场景下会话超时后可能出现的重复执行
+                Thread.sleep(SESSION_TIMEOUT_MILLISECONDS + 15000L);
+            }
+            long recovery = 0L;
+            for (Integer each : victimItems) {
+                long firstStart = Long.MAX_VALUE;
+                for (Node node : nodes) {
+                    if (node != victim) {
+                        firstStart = Math.min(firstStart, node.firstStartAfter(each, failedTime));
+                    }
+                }
+                recovery = Long.MAX_VALUE == firstStart || recovery < 0L ? -1L : Math.max(recovery, firstStart - failedTime);
+            }
+            int victimRuns = victim.startsAfter(observeSince);
+            return String.format("%-8s %-10s %-14s %14s %10d %14d", scenario, failoverMode, victimItems,
+                    recovery < 0L ? "未恢复" : String.valueOf(recovery), countDuplicates(nodes, failedTime - 2000L), victimRuns);
+        } finally {
+            for (Node each : nodes) {
+                each.close();
+            }
+        }
+    }
+
+    private static void awaitAllExecuting(List<Node> nodes) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLISECONDS;
+        for (Node each : nodes) {
+            while (!each.hasExecuted()) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException(each.name + " did not start executing within " + STARTUP_TIMEOUT_MILLISECONDS + " ms.");
+                }
+                Thread.sleep(100L);
+            }
+        }
+    }
+
+    /**
+     * 统计同一分片项在不同实例上执行时间重叠的次数
+     */
+    private static int countDuplicates(List<Node> nodes, long since) {
+        int result = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            for (int j = i + 1; j < nodes.size(); j++) {
+                for (Execution a : nodes.get(i).getExecutions(since)) {
+                    for (Execution b : nodes.get(j).getExecutions(since)) {
+                        if (a.item == b.item && a.start < b.end && b.start < a.end) {
+                            result++;
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String buildClassPath() throws URISyntaxException {
+        // exec:java 在 Maven 进程中以独立的类加载器运行，java.class.path 不是项目的类路径
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (!(classLoader instanceof URLClassLoader)) {
+            return System.getProperty("java.class.path");
+        }
+        StringBuilder result = new StringBuilder();
+        for (URL each : ((URLClassLoader) classLoader).getURLs()) {
+            if (result.length() > 0) {
+                result.append(File.pathSeparatorChar);
+            }
+            result.append(new File(each.toURI()).getPath());
+        }
+        return result.toString();
+    }
+
+    /**
+     * 一次分片项执行，未结束时 end 为 Long.MAX_VALUE
+     */
+    private static final class Execution {
+
+        private final int item;
+
+        private final long start;
+
+        private long end = Long.MAX_VALUE;
+
+        private Execution(int item, long start) {
+            this.item = item;
+            this.start = start;
+        }
+    }
+
+    /**
+     * 一个作业实例子进程
+     */
+    private static final class Node {
+
+        private final String name;
+
+        private final BlackholeProxy proxy;
+
+        private final Process process;
+
+        private final List<Execution> executions = new ArrayList<>();
+
+        private Node(String name, int zookeeperPort, String namespace, String failoverMode) throws IOException, URISyntaxException {
+            this.name = name;
+            proxy = new BlackholeProxy(zookeeperPort);
+            List<String> command = new ArrayList<>();
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            command.add("-Dfile.encoding=UTF-8");
+            command.add("-XX:TieredStopAtLevel=1");
+            if (!System.getProperty("java.specification.version").startsWith("1.")) {
+                // spring 的 cglib 代理在 Java 9 以上需要反射访问 java.lang
+                command.add("--add-opens=java.base/java.lang=ALL-UNNAMED");
+            }
+            command.add("-classpath");
+            command.add(buildClassPath());
+            command.add(FailoverNodeApplication.class.getName());
+            Collections.addAll(command,
+                    "--elastic.job.zk.serverLists=" + proxy.getConnectString(),
+                    "--elastic.job.zk.namespace=" + namespace,
+                    "--elastic.job.zk.sessionTimeoutMilliseconds=" + SESSION_TIMEOUT_MILLISECONDS,
+                    "--elastic.job.zk.connectionTimeoutMilliseconds=5000",
+                    "--elastic.job.zk.failoverMode=" + failoverMode,
+                    "--elastic.job.zk.failoverHeartbeatTimeoutMilliseconds=" + HEARTBEAT_TIMEOUT_MILLISECONDS);
+            process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            Thread reader = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    read();
+                }
+            }, "failover-reader-" + name);
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        private void read() {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while (null != (line = reader.readLine())) {
+                    if (!line.startsWith(FailoverBenchmarkJob.OUTPUT_PREFIX)) {
+                        if (VERBOSE) {
+                            System.out.println("[" + name + "] " + line);
+                        }
+                        continue;
+                    }
+                    String[] fields = line.split(" ");
+                    int item = Integer.parseInt(fields[2]);
+                    long time = Long.parseLong(fields[3]);
+                    synchronized (this) {
+                        if ("START".equals(fields[1])) {
+                            executions.add(new Execution(item, time));
+                        } else {
+                            for (int i = executions.size() - 1; i >= 0; i--) {
+                                if (executions.get(i).item == item && Long.MAX_VALUE == executions.get(i).end) {
+                                    executions.get(i).end = time;
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // 进程已结束
+            }
+        }
+
+        private synchronized boolean hasExecuted() {
+            return !executions.isEmpty();
+        }
+
+        /**
+         * 等待本实例的一次执行全部结束，返回该次执行的分片项
+         */
+        private Set<Integer> awaitIdle() throws InterruptedException {
+            long since = System.currentTimeMillis();
+            while (true) {
+                Set<Integer> result = new TreeSet<>();
+                boolean idle;
+                synchronized (this) {
+                    Execution last = executions.isEmpty() ? null : executions.get(executions.size() - 1);
+                    idle = null != last && last.start >= since;
+                    for (Execution each : executions) {
+                        if (null != last && each.start >= last.start - 500L) {
+                            result.add(each.item);
+                            idle &= Long.MAX_VALUE != each.end;
+                        }
+                    }
+                }
+                if (idle) {
+                    // 等待 elastic-job 删除运行状态节点
+                    Thread.sleep(100L);
+                    return result;
+                }
+                Thread.sleep(10L);
+            }
+        }
+
+        /**
+         * 等待本实例开始一次执行，在分片项执行结束之前返回该次执行的分片项
+         */
+        private Set<Integer> awaitBusy() throws InterruptedException {
+            long since = System.currentTimeMillis();
+            while (true) {
+                synchronized (this) {
+                    Execution last = executions.isEmpty() ? null : executions.get(executions.size() - 1);
+                    if (null != last && last.start >= since && Long.MAX_VALUE == last.end) {
+                        Set<Integer> result = new TreeSet<>();
+                        for (Execution each : executions) {
+                            if (each.start >= last.start - 100L && Long.MAX_VALUE == each.end) {
+                                result.add(each.item);
+                            }
+                        }
+                        return result;
+                    }
+                }
+                Thread.sleep(5L);
+            }
+        }
+
+        private synchronized long firstStartAfter(int item, long time) {
+            for (Execution each : executions) {
+                if (each.item == item && each.start > time) {
+                    return each.start;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        private synchronized int startsAfter(long time) {
+            int result = 0;
+            for (Execution each : executions) {
+                if (each.start > time) {
+                    result++;
+                }
+            }
+            return result;
+        }
+
+        private synchronized List<Execution> getExecutions(long since) {
+            List<Execution> result = new ArrayList<>();
+            for (Execution each : executions) {
+                if (each.start >= since) {
+                    result.add(each);
+                }
+            }
+            return result;
+        }
+
+        private void close() throws IOException, InterruptedException {
+            process.destroyForcibly();
+            process.waitFor(10, TimeUnit.SECONDS);
+            proxy.close();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package top.taka.seieiElasticJob.benchmark.failover;
+
+import org.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Import;
+import top.taka.seieiElasticJob.annotation.EnableSeieiElasticJob;
+
+/**
+ * FailoverHarness 启动的作业实例进程，只运行 FailoverBenchmarkJob
+ * elastic-job 的作业注册表是进程内单例，实例 ID 由 IP 和进程号组成，同一进程内无法运行同一作业的多个实例，所以每个实例是一个子进程。
+ * 不加 @Configuration，避免被 BenchmarkApplication 扫描
+ * 参数为 spring 命令行配置项，如 --elastic.job.zk.serverLists=127.0.0.1:2181
+ */
+@EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class, MybatisAutoConfiguration.class})
+@EnableSeieiElasticJob
+@Import(FailoverBenchmarkJob.class)
+public class FailoverNodeApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(FailoverNodeApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off", "logging.level.root=WARN")
+                .run(args);
+    }
+}
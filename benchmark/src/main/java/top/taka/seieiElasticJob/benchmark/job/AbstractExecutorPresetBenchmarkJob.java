@@ -0,0 +1,18 @@
+package top.taka.seieiElasticJob.benchmark.job;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.api.simple.SimpleJob;
+import top.taka.seieiElasticJob.benchmark.ShardWorkload;
+
+/**
+ * 线程池预设对比作业，128 个分片，每个分片项执行一次 ShardWorkload，子类只有使用的线程池预设不同
+ */
+public abstract class AbstractExecutorPresetBenchmarkJob implements SimpleJob {
+
+    public static final int SHARDING_TOTAL_COUNT = 128;
+
+    @Override
+    public void execute(ShardingContext shardingContext) {
+        ShardWorkload.run(shardingContext.getShardingItem());
+    }
+}
@@ -0,0 +1,31 @@
+package top.taka.seieiElasticJob.benchmark.job;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import org.springframework.stereotype.Component;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+import top.taka.seieiElasticJob.benchmark.BenchmarkEnvironment;
+import top.taka.seieiElasticJob.benchmark.ShardDatabase;
+import top.taka.seieiElasticJob.job.BatchSimpleJob;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量分片简单作业，64 个分片，本实例的所有分片项只查询一次数据库，与 PerItemShardBenchmarkJob 对比
+ */
+@Component
+@SeieiElasticJobConfig(jobName = BatchShardBenchmarkJob.JOB_NAME, cron = BenchmarkEnvironment.MANUAL_CRON, shardingTotalCount = 64, overwrite = true,
+        listener = "top.taka.seieiElasticJob.benchmark.BenchmarkCompletionListener")
+public class BatchShardBenchmarkJob implements BatchSimpleJob {
+
+    public static final String JOB_NAME = "batchShardBenchmarkJob";
+
+    @Override
+    public void execute(List<ShardingContext> shardingContexts) {
+        List<Integer> shards = new ArrayList<>(shardingContexts.size());
+        for (ShardingContext each : shardingContexts) {
+            shards.add(each.getShardingItem());
+        }
+        ShardDatabase.query(shards);
+    }
+}
@@ -0,0 +1,17 @@
+package top.taka.seieiElasticJob.benchmark.job;
+
+import org.springframework.stereotype.Component;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+import top.taka.seieiElasticJob.benchmark.BenchmarkEnvironment;
+
+/**
+ * 使用 cpu 预设（计算密集型线程池）的线程池预设对比作业
+ */
+@Component
+@SeieiElasticJobConfig(jobName = CpuBoundExecutorBenchmarkJob.JOB_NAME, cron = BenchmarkEnvironment.MANUAL_CRON,
+        shardingTotalCount = AbstractExecutorPresetBenchmarkJob.SHARDING_TOTAL_COUNT, overwrite = true, executorServiceHandler = "cpu",
+        listener = "top.taka.seieiElasticJob.benchmark.BenchmarkCompletionListener")
+public class CpuBoundExecutorBenchmarkJob extends AbstractExecutorPresetBenchmarkJob {
+
+    public static final String JOB_NAME = "cpuBoundExecutorBenchmarkJob";
+}
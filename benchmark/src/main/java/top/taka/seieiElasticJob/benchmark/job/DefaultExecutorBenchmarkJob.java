@@ -0,0 +1,17 @@
+package top.taka.seieiElasticJob.benchmark.job;
+
+import org.springframework.stereotype.Component;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+import top.taka.seieiElasticJob.benchmark.BenchmarkEnvironment;
+
+/**
+ * 使用 default 预设（elastic-job 默认线程池）的线程池预设对比作业
+ */
+@Component
+@SeieiElasticJobConfig(jobName = DefaultExecutorBenchmarkJob.JOB_NAME, cron = BenchmarkEnvironment.MANUAL_CRON,
+        shardingTotalCount = AbstractExecutorPresetBenchmarkJob.SHARDING_TOTAL_COUNT, overwrite = true, executorServiceHandler = "default",
+        listener = "top.taka.seieiElasticJob.benchmark.BenchmarkCompletionListener")
+public class DefaultExecutorBenchmarkJob extends AbstractExecutorPresetBenchmarkJob {
+
+    public static final String JOB_NAME = "defaultExecutorBenchmarkJob";
+}
@@ -0,0 +1,18 @@
+package top.taka.seieiElasticJob.benchmark.job;
+
+import com.dangdang.ddframe.job.api.script.ScriptJob;
+import org.springframework.stereotype.Component;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+import top.taka.seieiElasticJob.benchmark.BenchmarkEnvironment;
+
+/**
+ * 脚本作业，16 个分片，每次触发为每个分片项创建一个 sh 进程（需要类 Unix 系统），与 WorkerScriptBenchmarkJob 对比
+ */
+@Component
+@SeieiElasticJobConfig(jobName = ForkingScriptBenchmarkJob.JOB_NAME, cron = BenchmarkEnvironment.MANUAL_CRON, shardingTotalCount = 16,
+        scriptCommandLine = "sh -c exit", overwrite = true,
+        listener = "top.taka.seieiElasticJob.benchmark.BenchmarkCompletionListener")
+public class ForkingScriptBenchmarkJob implements ScriptJob {
+
+    public static final String JOB_NAME = "forkingScriptBenchmarkJob";
+}
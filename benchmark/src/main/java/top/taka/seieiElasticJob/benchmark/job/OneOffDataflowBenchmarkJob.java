@@ -0,0 +1,32 @@
+package top.taka.seieiElasticJob.benchmark.job;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.api.dataflow.DataflowJob;
+import org.springframework.stereotype.Component;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+import top.taka.seieiElasticJob.benchmark.BenchmarkEnvironment;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 非流式处理的数据流作业，每次执行抓取并处理一页数据
+ */
+@Component
+@SeieiElasticJobConfig(jobName = OneOffDataflowBenchmarkJob.JOB_NAME, cron = BenchmarkEnvironment.MANUAL_CRON, overwrite = true,
+        listener = "top.taka.seieiElasticJob.benchmark.BenchmarkCompletionListener")
+public class OneOffDataflowBenchmarkJob implements DataflowJob<Integer> {
+
+    public static final String JOB_NAME = "oneOffDataflowBenchmarkJob";
+
+    private static final List<Integer> PAGE = Collections.singletonList(1);
+
+    @Override
+    public List<Integer> fetchData(ShardingContext shardingContext) {
+        return PAGE;
+    }
+
+    @Override
+    public void processData(ShardingContext shardingContext, List<Integer> data) {
+    }
+}
@@ -0,0 +1,26 @@
+package top.taka.seieiElasticJob.benchmark.job;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.api.simple.SimpleJob;
+import org.springframework.stereotype.Component;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+import top.taka.seieiElasticJob.benchmark.BenchmarkEnvironment;
+import top.taka.seieiElasticJob.benchmark.ShardDatabase;
+
+import java.util.Collections;
+
+/**
+ * 简单作业，64 个分片，每个分片项查询一次数据库，与 BatchShardBenchmarkJob 对比
+ */
+@Component
+@SeieiElasticJobConfig(jobName = PerItemShardBenchmarkJob.JOB_NAME, cron = BenchmarkEnvironment.MANUAL_CRON, shardingTotalCount = 64, overwrite = true,
+        listener = "top.taka.seieiElasticJob.benchmark.BenchmarkCompletionListener")
+public class PerItemShardBenchmarkJob implements SimpleJob {
+
+    public static final String JOB_NAME = "perItemShardBenchmarkJob";
+
+    @Override
+    public void execute(ShardingContext shardingContext) {
+        ShardDatabase.query(Collections.singletonList(shardingContext.getShardingItem()));
+    }
+}
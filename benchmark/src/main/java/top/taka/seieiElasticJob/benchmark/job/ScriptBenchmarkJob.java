@@ -0,0 +1,17 @@
+package top.taka.seieiElasticJob.benchmark.job;
+
+import com.dangdang.ddframe.job.api.script.ScriptJob;
+import org.springframework.stereotype.Component;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+import top.taka.seieiElasticJob.benchmark.BenchmarkEnvironment;
+
+/**
+ * 脚本作业，执行一个立即退出的命令（需要类 Unix 系统），主要开销是创建进程
+ */
+@Component
+@SeieiElasticJobConfig(jobName = ScriptBenchmarkJob.JOB_NAME, cron = BenchmarkEnvironment.MANUAL_CRON, scriptCommandLine = "true", overwrite = true,
+        listener = "top.taka.seieiElasticJob.benchmark.BenchmarkCompletionListener")
+public class ScriptBenchmarkJob implements ScriptJob {
+
+    public static final String JOB_NAME = "scriptBenchmarkJob";
+}
@@ -0,0 +1,23 @@
+package top.taka.seieiElasticJob.benchmark.job;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.api.simple.SimpleJob;
+import org.springframework.stereotype.Component;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+import top.taka.seieiElasticJob.benchmark.BenchmarkEnvironment;
+
+/**
+ * 空的简单作业，4 个分片，多个分片项会被提交到作业的执行线程池中执行
+ */
+@Component
+@SeieiElasticJobConfig(jobName = ShardedSimpleBenchmarkJob.JOB_NAME, cron = BenchmarkEnvironment.MANUAL_CRON, shardingTotalCount = 4,
+        shardingItemParameters = "0=a,1=b,2=c,3=d", overwrite = true,
+        listener = "top.taka.seieiElasticJob.benchmark.BenchmarkCompletionListener")
+public class ShardedSimpleBenchmarkJob implements SimpleJob {
+
+    public static final String JOB_NAME = "shardedSimpleBenchmarkJob";
+
+    @Override
+    public void execute(ShardingContext shardingContext) {
+    }
+}
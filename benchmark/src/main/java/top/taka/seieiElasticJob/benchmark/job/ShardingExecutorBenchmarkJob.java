@@ -0,0 +1,17 @@
+package top.taka.seieiElasticJob.benchmark.job;
+
+import org.springframework.stereotype.Component;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+import top.taka.seieiElasticJob.benchmark.BenchmarkEnvironment;
+
+/**
+ * 使用 sharding 预设（线程数随分片项数伸缩的线程池）的线程池预设对比作业
+ */
+@Component
+@SeieiElasticJobConfig(jobName = ShardingExecutorBenchmarkJob.JOB_NAME, cron = BenchmarkEnvironment.MANUAL_CRON,
+        shardingTotalCount = AbstractExecutorPresetBenchmarkJob.SHARDING_TOTAL_COUNT, overwrite = true, executorServiceHandler = "sharding",
+        listener = "top.taka.seieiElasticJob.benchmark.BenchmarkCompletionListener")
+public class ShardingExecutorBenchmarkJob extends AbstractExecutorPresetBenchmarkJob {
+
+    public static final String JOB_NAME = "shardingExecutorBenchmarkJob";
+}
@@ -0,0 +1,17 @@
+package top.taka.seieiElasticJob.benchmark.job;
+
+import org.springframework.stereotype.Component;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+import top.taka.seieiElasticJob.benchmark.BenchmarkEnvironment;
+
+/**
+ * 使用 shared 预设（所有作业共用的工作窃取线程池）的线程池预设对比作业
+ */
+@Component
+@SeieiElasticJobConfig(jobName = SharedExecutorBenchmarkJob.JOB_NAME, cron = BenchmarkEnvironment.MANUAL_CRON,
+        shardingTotalCount = AbstractExecutorPresetBenchmarkJob.SHARDING_TOTAL_COUNT, overwrite = true, executorServiceHandler = "shared",
+        listener = "top.taka.seieiElasticJob.benchmark.BenchmarkCompletionListener")
+public class SharedExecutorBenchmarkJob extends AbstractExecutorPresetBenchmarkJob {
+
+    public static final String JOB_NAME = "sharedExecutorBenchmarkJob";
+}
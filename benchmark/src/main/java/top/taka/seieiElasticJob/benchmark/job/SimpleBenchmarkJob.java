@@ -0,0 +1,22 @@
+package top.taka.seieiElasticJob.benchmark.job;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.api.simple.SimpleJob;
+import org.springframework.stereotype.Component;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+import top.taka.seieiElasticJob.benchmark.BenchmarkEnvironment;
+
+/**
+ * 空的简单作业，只有一个分片，分片项在触发线程中直接执行
+ */
+@Component
+@SeieiElasticJobConfig(jobName = SimpleBenchmarkJob.JOB_NAME, cron = BenchmarkEnvironment.MANUAL_CRON, overwrite = true,
+        listener = "top.taka.seieiElasticJob.benchmark.BenchmarkCompletionListener")
+public class SimpleBenchmarkJob implements SimpleJob {
+
+    public static final String JOB_NAME = "simpleBenchmarkJob";
+
+    @Override
+    public void execute(ShardingContext shardingContext) {
+    }
+}
@@ -0,0 +1,41 @@
+package top.taka.seieiElasticJob.benchmark.job;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.api.dataflow.DataflowJob;
+import org.springframework.stereotype.Component;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+import top.taka.seieiElasticJob.benchmark.BenchmarkEnvironment;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 流式处理的数据流作业，每次执行抓取一页数据，第二次抓取返回空列表结束执行
+ */
+@Component
+@SeieiElasticJobConfig(jobName = StreamingDataflowBenchmarkJob.JOB_NAME, cron = BenchmarkEnvironment.MANUAL_CRON, streamingProcess = true, overwrite = true,
+        listener = "top.taka.seieiElasticJob.benchmark.BenchmarkCompletionListener")
+public class StreamingDataflowBenchmarkJob implements DataflowJob<Integer> {
+
+    public static final String JOB_NAME = "streamingDataflowBenchmarkJob";
+
+    private static final List<Integer> PAGE = Collections.singletonList(1);
+
+    // 各个分片项本次执行是否已经抓取过数据
+    private final Map<Integer, Boolean> fetchedMap = new ConcurrentHashMap<>();
+
+    @Override
+    public List<Integer> fetchData(ShardingContext shardingContext) {
+        if (null != fetchedMap.remove(shardingContext.getShardingItem())) {
+            return Collections.emptyList();
+        }
+        fetchedMap.put(shardingContext.getShardingItem(), Boolean.TRUE);
+        return PAGE;
+    }
+
+    @Override
+    public void processData(ShardingContext shardingContext, List<Integer> data) {
+    }
+}
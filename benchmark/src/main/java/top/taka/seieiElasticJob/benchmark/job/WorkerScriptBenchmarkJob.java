@@ -0,0 +1,19 @@
+package top.taka.seieiElasticJob.benchmark.job;
+
+import com.dangdang.ddframe.job.api.script.ScriptJob;
+import org.springframework.stereotype.Component;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+import top.taka.seieiElasticJob.benchmark.BenchmarkEnvironment;
+
+/**
+ * 脚本作业，16 个分片，使用 16 个常驻的 sh 工作进程（需要类 Unix 系统），与 ForkingScriptBenchmarkJob 对比
+ */
+@Component
+@SeieiElasticJobConfig(jobName = WorkerScriptBenchmarkJob.JOB_NAME, cron = BenchmarkEnvironment.MANUAL_CRON, shardingTotalCount = 16,
+        scriptCommandLine = "sh -c 'while read -r line; do case $line in @@SEIEI\\ PING) echo @@SEIEI PONG;; *) echo @@SEIEI DONE 0;; esac; done'",
+        scriptWorkers = 16, overwrite = true,
+        listener = "top.taka.seieiElasticJob.benchmark.BenchmarkCompletionListener")
+public class WorkerScriptBenchmarkJob implements ScriptJob {
+
+    public static final String JOB_NAME = "workerScriptBenchmarkJob";
+}
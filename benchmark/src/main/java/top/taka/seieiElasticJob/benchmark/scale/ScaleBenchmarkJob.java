@@ -0,0 +1,84 @@
+package top.taka.seieiElasticJob.benchmark.scale;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.api.simple.SimpleJob;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+
+import java.util.Arrays;
+
+/**
+ * 作业数量对比使用的作业，由 ScaleNodeApplication 按不同的作业名称和 cron 注册多次
+ * 作业 i 的 cron 为 "(i % 10)/10 * * * * ?"，每 10 秒触发一次，触发时间按作业分散在 10 个整秒上，
+ * 执行时记录实际开始时间与计划触发时间的差值（触发抖动），作业本身为空
+ * 不加 @Component，避免被 BenchmarkApplication 扫描
+ */
+@SeieiElasticJobConfig(jobName = "scaleBenchmarkJob", cron = "0/10 * * * * ?", shardingTotalCount = 1,
+        failover = false, monitorExecution = false, misfire = false, overwrite = true)
+public class ScaleBenchmarkJob implements SimpleJob {
+
+    // 作业的触发间隔
+    public static final long INTERVAL_MILLISECONDS = 10000L;
+
+    private static final Object LOCK = new Object();
+
+    // 开始记录后的触发抖动（毫秒）
+    private static long[] lags = new long[1024];
+
+    private static int lagCount;
+
+    private static volatile boolean recording;
+
+    /**
+     * 作业 i 的 cron 表达式
+     * @param index 作业序号
+     * @return
+     */
+    public static String getCron(int index) {
+        return (index % 10) + "/10 * * * * ?";
+    }
+
+    /**
+     * 清空已记录的触发抖动并开始记录
+     */
+    public static void startRecording() {
+        synchronized (LOCK) {
+            lagCount = 0;
+            recording = true;
+        }
+    }
+
+    /**
+     * 停止记录并返回排序后的触发抖动
+     * @return
+     */
+    public static long[] stopRecording() {
+        synchronized (LOCK) {
+            recording = false;
+            long[] result = Arrays.copyOf(lags, lagCount);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+
+    @Override
+    public void execute(ShardingContext shardingContext) {
+        long now = System.currentTimeMillis();
+        if (!recording) {
+            return;
+        }
+        // 作业名称以序号结尾，计划触发时间为不晚于当前时间、且秒数与序号模 10 相同的最近一个整秒
+        String jobName = shardingContext.getJobName();
+        int index = Integer.parseInt(jobName.substring(jobName.lastIndexOf('-') + 1));
+        long offset = (index % 10) * 1000L;
+        long lag = ((now - offset) % INTERVAL_MILLISECONDS + INTERVAL_MILLISECONDS) % INTERVAL_MILLISECONDS;
+        synchronized (LOCK) {
+            if (!recording) {
+                return;
+            }
+            if (lagCount == lags.length) {
+                lags = Arrays.copyOf(lags, lagCount * 2);
+            }
+            lags[lagCount++] = lag;
+        }
+    }
+}
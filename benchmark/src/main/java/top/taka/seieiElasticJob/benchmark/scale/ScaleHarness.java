@@ -0,0 +1,124 @@
+package top.taka.seieiElasticJob.benchmark.scale;
+
+import org.apache.curator.test.TestingServer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 作业数量对调度开销的影响
+ * 进程内的 Curator TestingServer 作为 Zookeeper，按作业数量和调度模式分别启动 ScaleNodeApplication 子进程，
+ * 子进程注册指定数量的 ScaleBenchmarkJob（每 10 秒触发一次，触发时间分散在 10 个整秒上），统计：
+ *     注册耗时：逐个注册所有作业的时间，超过注册时间上限时停止注册，只统计已注册的作业；
+ *     线程数：记录结束时的线程数和峰值线程数，standalone 模式每个作业有独立的 Quartz 调度器和线程；
+ *     内存：进程常驻内存（RSS，仅 Linux）和已使用的堆内存；
+ *     触发抖动：作业开始执行时间与计划触发时间的差值，p50、p99、最大值；执行次数与应执行次数的比较反映漏触发。
+ * 运行方式：mvn -f benchmark/pom.xml compile exec:java -Dstart-class=top.taka.seieiElasticJob.benchmark.scale.ScaleHarness
+ * 可选参数：-Dscale.jobCounts=100,1000,5000（作业数量）、-Dscale.modes=standalone,shared（调度模式）、
+ *     -Dscale.sharedThreads=16（共享调度模式同时执行的作业数上限，默认随作业数量增长）、-Dscale.xmx=4g（子进程最大堆内存）、
+ *     -Dscale.registerTimeout=600（注册时间上限，秒）、-Dscale.verbose=true（输出子进程日志）
+ */
+public final class ScaleHarness {
+
+    private static final String[] JOB_COUNTS = System.getProperty("scale.jobCounts", "100,1000,5000").split(",");
+
+    private static final String[] MODES = System.getProperty("scale.modes", "standalone,shared").split(",");
+
+    private static final String SHARED_THREADS = System.getProperty("scale.sharedThreads");
+
+    private static final String XMX = System.getProperty("scale.xmx", "4g");
+
+    private static final String REGISTER_TIMEOUT_SECONDS = System.getProperty("scale.registerTimeout", "600");
+
+    private static final boolean VERBOSE = Boolean.getBoolean("scale.verbose");
+
+    private ScaleHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("作业每 " + ScaleBenchmarkJob.INTERVAL_MILLISECONDS / 1000 + " 秒触发一次，分片总数 1，作业本身为空");
+        List<String> rows = new ArrayList<>();
+        try (TestingServer testingServer = new TestingServer(true)) {
+            for (String jobCount : JOB_COUNTS) {
+                for (String mode : MODES) {
+                    rows.add(runTrial(testingServer, Integer.parseInt(jobCount.trim()), mode.trim()));
+                }
+            }
+        }
+        System.out.println(String.format("%12s %-10s %12s %8s %10s %10s %10s %16s %10s %10s %10s",
+                "已注册/作业数", "模式", "注册耗时(ms)", "线程数", "峰值线程数", "RSS(MB)", "堆(MB)", "执行/应执行", "抖动p50", "抖动p99", "抖动最大"));
+        for (String each : rows) {
+            System.out.println(each);
+        }
+        System.exit(0);
+    }
+
+    private static String runTrial(TestingServer testingServer, int jobCount, String mode) throws Exception {
+        System.out.println("开始 " + jobCount + " 个作业 / " + mode);
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-Dfile.encoding=UTF-8");
+        command.add("-Xmx" + XMX);
+        if (!System.getProperty("java.specification.version").startsWith("1.")) {
+            // spring 的 cglib 代理在 Java 9 以上需要反射访问 java.lang
+            command.add("--add-opens=java.base/java.lang=ALL-UNNAMED");
+        }
+        command.add("-classpath");
+        command.add(buildClassPath());
+        command.add(ScaleNodeApplication.class.getName());
+        Collections.addAll(command,
+                "--elastic.job.zk.serverLists=" + testingServer.getConnectString(),
+                "--elastic.job.zk.namespace=seiei-scale-" + mode + "-" + jobCount,
+                "--elastic.job.zk.schedulerMode=" + mode,
+                "--scale.jobs=" + jobCount,
+                "--scale.registerTimeoutSeconds=" + REGISTER_TIMEOUT_SECONDS);
+        if (null != SHARED_THREADS) {
+            command.add("--elastic.job.zk.sharedSchedulerThreads=" + SHARED_THREADS);
+        }
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String result = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while (null != (line = reader.readLine())) {
+                if (line.startsWith(ScaleNodeApplication.OUTPUT_PREFIX)) {
+                    result = line;
+                } else if (VERBOSE) {
+                    System.out.println("[" + mode + "-" + jobCount + "] " + line);
+                }
+            }
+        }
+        // 子进程输出结果后自行退出
+        process.waitFor();
+        if (null == result) {
+            return String.format("%12d %-10s %12s", jobCount, mode, "失败，退出码 " + process.exitValue());
+        }
+        String[] fields = result.split(" ");
+        long expected = Long.parseLong(fields[1]) * ScaleNodeApplication.OBSERVE_MILLISECONDS / ScaleBenchmarkJob.INTERVAL_MILLISECONDS;
+        return String.format("%12s %-10s %12s %8s %10s %10s %10s %16s %10s %10s %10s", fields[1] + "/" + jobCount, mode, fields[2], fields[3], fields[4], fields[5], fields[6],
+                fields[7] + "/" + expected, fields[8], fields[9], fields[10]);
+    }
+
+    private static String buildClassPath() throws URISyntaxException {
+        // exec:java 在 Maven 进程中以独立的类加载器运行，java.class.path 不是项目的类路径
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (!(classLoader instanceof URLClassLoader)) {
+            return System.getProperty("java.class.path");
+        }
+        StringBuilder result = new StringBuilder();
+        for (URL each : ((URLClassLoader) classLoader).getURLs()) {
+            if (result.length() > 0) {
+                result.append(File.pathSeparatorChar);
+            }
+            result.append(new File(each.toURI()).getPath());
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,96 @@
+package top.taka.seieiElasticJob.benchmark.scale;
+
+import org.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import top.taka.seieiElasticJob.annotation.EnableSeieiElasticJob;
+import top.taka.seieiElasticJob.registry.SeieiJobRegistry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ScaleHarness 启动的作业实例进程，通过 SeieiJobRegistry 注册指定数量的 ScaleBenchmarkJob，
+ * 预热后记录一段时间内的触发抖动，向标准输出写一行结果后退出，由 ScaleHarness 解析
+ * 每种作业数量和调度模式使用单独的进程，线程数和内存占用互不影响。不加 @Configuration，避免被 BenchmarkApplication 扫描
+ * 参数为 spring 命令行配置项，如 --elastic.job.zk.schedulerMode=shared，作业数量由 --scale.jobs 指定，
+ * 注册超过 --scale.registerTimeoutSeconds 秒时停止注册，按已注册的作业统计
+ */
+@EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class, MybatisAutoConfiguration.class})
+@EnableSeieiElasticJob
+public class ScaleNodeApplication {
+
+    // 输出行的前缀，格式：前缀 已注册作业数 注册耗时 线程数 峰值线程数 RSS(MB) 堆内存(MB) 执行次数 抖动 p50 p99 最大值
+    public static final String OUTPUT_PREFIX = "SCALE-RESULT";
+
+    // 注册完成后等待的时间，覆盖两个触发周期
+    private static final long WARM_UP_MILLISECONDS = ScaleBenchmarkJob.INTERVAL_MILLISECONDS * 2;
+
+    // 记录触发抖动的时间
+    static final long OBSERVE_MILLISECONDS = ScaleBenchmarkJob.INTERVAL_MILLISECONDS * 6;
+
+    public static void main(String[] args) throws Exception {
+        ConfigurableApplicationContext applicationContext = new SpringApplicationBuilder(ScaleNodeApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off", "logging.level.root=WARN")
+                .run(args);
+        int jobCount = Integer.parseInt(applicationContext.getEnvironment().getRequiredProperty("scale.jobs"));
+        long registerTimeoutMilliseconds = Long.parseLong(applicationContext.getEnvironment().getProperty("scale.registerTimeoutSeconds", "600")) * 1000L;
+        SeieiJobRegistry seieiJobRegistry = applicationContext.getBean(SeieiJobRegistry.class);
+        long startTime = System.currentTimeMillis();
+        int registeredCount = 0;
+        for (int i = 0; i < jobCount && System.currentTimeMillis() - startTime < registerTimeoutMilliseconds; i++) {
+            Map<String, String> attributes = new HashMap<>();
+            attributes.put("jobName", "scaleBenchmarkJob-" + i);
+            attributes.put("cron", ScaleBenchmarkJob.getCron(i));
+            seieiJobRegistry.register(ScaleBenchmarkJob.class, attributes);
+            registeredCount++;
+        }
+        long startupMilliseconds = System.currentTimeMillis() - startTime;
+        Thread.sleep(WARM_UP_MILLISECONDS);
+        ScaleBenchmarkJob.startRecording();
+        Thread.sleep(OBSERVE_MILLISECONDS);
+        long[] lags = ScaleBenchmarkJob.stopRecording();
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        int peakThreads = ManagementFactory.getThreadMXBean().getPeakThreadCount();
+        long heapMegabytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() >> 20;
+        System.out.println(OUTPUT_PREFIX + " " + registeredCount + " " + startupMilliseconds + " " + threads + " " + peakThreads + " " + getResidentMegabytes() + " " + heapMegabytes
+                + " " + lags.length + " " + percentile(lags, 0.5) + " " + percentile(lags, 0.99) + " " + percentile(lags, 1.0));
+        System.out.flush();
+        // Quartz 线程不是守护线程，作业数量较多时逐个关闭较慢，直接退出
+        System.exit(0);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (0 == sorted.length) {
+            return -1L;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    /**
+     * 进程的常驻内存（MB），从 /proc/self/status 读取，非 Linux 系统返回 -1
+     */
+    private static long getResidentMegabytes() {
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get("/proc/self/status"), StandardCharsets.UTF_8)) {
+            String line;
+            while (null != (line = reader.readLine())) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.substring("VmRSS:".length()).replace("kB", "").trim()) >> 10;
+                }
+            }
+        } catch (IOException e) {
+            // 非 Linux 系统
+        }
+        return -1L;
+    }
+}
@@ -29,6 +29,8 @@ public @interface SeieiElasticJobConfig {
 
     String jobName(); // 作业名称
 
+    String registryCenter() default ""; // 作业使用的注册中心名称，对应 elastic.job.zk.registries 中的配置，为空时使用默认注册中心
+
     String cron() default ""; // cron表达式，用于控制作业触发时间
 
     int shardingTotalCount() default 1; // 作业分片总数
@@ -42,10 +44,18 @@ public @interface SeieiElasticJobConfig {
                                         // 作业自定义参数，可通过传递该参数为作业调度的业务方法传参，用于实现带参数的作业
                                         // 例：每次获取的数据量、作业实例从数据库读取的主键等
 
-    boolean failover() default false; // 是否开启任务执行失效转移，开启表示如果作业在一次任务执行中途宕机，允许将该次未完成的任务在另一作业节点上补偿执行
+    int parameterCompressThreshold() default 0; // jobParameter 和 shardingItemParameters 中单个参数超过该字节数时压缩后写入注册中心，作业执行时自动解压，小于 1 表示不压缩
+
+    String parameterStorage() default "inline"; // 压缩后参数的存储方式：inline、node，见 ParameterStorage
+
+    boolean failover() default false; // 是否开启任务执行失效转移，开启表示如果作业在一次任务执行中途宕机，允许将该次未完成的任务在另一作业节点上补偿执行；elastic.job.zk.failoverMode=heartbeat 时按心跳超时快速失效转移，需同时开启 monitorExecution
 
     boolean misfire() default true; // 是否开启错过任务重新执行
 
+    String overlapPolicy() default "misfire"; // 执行时间超过触发间隔时错过的触发的处理策略：misfire、skip、coalesce、queue，见 OverlapPolicy；misfire 以外的策略会关闭 misfire
+
+    int overlapQueueSize() default 3; // queue 策略下最多排队的补偿执行次数
+
     String description() default  ""; // 作业描述信息
 
     boolean overwrite() default false; // 本地配置是否可覆盖注册中心配置
@@ -54,6 +64,14 @@ public @interface SeieiElasticJobConfig {
 
     String scriptCommandLine() default ""; // 脚本型作业执行命令行
 
+    int scriptWorkers() default 0; // 脚本型作业的常驻工作进程数，大于 0 时启动常驻进程执行分片项，不再每次触发为每个分片项创建进程，协议见 ScriptWorkerPool
+
+    int scriptWorkerMaxRuns() default 1000; // 常驻工作进程执行多少次后回收重建，小于 1 表示不回收
+
+    long scriptWorkerTimeoutMilliseconds() default 60000; // 常驻模式下单个分片项的执行超时时间，超时的工作进程会被结束并重建
+
+    long scriptWorkerHealthCheckIntervalMilliseconds() default 30000; // 常驻模式下空闲工作进程的健康检查间隔，小于 1 表示不检查
+
     boolean monitorExecution() default false; // 是否监控作业运行时状态
 
     int monitorPort() default -1; // 作业监控端口
@@ -62,10 +80,16 @@ public @interface SeieiElasticJobConfig {
 
     String jobShardingStrategyClass() default ""; // 作业分片策略实现类全路径
 
+    boolean loadAwareSharding() default false; // 是否使用基于分片项历史耗时的负载均衡分片策略，开启后忽略 jobShardingStrategyClass
+
     int reconcileIntervalMinutes() default 10; // 修复作业服务器不一致状态服务调度间隔时间，配置为小于1的任意值表示不执行修复
 
     String eventTraceRdbDataSource() default ""; // 作业事件追踪的数据源Bean引用
 
+    String eventTraceMode() default "sync"; // 作业事件追踪的写入方式，sync：elastic-job 默认的逐条写入，async：放入缓冲区后由后台线程批量写入，缓冲区等配置同一数据源共用，见 SeieiElasticJobProperties
+
+    String checkpointDataSource() default ""; // 作业断点的数据源Bean引用，继承 CheckpointDataflowJob 的作业必须配置，写入间隔见 SeieiElasticJobProperties
+
     String listener() default "";	// 前置后置任务监听实现类，需实现 ElasticJobListener 接口
 
     boolean disabled() default false;	// 作业是否禁止启动
@@ -78,5 +102,5 @@ public @interface SeieiElasticJobConfig {
 
     String jobExceptionHandler() default "com.dangdang.ddframe.job.executor.handler.impl.DefaultJobExceptionHandler"; // 扩展异常处理类
 
-    String executorServiceHandler() default "com.dangdang.ddframe.job.executor.handler.impl.DefaultExecutorServiceHandler"; // 扩展作业处理线程池类
+    String executorServiceHandler() default "com.dangdang.ddframe.job.executor.handler.impl.DefaultExecutorServiceHandler"; // 扩展作业处理线程池类，也可以是内置的预设线程池：default、shared、sharding、cpu、io，见 ExecutorPreset
 }
@@ -1,24 +1,42 @@
 package top.taka.seieiElasticJob.autoConfigure;
 
+import com.dangdang.ddframe.job.exception.JobConfigurationException;
+import com.dangdang.ddframe.job.reg.base.CoordinatorRegistryCenter;
 import com.dangdang.ddframe.job.reg.zookeeper.ZookeeperConfiguration;
 import com.dangdang.ddframe.job.reg.zookeeper.ZookeeperRegistryCenter;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
+import top.taka.seieiElasticJob.regCenter.LocalRegistryServer;
+import top.taka.seieiElasticJob.regCenter.RegistryCenterRouter;
+import top.taka.seieiElasticJob.registry.SeieiJobRegistry;
+import top.taka.seieiElasticJob.registry.SeieiJobRegistryEndpoint;
+import top.taka.seieiElasticJob.scheduler.SharedSchedulerCore;
+import top.taka.seieiElasticJob.trace.JobTraceEndpoint;
+import top.taka.seieiElasticJob.trace.JobTraceRecorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * 设置在 spring.factories 的自动装配类
  */
 @Configuration
 /**
- * 当配置文件中包含 elastic,job.zk.namespace 和 elastic,job.zk.serverLists 才会加载该配置类
+ * 当配置文件中包含 elastic,job.zk.namespace 和 elastic,job.zk.serverLists，或者 elastic.job.zk.registryMode=local 时才会加载该配置类
  */
-@ConditionalOnProperty(prefix = "elastic.job.zk", name = {"namespace", "serverLists"}, matchIfMissing = false)
+@Conditional(SeieiElasticJobAutoConfiguration.RegistryCenterConfiguredCondition.class)
 // 扫描配置信息 Bean 和 注释解析器 SeieiElasticJobConfigParser
 @ComponentScan({"top.taka.seieiElasticJob.*"})
 public class SeieiElasticJobAutoConfiguration {
@@ -39,18 +57,132 @@ public class SeieiElasticJobAutoConfiguration {
     // 它的使用场景就是：如果想将第三方的类变成组件，你又没有没有源代码，也就没办法使用 @Component 进行自动配置，这种时候使用 @Bean 就比较合适了
     // 如下：
     @Bean
-    public ZookeeperRegistryCenter zookeeperRegistryCenter() {
-        ZookeeperConfiguration zookeeperConfiguration = new ZookeeperConfiguration(seieiElasticJobProperties.getServerLists(), seieiElasticJobProperties.getNamespace());
+    public ZookeeperRegistryCenter zookeeperRegistryCenter(ObjectProvider<LocalRegistryServer> localRegistryServerProvider) {
+        // 本地注册中心模式下连接进程内的注册中心
+        LocalRegistryServer localRegistryServer = localRegistryServerProvider.getIfAvailable();
+        String serverLists = null == localRegistryServer ? seieiElasticJobProperties.getServerLists() : localRegistryServer.getConnectString();
+        return createZookeeperRegistryCenter(serverLists, seieiElasticJobProperties.getNamespace(),
+                seieiElasticJobProperties.getSessionTimeoutMilliseconds(), seieiElasticJobProperties.getConnectionTimeoutMilliseconds());
+    }
+
+    /**
+     * 注册中心路由，创建并初始化 elastic.job.zk.registries 中配置的命名注册中心，每个注册中心使用独立的 Curator 会话
+     * 依赖默认注册中心，容器关闭时先关闭命名的注册中心
+     * @param zookeeperRegistryCenter 默认注册中心
+     * @return
+     */
+    @Bean(destroyMethod = "close")
+    public RegistryCenterRouter registryCenterRouter(ZookeeperRegistryCenter zookeeperRegistryCenter) {
+        Map<String, CoordinatorRegistryCenter> registryCenterMap = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, SeieiElasticJobProperties.Registry> entry : seieiElasticJobProperties.getRegistries().entrySet()) {
+                SeieiElasticJobProperties.Registry registry = entry.getValue();
+                if (StringUtils.isBlank(registry.getServerLists()) || StringUtils.isBlank(registry.getNamespace())) {
+                    throw new JobConfigurationException("Registry center '%s' must configure serverLists and namespace.", entry.getKey());
+                }
+                registryCenterMap.put(entry.getKey(), createZookeeperRegistryCenter(registry.getServerLists(), registry.getNamespace(),
+                        null == registry.getSessionTimeoutMilliseconds() ? seieiElasticJobProperties.getSessionTimeoutMilliseconds() : registry.getSessionTimeoutMilliseconds(),
+                        null == registry.getConnectionTimeoutMilliseconds() ? seieiElasticJobProperties.getConnectionTimeoutMilliseconds() : registry.getConnectionTimeoutMilliseconds()));
+            }
+        } catch (RuntimeException e) {
+            // 关闭已经初始化的注册中心，避免遗留 Curator 会话
+            for (CoordinatorRegistryCenter each : registryCenterMap.values()) {
+                each.close();
+            }
+            throw e;
+        }
+        return new RegistryCenterRouter(zookeeperRegistryCenter, registryCenterMap);
+    }
+
+    private ZookeeperRegistryCenter createZookeeperRegistryCenter(String serverLists, String namespace, int sessionTimeoutMilliseconds, int connectionTimeoutMilliseconds) {
+        ZookeeperConfiguration zookeeperConfiguration = new ZookeeperConfiguration(serverLists, namespace);
         zookeeperConfiguration.setBaseSleepTimeMilliseconds(seieiElasticJobProperties.getBaseSleepTimeMilliseconds());
         zookeeperConfiguration.setMaxSleepTimeMilliseconds(seieiElasticJobProperties.getMaxSleepTimeMilliseconds());
         zookeeperConfiguration.setMaxRetries(seieiElasticJobProperties.getMaxRetries());
-        zookeeperConfiguration.setConnectionTimeoutMilliseconds(seieiElasticJobProperties.getConnectionTimeoutMilliseconds());
-        zookeeperConfiguration.setSessionTimeoutMilliseconds(seieiElasticJobProperties.getSessionTimeoutMilliseconds());
+        zookeeperConfiguration.setConnectionTimeoutMilliseconds(connectionTimeoutMilliseconds);
+        zookeeperConfiguration.setSessionTimeoutMilliseconds(sessionTimeoutMilliseconds);
         ZookeeperRegistryCenter zookeeperRegistryCenter = new ZookeeperRegistryCenter(zookeeperConfiguration);
         zookeeperRegistryCenter.init();
-        logger.info("初始化 Zookeeper 注册中心成功！ServerLists：{}，Namespace：{}", seieiElasticJobProperties.getServerLists(), seieiElasticJobProperties.getNamespace());
+        logger.info("初始化 Zookeeper 注册中心成功！ServerLists：{}，Namespace：{}", serverLists, namespace);
         return zookeeperRegistryCenter;
     }
 
+    /**
+     * 进程内的本地注册中心，只有配置 elastic.job.zk.registryMode=local 时才会创建
+     * 作为 zookeeperRegistryCenter 的依赖，容器关闭时在注册中心客户端关闭之后才关闭
+     * @return
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "elastic.job.zk", name = "registryMode", havingValue = "local")
+    public LocalRegistryServer localRegistryServer() {
+        return new LocalRegistryServer(seieiElasticJobProperties.getLocalDataDir(), seieiElasticJobProperties.getLocalPort());
+    }
+
+    /**
+     * 共享调度核心，只有配置 elastic.job.zk.schedulerMode=shared 时才会创建
+     * 依赖注册中心是为了保证容器关闭时先关闭调度器、移除作业实例节点，再关闭注册中心（注册中心路由依赖默认注册中心）
+     * @param registryCenterRouter 注册中心路由
+     * @return
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "elastic.job.zk", name = "schedulerMode", havingValue = "shared")
+    public SharedSchedulerCore sharedSchedulerCore(RegistryCenterRouter registryCenterRouter) {
+        SharedSchedulerCore sharedSchedulerCore = new SharedSchedulerCore(seieiElasticJobProperties.getSharedSchedulerThreads());
+        int sharedSchedulerThreads = seieiElasticJobProperties.getSharedSchedulerThreads();
+        logger.info("初始化共享调度器成功！同时执行的作业数上限：{}", sharedSchedulerThreads > 0 ? sharedSchedulerThreads : "随作业数量增长，当前 " + sharedSchedulerCore.getThreadCount());
+        return sharedSchedulerCore;
+    }
 
+    /**
+     * 作业执行阶段耗时记录器，只有配置 elastic.job.zk.traceEnabled=true 时才会创建
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "elastic.job.zk", name = "traceEnabled", havingValue = "true")
+    public JobTraceRecorder jobTraceRecorder() {
+        return new JobTraceRecorder(seieiElasticJobProperties.getTraceBufferSize(), seieiElasticJobProperties.getTraceSlowThresholdMilliseconds());
+    }
+
+    /**
+     * 运行时作业管理端点，只有引入 spring-boot-actuator 时才会创建
+     */
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    static class SeieiJobRegistryEndpointConfiguration {
+
+        /**
+         * 端点可以注册和移除作业，而 JMX 默认暴露所有端点，所以只有配置 elastic.job.zk.registryEndpointEnabled=true 时才会创建
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnProperty(prefix = "elastic.job.zk", name = "registryEndpointEnabled", havingValue = "true")
+        public SeieiJobRegistryEndpoint seieiJobRegistryEndpoint(SeieiJobRegistry seieiJobRegistry) {
+            return new SeieiJobRegistryEndpoint(seieiJobRegistry);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnProperty(prefix = "elastic.job.zk", name = "traceEnabled", havingValue = "true")
+        public JobTraceEndpoint jobTraceEndpoint(JobTraceRecorder jobTraceRecorder) {
+            return new JobTraceEndpoint(jobTraceRecorder);
+        }
+    }
+
+    /**
+     * 配置了 Zookeeper 集群地址和命名空间，或者配置了本地注册中心模式
+     */
+    static class RegistryCenterConfiguredCondition extends AnyNestedCondition {
+
+        RegistryCenterConfiguredCondition() {
+            super(ConfigurationPhase.PARSE_CONFIGURATION);
+        }
+
+        @ConditionalOnProperty(prefix = "elastic.job.zk", name = {"namespace", "serverLists"}, matchIfMissing = false)
+        static class ZookeeperConfigured {
+        }
+
+        @ConditionalOnProperty(prefix = "elastic.job.zk", name = "registryMode", havingValue = "local")
+        static class LocalConfigured {
+        }
+    }
 }
@@ -2,6 +2,12 @@ package top.taka.seieiElasticJob.autoConfigure;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import top.taka.seieiElasticJob.enums.FailoverMode;
+import top.taka.seieiElasticJob.enums.JobSchedulerMode;
+import top.taka.seieiElasticJob.enums.RegistryCenterMode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * 配置文件
@@ -26,12 +32,65 @@ public class SeieiElasticJobProperties {
      */
     private String namespace;
 
+    /**
+     * 其他命名的注册中心，作业通过 @SeieiElasticJobConfig 的 registryCenter 指定使用哪一个，未指定的作业使用上面的默认注册中心
+     * 如: elastic.job.zk.registries.heavy.serverLists=host3:2181,host4:2181
+     *     elastic.job.zk.registries.heavy.namespace=heavy-job
+     */
+    private Map<String, Registry> registries = new LinkedHashMap<>();
+
+    private String registryMode = RegistryCenterMode.ZOOKEEPER.value; // 注册中心模式，zookeeper：连接 serverLists 指定的集群，local：在当前进程内启动单机注册中心，无需配置 serverLists
+    private String localDataDir; // local 模式下的数据目录，为空时使用临时目录（关闭后数据丢失），指定时关闭前写入快照，重启后恢复
+    private int localPort = 0; // local 模式下注册中心只监听回环地址，0 表示随机端口
+
     private int baseSleepTimeMilliseconds = 1000; // 等待重试的间隔时间的初始值，单位：毫秒
     private int maxSleepTimeMilliseconds	= 3000; // 等待重试的间隔时间的最大值，单位：毫秒
     private int maxRetries = 3; // 最大重试次数
     private int sessionTimeoutMilliseconds = 60000;	// 会话超时时间，单位：毫秒
     private int connectionTimeoutMilliseconds = 15000; // 连接超时时间，单位：毫秒
 
+    private int bootstrapThreads = 1; // 作业启动线程数，大于 1 时使用并行批量启动模式，单个作业启动失败不影响其他作业
+    private int bootstrapTimeoutSeconds = 300; // 并行批量启动模式下等待所有作业启动完成的最长时间，单位：秒
+
+    private String schedulerMode = JobSchedulerMode.STANDALONE.value; // 作业调度模式，standalone：每个作业独立的调度器，shared：所有作业共享一个调度器
+    /**
+     * 共享调度模式下同时执行的作业数上限，执行线程按需创建、空闲 60 秒后回收
+     * 0 表示随已注册的作业数量增长（不少于 CPU 核数的 2 倍），每个作业都能在触发时立即得到执行线程；
+     * 指定上限时，需要的线程数约为 每秒触发的作业数 × 单次执行耗时（秒），触发等待执行线程超过 1 秒即错过执行，
+     * 未开启 misfire 的作业会丢弃这次触发，错过执行次数见 SharedSchedulerCore.getMisfiredCount 和警告日志
+     */
+    private int sharedSchedulerThreads = 0;
+
+    private String failoverMode = FailoverMode.SESSION.value; // 失效转移模式，session：会话超时后失效转移，heartbeat：心跳超时后隔离失联实例并失效转移，只对开启了 failover 的作业生效
+    private long failoverHeartbeatIntervalMilliseconds = 1000; // heartbeat 模式下的心跳间隔，单位：毫秒
+    private long failoverHeartbeatTimeoutMilliseconds = 5000; // heartbeat 模式下判定实例失联的心跳超时时间，至少为心跳间隔的 3 倍，单位：毫秒
+
+    private boolean metricsEnabled = true; // 存在 micrometer 的 MeterRegistry 时是否自动为每个作业发布运行指标
+
+    private int executorSharedParallelism = Runtime.getRuntime().availableProcessors() * 2; // shared 预设线程池的线程数，所有作业共用
+    private int executorQueueSize = 1024; // shared、cpu、io 预设线程池的最大排队分片项数，超出后由作业触发线程直接执行
+    private int executorShardingMaxThreads = 256; // sharding 预设线程池每个作业的最大线程数
+    private int executorIoThreadsPerCore = 8; // io 预设线程池每个 CPU 核的线程数
+
+    private boolean jobIndexEnabled = true; // 存在编译期生成的作业索引时是否使用索引，关闭后始终扫描 @SeieiElasticJobConfig 注解
+
+    private boolean registryEndpointEnabled = false; // 引入 spring-boot-actuator 时是否注册运行时作业管理端点 seieijobs，端点可以注册和移除作业，需显式开启
+
+    private boolean traceEnabled = false; // 是否记录每次作业执行各阶段的耗时，见 JobTraceRecorder
+    private int traceBufferSize = 32; // 每个作业在内存中保留的最近执行记录数
+    private long traceSlowThresholdMilliseconds = 0; // 执行耗时超过该值时输出各阶段耗时日志，小于 1 表示不输出
+
+    private int eventTraceBufferSize = 8192; // async 模式下事件缓冲区大小，同一数据源的所有作业共用一个写入器，见 BatchJobEventRdbWriter
+    private int eventTraceFlushSize = 200; // async 模式下每批写入的最大事件数
+    private long eventTraceFlushIntervalMilliseconds = 1000; // async 模式下最长写入间隔时间，单位：毫秒
+    private String eventTraceOverflowPolicy = "drop"; // async 模式下缓冲区已满时的处理策略，drop：丢弃事件，block：等待缓冲区空出
+    private int eventTraceRetentionDays = 0; // 事件追踪表记录的保留天数，过期记录由后台线程分批删除，小于 1 表示不清理，见 JobEventHistory
+    private int eventTracePurgeBatchSize = 1000; // 每批删除的最大记录数，每批单独提交
+    private long eventTracePurgeIntervalMinutes = 60; // 清理过期记录的间隔时间，单位：分钟
+    private boolean eventTraceIndexEnabled = true; // 是否为事件追踪表创建按作业名称和时间查询的索引
+
+    private long checkpointFlushIntervalMilliseconds = 1000; // 断点写入数据库的间隔时间，同一数据源的所有作业共用一个断点存储，单位：毫秒
+
     public String getServerLists() {
         return serverLists;
     }
@@ -48,6 +107,38 @@ public class SeieiElasticJobProperties {
         this.namespace = namespace;
     }
 
+    public Map<String, Registry> getRegistries() {
+        return registries;
+    }
+
+    public void setRegistries(Map<String, Registry> registries) {
+        this.registries = registries;
+    }
+
+    public String getRegistryMode() {
+        return registryMode;
+    }
+
+    public void setRegistryMode(String registryMode) {
+        this.registryMode = registryMode;
+    }
+
+    public String getLocalDataDir() {
+        return localDataDir;
+    }
+
+    public void setLocalDataDir(String localDataDir) {
+        this.localDataDir = localDataDir;
+    }
+
+    public int getLocalPort() {
+        return localPort;
+    }
+
+    public void setLocalPort(int localPort) {
+        this.localPort = localPort;
+    }
+
     public int getBaseSleepTimeMilliseconds() {
         return baseSleepTimeMilliseconds;
     }
@@ -87,4 +178,258 @@ public class SeieiElasticJobProperties {
     public void setConnectionTimeoutMilliseconds(int connectionTimeoutMilliseconds) {
         this.connectionTimeoutMilliseconds = connectionTimeoutMilliseconds;
     }
+
+    public int getBootstrapThreads() {
+        return bootstrapThreads;
+    }
+
+    public void setBootstrapThreads(int bootstrapThreads) {
+        this.bootstrapThreads = bootstrapThreads;
+    }
+
+    public int getBootstrapTimeoutSeconds() {
+        return bootstrapTimeoutSeconds;
+    }
+
+    public void setBootstrapTimeoutSeconds(int bootstrapTimeoutSeconds) {
+        this.bootstrapTimeoutSeconds = bootstrapTimeoutSeconds;
+    }
+
+    public String getSchedulerMode() {
+        return schedulerMode;
+    }
+
+    public void setSchedulerMode(String schedulerMode) {
+        this.schedulerMode = schedulerMode;
+    }
+
+    public int getSharedSchedulerThreads() {
+        return sharedSchedulerThreads;
+    }
+
+    public void setSharedSchedulerThreads(int sharedSchedulerThreads) {
+        this.sharedSchedulerThreads = sharedSchedulerThreads;
+    }
+
+    public String getFailoverMode() {
+        return failoverMode;
+    }
+
+    public void setFailoverMode(String failoverMode) {
+        this.failoverMode = failoverMode;
+    }
+
+    public long getFailoverHeartbeatIntervalMilliseconds() {
+        return failoverHeartbeatIntervalMilliseconds;
+    }
+
+    public void setFailoverHeartbeatIntervalMilliseconds(long failoverHeartbeatIntervalMilliseconds) {
+        this.failoverHeartbeatIntervalMilliseconds = failoverHeartbeatIntervalMilliseconds;
+    }
+
+    public long getFailoverHeartbeatTimeoutMilliseconds() {
+        return failoverHeartbeatTimeoutMilliseconds;
+    }
+
+    public void setFailoverHeartbeatTimeoutMilliseconds(long failoverHeartbeatTimeoutMilliseconds) {
+        this.failoverHeartbeatTimeoutMilliseconds = failoverHeartbeatTimeoutMilliseconds;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    public int getExecutorSharedParallelism() {
+        return executorSharedParallelism;
+    }
+
+    public void setExecutorSharedParallelism(int executorSharedParallelism) {
+        this.executorSharedParallelism = executorSharedParallelism;
+    }
+
+    public int getExecutorQueueSize() {
+        return executorQueueSize;
+    }
+
+    public void setExecutorQueueSize(int executorQueueSize) {
+        this.executorQueueSize = executorQueueSize;
+    }
+
+    public int getExecutorShardingMaxThreads() {
+        return executorShardingMaxThreads;
+    }
+
+    public void setExecutorShardingMaxThreads(int executorShardingMaxThreads) {
+        this.executorShardingMaxThreads = executorShardingMaxThreads;
+    }
+
+    public int getExecutorIoThreadsPerCore() {
+        return executorIoThreadsPerCore;
+    }
+
+    public void setExecutorIoThreadsPerCore(int executorIoThreadsPerCore) {
+        this.executorIoThreadsPerCore = executorIoThreadsPerCore;
+    }
+
+    public boolean isTraceEnabled() {
+        return traceEnabled;
+    }
+
+    public void setTraceEnabled(boolean traceEnabled) {
+        this.traceEnabled = traceEnabled;
+    }
+
+    public int getTraceBufferSize() {
+        return traceBufferSize;
+    }
+
+    public void setTraceBufferSize(int traceBufferSize) {
+        this.traceBufferSize = traceBufferSize;
+    }
+
+    public long getTraceSlowThresholdMilliseconds() {
+        return traceSlowThresholdMilliseconds;
+    }
+
+    public void setTraceSlowThresholdMilliseconds(long traceSlowThresholdMilliseconds) {
+        this.traceSlowThresholdMilliseconds = traceSlowThresholdMilliseconds;
+    }
+
+    public int getEventTraceBufferSize() {
+        return eventTraceBufferSize;
+    }
+
+    public void setEventTraceBufferSize(int eventTraceBufferSize) {
+        this.eventTraceBufferSize = eventTraceBufferSize;
+    }
+
+    public int getEventTraceFlushSize() {
+        return eventTraceFlushSize;
+    }
+
+    public void setEventTraceFlushSize(int eventTraceFlushSize) {
+        this.eventTraceFlushSize = eventTraceFlushSize;
+    }
+
+    public long getEventTraceFlushIntervalMilliseconds() {
+        return eventTraceFlushIntervalMilliseconds;
+    }
+
+    public void setEventTraceFlushIntervalMilliseconds(long eventTraceFlushIntervalMilliseconds) {
+        this.eventTraceFlushIntervalMilliseconds = eventTraceFlushIntervalMilliseconds;
+    }
+
+    public String getEventTraceOverflowPolicy() {
+        return eventTraceOverflowPolicy;
+    }
+
+    public void setEventTraceOverflowPolicy(String eventTraceOverflowPolicy) {
+        this.eventTraceOverflowPolicy = eventTraceOverflowPolicy;
+    }
+
+    public int getEventTraceRetentionDays() {
+        return eventTraceRetentionDays;
+    }
+
+    public void setEventTraceRetentionDays(int eventTraceRetentionDays) {
+        this.eventTraceRetentionDays = eventTraceRetentionDays;
+    }
+
+    public int getEventTracePurgeBatchSize() {
+        return eventTracePurgeBatchSize;
+    }
+
+    public void setEventTracePurgeBatchSize(int eventTracePurgeBatchSize) {
+        this.eventTracePurgeBatchSize = eventTracePurgeBatchSize;
+    }
+
+    public long getEventTracePurgeIntervalMinutes() {
+        return eventTracePurgeIntervalMinutes;
+    }
+
+    public void setEventTracePurgeIntervalMinutes(long eventTracePurgeIntervalMinutes) {
+        this.eventTracePurgeIntervalMinutes = eventTracePurgeIntervalMinutes;
+    }
+
+    public boolean isEventTraceIndexEnabled() {
+        return eventTraceIndexEnabled;
+    }
+
+    public void setEventTraceIndexEnabled(boolean eventTraceIndexEnabled) {
+        this.eventTraceIndexEnabled = eventTraceIndexEnabled;
+    }
+
+    public long getCheckpointFlushIntervalMilliseconds() {
+        return checkpointFlushIntervalMilliseconds;
+    }
+
+    public void setCheckpointFlushIntervalMilliseconds(long checkpointFlushIntervalMilliseconds) {
+        this.checkpointFlushIntervalMilliseconds = checkpointFlushIntervalMilliseconds;
+    }
+
+    public boolean isJobIndexEnabled() {
+        return jobIndexEnabled;
+    }
+
+    public void setJobIndexEnabled(boolean jobIndexEnabled) {
+        this.jobIndexEnabled = jobIndexEnabled;
+    }
+
+    public boolean isRegistryEndpointEnabled() {
+        return registryEndpointEnabled;
+    }
+
+    public void setRegistryEndpointEnabled(boolean registryEndpointEnabled) {
+        this.registryEndpointEnabled = registryEndpointEnabled;
+    }
+
+    /**
+     * 命名的注册中心配置，未配置的重试和超时参数沿用默认注册中心的配置
+     */
+    public static class Registry {
+
+        private String serverLists; // 连接Zookeeper服务器的列表，多个地址用逗号分隔
+
+        private String namespace; // Zookeeper的命名空间
+
+        private Integer sessionTimeoutMilliseconds; // 会话超时时间，单位：毫秒
+
+        private Integer connectionTimeoutMilliseconds; // 连接超时时间，单位：毫秒
+
+        public String getServerLists() {
+            return serverLists;
+        }
+
+        public void setServerLists(String serverLists) {
+            this.serverLists = serverLists;
+        }
+
+        public String getNamespace() {
+            return namespace;
+        }
+
+        public void setNamespace(String namespace) {
+            this.namespace = namespace;
+        }
+
+        public Integer getSessionTimeoutMilliseconds() {
+            return sessionTimeoutMilliseconds;
+        }
+
+        public void setSessionTimeoutMilliseconds(Integer sessionTimeoutMilliseconds) {
+            this.sessionTimeoutMilliseconds = sessionTimeoutMilliseconds;
+        }
+
+        public Integer getConnectionTimeoutMilliseconds() {
+            return connectionTimeoutMilliseconds;
+        }
+
+        public void setConnectionTimeoutMilliseconds(Integer connectionTimeoutMilliseconds) {
+            this.connectionTimeoutMilliseconds = connectionTimeoutMilliseconds;
+        }
+    }
 }
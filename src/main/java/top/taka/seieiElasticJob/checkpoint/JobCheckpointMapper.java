@@ -0,0 +1,42 @@
+package top.taka.seieiElasticJob.checkpoint;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Date;
+
+/**
+ * 作业断点表的 MyBatis Mapper，由 JobCheckpointStore 注册到自己的 SqlSessionFactory，不依赖使用方的 MyBatis 配置
+ * 只使用标准 SQL，写入时先批量更新，再插入更新行数为 0 的断点，MySQL、PostgreSQL、H2 均支持
+ */
+public interface JobCheckpointMapper {
+
+    String TABLE_JOB_CHECKPOINT = "JOB_CHECKPOINT";
+
+    @Update("CREATE TABLE IF NOT EXISTS " + TABLE_JOB_CHECKPOINT + " ("
+            + "job_name VARCHAR(100) NOT NULL, "
+            + "sharding_item INT NOT NULL, "
+            + "checkpoint VARCHAR(1000) NOT NULL, "
+            + "update_time TIMESTAMP NOT NULL, "
+            + "PRIMARY KEY (job_name, sharding_item))")
+    void createTableIfNotExists();
+
+    @Select("SELECT checkpoint FROM " + TABLE_JOB_CHECKPOINT + " WHERE job_name = #{jobName} AND sharding_item = #{shardingItem}")
+    String selectCheckpoint(@Param("jobName") String jobName, @Param("shardingItem") int shardingItem);
+
+    @Update("UPDATE " + TABLE_JOB_CHECKPOINT + " SET checkpoint = #{checkpoint}, update_time = #{updateTime} "
+            + "WHERE job_name = #{jobName} AND sharding_item = #{shardingItem}")
+    int updateCheckpoint(@Param("jobName") String jobName, @Param("shardingItem") int shardingItem,
+                         @Param("checkpoint") String checkpoint, @Param("updateTime") Date updateTime);
+
+    @Insert("INSERT INTO " + TABLE_JOB_CHECKPOINT + " (job_name, sharding_item, checkpoint, update_time) "
+            + "VALUES (#{jobName}, #{shardingItem}, #{checkpoint}, #{updateTime})")
+    int insertCheckpoint(@Param("jobName") String jobName, @Param("shardingItem") int shardingItem,
+                         @Param("checkpoint") String checkpoint, @Param("updateTime") Date updateTime);
+
+    @Delete("DELETE FROM " + TABLE_JOB_CHECKPOINT + " WHERE job_name = #{jobName} AND sharding_item = #{shardingItem}")
+    int deleteCheckpoint(@Param("jobName") String jobName, @Param("shardingItem") int shardingItem);
+}
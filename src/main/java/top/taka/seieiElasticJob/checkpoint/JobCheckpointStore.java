@@ -0,0 +1,316 @@
+package top.taka.seieiElasticJob.checkpoint;
+
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 作业断点存储
+ * 每个作业的每个分片项保存一个断点（如最后处理的主键、时间戳），作业线程保存断点时只放入内存，
+ * 同一分片项未写入的断点直接被新的断点覆盖，由后台线程按时间间隔通过 MyBatis 批量执行器在一个事务中写入数据库，
+ * 写入缓慢或失败不会阻塞作业处理，失败的断点保留到下一次写入。
+ * 进程异常退出时最多丢失一个写入间隔内的断点，重启或失效转移后会重复处理这部分数据，作业处理需要保证幂等。
+ * 同一个数据源的所有作业共用一个存储
+ */
+public class JobCheckpointStore {
+
+    private final static Logger logger = LoggerFactory.getLogger(JobCheckpointStore.class);
+
+    // 各个作业使用的断点存储
+    private static final ConcurrentMap<String, JobCheckpointStore> STORE_MAP = new ConcurrentHashMap<>();
+
+    private final DataSource dataSource;
+
+    private final long flushIntervalMilliseconds;
+
+    // 尚未写入数据库的断点，同一分片项只保留最新的断点
+    private final ConcurrentMap<CheckpointKey, PendingCheckpoint> pendingCheckpoints = new ConcurrentHashMap<>();
+
+    // 作业保存断点的次数
+    private final AtomicLong savedCount = new AtomicLong();
+
+    // 写入数据库的断点数，保存次数与写入数的差值即被合并的断点数
+    private final AtomicLong flushedCount = new AtomicLong();
+
+    // 写入数据库失败的次数
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    private volatile boolean running;
+
+    private Thread flushThread;
+
+    /**
+     * @param dataSource 断点数据源
+     * @param flushIntervalMilliseconds 写入间隔，单位：毫秒
+     */
+    public JobCheckpointStore(DataSource dataSource, long flushIntervalMilliseconds) {
+        this.dataSource = dataSource;
+        this.flushIntervalMilliseconds = Math.max(flushIntervalMilliseconds, 1L);
+    }
+
+    /**
+     * 获取作业使用的断点存储
+     * @param jobName 作业名称
+     * @return 作业未配置断点数据源时返回 null
+     */
+    public static JobCheckpointStore getStore(String jobName) {
+        return STORE_MAP.get(jobName);
+    }
+
+    /**
+     * 指定作业使用的断点存储
+     * @param jobName 作业名称
+     * @param jobCheckpointStore 断点存储
+     */
+    public static void bind(String jobName, JobCheckpointStore jobCheckpointStore) {
+        STORE_MAP.put(jobName, jobCheckpointStore);
+    }
+
+    /**
+     * 解除作业与断点存储的绑定，作业移除时调用，已保存的断点保留在表中，作业重新注册后继续使用
+     * @param jobName 作业名称
+     */
+    public static void unbind(String jobName) {
+        STORE_MAP.remove(jobName);
+    }
+
+    /**
+     * 建表并启动后台写入线程
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        Configuration configuration = new Configuration(new Environment(JobCheckpointStore.class.getSimpleName(), new JdbcTransactionFactory(), dataSource));
+        configuration.addMapper(JobCheckpointMapper.class);
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            sqlSession.getMapper(JobCheckpointMapper.class).createTableIfNotExists();
+        }
+        running = true;
+        flushThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                flushLoop();
+            }
+        }, "seiei-elastic-job-checkpoint-writer");
+        flushThread.setDaemon(true);
+        flushThread.start();
+        logger.info("启动作业断点存储，写入间隔：{} ms", flushIntervalMilliseconds);
+    }
+
+    /**
+     * 停止后台写入线程，停止前写入所有未写入的断点
+     */
+    public synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(flushThread);
+        try {
+            flushThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("关闭作业断点存储，共保存 {} 次断点，写入 {} 个，失败 {} 次，未写入 {} 个",
+                savedCount.get(), flushedCount.get(), failedCount.get(), pendingCheckpoints.size());
+    }
+
+    /**
+     * 读取分片项的断点，优先返回尚未写入数据库的断点
+     * @param jobName 作业名称
+     * @param shardingItem 分片项
+     * @return 没有断点时返回 null
+     */
+    public String load(String jobName, int shardingItem) {
+        PendingCheckpoint pendingCheckpoint = pendingCheckpoints.get(new CheckpointKey(jobName, shardingItem));
+        if (null != pendingCheckpoint) {
+            return pendingCheckpoint.checkpoint;
+        }
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            return sqlSession.getMapper(JobCheckpointMapper.class).selectCheckpoint(jobName, shardingItem);
+        }
+    }
+
+    /**
+     * 保存分片项的断点，只放入内存，由后台线程写入数据库
+     * @param jobName 作业名称
+     * @param shardingItem 分片项
+     * @param checkpoint 断点
+     */
+    public void save(String jobName, int shardingItem, String checkpoint) {
+        pendingCheckpoints.put(new CheckpointKey(jobName, shardingItem), new PendingCheckpoint(checkpoint));
+        savedCount.incrementAndGet();
+    }
+
+    /**
+     * 清除分片项的断点，下一次执行从头开始处理
+     * @param jobName 作业名称
+     * @param shardingItem 分片项
+     */
+    public void remove(String jobName, int shardingItem) {
+        save(jobName, shardingItem, null);
+    }
+
+    /**
+     * 唤醒后台线程立即写入，不等待写入完成；作业的分片项处理完所有数据时调用，尽快持久化最终的断点
+     */
+    public void requestFlush() {
+        Thread thread = flushThread;
+        if (null != thread) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMilliseconds));
+            flush();
+        }
+        flush();
+    }
+
+    /**
+     * 在一个事务中批量写入所有未写入的断点，写入成功后只移除未被再次覆盖的断点
+     * 先批量删除和更新，再批量插入更新行数为 0（数据库中还没有断点）的分片项；
+     * 其他实例同时插入同一分片项时主键冲突，事务回滚后下一次写入会走更新
+     */
+    private void flush() {
+        if (pendingCheckpoints.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<CheckpointKey, PendingCheckpoint>> batch = new ArrayList<>(pendingCheckpoints.entrySet());
+        Date updateTime = new Date();
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+            JobCheckpointMapper mapper = sqlSession.getMapper(JobCheckpointMapper.class);
+            // 删除和更新各自连续执行，批量执行器对同一语句只创建一个批次
+            List<Map.Entry<CheckpointKey, PendingCheckpoint>> updates = new ArrayList<>(batch.size());
+            for (Map.Entry<CheckpointKey, PendingCheckpoint> each : batch) {
+                if (null == each.getValue().checkpoint) {
+                    mapper.deleteCheckpoint(each.getKey().jobName, each.getKey().shardingItem);
+                } else {
+                    updates.add(each);
+                }
+            }
+            for (Map.Entry<CheckpointKey, PendingCheckpoint> each : updates) {
+                mapper.updateCheckpoint(each.getKey().jobName, each.getKey().shardingItem, each.getValue().checkpoint, updateTime);
+            }
+            int[] updateCounts = getUpdateCounts(sqlSession.flushStatements());
+            for (int i = 0; i < updates.size(); i++) {
+                CheckpointKey key = updates.get(i).getKey();
+                // 部分驱动的批量执行不返回行数，需要查询确认
+                if (0 == updateCounts[i] || Statement.SUCCESS_NO_INFO == updateCounts[i] && null == mapper.selectCheckpoint(key.jobName, key.shardingItem)) {
+                    mapper.insertCheckpoint(key.jobName, key.shardingItem, updates.get(i).getValue().checkpoint, updateTime);
+                }
+            }
+            sqlSession.commit();
+        } catch (RuntimeException ex) {
+            failedCount.incrementAndGet();
+            logger.error("写入作业断点失败，{} 个断点将在下一次重试：{}", batch.size(), ex.getMessage());
+            return;
+        }
+        for (Map.Entry<CheckpointKey, PendingCheckpoint> each : batch) {
+            pendingCheckpoints.remove(each.getKey(), each.getValue());
+        }
+        flushedCount.addAndGet(batch.size());
+    }
+
+    /**
+     * 批量更新语句每个参数对应的行数
+     * @param batchResults 批量执行结果
+     * @return 没有更新语句时返回空数组
+     */
+    private int[] getUpdateCounts(List<BatchResult> batchResults) {
+        String updateStatementId = JobCheckpointMapper.class.getName() + ".updateCheckpoint";
+        for (BatchResult each : batchResults) {
+            if (updateStatementId.equals(each.getMappedStatement().getId())) {
+                return each.getUpdateCounts();
+            }
+        }
+        return new int[0];
+    }
+
+    public long getSavedCount() {
+        return savedCount.get();
+    }
+
+    public long getFlushedCount() {
+        return flushedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    // 当前等待写入的断点数
+    public int getPendingCount() {
+        return pendingCheckpoints.size();
+    }
+
+    /**
+     * 断点所属的作业分片项
+     */
+    private static final class CheckpointKey {
+
+        private final String jobName;
+
+        private final int shardingItem;
+
+        private CheckpointKey(String jobName, int shardingItem) {
+            this.jobName = jobName;
+            this.shardingItem = shardingItem;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CheckpointKey)) {
+                return false;
+            }
+            CheckpointKey other = (CheckpointKey) obj;
+            return shardingItem == other.shardingItem && jobName.equals(other.jobName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * jobName.hashCode() + shardingItem;
+        }
+    }
+
+    /**
+     * 未写入的断点，按对象比较，写入期间被覆盖的断点不会被移除；checkpoint 为 null 表示清除断点
+     */
+    private static final class PendingCheckpoint {
+
+        private final String checkpoint;
+
+        private PendingCheckpoint(String checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+    }
+}
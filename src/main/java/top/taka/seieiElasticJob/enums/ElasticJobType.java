@@ -3,6 +3,7 @@ package top.taka.seieiElasticJob.enums;
 public enum  ElasticJobType {
 
     SIMPLE("SimpleJob", "简单任务类型"),
+    BATCH_SIMPLE("BatchSimpleJob", "批量分片简单任务类型"),
     DATAFLOW("DataflowJob", "流式任务类型"),
     SCRIPT("ScriptJob", "脚本任务类型");
 
@@ -0,0 +1,15 @@
+package top.taka.seieiElasticJob.enums;
+
+public enum EventTraceMode {
+
+    SYNC("sync", "elastic-job 默认方式，每个事件单独写入数据库"),
+    ASYNC("async", "事件放入环形缓冲区，由后台线程批量写入数据库");
+
+    public final String value;
+    public final String description;
+
+    EventTraceMode(String value, String description) {
+        this.value = value;
+        this.description = description;
+    }
+}
@@ -0,0 +1,15 @@
+package top.taka.seieiElasticJob.enums;
+
+public enum EventTraceOverflowPolicy {
+
+    DROP("drop", "缓冲区已满时丢弃事件"),
+    BLOCK("block", "缓冲区已满时阻塞等待，直到有空闲位置");
+
+    public final String value;
+    public final String description;
+
+    EventTraceOverflowPolicy(String value, String description) {
+        this.value = value;
+        this.description = description;
+    }
+}
@@ -0,0 +1,40 @@
+package top.taka.seieiElasticJob.enums;
+
+import com.dangdang.ddframe.job.executor.handler.impl.DefaultExecutorServiceHandler;
+import top.taka.seieiElasticJob.executor.CpuBoundExecutorServiceHandler;
+import top.taka.seieiElasticJob.executor.IoBoundExecutorServiceHandler;
+import top.taka.seieiElasticJob.executor.ShardingExecutorServiceHandler;
+import top.taka.seieiElasticJob.executor.SharedExecutorServiceHandler;
+
+public enum ExecutorPreset {
+
+    DEFAULT("default", DefaultExecutorServiceHandler.class.getName(), "elastic-job 默认线程池，每个作业固定 CPU 核数 * 2 个线程，队列无界"),
+    SHARED("shared", SharedExecutorServiceHandler.class.getName(), "所有作业共用一个工作窃取线程池，排队任务数有上限"),
+    SHARDING("sharding", ShardingExecutorServiceHandler.class.getName(), "每个作业独立的线程池，线程数随本实例分配到的分片项数伸缩，不排队"),
+    CPU("cpu", CpuBoundExecutorServiceHandler.class.getName(), "计算密集型作业，每个作业 CPU 核数个线程，排队任务数有上限"),
+    IO("io", IoBoundExecutorServiceHandler.class.getName(), "IO 密集型作业，每个作业 CPU 核数 * executorIoThreadsPerCore 个线程，排队任务数有上限");
+
+    public final String value;
+    public final String handlerClassName;
+    public final String description;
+
+    ExecutorPreset(String value, String handlerClassName, String description) {
+        this.value = value;
+        this.handlerClassName = handlerClassName;
+        this.description = description;
+    }
+
+    /**
+     * 根据配置值获取预设线程池
+     * @param value 配置值，忽略大小写
+     * @return 没有对应的预设线程池时返回 null
+     */
+    public static ExecutorPreset of(String value) {
+        for (ExecutorPreset each : values()) {
+            if (each.value.equalsIgnoreCase(value)) {
+                return each;
+            }
+        }
+        return null;
+    }
+}
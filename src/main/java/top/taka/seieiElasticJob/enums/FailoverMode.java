@@ -0,0 +1,29 @@
+package top.taka.seieiElasticJob.enums;
+
+public enum FailoverMode {
+
+    SESSION("session", "elastic-job 默认行为，实例的 Zookeeper 会话超时后才判定下线并失效转移"),
+    HEARTBEAT("heartbeat", "实例按心跳间隔写入心跳，心跳超时即隔离该实例并失效转移，无需等待会话超时");
+
+    public final String value;
+    public final String description;
+
+    FailoverMode(String value, String description) {
+        this.value = value;
+        this.description = description;
+    }
+
+    /**
+     * 根据配置值获取失效转移模式
+     * @param value 配置值，忽略大小写
+     * @return 没有对应的模式时返回 null
+     */
+    public static FailoverMode of(String value) {
+        for (FailoverMode each : values()) {
+            if (each.value.equalsIgnoreCase(value)) {
+                return each;
+            }
+        }
+        return null;
+    }
+}
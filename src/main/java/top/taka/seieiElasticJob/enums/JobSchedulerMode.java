@@ -0,0 +1,15 @@
+package top.taka.seieiElasticJob.enums;
+
+public enum JobSchedulerMode {
+
+    STANDALONE("standalone", "每个作业独立创建 Quartz 调度器及调度线程"),
+    SHARED("shared", "所有作业共享一个 Quartz 调度器及有界执行线程池");
+
+    public final String value;
+    public final String description;
+
+    JobSchedulerMode(String value, String description) {
+        this.value = value;
+        this.description = description;
+    }
+}
@@ -0,0 +1,24 @@
+package top.taka.seieiElasticJob.enums;
+
+public enum JobTracePhase {
+
+    ENVIRONMENT("environment", "检查作业执行环境（本机与注册中心的时间误差）"),
+    SHARDING("sharding", "必要时等待主节点分片，读取分片结果并构建分片上下文"),
+    MISFIRE_CHECK("misfire-check", "检查分片项是否仍在运行、是否有错过的执行"),
+    BEFORE_LISTENER("before-listener", "执行 beforeJobExecuted 监听，包括分布式监听等待其他实例"),
+    REGISTER_BEGIN("register-begin", "在注册中心登记分片项开始运行"),
+    QUEUE("queue", "分片项在作业执行线程池中排队"),
+    EXECUTION("execution", "分片项的业务方法"),
+    EVENT_TRACE("event-trace", "发布作业执行事件和作业状态事件"),
+    REGISTER_COMPLETED("register-completed", "在注册中心登记分片项运行结束"),
+    FAILOVER("failover", "处理失效转移"),
+    AFTER_LISTENER("after-listener", "执行 afterJobExecuted 监听，包括分布式监听等待其他实例");
+
+    public final String value;
+    public final String description;
+
+    JobTracePhase(String value, String description) {
+        this.value = value;
+        this.description = description;
+    }
+}
@@ -0,0 +1,31 @@
+package top.taka.seieiElasticJob.enums;
+
+public enum OverlapPolicy {
+
+    MISFIRE("misfire", "elastic-job 默认行为，由 misfire 和 monitorExecution 决定是否补偿执行"),
+    SKIP("skip", "丢弃执行期间错过的触发，不补偿执行"),
+    COALESCE("coalesce", "执行期间错过的触发合并为一次补偿执行"),
+    QUEUE("queue", "执行期间错过的触发逐个排队补偿执行，最多排队 overlapQueueSize 次，超出的丢弃");
+
+    public final String value;
+    public final String description;
+
+    OverlapPolicy(String value, String description) {
+        this.value = value;
+        this.description = description;
+    }
+
+    /**
+     * 根据配置值获取策略
+     * @param value 配置值，忽略大小写
+     * @return 没有对应的策略时返回 null
+     */
+    public static OverlapPolicy of(String value) {
+        for (OverlapPolicy each : values()) {
+            if (each.value.equalsIgnoreCase(value)) {
+                return each;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,29 @@
+package top.taka.seieiElasticJob.enums;
+
+public enum ParameterStorage {
+
+    INLINE("inline", "压缩后直接写入作业配置"),
+    NODE("node", "压缩后写入按内容寻址的独立节点，作业配置中只保存引用");
+
+    public final String value;
+    public final String description;
+
+    ParameterStorage(String value, String description) {
+        this.value = value;
+        this.description = description;
+    }
+
+    /**
+     * 根据配置值获取存储方式
+     * @param value 配置值，忽略大小写
+     * @return 没有对应的存储方式时返回 null
+     */
+    public static ParameterStorage of(String value) {
+        for (ParameterStorage each : values()) {
+            if (each.value.equalsIgnoreCase(value)) {
+                return each;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,15 @@
+package top.taka.seieiElasticJob.enums;
+
+public enum RegistryCenterMode {
+
+    ZOOKEEPER("zookeeper", "连接 serverLists 指定的 Zookeeper 集群"),
+    LOCAL("local", "在当前进程内启动单机注册中心，适用于单实例部署和测试");
+
+    public final String value;
+    public final String description;
+
+    RegistryCenterMode(String value, String description) {
+        this.value = value;
+        this.description = description;
+    }
+}
@@ -0,0 +1,35 @@
+package top.taka.seieiElasticJob.event;
+
+import com.dangdang.ddframe.job.event.JobEventConfiguration;
+import com.dangdang.ddframe.job.event.JobEventListener;
+import com.dangdang.ddframe.job.event.JobEventListenerConfigurationException;
+
+import java.io.Serializable;
+
+/**
+ * 作业事件异步批量写入数据库的配置，取代 elastic-job 的 JobEventRdbConfiguration
+ */
+public class BatchJobEventRdbConfiguration implements JobEventConfiguration, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient BatchJobEventRdbWriter writer;
+
+    public BatchJobEventRdbConfiguration(BatchJobEventRdbWriter writer) {
+        this.writer = writer;
+    }
+
+    public BatchJobEventRdbWriter getWriter() {
+        return writer;
+    }
+
+    @Override
+    public JobEventListener createJobEventListener() throws JobEventListenerConfigurationException {
+        return new BatchJobEventRdbListener(writer);
+    }
+
+    @Override
+    public String getIdentity() {
+        return "rdb";
+    }
+}
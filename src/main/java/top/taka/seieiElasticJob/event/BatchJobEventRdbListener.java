@@ -0,0 +1,32 @@
+package top.taka.seieiElasticJob.event;
+
+import com.dangdang.ddframe.job.event.JobEventListener;
+import com.dangdang.ddframe.job.event.type.JobExecutionEvent;
+import com.dangdang.ddframe.job.event.type.JobStatusTraceEvent;
+
+/**
+ * 作业事件监听，只把事件放入写入器的缓冲区，不在事件总线线程中访问数据库
+ */
+public class BatchJobEventRdbListener implements JobEventListener {
+
+    private final BatchJobEventRdbWriter writer;
+
+    public BatchJobEventRdbListener(BatchJobEventRdbWriter writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public String getIdentity() {
+        return "rdb";
+    }
+
+    @Override
+    public void listen(JobExecutionEvent executionEvent) {
+        writer.write(executionEvent);
+    }
+
+    @Override
+    public void listen(JobStatusTraceEvent jobStatusTraceEvent) {
+        writer.write(jobStatusTraceEvent);
+    }
+}
@@ -0,0 +1,436 @@
+package top.taka.seieiElasticJob.event;
+
+import com.dangdang.ddframe.job.event.JobEvent;
+import com.dangdang.ddframe.job.event.rdb.JobEventRdbListener;
+import com.dangdang.ddframe.job.event.type.JobExecutionEvent;
+import com.dangdang.ddframe.job.event.type.JobStatusTraceEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import top.taka.seieiElasticJob.enums.EventTraceOverflowPolicy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 作业事件异步批量写入器
+ * 事件先放入有界无锁环形缓冲区，由后台线程按批量大小或时间间隔合并为多行 INSERT / 批量 UPDATE 写入数据库，
+ * 表结构与 elastic-job 的 JobEventRdbStorage 完全一致（启动时借用 JobEventRdbListener 建表），
+ * 同一个数据源的所有作业共用一个写入器
+ */
+public class BatchJobEventRdbWriter {
+
+    private final static Logger logger = LoggerFactory.getLogger(BatchJobEventRdbWriter.class);
+
+    private static final String TABLE_JOB_EXECUTION_LOG = "JOB_EXECUTION_LOG";
+
+    private static final String TABLE_JOB_STATUS_TRACE_LOG = "JOB_STATUS_TRACE_LOG";
+
+    private static final String JOB_EXECUTION_LOG_COLUMNS = "(id, job_name, task_id, hostname, ip, sharding_item, execution_source, failure_cause, is_success, start_time, complete_time)";
+
+    private static final String JOB_STATUS_TRACE_LOG_COLUMNS = "(id, job_name, original_task_id, task_id, slave_id, source, execution_type, sharding_item, state, message, creation_time)";
+
+    // 与 elastic-job 一致，失败原因及消息最多保留 4000 个字符
+    private static final int MAX_MESSAGE_LENGTH = 4000;
+
+    // 缓存的 taskId 与 originalTaskId 对应关系的最大数量
+    private static final int MAX_ORIGINAL_TASK_ID_CACHE_SIZE = 10000;
+
+    private final DataSource dataSource;
+
+    private final int flushSize;
+
+    private final long flushIntervalMilliseconds;
+
+    private final EventTraceOverflowPolicy overflowPolicy;
+
+    private final MpscRingBuffer<JobEvent> ringBuffer;
+
+    // 已放入缓冲区的事件数
+    private final AtomicLong queuedCount = new AtomicLong();
+
+    // 已写入数据库的事件数
+    private final AtomicLong flushedCount = new AtomicLong();
+
+    // 因缓冲区已满而丢弃的事件数
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    // 写入数据库失败的事件数，只统计未写入的事件，同一批次中已写入的事件不计入
+    private final AtomicLong failedCount = new AtomicLong();
+
+    // taskId 与 originalTaskId 的对应关系，只由写入线程访问，避免 elastic-job 每条状态事件都查询一次数据库
+    private final Map<String, String> originalTaskIds = new LinkedHashMap<String, String>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_ORIGINAL_TASK_ID_CACHE_SIZE;
+        }
+    };
+
+    private volatile boolean running;
+
+    private Thread writerThread;
+
+    /**
+     * @param dataSource 事件追踪数据源
+     * @param bufferSize 缓冲区大小
+     * @param flushSize 每批写入的最大事件数
+     * @param flushIntervalMilliseconds 最长写入间隔，单位：毫秒
+     * @param overflowPolicy 缓冲区已满时的处理策略，drop 或 block
+     */
+    public BatchJobEventRdbWriter(DataSource dataSource, int bufferSize, int flushSize, long flushIntervalMilliseconds, String overflowPolicy) {
+        this.dataSource = dataSource;
+        this.flushSize = Math.max(flushSize, 1);
+        this.flushIntervalMilliseconds = Math.max(flushIntervalMilliseconds, 1L);
+        this.overflowPolicy = EventTraceOverflowPolicy.BLOCK.value.equalsIgnoreCase(overflowPolicy) ? EventTraceOverflowPolicy.BLOCK : EventTraceOverflowPolicy.DROP;
+        ringBuffer = new MpscRingBuffer<>(bufferSize);
+    }
+
+    /**
+     * 建表并启动后台写入线程
+     * @throws SQLException
+     */
+    public synchronized void start() throws SQLException {
+        if (running) {
+            return;
+        }
+        // JobEventRdbListener 构造时会按 elastic-job 的表结构建表及索引
+        new JobEventRdbListener(dataSource);
+        running = true;
+        writerThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "seiei-elastic-job-event-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("启动作业事件异步批量写入器，缓冲区大小：{}，批量大小：{}，写入间隔：{} ms，溢出策略：{}",
+                ringBuffer.capacity(), flushSize, flushIntervalMilliseconds, overflowPolicy.value);
+    }
+
+    /**
+     * 停止后台写入线程，停止前写入缓冲区中剩余的事件
+     */
+    public synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("关闭作业事件异步批量写入器，共写入 {} 个事件，丢弃 {} 个，失败 {} 个", flushedCount.get(), droppedCount.get(), failedCount.get());
+    }
+
+    /**
+     * 将事件放入缓冲区
+     * @param event 作业事件
+     * @return 是否放入成功
+     */
+    public boolean write(JobEvent event) {
+        if (ringBuffer.offer(event)) {
+            queuedCount.incrementAndGet();
+            return true;
+        }
+        if (EventTraceOverflowPolicy.BLOCK == overflowPolicy) {
+            while (running) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                if (ringBuffer.offer(event)) {
+                    queuedCount.incrementAndGet();
+                    return true;
+                }
+            }
+        }
+        droppedCount.incrementAndGet();
+        return false;
+    }
+
+    private void writeLoop() {
+        List<JobEvent> batch = new ArrayList<>(flushSize);
+        long lastFlushTime = System.currentTimeMillis();
+        while (running || ringBuffer.size() > 0) {
+            JobEvent event;
+            while (batch.size() < flushSize && null != (event = ringBuffer.poll())) {
+                batch.add(event);
+            }
+            long now = System.currentTimeMillis();
+            if (!batch.isEmpty() && (batch.size() >= flushSize || now - lastFlushTime >= flushIntervalMilliseconds || !running)) {
+                flush(batch);
+                batch.clear();
+                lastFlushTime = now;
+            } else if (batch.size() < flushSize) {
+                // 缓冲区已取空，等待新的事件
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.min(flushIntervalMilliseconds, 10L)));
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    /**
+     * 写入一批事件，每条语句自动提交，部分语句失败时已写入的事件不回滚，所以失败数只统计未写入的事件：
+     * 执行记录逐行重试后仍失败的行（合并了开始和完成事件的行计为 2 个事件）、批量更新失败的完成事件、多行写入失败的状态事件
+     */
+    private void flush(List<JobEvent> batch) {
+        // 同一批次中同一次执行的开始事件和完成事件合并为一行写入
+        Map<String, JobExecutionEvent> startEvents = new LinkedHashMap<>();
+        Map<String, JobExecutionEvent> completeEvents = new LinkedHashMap<>();
+        List<JobStatusTraceEvent> statusTraceEvents = new ArrayList<>();
+        for (JobEvent each : batch) {
+            if (each instanceof JobExecutionEvent) {
+                JobExecutionEvent executionEvent = (JobExecutionEvent) each;
+                if (null == executionEvent.getCompleteTime()) {
+                    startEvents.put(executionEvent.getId(), executionEvent);
+                } else {
+                    completeEvents.put(executionEvent.getId(), executionEvent);
+                }
+            } else if (each instanceof JobStatusTraceEvent) {
+                statusTraceEvents.add((JobStatusTraceEvent) each);
+            }
+        }
+        List<JobExecutionEvent> executionInserts = new ArrayList<>(startEvents.size());
+        for (JobExecutionEvent each : startEvents.values()) {
+            JobExecutionEvent completeEvent = completeEvents.remove(each.getId());
+            executionInserts.add(null == completeEvent ? each : completeEvent);
+        }
+        int failed = 0;
+        try (Connection conn = dataSource.getConnection()) {
+            for (JobExecutionEvent each : insertJobExecutionEvents(conn, executionInserts)) {
+                failed += startEvents.containsKey(each.getId()) && null != each.getCompleteTime() ? 2 : 1;
+            }
+            failed += updateJobExecutionEvents(conn, new ArrayList<>(completeEvents.values())).size();
+            try {
+                insertJobStatusTraceEvents(conn, statusTraceEvents);
+            } catch (SQLException ex) {
+                failed += statusTraceEvents.size();
+                logger.error("写入 {} 个作业状态事件失败：{}", statusTraceEvents.size(), ex.getMessage());
+            }
+        } catch (SQLException ex) {
+            // 获取连接失败，整批都没有写入
+            failed = batch.size();
+            logger.error("获取作业事件数据源连接失败，丢弃 {} 个事件：{}", batch.size(), ex.getMessage());
+        }
+        flushedCount.addAndGet(batch.size() - failed);
+        failedCount.addAndGet(failed);
+    }
+
+    /**
+     * 多行写入执行记录，失败时（如主键冲突）逐行重试，冲突的完成事件改为更新
+     * @return 写入失败的执行记录
+     */
+    private List<JobExecutionEvent> insertJobExecutionEvents(Connection conn, List<JobExecutionEvent> events) {
+        if (events.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try {
+            insertJobExecutionRows(conn, events);
+            return Collections.emptyList();
+        } catch (SQLException ex) {
+            if (events.size() > 1) {
+                logger.debug("多行写入 {} 条作业执行记录失败，逐行重试：{}", events.size(), ex.getMessage());
+            } else {
+                return retryJobExecutionEvent(conn, events.get(0), ex) ? Collections.<JobExecutionEvent>emptyList() : events;
+            }
+        }
+        List<JobExecutionEvent> result = new ArrayList<>();
+        for (JobExecutionEvent each : events) {
+            try {
+                insertJobExecutionRows(conn, Collections.singletonList(each));
+            } catch (SQLException rowEx) {
+                if (!retryJobExecutionEvent(conn, each, rowEx)) {
+                    result.add(each);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 单行写入失败后的处理：完成事件改为更新，开始事件记录失败
+     * @return 是否已写入
+     */
+    private boolean retryJobExecutionEvent(Connection conn, JobExecutionEvent event, SQLException cause) {
+        if (null != event.getCompleteTime()) {
+            try {
+                // 部分驱动批量执行时返回 SUCCESS_NO_INFO（-2），只有 0 表示记录不存在
+                if (0 != updateJobExecutionRows(conn, Collections.singletonList(event))[0]) {
+                    return true;
+                }
+            } catch (SQLException ex) {
+                logger.error("更新作业执行事件失败：{}", ex.getMessage());
+                return false;
+            }
+        }
+        logger.error("写入作业执行事件失败：{}", cause.getMessage());
+        return false;
+    }
+
+    private void insertJobExecutionRows(Connection conn, List<JobExecutionEvent> events) throws SQLException {
+        String sql = "INSERT INTO " + TABLE_JOB_EXECUTION_LOG + " " + JOB_EXECUTION_LOG_COLUMNS + " VALUES " + placeholders(events.size(), 11);
+        try (PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (JobExecutionEvent each : events) {
+                index = setJobExecutionEvent(preparedStatement, index, each);
+            }
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private int setJobExecutionEvent(PreparedStatement preparedStatement, int index, JobExecutionEvent event) throws SQLException {
+        preparedStatement.setString(index++, event.getId());
+        preparedStatement.setString(index++, event.getJobName());
+        preparedStatement.setString(index++, event.getTaskId());
+        preparedStatement.setString(index++, event.getHostname());
+        preparedStatement.setString(index++, event.getIp());
+        preparedStatement.setInt(index++, event.getShardingItem());
+        preparedStatement.setString(index++, event.getSource().toString());
+        preparedStatement.setString(index++, truncateString(event.getFailureCause()));
+        preparedStatement.setBoolean(index++, event.isSuccess());
+        preparedStatement.setTimestamp(index++, new Timestamp(event.getStartTime().getTime()));
+        preparedStatement.setTimestamp(index++, null == event.getCompleteTime() ? null : new Timestamp(event.getCompleteTime().getTime()));
+        return index;
+    }
+
+    /**
+     * 批量更新执行记录的完成状态，开始事件尚未写入（如已被丢弃）时直接写入完整的执行记录
+     * @return 写入失败的完成事件
+     */
+    private List<JobExecutionEvent> updateJobExecutionEvents(Connection conn, List<JobExecutionEvent> events) {
+        if (events.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int[] updateCounts;
+        try {
+            updateCounts = updateJobExecutionRows(conn, events);
+        } catch (SQLException ex) {
+            logger.error("批量更新 {} 个作业执行事件失败：{}", events.size(), ex.getMessage());
+            return events;
+        }
+        List<JobExecutionEvent> missingEvents = new ArrayList<>();
+        for (int i = 0; i < updateCounts.length && i < events.size(); i++) {
+            if (0 == updateCounts[i]) {
+                missingEvents.add(events.get(i));
+            }
+        }
+        return insertJobExecutionEvents(conn, missingEvents);
+    }
+
+    private int[] updateJobExecutionRows(Connection conn, List<JobExecutionEvent> events) throws SQLException {
+        String sql = "UPDATE " + TABLE_JOB_EXECUTION_LOG + " SET is_success = ?, complete_time = ?, failure_cause = ? WHERE id = ?";
+        try (PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
+            for (JobExecutionEvent each : events) {
+                preparedStatement.setBoolean(1, each.isSuccess());
+                preparedStatement.setTimestamp(2, new Timestamp(each.getCompleteTime().getTime()));
+                preparedStatement.setString(3, truncateString(each.getFailureCause()));
+                preparedStatement.setString(4, each.getId());
+                preparedStatement.addBatch();
+            }
+            return preparedStatement.executeBatch();
+        }
+    }
+
+    private void insertJobStatusTraceEvents(Connection conn, List<JobStatusTraceEvent> events) throws SQLException {
+        if (events.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO " + TABLE_JOB_STATUS_TRACE_LOG + " " + JOB_STATUS_TRACE_LOG_COLUMNS + " VALUES " + placeholders(events.size(), 11);
+        try (PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (JobStatusTraceEvent each : events) {
+                preparedStatement.setString(index++, UUID.randomUUID().toString());
+                preparedStatement.setString(index++, each.getJobName());
+                preparedStatement.setString(index++, getOriginalTaskId(conn, each));
+                preparedStatement.setString(index++, each.getTaskId());
+                preparedStatement.setString(index++, each.getSlaveId());
+                preparedStatement.setString(index++, each.getSource().toString());
+                preparedStatement.setString(index++, each.getExecutionType().name());
+                preparedStatement.setString(index++, each.getShardingItems());
+                preparedStatement.setString(index++, each.getState().toString());
+                preparedStatement.setString(index++, truncateString(each.getMessage()));
+                preparedStatement.setTimestamp(index++, new Timestamp(each.getCreationTime().getTime()));
+            }
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    /**
+     * 获取原始任务 ID，与 elastic-job 一致：TASK_STAGING 状态使用事件自身的 originalTaskId，其他状态沿用 TASK_STAGING 时的值
+     */
+    private String getOriginalTaskId(Connection conn, JobStatusTraceEvent event) throws SQLException {
+        if (JobStatusTraceEvent.State.TASK_STAGING == event.getState()) {
+            originalTaskIds.put(event.getTaskId(), event.getOriginalTaskId());
+            return event.getOriginalTaskId();
+        }
+        String result = originalTaskIds.get(event.getTaskId());
+        if (null != result) {
+            return result;
+        }
+        String sql = "SELECT original_task_id FROM " + TABLE_JOB_STATUS_TRACE_LOG + " WHERE task_id = ? AND state = ?";
+        try (PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
+            preparedStatement.setString(1, event.getTaskId());
+            preparedStatement.setString(2, JobStatusTraceEvent.State.TASK_STAGING.toString());
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                result = resultSet.next() ? resultSet.getString(1) : "";
+            }
+        }
+        originalTaskIds.put(event.getTaskId(), result);
+        return result;
+    }
+
+    private String placeholders(int rows, int columns) {
+        StringBuilder row = new StringBuilder("(");
+        for (int i = 0; i < columns; i++) {
+            row.append(0 == i ? "?" : ", ?");
+        }
+        row.append(")");
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            result.append(0 == i ? "" : ", ").append(row);
+        }
+        return result.toString();
+    }
+
+    private String truncateString(String str) {
+        return null != str && str.length() > MAX_MESSAGE_LENGTH ? str.substring(0, MAX_MESSAGE_LENGTH) : str;
+    }
+
+    public long getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    public long getFlushedCount() {
+        return flushedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    // 当前缓冲区中等待写入的事件数
+    public int getPendingCount() {
+        return ringBuffer.size();
+    }
+}
@@ -0,0 +1,343 @@
+package top.taka.seieiElasticJob.event;
+
+import com.dangdang.ddframe.job.event.rdb.JobEventRdbListener;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 作业事件追踪表的维护和查询
+ * elastic-job 的 JOB_EXECUTION_LOG、JOB_STATUS_TRACE_LOG 表只有主键和 (task_id, state) 索引，记录不会被删除，
+ * 数据量大时按作业名称和时间范围的查询需要全表扫描。本类在后台线程中补充按作业名称和时间、按时间的索引，
+ * 并按保留天数清理过期记录：每批先按时间索引查出最多 purgeBatchSize 条记录的主键，再按主键删除并单独提交，
+ * 每个事务只锁定少量行，批次之间短暂停顿，不会长时间阻塞事件写入。
+ * elastic-job 同步写入模式下表名固定，主键只有 id 一列（MySQL 分区表要求主键包含分区列），所以不做分区或按时间轮换表。
+ * 多个实例会同时清理同一数据源，删除按主键进行，重复删除没有影响，首次清理在一个清理间隔内随机延迟以错开各个实例。
+ * 同一个数据源的所有作业共用一个实例
+ */
+public class JobEventHistory {
+
+    private final static Logger logger = LoggerFactory.getLogger(JobEventHistory.class);
+
+    // 每批删除之间的停顿时间，让出行锁和 IO 给事件写入
+    private static final long PURGE_PAUSE_MILLISECONDS = 50L;
+
+    // 各个作业使用的事件历史
+    private static final ConcurrentMap<String, JobEventHistory> HISTORY_MAP = new ConcurrentHashMap<>();
+
+    private final DataSource dataSource;
+
+    private final int retentionDays;
+
+    private final int purgeBatchSize;
+
+    private final long purgeIntervalMinutes;
+
+    private final boolean indexEnabled;
+
+    // 已删除的过期执行记录数
+    private final AtomicLong purgedExecutionCount = new AtomicLong();
+
+    // 已删除的过期状态记录数
+    private final AtomicLong purgedStatusTraceCount = new AtomicLong();
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    private volatile boolean running;
+
+    private Thread maintenanceThread;
+
+    /**
+     * @param dataSource 事件追踪数据源
+     * @param retentionDays 保留天数，小于 1 表示不清理
+     * @param purgeBatchSize 每批删除的最大记录数
+     * @param purgeIntervalMinutes 清理间隔，单位：分钟
+     * @param indexEnabled 是否创建按作业名称和时间查询的索引
+     */
+    public JobEventHistory(DataSource dataSource, int retentionDays, int purgeBatchSize, long purgeIntervalMinutes, boolean indexEnabled) {
+        this.dataSource = dataSource;
+        this.retentionDays = retentionDays;
+        this.purgeBatchSize = Math.max(purgeBatchSize, 1);
+        this.purgeIntervalMinutes = Math.max(purgeIntervalMinutes, 1L);
+        this.indexEnabled = indexEnabled;
+    }
+
+    /**
+     * 获取作业使用的事件历史
+     * @param jobName 作业名称
+     * @return 作业未配置事件追踪数据源时返回 null
+     */
+    public static JobEventHistory getHistory(String jobName) {
+        return HISTORY_MAP.get(jobName);
+    }
+
+    /**
+     * 指定作业使用的事件历史
+     * @param jobName 作业名称
+     * @param jobEventHistory 事件历史
+     */
+    public static void bind(String jobName, JobEventHistory jobEventHistory) {
+        HISTORY_MAP.put(jobName, jobEventHistory);
+    }
+
+    /**
+     * 解除作业与事件历史的绑定，作业移除时调用，事件历史由同一数据源的作业共用，不关闭
+     * @param jobName 作业名称
+     */
+    public static void unbind(String jobName) {
+        HISTORY_MAP.remove(jobName);
+    }
+
+    /**
+     * 建表并启动后台维护线程，大表创建索引耗时较长，在后台线程中进行，不阻塞作业启动
+     * @throws SQLException
+     */
+    public synchronized void start() throws SQLException {
+        if (running) {
+            return;
+        }
+        // JobEventRdbListener 构造时会按 elastic-job 的表结构建表，索引需要在表存在之后创建
+        new JobEventRdbListener(dataSource);
+        Configuration configuration = new Configuration(new Environment(JobEventHistory.class.getSimpleName(), new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.addMapper(JobEventHistoryMapper.class);
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+        if (!indexEnabled && retentionDays < 1) {
+            return;
+        }
+        running = true;
+        maintenanceThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                maintenanceLoop();
+            }
+        }, "seiei-elastic-job-event-maintenance");
+        maintenanceThread.setDaemon(true);
+        maintenanceThread.start();
+        logger.info("启动作业事件追踪表维护，保留天数：{}，每批删除：{}，清理间隔：{} 分钟，创建索引：{}", retentionDays, purgeBatchSize, purgeIntervalMinutes, indexEnabled);
+    }
+
+    /**
+     * 停止后台维护线程，正在进行的清理在当前批次完成后停止
+     */
+    public synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(maintenanceThread);
+        try {
+            maintenanceThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("关闭作业事件追踪表维护，共删除 {} 条执行记录，{} 条状态记录", purgedExecutionCount.get(), purgedStatusTraceCount.get());
+    }
+
+    /**
+     * 按开始时间倒序查询执行记录
+     * @param jobName 作业名称，为 null 时查询所有作业
+     * @param from 开始时间下限（包含），为 null 时不限制
+     * @param to 开始时间上限（不包含），为 null 时不限制
+     * @param success 是否执行成功，为 null 时不限制
+     * @param offset 跳过的记录数，翻页较深时应缩小时间范围而不是增大 offset
+     * @param limit 最多返回的记录数
+     * @return
+     */
+    public List<JobExecutionRecord> findExecutions(String jobName, Date from, Date to, Boolean success, int offset, int limit) {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            return sqlSession.getMapper(JobEventHistoryMapper.class).selectExecutions(jobName, from, to, toFlag(success), Math.max(offset, 0), Math.max(limit, 0));
+        }
+    }
+
+    /**
+     * 统计执行记录数，参数同 findExecutions
+     * @return
+     */
+    public long countExecutions(String jobName, Date from, Date to, Boolean success) {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            return sqlSession.getMapper(JobEventHistoryMapper.class).countExecutions(jobName, from, to, toFlag(success));
+        }
+    }
+
+    /**
+     * 按创建时间倒序查询状态记录
+     * @param jobName 作业名称，为 null 时查询所有作业
+     * @param from 创建时间下限（包含），为 null 时不限制
+     * @param to 创建时间上限（不包含），为 null 时不限制
+     * @param offset 跳过的记录数
+     * @param limit 最多返回的记录数
+     * @return
+     */
+    public List<JobStatusTraceRecord> findStatusTraces(String jobName, Date from, Date to, int offset, int limit) {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            return sqlSession.getMapper(JobEventHistoryMapper.class).selectStatusTraces(jobName, from, to, Math.max(offset, 0), Math.max(limit, 0));
+        }
+    }
+
+    /**
+     * 查询一次执行的所有状态记录
+     * @param taskId 任务 ID
+     * @return 按创建时间排序
+     */
+    public List<JobStatusTraceRecord> findStatusTraces(String taskId) {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            return sqlSession.getMapper(JobEventHistoryMapper.class).selectStatusTracesByTaskId(taskId);
+        }
+    }
+
+    /**
+     * 立即分批删除开始时间（创建时间）早于指定时间的记录
+     * @param before 截止时间
+     * @return 删除的记录数
+     */
+    public long purge(Date before) {
+        long result = 0;
+        int deleted;
+        do {
+            deleted = purgeBatch(before, true);
+            result += deleted;
+        } while (deleted > 0 && pause());
+        do {
+            deleted = purgeBatch(before, false);
+            result += deleted;
+        } while (deleted > 0 && pause());
+        return result;
+    }
+
+    private void maintenanceLoop() {
+        if (indexEnabled) {
+            try {
+                createIndexesIfNeeded();
+            } catch (RuntimeException | SQLException ex) {
+                logger.error("创建作业事件追踪表索引失败：{}", ex.getMessage());
+            }
+        }
+        if (retentionDays < 1) {
+            running = false;
+            return;
+        }
+        long intervalNanos = TimeUnit.MINUTES.toNanos(purgeIntervalMinutes);
+        LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(intervalNanos));
+        while (running) {
+            long startTime = System.currentTimeMillis();
+            try {
+                long deleted = purge(new Date(startTime - TimeUnit.DAYS.toMillis(retentionDays)));
+                if (deleted > 0) {
+                    logger.info("清理 {} 天前的作业事件 {} 条，耗时 {} ms", retentionDays, deleted, System.currentTimeMillis() - startTime);
+                }
+            } catch (RuntimeException ex) {
+                logger.error("清理过期作业事件失败，将在下一次重试：{}", ex.getMessage());
+            }
+            LockSupport.parkNanos(intervalNanos);
+        }
+    }
+
+    /**
+     * 删除一批过期记录，每批单独提交
+     * @param execution true 为执行记录，false 为状态记录
+     * @return 删除的记录数
+     */
+    private int purgeBatch(Date before, boolean execution) {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            JobEventHistoryMapper mapper = sqlSession.getMapper(JobEventHistoryMapper.class);
+            List<String> ids = execution ? mapper.selectExpiredExecutionIds(before, purgeBatchSize) : mapper.selectExpiredStatusTraceIds(before, purgeBatchSize);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            int result = execution ? mapper.deleteExecutions(ids) : mapper.deleteStatusTraces(ids);
+            (execution ? purgedExecutionCount : purgedStatusTraceCount).addAndGet(result);
+            // 其他实例同时清理时本批可能已被删除，仍有查到的记录就继续
+            return Math.max(result, 1);
+        }
+    }
+
+    /**
+     * 批次之间停顿，后台线程停止时返回 false；在调用方线程中手动清理时不受后台线程影响
+     */
+    private boolean pause() {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(PURGE_PAUSE_MILLISECONDS));
+        return running || Thread.currentThread() != maintenanceThread;
+    }
+
+    private void createIndexesIfNeeded() throws SQLException {
+        Set<String> executionIndexes;
+        Set<String> statusTraceIndexes;
+        try (Connection conn = dataSource.getConnection()) {
+            executionIndexes = getIndexNames(conn, JobEventHistoryMapper.TABLE_JOB_EXECUTION_LOG);
+            statusTraceIndexes = getIndexNames(conn, JobEventHistoryMapper.TABLE_JOB_STATUS_TRACE_LOG);
+        }
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            JobEventHistoryMapper mapper = sqlSession.getMapper(JobEventHistoryMapper.class);
+            if (!executionIndexes.contains(JobEventHistoryMapper.JOB_NAME_START_TIME_INDEX)) {
+                logger.info("创建索引 {}.{}", JobEventHistoryMapper.TABLE_JOB_EXECUTION_LOG, JobEventHistoryMapper.JOB_NAME_START_TIME_INDEX);
+                mapper.createJobNameStartTimeIndex();
+            }
+            if (retentionDays > 0 && !executionIndexes.contains(JobEventHistoryMapper.START_TIME_INDEX)) {
+                logger.info("创建索引 {}.{}", JobEventHistoryMapper.TABLE_JOB_EXECUTION_LOG, JobEventHistoryMapper.START_TIME_INDEX);
+                mapper.createStartTimeIndex();
+            }
+            if (!statusTraceIndexes.contains(JobEventHistoryMapper.JOB_NAME_CREATION_TIME_INDEX)) {
+                logger.info("创建索引 {}.{}", JobEventHistoryMapper.TABLE_JOB_STATUS_TRACE_LOG, JobEventHistoryMapper.JOB_NAME_CREATION_TIME_INDEX);
+                mapper.createJobNameCreationTimeIndex();
+            }
+            if (retentionDays > 0 && !statusTraceIndexes.contains(JobEventHistoryMapper.CREATION_TIME_INDEX)) {
+                logger.info("创建索引 {}.{}", JobEventHistoryMapper.TABLE_JOB_STATUS_TRACE_LOG, JobEventHistoryMapper.CREATION_TIME_INDEX);
+                mapper.createCreationTimeIndex();
+            }
+        }
+    }
+
+    /**
+     * 获取表上已有的索引名称，统一转为大写，兼容将标识符转为小写的数据库
+     */
+    private Set<String> getIndexNames(Connection conn, String tableName) throws SQLException {
+        Set<String> result = new HashSet<>();
+        DatabaseMetaData dbMetaData = conn.getMetaData();
+        for (String each : new String[] {tableName, tableName.toLowerCase()}) {
+            try (ResultSet resultSet = dbMetaData.getIndexInfo(null, null, each, false, false)) {
+                while (resultSet.next()) {
+                    String indexName = resultSet.getString("INDEX_NAME");
+                    if (null != indexName) {
+                        result.add(indexName.toUpperCase());
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private Integer toFlag(Boolean success) {
+        return null == success ? null : success ? 1 : 0;
+    }
+
+    public long getPurgedExecutionCount() {
+        return purgedExecutionCount.get();
+    }
+
+    public long getPurgedStatusTraceCount() {
+        return purgedStatusTraceCount.get();
+    }
+}
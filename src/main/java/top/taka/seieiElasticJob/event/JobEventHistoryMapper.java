@@ -0,0 +1,97 @@
+package top.taka.seieiElasticJob.event;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 作业事件追踪表的 MyBatis Mapper，由 JobEventHistory 注册到自己的 SqlSessionFactory，不依赖使用方的 MyBatis 配置
+ * 表由 elastic-job 的 JobEventRdbStorage 创建，这里只补充索引、查询和分批删除；分页使用 LIMIT ... OFFSET ...，MySQL、PostgreSQL、H2 均支持
+ */
+public interface JobEventHistoryMapper {
+
+    String TABLE_JOB_EXECUTION_LOG = "JOB_EXECUTION_LOG";
+
+    String TABLE_JOB_STATUS_TRACE_LOG = "JOB_STATUS_TRACE_LOG";
+
+    // 按作业名称和时间范围查询
+    String JOB_NAME_START_TIME_INDEX = "JOB_NAME_START_TIME_INDEX";
+
+    // 按时间清理过期记录
+    String START_TIME_INDEX = "START_TIME_INDEX";
+
+    String JOB_NAME_CREATION_TIME_INDEX = "JOB_NAME_CREATION_TIME_INDEX";
+
+    String CREATION_TIME_INDEX = "CREATION_TIME_INDEX";
+
+    String JOB_EXECUTION_LOG_COLUMNS = "id, job_name, task_id, hostname, ip, sharding_item, execution_source, failure_cause, "
+            + "is_success AS success, start_time, complete_time";
+
+    String JOB_STATUS_TRACE_LOG_COLUMNS = "id, job_name, original_task_id, task_id, slave_id, source, execution_type, sharding_item, "
+            + "state, message, creation_time";
+
+    @Update("CREATE INDEX " + JOB_NAME_START_TIME_INDEX + " ON " + TABLE_JOB_EXECUTION_LOG + " (job_name, start_time)")
+    void createJobNameStartTimeIndex();
+
+    @Update("CREATE INDEX " + START_TIME_INDEX + " ON " + TABLE_JOB_EXECUTION_LOG + " (start_time)")
+    void createStartTimeIndex();
+
+    @Update("CREATE INDEX " + JOB_NAME_CREATION_TIME_INDEX + " ON " + TABLE_JOB_STATUS_TRACE_LOG + " (job_name, creation_time)")
+    void createJobNameCreationTimeIndex();
+
+    @Update("CREATE INDEX " + CREATION_TIME_INDEX + " ON " + TABLE_JOB_STATUS_TRACE_LOG + " (creation_time)")
+    void createCreationTimeIndex();
+
+    @Select("<script>SELECT " + JOB_EXECUTION_LOG_COLUMNS + " FROM " + TABLE_JOB_EXECUTION_LOG
+            + "<where>"
+            + "<if test='jobName != null'>job_name = #{jobName}</if>"
+            + "<if test='from != null'> AND start_time &gt;= #{from}</if>"
+            + "<if test='to != null'> AND start_time &lt; #{to}</if>"
+            + "<if test='success != null'> AND is_success = #{success}</if>"
+            + "</where>"
+            + " ORDER BY start_time DESC LIMIT #{limit} OFFSET #{offset}</script>")
+    List<JobExecutionRecord> selectExecutions(@Param("jobName") String jobName, @Param("from") Date from, @Param("to") Date to,
+                                              @Param("success") Integer success, @Param("offset") int offset, @Param("limit") int limit);
+
+    @Select("<script>SELECT COUNT(*) FROM " + TABLE_JOB_EXECUTION_LOG
+            + "<where>"
+            + "<if test='jobName != null'>job_name = #{jobName}</if>"
+            + "<if test='from != null'> AND start_time &gt;= #{from}</if>"
+            + "<if test='to != null'> AND start_time &lt; #{to}</if>"
+            + "<if test='success != null'> AND is_success = #{success}</if>"
+            + "</where></script>")
+    long countExecutions(@Param("jobName") String jobName, @Param("from") Date from, @Param("to") Date to, @Param("success") Integer success);
+
+    @Select("<script>SELECT " + JOB_STATUS_TRACE_LOG_COLUMNS + " FROM " + TABLE_JOB_STATUS_TRACE_LOG
+            + "<where>"
+            + "<if test='jobName != null'>job_name = #{jobName}</if>"
+            + "<if test='from != null'> AND creation_time &gt;= #{from}</if>"
+            + "<if test='to != null'> AND creation_time &lt; #{to}</if>"
+            + "</where>"
+            + " ORDER BY creation_time DESC LIMIT #{limit} OFFSET #{offset}</script>")
+    List<JobStatusTraceRecord> selectStatusTraces(@Param("jobName") String jobName, @Param("from") Date from, @Param("to") Date to,
+                                                  @Param("offset") int offset, @Param("limit") int limit);
+
+    // 使用 elastic-job 创建的 TASK_ID_STATE_INDEX 索引
+    @Select("SELECT " + JOB_STATUS_TRACE_LOG_COLUMNS + " FROM " + TABLE_JOB_STATUS_TRACE_LOG + " WHERE task_id = #{taskId} ORDER BY creation_time")
+    List<JobStatusTraceRecord> selectStatusTracesByTaskId(@Param("taskId") String taskId);
+
+    @Select("SELECT id FROM " + TABLE_JOB_EXECUTION_LOG + " WHERE start_time < #{before} LIMIT #{limit}")
+    List<String> selectExpiredExecutionIds(@Param("before") Date before, @Param("limit") int limit);
+
+    @Select("SELECT id FROM " + TABLE_JOB_STATUS_TRACE_LOG + " WHERE creation_time < #{before} LIMIT #{limit}")
+    List<String> selectExpiredStatusTraceIds(@Param("before") Date before, @Param("limit") int limit);
+
+    @Delete("<script>DELETE FROM " + TABLE_JOB_EXECUTION_LOG + " WHERE id IN "
+            + "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    int deleteExecutions(@Param("ids") Collection<String> ids);
+
+    @Delete("<script>DELETE FROM " + TABLE_JOB_STATUS_TRACE_LOG + " WHERE id IN "
+            + "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    int deleteStatusTraces(@Param("ids") Collection<String> ids);
+}
@@ -0,0 +1,121 @@
+package top.taka.seieiElasticJob.event;
+
+import java.util.Date;
+
+/**
+ * JOB_EXECUTION_LOG 表中的一条执行记录，每个分片项的每次执行一条
+ */
+public class JobExecutionRecord {
+
+    private String id;
+
+    private String jobName;
+
+    private String taskId;
+
+    private String hostname;
+
+    private String ip;
+
+    private int shardingItem;
+
+    // 执行来源：NORMAL_TRIGGER、MISFIRE、FAILOVER
+    private String executionSource;
+
+    private String failureCause;
+
+    private boolean success;
+
+    private Date startTime;
+
+    // 尚未执行完成时为 null
+    private Date completeTime;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public String getHostname() {
+        return hostname;
+    }
+
+    public void setHostname(String hostname) {
+        this.hostname = hostname;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public void setIp(String ip) {
+        this.ip = ip;
+    }
+
+    public int getShardingItem() {
+        return shardingItem;
+    }
+
+    public void setShardingItem(int shardingItem) {
+        this.shardingItem = shardingItem;
+    }
+
+    public String getExecutionSource() {
+        return executionSource;
+    }
+
+    public void setExecutionSource(String executionSource) {
+        this.executionSource = executionSource;
+    }
+
+    public String getFailureCause() {
+        return failureCause;
+    }
+
+    public void setFailureCause(String failureCause) {
+        this.failureCause = failureCause;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public Date getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Date startTime) {
+        this.startTime = startTime;
+    }
+
+    public Date getCompleteTime() {
+        return completeTime;
+    }
+
+    public void setCompleteTime(Date completeTime) {
+        this.completeTime = completeTime;
+    }
+}
@@ -0,0 +1,120 @@
+package top.taka.seieiElasticJob.event;
+
+import java.util.Date;
+
+/**
+ * JOB_STATUS_TRACE_LOG 表中的一条状态记录，每次执行按 TASK_STAGING、TASK_RUNNING、TASK_FINISHED 等状态各一条
+ */
+public class JobStatusTraceRecord {
+
+    private String id;
+
+    private String jobName;
+
+    private String originalTaskId;
+
+    private String taskId;
+
+    private String slaveId;
+
+    private String source;
+
+    private String executionType;
+
+    // 本次执行的分片项，多个用逗号分隔
+    private String shardingItem;
+
+    private String state;
+
+    private String message;
+
+    private Date creationTime;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public String getOriginalTaskId() {
+        return originalTaskId;
+    }
+
+    public void setOriginalTaskId(String originalTaskId) {
+        this.originalTaskId = originalTaskId;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public String getSlaveId() {
+        return slaveId;
+    }
+
+    public void setSlaveId(String slaveId) {
+        this.slaveId = slaveId;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getExecutionType() {
+        return executionType;
+    }
+
+    public void setExecutionType(String executionType) {
+        this.executionType = executionType;
+    }
+
+    public String getShardingItem() {
+        return shardingItem;
+    }
+
+    public void setShardingItem(String shardingItem) {
+        this.shardingItem = shardingItem;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Date getCreationTime() {
+        return creationTime;
+    }
+
+    public void setCreationTime(Date creationTime) {
+        this.creationTime = creationTime;
+    }
+}
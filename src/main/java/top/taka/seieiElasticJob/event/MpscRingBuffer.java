@@ -0,0 +1,95 @@
+package top.taka.seieiElasticJob.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形缓冲区，支持多个生产者、单个消费者
+ * 每个槽位维护一个序号：序号等于写入位置时表示可写，等于写入位置 + 1 时表示可读，
+ * 生产者通过 CAS 抢占写入位置，消费者只有一个，读取位置无需同步
+ * @param <E> 元素类型
+ */
+public class MpscRingBuffer<E> {
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> buffer;
+
+    private final AtomicLongArray sequences;
+
+    // 下一个写入位置
+    private final AtomicLong tail = new AtomicLong();
+
+    // 下一个读取位置，只由消费者线程修改
+    private volatile long head;
+
+    /**
+     * @param requestedCapacity 期望容量，实际容量为不小于该值的 2 的幂
+     */
+    public MpscRingBuffer(int requestedCapacity) {
+        int actualCapacity = 1;
+        while (actualCapacity < Math.max(requestedCapacity, 2)) {
+            actualCapacity <<= 1;
+        }
+        capacity = actualCapacity;
+        mask = actualCapacity - 1;
+        buffer = new AtomicReferenceArray<>(actualCapacity);
+        sequences = new AtomicLongArray(actualCapacity);
+        for (int i = 0; i < actualCapacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 写入元素，缓冲区已满时立即返回 false
+     * @param element 元素
+     * @return
+     */
+    public boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (0 == difference) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer.set(index, element);
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 读取元素，只允许单个消费者线程调用，缓冲区为空时返回 null
+     * @return
+     */
+    public E poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        if (sequences.get(index) - (position + 1) < 0) {
+            return null;
+        }
+        E result = buffer.get(index);
+        buffer.set(index, null);
+        sequences.lazySet(index, position + capacity);
+        head = position + 1;
+        return result;
+    }
+
+    public int size() {
+        return (int) Math.max(0, Math.min(capacity, tail.get() - head));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
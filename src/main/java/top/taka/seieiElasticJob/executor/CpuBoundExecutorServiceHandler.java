@@ -0,0 +1,16 @@
+package top.taka.seieiElasticJob.executor;
+
+import com.dangdang.ddframe.job.executor.handler.ExecutorServiceHandler;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * cpu 预设线程池：计算密集型作业的线程池，每个作业 CPU 核数个线程，超过 executorQueueSize 个排队分片项时由作业触发线程直接执行
+ */
+public final class CpuBoundExecutorServiceHandler implements ExecutorServiceHandler {
+
+    @Override
+    public ExecutorService createExecutorService(String jobName) {
+        return JobExecutorServices.createCpuBound(jobName);
+    }
+}
@@ -0,0 +1,16 @@
+package top.taka.seieiElasticJob.executor;
+
+import com.dangdang.ddframe.job.executor.handler.ExecutorServiceHandler;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * io 预设线程池：IO 密集型作业的线程池，每个作业 CPU 核数 * executorIoThreadsPerCore 个线程，超过 executorQueueSize 个排队分片项时由作业触发线程直接执行
+ */
+public final class IoBoundExecutorServiceHandler implements ExecutorServiceHandler {
+
+    @Override
+    public ExecutorService createExecutorService(String jobName) {
+        return JobExecutorServices.createIoBound(jobName);
+    }
+}
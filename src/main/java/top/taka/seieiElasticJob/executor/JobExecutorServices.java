@@ -0,0 +1,147 @@
+package top.taka.seieiElasticJob.executor;
+
+import com.dangdang.ddframe.job.executor.handler.ExecutorServiceHandlerRegistry;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 内置预设线程池的配置和已创建的线程池
+ * elastic-job 在作业第一次执行时通过无参构造方法实例化 executorServiceHandler，并按作业名称缓存创建的线程池，
+ * 该缓存不会随作业关闭而清除，作业移除时由 remove 清除缓存并关闭预设线程池，重新注册的同名作业创建新的线程池。
+ * 预设线程池无法通过构造方法获取配置，由 SeieiElasticJobConfigParser 在启动作业之前写入这里；
+ * 预设线程池的线程都是守护线程，与 elastic-job 默认线程池一样不阻止 JVM 退出
+ */
+public final class JobExecutorServices {
+
+    // 线程空闲超过该时间后回收，与 elastic-job 默认线程池一致
+    static final long KEEP_ALIVE_MILLISECONDS = 5L * 60L * 1000L;
+
+    private static volatile int sharedParallelism = Runtime.getRuntime().availableProcessors() * 2;
+
+    private static volatile int queueSize = 1024;
+
+    private static volatile int shardingMaxThreads = 256;
+
+    private static volatile int ioThreadsPerCore = 8;
+
+    // 各个作业使用的预设线程池
+    private static final ConcurrentMap<String, MonitoredExecutorService> EXECUTOR_SERVICE_MAP = new ConcurrentHashMap<>();
+
+    // 所有作业共用的线程池，第一个使用 shared 预设的作业执行时创建
+    private static ForkJoinPool sharedForkJoinPool;
+
+    private static Semaphore sharedPermits;
+
+    private JobExecutorServices() {
+    }
+
+    /**
+     * 写入预设线程池的配置，只影响之后创建的线程池
+     * @param sharedParallelism shared 预设的线程数
+     * @param queueSize shared、cpu、io 预设的最大排队分片项数
+     * @param shardingMaxThreads sharding 预设每个作业的最大线程数
+     * @param ioThreadsPerCore io 预设每个 CPU 核的线程数
+     */
+    public static void configure(int sharedParallelism, int queueSize, int shardingMaxThreads, int ioThreadsPerCore) {
+        JobExecutorServices.sharedParallelism = Math.max(sharedParallelism, 1);
+        JobExecutorServices.queueSize = Math.max(queueSize, 0);
+        JobExecutorServices.shardingMaxThreads = Math.max(shardingMaxThreads, 1);
+        JobExecutorServices.ioThreadsPerCore = Math.max(ioThreadsPerCore, 1);
+    }
+
+    /**
+     * 获取作业使用的预设线程池
+     * @param jobName 作业名称
+     * @return 作业尚未执行或没有使用预设线程池时返回 null
+     */
+    public static MonitoredExecutorService get(String jobName) {
+        return EXECUTOR_SERVICE_MAP.get(jobName);
+    }
+
+    /**
+     * 移除并关闭作业使用的预设线程池，作业移除时调用；shared 预设只关闭作业自己的包装，共用的线程池不关闭
+     * 同时清除 elastic-job 按作业名称缓存的线程池，否则重新注册的同名作业会拿到已关闭的线程池；
+     * 未使用预设线程池的作业也清除缓存，elastic-job 默认线程池的核心线程空闲后自行回收
+     * @param jobName 作业名称
+     */
+    public static void remove(String jobName) {
+        ExecutorServiceHandlerRegistry.remove(jobName);
+        MonitoredExecutorService executorService = EXECUTOR_SERVICE_MAP.remove(jobName);
+        if (null != executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    static MonitoredExecutorService createShared(String jobName) {
+        synchronized (JobExecutorServices.class) {
+            if (null == sharedForkJoinPool) {
+                int parallelism = sharedParallelism;
+                sharedForkJoinPool = new ForkJoinPool(parallelism, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+
+                    private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+                    @Override
+                    public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                        thread.setName("seiei-shared-job-" + threadNumber.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, null, true);
+                sharedPermits = new Semaphore(parallelism + queueSize);
+            }
+        }
+        return register(jobName, new SharedExecutorService(sharedForkJoinPool, sharedPermits));
+    }
+
+    static MonitoredExecutorService createSharding(String jobName) {
+        // 不排队，没有空闲线程时创建线程，作业在一个实例内不会并发执行，线程数即本实例分配到的分片项数
+        return register(jobName, new MonitoredThreadPoolExecutor(0, shardingMaxThreads, KEEP_ALIVE_MILLISECONDS,
+                new SynchronousQueue<Runnable>(), newThreadFactory(jobName)));
+    }
+
+    static MonitoredExecutorService createCpuBound(String jobName) {
+        return createBounded(jobName, Runtime.getRuntime().availableProcessors());
+    }
+
+    static MonitoredExecutorService createIoBound(String jobName) {
+        return createBounded(jobName, Runtime.getRuntime().availableProcessors() * ioThreadsPerCore);
+    }
+
+    private static MonitoredExecutorService createBounded(String jobName, int threads) {
+        // 线程数达到上限后才开始排队，空闲的线程超时回收
+        BlockingQueue<Runnable> workQueue = 0 == queueSize ? new SynchronousQueue<Runnable>() : new ArrayBlockingQueue<Runnable>(queueSize);
+        MonitoredThreadPoolExecutor result = new MonitoredThreadPoolExecutor(threads, threads, KEEP_ALIVE_MILLISECONDS, workQueue, newThreadFactory(jobName));
+        result.allowCoreThreadTimeOut(true);
+        return register(jobName, result);
+    }
+
+    private static MonitoredExecutorService register(String jobName, MonitoredExecutorService executorService) {
+        EXECUTOR_SERVICE_MAP.put(jobName, executorService);
+        return executorService;
+    }
+
+    private static ThreadFactory newThreadFactory(final String jobName) {
+        return new ThreadFactory() {
+
+            private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                // 与 elastic-job 默认线程池的线程名称一致
+                Thread thread = new Thread(runnable, "inner-job-" + jobName + "-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+}
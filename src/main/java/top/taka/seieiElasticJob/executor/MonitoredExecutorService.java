@@ -0,0 +1,21 @@
+package top.taka.seieiElasticJob.executor;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 可以获取排队和活跃线程数的作业执行线程池，内置预设线程池都实现该接口，运行指标通过该接口读取
+ */
+public interface MonitoredExecutorService extends ExecutorService {
+
+    // 已提交尚未开始执行的分片项数
+    int getQueueSize();
+
+    // 正在执行分片项的线程数
+    int getActiveCount();
+
+    // 线程池当前的线程数，共用线程池时为整个线程池的线程数
+    int getPoolSize();
+
+    // 线程池饱和后由提交线程（作业触发线程）直接执行的分片项数
+    long getCallerRunsCount();
+}
@@ -0,0 +1,44 @@
+package top.taka.seieiElasticJob.executor;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 作业独立使用的线程池，队列已满时由提交线程直接执行并计数，线程池关闭后拒绝提交
+ * elastic-job 提交所有分片项后在提交线程上等待全部执行完成，提交线程直接执行分片项不会阻塞其他作业
+ */
+public class MonitoredThreadPoolExecutor extends ThreadPoolExecutor implements MonitoredExecutorService {
+
+    private final AtomicLong callerRunsCount = new AtomicLong();
+
+    public MonitoredThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveMilliseconds, BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory) {
+        super(corePoolSize, maximumPoolSize, keepAliveMilliseconds, TimeUnit.MILLISECONDS, workQueue, threadFactory);
+        setRejectedExecutionHandler(new RejectedExecutionHandler() {
+
+            @Override
+            public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+                // 与 SharedExecutorService 一致，关闭后提交的分片项抛出异常，不能静默丢弃
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("Executor service has been shutdown.");
+                }
+                callerRunsCount.incrementAndGet();
+                runnable.run();
+            }
+        });
+    }
+
+    @Override
+    public int getQueueSize() {
+        return getQueue().size();
+    }
+
+    @Override
+    public long getCallerRunsCount() {
+        return callerRunsCount.get();
+    }
+}
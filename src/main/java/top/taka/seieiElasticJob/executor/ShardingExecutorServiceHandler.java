@@ -0,0 +1,16 @@
+package top.taka.seieiElasticJob.executor;
+
+import com.dangdang.ddframe.job.executor.handler.ExecutorServiceHandler;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * sharding 预设线程池：每个作业独立的线程池，不排队，线程数随本实例分配到的分片项数伸缩，最多 executorShardingMaxThreads 个线程
+ */
+public final class ShardingExecutorServiceHandler implements ExecutorServiceHandler {
+
+    @Override
+    public ExecutorService createExecutorService(String jobName) {
+        return JobExecutorServices.createSharding(jobName);
+    }
+}
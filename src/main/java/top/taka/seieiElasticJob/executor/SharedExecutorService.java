@@ -0,0 +1,128 @@
+package top.taka.seieiElasticJob.executor;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个作业在共用线程池上的视图
+ * 所有作业的分片项提交到同一个工作窃取线程池（ForkJoinPool），空闲线程从其他线程的队列中窃取任务，
+ * 一个作业的分片项很多时也能用满整个线程池，多个作业同时执行时线程数不会随作业数增长。
+ * 所有作业共用一个许可数为 线程数 + 最大排队数 的信号量，取不到许可时由提交线程直接执行，限制排队的任务数；
+ * 关闭视图只是不再接受该作业的分片项，不会关闭共用线程池
+ */
+public class SharedExecutorService extends AbstractExecutorService implements MonitoredExecutorService {
+
+    private final ForkJoinPool forkJoinPool;
+
+    private final Semaphore permits;
+
+    private final AtomicInteger queueSize = new AtomicInteger();
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    private final AtomicLong callerRunsCount = new AtomicLong();
+
+    private volatile boolean shutdown;
+
+    /**
+     * @param forkJoinPool 共用线程池
+     * @param permits 所有作业共用的许可
+     */
+    public SharedExecutorService(ForkJoinPool forkJoinPool, Semaphore permits) {
+        this.forkJoinPool = forkJoinPool;
+        this.permits = permits;
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor service has been shutdown.");
+        }
+        if (!permits.tryAcquire()) {
+            callerRunsCount.incrementAndGet();
+            command.run();
+            return;
+        }
+        queueSize.incrementAndGet();
+        try {
+            forkJoinPool.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    queueSize.decrementAndGet();
+                    activeCount.incrementAndGet();
+                    try {
+                        command.run();
+                    } finally {
+                        activeCount.decrementAndGet();
+                        permits.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queueSize.decrementAndGet();
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public int getQueueSize() {
+        return queueSize.get();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    @Override
+    public int getPoolSize() {
+        return forkJoinPool.getPoolSize();
+    }
+
+    @Override
+    public long getCallerRunsCount() {
+        return callerRunsCount.get();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && 0 == queueSize.get() && 0 == activeCount.get();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isTerminated()) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(10L);
+        }
+        return true;
+    }
+}
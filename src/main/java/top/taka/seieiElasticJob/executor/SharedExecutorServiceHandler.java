@@ -0,0 +1,16 @@
+package top.taka.seieiElasticJob.executor;
+
+import com.dangdang.ddframe.job.executor.handler.ExecutorServiceHandler;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * shared 预设线程池：所有作业共用一个工作窃取线程池，见 SharedExecutorService
+ */
+public final class SharedExecutorServiceHandler implements ExecutorServiceHandler {
+
+    @Override
+    public ExecutorService createExecutorService(String jobName) {
+        return JobExecutorServices.createShared(jobName);
+    }
+}
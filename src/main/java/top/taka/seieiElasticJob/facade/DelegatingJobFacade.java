@@ -0,0 +1,103 @@
+package top.taka.seieiElasticJob.facade;
+
+import com.dangdang.ddframe.job.config.JobRootConfiguration;
+import com.dangdang.ddframe.job.event.type.JobExecutionEvent;
+import com.dangdang.ddframe.job.event.type.JobStatusTraceEvent;
+import com.dangdang.ddframe.job.exception.JobExecutionEnvironmentException;
+import com.dangdang.ddframe.job.executor.JobFacade;
+import com.dangdang.ddframe.job.executor.ShardingContexts;
+
+import java.util.Collection;
+
+/**
+ * JobFacade 包装类，所有方法默认委托给被包装的 JobFacade
+ * elastic-job 的作业执行器通过 JobFacade 完成分片、错过执行、监听、事件发布等所有操作，
+ * 子类只需重写关心的方法即可在作业执行流程中插入额外的逻辑，多个包装类可以层层嵌套
+ */
+public class DelegatingJobFacade implements JobFacade {
+
+    private final JobFacade delegate;
+
+    public DelegatingJobFacade(JobFacade delegate) {
+        this.delegate = delegate;
+    }
+
+    public JobFacade getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public JobRootConfiguration loadJobRootConfiguration(boolean fromCache) {
+        return delegate.loadJobRootConfiguration(fromCache);
+    }
+
+    @Override
+    public void checkJobExecutionEnvironment() throws JobExecutionEnvironmentException {
+        delegate.checkJobExecutionEnvironment();
+    }
+
+    @Override
+    public void failoverIfNecessary() {
+        delegate.failoverIfNecessary();
+    }
+
+    @Override
+    public void registerJobBegin(ShardingContexts shardingContexts) {
+        delegate.registerJobBegin(shardingContexts);
+    }
+
+    @Override
+    public void registerJobCompleted(ShardingContexts shardingContexts) {
+        delegate.registerJobCompleted(shardingContexts);
+    }
+
+    @Override
+    public ShardingContexts getShardingContexts() {
+        return delegate.getShardingContexts();
+    }
+
+    @Override
+    public boolean misfireIfRunning(Collection<Integer> shardingItems) {
+        return delegate.misfireIfRunning(shardingItems);
+    }
+
+    @Override
+    public void clearMisfire(Collection<Integer> shardingItems) {
+        delegate.clearMisfire(shardingItems);
+    }
+
+    @Override
+    public boolean isExecuteMisfired(Collection<Integer> shardingItems) {
+        return delegate.isExecuteMisfired(shardingItems);
+    }
+
+    @Override
+    public boolean isEligibleForJobRunning() {
+        return delegate.isEligibleForJobRunning();
+    }
+
+    @Override
+    public boolean isNeedSharding() {
+        return delegate.isNeedSharding();
+    }
+
+    @Override
+    public void beforeJobExecuted(ShardingContexts shardingContexts) {
+        delegate.beforeJobExecuted(shardingContexts);
+    }
+
+    @Override
+    public void afterJobExecuted(ShardingContexts shardingContexts) {
+        delegate.afterJobExecuted(shardingContexts);
+    }
+
+    @Override
+    public void postJobExecutionEvent(JobExecutionEvent jobExecutionEvent) {
+        delegate.postJobExecutionEvent(jobExecutionEvent);
+    }
+
+    @Override
+    public void postJobStatusTraceEvent(String taskId, JobStatusTraceEvent.State state, String message) {
+        delegate.postJobStatusTraceEvent(taskId, state, message);
+    }
+}
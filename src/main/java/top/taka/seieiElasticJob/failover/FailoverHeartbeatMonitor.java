@@ -0,0 +1,400 @@
+package top.taka.seieiElasticJob.failover;
+
+import com.dangdang.ddframe.job.exception.JobConfigurationException;
+import com.dangdang.ddframe.job.lite.api.strategy.JobInstance;
+import com.dangdang.ddframe.job.lite.internal.instance.InstanceService;
+import com.dangdang.ddframe.job.lite.internal.schedule.JobRegistry;
+import com.dangdang.ddframe.job.lite.internal.schedule.JobScheduleController;
+import com.dangdang.ddframe.job.lite.internal.sharding.ShardingService;
+import com.dangdang.ddframe.job.lite.internal.storage.JobNodePath;
+import com.dangdang.ddframe.job.reg.base.CoordinatorRegistryCenter;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 快速失效转移的实例心跳
+ * elastic-job 通过作业实例的临时节点判断实例下线，实例崩溃后要等 Zookeeper 会话超时（默认 60 秒）临时节点才会被删除，期间分配给该实例的分片项无人执行。
+ * 快速失效转移模式下，每个实例按心跳间隔更新 /seiei-heartbeats/{实例ID} 临时节点，心跳时间取 Zookeeper 服务端记录的节点修改时间，不受各实例时钟偏差影响；
+ * 每次心跳后比较其他实例与自己的心跳节点修改时间，相差超过心跳超时时间的实例判定为失联，对本实例运行的快速失效转移作业隔离该实例：
+ *     删除失联实例的主节点（如果是主节点）和作业实例节点，由 elastic-job 在所有实例上完成失效转移和重新分片；
+ *     失联实例仍有正在运行的分片项、正在分片或持有失效转移锁时暂不隔离，等待其完成或会话超时，与默认行为一致。
+ * 失联实例自身在心跳写入失败超过心跳超时时间的一半后租约失效，早于其他实例判定它失联的时间（心跳超时时间）。
+ * 每次执行在写入分片项的运行状态节点之后再确认租约有效、且作业实例节点仍属于本会话，否则删除刚写入的运行状态节点并放弃本次执行（见 FailoverLeaseJobFacade）：
+ * 确认时租约有效，说明其他实例至少要再过心跳超时时间的一半才会判定本实例失联，届时运行状态节点已经存在，隔离前的检查会跳过本实例；
+ * 确认时实例节点已被删除或不属于本会话，说明本实例已被隔离，分片项可能已被接管。两项确认都通过后开始的执行才不会与接管的实例重复。
+ * 执行开始后心跳中断时，运行状态节点一直存在到执行结束或会话超时，期间不会被隔离。
+ * 失联实例的会话可能仍然有效（如长时间停顿或短暂的网络分区），elastic-job 收到本实例节点被删除的通知时，作业未暂停且节点仍不存在就会关闭作业。
+ * 所以租约失效时暂停本实例的快速失效转移作业，心跳恢复后先重新注册被隔离的实例节点并设置重新分片标记，再恢复作业，作业不会被关闭。
+ * 只比较写入了心跳的实例，节点按会话 ID 核对归属，实例以新会话重新注册后不会被误删
+ */
+public class FailoverHeartbeatMonitor {
+
+    private final static Logger logger = LoggerFactory.getLogger(FailoverHeartbeatMonitor.class);
+
+    // 心跳节点的根路径，位于注册中心命名空间下
+    public static final String HEARTBEAT_NODE_ROOT = "/seiei-heartbeats";
+
+    private final CoordinatorRegistryCenter regCenter;
+
+    private final long heartbeatIntervalMilliseconds;
+
+    private final long heartbeatTimeoutMilliseconds;
+
+    // 心跳租约，超过该时间没有成功写入心跳时不再开始新的执行
+    private final long leaseNanos;
+
+    // 与 elastic-job 作业实例 ID 一致，同一进程的所有作业共用
+    private final String instanceId;
+
+    private final String heartbeatPath;
+
+    // 本实例运行的快速失效转移作业
+    private final Set<String> jobNames = new CopyOnWriteArraySet<>();
+
+    // 租约失效时由本类暂停的作业，心跳恢复后恢复
+    private final Set<String> pausedJobNames = new HashSet<>();
+
+    private ScheduledExecutorService scheduler;
+
+    // 最近一次成功写入心跳的开始时间
+    private volatile long lastHeartbeatNanos;
+
+    private volatile boolean heartbeatSucceeded;
+
+    /**
+     * @param regCenter 注册中心
+     * @param heartbeatIntervalMilliseconds 心跳间隔
+     * @param heartbeatTimeoutMilliseconds 心跳超时时间，至少为心跳间隔的 3 倍
+     */
+    public FailoverHeartbeatMonitor(CoordinatorRegistryCenter regCenter, long heartbeatIntervalMilliseconds, long heartbeatTimeoutMilliseconds) {
+        if (heartbeatIntervalMilliseconds < 1 || heartbeatTimeoutMilliseconds < heartbeatIntervalMilliseconds * 3) {
+            throw new JobConfigurationException("failoverHeartbeatTimeoutMilliseconds '%s' must be at least 3 times failoverHeartbeatIntervalMilliseconds '%s'.",
+                    heartbeatTimeoutMilliseconds, heartbeatIntervalMilliseconds);
+        }
+        this.regCenter = regCenter;
+        this.heartbeatIntervalMilliseconds = heartbeatIntervalMilliseconds;
+        this.heartbeatTimeoutMilliseconds = heartbeatTimeoutMilliseconds;
+        leaseNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatTimeoutMilliseconds / 2);
+        instanceId = new JobInstance().getJobInstanceId();
+        heartbeatPath = HEARTBEAT_NODE_ROOT + "/" + instanceId;
+    }
+
+    /**
+     * 添加快速失效转移作业
+     * @param jobName 作业名称
+     */
+    public void addJob(String jobName) {
+        jobNames.add(jobName);
+    }
+
+    /**
+     * 移除快速失效转移作业，作业移除时调用，之后不再为该作业隔离其他实例，也不再暂停和恢复该作业
+     * @param jobName 作业名称
+     */
+    public void removeJob(String jobName) {
+        jobNames.remove(jobName);
+        synchronized (pausedJobNames) {
+            pausedJobNames.remove(jobName);
+        }
+    }
+
+    /**
+     * 写入第一次心跳并开始定时心跳，已启动时直接返回
+     */
+    public synchronized void start() {
+        if (null != scheduler) {
+            return;
+        }
+        heartbeat();
+        // 写入心跳可能阻塞到连接超时，租约检查使用单独的线程
+        scheduler = Executors.newScheduledThreadPool(2, new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "seiei-failover-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                heartbeat();
+            }
+        }, heartbeatIntervalMilliseconds, heartbeatIntervalMilliseconds, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                pauseIfLeaseExpired();
+            }
+        }, heartbeatIntervalMilliseconds, heartbeatIntervalMilliseconds, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止心跳，心跳节点随会话关闭删除
+     */
+    public synchronized void stop() {
+        if (null != scheduler) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * 心跳租约是否有效，无效时本实例可能已被其他实例隔离，不应开始新的执行
+     * @return
+     */
+    public boolean isLeaseValid() {
+        return heartbeatSucceeded && System.nanoTime() - lastHeartbeatNanos < leaseNanos;
+    }
+
+    /**
+     * 作业的本实例节点是否存在且属于当前会话，被其他实例隔离后返回 false
+     * @param jobName 作业名称
+     * @return 无法访问注册中心时返回 false
+     */
+    public boolean isInstanceOwned(String jobName) {
+        try {
+            CuratorFramework client = getClient();
+            Stat stat = client.checkExists().forPath(new JobNodePath(jobName).getInstanceNodePath(instanceId));
+            return null != stat && client.getZookeeperClient().getZooKeeper().getSessionId() == stat.getEphemeralOwner();
+        } catch (Exception e) {
+            logger.warn("seiei-elastic-job实例 {} 检查作业 {} 的实例节点失败：{}", instanceId, jobName, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 删除本会话写入的分片项运行状态节点，放弃执行时调用
+     * @param jobName 作业名称
+     * @param shardingItems 分片项
+     */
+    public void releaseRunningItems(String jobName, Collection<Integer> shardingItems) {
+        JobNodePath jobNodePath = new JobNodePath(jobName);
+        for (Integer each : shardingItems) {
+            String runningPath = jobNodePath.getShardingNodePath(String.valueOf(each), "running");
+            try {
+                CuratorFramework client = getClient();
+                Stat stat = client.checkExists().forPath(runningPath);
+                if (null != stat && client.getZookeeperClient().getZooKeeper().getSessionId() == stat.getEphemeralOwner()) {
+                    deleteQuietly(client, runningPath, stat.getVersion());
+                }
+            } catch (Exception e) {
+                // 会话超时后临时节点会被删除
+                logger.warn("seiei-elastic-job实例 {} 删除作业 {} 分片项 {} 的运行状态失败：{}", instanceId, jobName, each, e.getMessage());
+            }
+        }
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    private void heartbeat() {
+        long startNanos = System.nanoTime();
+        Stat stat;
+        try {
+            stat = writeHeartbeat();
+        } catch (Exception e) {
+            logger.warn("seiei-elastic-job实例 {} 写入心跳失败：{}", instanceId, e.getMessage());
+            return;
+        }
+        lastHeartbeatNanos = startNanos;
+        heartbeatSucceeded = true;
+        try {
+            resumePausedJobs();
+        } catch (Exception e) {
+            logger.warn("seiei-elastic-job实例 {} 恢复暂停的作业失败：{}", instanceId, e.getMessage());
+        }
+        try {
+            fenceLostInstances(stat.getMtime());
+        } catch (Exception e) {
+            logger.warn("seiei-elastic-job实例 {} 检查其他实例心跳失败：{}", instanceId, e.getMessage());
+        }
+    }
+
+    /**
+     * 租约失效时暂停作业，此后其他实例才可能隔离本实例，elastic-job 收到实例节点被删除的通知时作业已暂停，不会关闭作业
+     * 只暂停未被暂停的作业，注册中心连接挂起时 elastic-job 自己暂停的作业由它在重新连接后恢复
+     */
+    private void pauseIfLeaseExpired() {
+        if (isLeaseValid()) {
+            return;
+        }
+        synchronized (pausedJobNames) {
+            // 加锁后再检查一次，心跳线程可能刚刚恢复了作业
+            if (isLeaseValid()) {
+                return;
+            }
+            for (String each : jobNames) {
+                JobScheduleController jobScheduleController = JobRegistry.getInstance().getJobScheduleController(each);
+                if (pausedJobNames.contains(each) || JobRegistry.getInstance().isShutdown(each) || null == jobScheduleController || jobScheduleController.isPaused()) {
+                    continue;
+                }
+                jobScheduleController.pauseJob();
+                pausedJobNames.add(each);
+                logger.warn("seiei-elastic-job实例 {} 心跳租约失效，暂停作业 {}", instanceId, each);
+            }
+        }
+    }
+
+    /**
+     * 心跳恢复后恢复暂停的作业，实例节点已被其他实例隔离时重新注册并设置重新分片标记，由主节点重新分配分片项
+     */
+    private void resumePausedJobs() {
+        synchronized (pausedJobNames) {
+            Iterator<String> iterator = pausedJobNames.iterator();
+            while (iterator.hasNext()) {
+                String each = iterator.next();
+                if (JobRegistry.getInstance().isShutdown(each)) {
+                    iterator.remove();
+                    continue;
+                }
+                InstanceService instanceService = new InstanceService(regCenter, each);
+                if (!instanceService.isLocalJobInstanceExisted()) {
+                    instanceService.persistOnline();
+                    new ShardingService(regCenter, each).setReshardingFlag();
+                    logger.warn("seiei-elastic-job实例 {} 心跳恢复，作业 {} 的实例节点已被隔离，重新注册", instanceId, each);
+                }
+                JobRegistry.getInstance().getJobScheduleController(each).resumeJob();
+                iterator.remove();
+                logger.info("seiei-elastic-job实例 {} 心跳恢复，恢复作业 {}", instanceId, each);
+            }
+        }
+    }
+
+    private Stat writeHeartbeat() throws Exception {
+        CuratorFramework client = getClient();
+        byte[] data = String.valueOf(System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8);
+        try {
+            return client.setData().forPath(heartbeatPath, data);
+        } catch (KeeperException.NoNodeException e) {
+            // 第一次心跳，或会话超时后心跳节点已被删除
+            client.create().creatingParentsIfNeeded().withMode(CreateMode.EPHEMERAL).forPath(heartbeatPath, data);
+            return client.checkExists().forPath(heartbeatPath);
+        }
+    }
+
+    /**
+     * 隔离心跳超时的实例
+     * @param heartbeatTime 本实例本次心跳的服务端时间
+     */
+    private void fenceLostInstances(long heartbeatTime) throws Exception {
+        CuratorFramework client = getClient();
+        for (String each : getChildren(client, HEARTBEAT_NODE_ROOT)) {
+            if (instanceId.equals(each)) {
+                continue;
+            }
+            Stat stat = client.checkExists().forPath(HEARTBEAT_NODE_ROOT + "/" + each);
+            if (null == stat || heartbeatTime - stat.getMtime() <= heartbeatTimeoutMilliseconds) {
+                continue;
+            }
+            for (String jobName : jobNames) {
+                if (!JobRegistry.getInstance().isShutdown(jobName)) {
+                    fence(client, jobName, each, stat.getEphemeralOwner(), heartbeatTime - stat.getMtime());
+                }
+            }
+        }
+    }
+
+    /**
+     * 隔离作业的失联实例
+     * @param client Zookeeper 客户端
+     * @param jobName 作业名称
+     * @param lostInstanceId 失联实例 ID
+     * @param sessionId 失联实例的会话 ID
+     * @param lostMilliseconds 失联时间
+     */
+    private void fence(CuratorFramework client, String jobName, String lostInstanceId, long sessionId, long lostMilliseconds) throws Exception {
+        JobNodePath jobNodePath = new JobNodePath(jobName);
+        String instancePath = jobNodePath.getInstanceNodePath(lostInstanceId);
+        Stat instanceStat = client.checkExists().forPath(instancePath);
+        // 已隔离或会话超时，或实例已以新会话重新注册
+        if (null == instanceStat || sessionId != instanceStat.getEphemeralOwner()) {
+            return;
+        }
+        if (isBusy(client, jobNodePath, sessionId)) {
+            logger.debug("作业 {} 的实例 {} 心跳超时 {} ms，仍有正在执行的操作，暂不隔离", jobName, lostInstanceId, lostMilliseconds);
+            return;
+        }
+        // 先删除主节点，其他实例重新选主后才能完成重新分片
+        String leaderPath = jobNodePath.getFullPath("leader/election/instance");
+        Stat leaderStat = client.checkExists().forPath(leaderPath);
+        if (null != leaderStat && sessionId == leaderStat.getEphemeralOwner()) {
+            deleteQuietly(client, leaderPath, leaderStat.getVersion());
+        }
+        // 删除实例节点，elastic-job 在所有实例上触发失效转移和重新分片
+        if (deleteQuietly(client, instancePath, instanceStat.getVersion())) {
+            logger.warn("作业 {} 的实例 {} 心跳超时 {} ms，已隔离该实例并触发失效转移", jobName, lostInstanceId, lostMilliseconds);
+        }
+    }
+
+    /**
+     * 失联实例是否有正在运行的分片项、正在分片或持有失效转移锁
+     */
+    private boolean isBusy(CuratorFramework client, JobNodePath jobNodePath, long sessionId) throws Exception {
+        for (String each : getChildren(client, jobNodePath.getShardingNodePath())) {
+            if (isOwnedBy(client, jobNodePath.getShardingNodePath(each, "running"), sessionId)) {
+                return true;
+            }
+        }
+        if (isOwnedBy(client, jobNodePath.getFullPath("leader/sharding/processing"), sessionId)) {
+            return true;
+        }
+        String latchPath = jobNodePath.getFullPath("leader/failover/latch");
+        for (String each : getChildren(client, latchPath)) {
+            if (isOwnedBy(client, latchPath + "/" + each, sessionId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isOwnedBy(CuratorFramework client, String path, long sessionId) throws Exception {
+        Stat stat = client.checkExists().forPath(path);
+        return null != stat && sessionId == stat.getEphemeralOwner();
+    }
+
+    private List<String> getChildren(CuratorFramework client, String path) throws Exception {
+        try {
+            return client.getChildren().forPath(path);
+        } catch (KeeperException.NoNodeException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 按版本删除节点，节点已被删除或已变化时返回 false
+     */
+    private boolean deleteQuietly(CuratorFramework client, String path, int version) throws Exception {
+        try {
+            client.delete().withVersion(version).forPath(path);
+            return true;
+        } catch (KeeperException.NoNodeException | KeeperException.BadVersionException e) {
+            return false;
+        }
+    }
+
+    private CuratorFramework getClient() {
+        return (CuratorFramework) regCenter.getRawClient();
+    }
+}
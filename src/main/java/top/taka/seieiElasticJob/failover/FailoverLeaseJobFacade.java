@@ -0,0 +1,72 @@
+package top.taka.seieiElasticJob.failover;
+
+import com.dangdang.ddframe.job.exception.JobSystemException;
+import com.dangdang.ddframe.job.executor.JobFacade;
+import com.dangdang.ddframe.job.executor.ShardingContexts;
+import com.dangdang.ddframe.job.lite.internal.schedule.JobRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import top.taka.seieiElasticJob.facade.DelegatingJobFacade;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 快速失效转移作业的 JobFacade，心跳租约失效后不再开始新的执行
+ * 心跳写入失败超过心跳超时时间的一半时，本实例可能很快会被其他实例判定为失联并隔离，分配给本实例的分片项会被其他实例接管。
+ * elastic-job 的执行顺序为：获取分片上下文、检查分片项是否仍在运行、执行前监听（分布式监听可能等待较长时间）、登记开始运行（写入运行状态节点）、执行分片项。
+ * 获取分片上下文和检查分片项时租约已失效则跳过本次执行；此后到登记开始运行之间租约仍可能失效，或本实例已被隔离，
+ * 所以登记开始运行、写入运行状态节点之后再确认租约和实例节点归属，未通过时删除运行状态节点并抛出异常放弃本次执行，不执行任何分片项。
+ * 其他实例隔离前会检查运行状态节点，确认通过后开始的执行不会与接管的实例重复，见 FailoverHeartbeatMonitor
+ */
+public class FailoverLeaseJobFacade extends DelegatingJobFacade {
+
+    private final static Logger logger = LoggerFactory.getLogger(FailoverLeaseJobFacade.class);
+
+    private final String jobName;
+
+    private final FailoverHeartbeatMonitor failoverHeartbeatMonitor;
+
+    public FailoverLeaseJobFacade(JobFacade delegate, String jobName, FailoverHeartbeatMonitor failoverHeartbeatMonitor) {
+        super(delegate);
+        this.jobName = jobName;
+        this.failoverHeartbeatMonitor = failoverHeartbeatMonitor;
+    }
+
+    @Override
+    public ShardingContexts getShardingContexts() {
+        ShardingContexts result = super.getShardingContexts();
+        if (failoverHeartbeatMonitor.isLeaseValid() || result.getShardingItemParameters().isEmpty()) {
+            return result;
+        }
+        logger.warn("作业 {} 心跳租约已失效，跳过本次执行，分片项：{}", jobName, result.getShardingItemParameters().keySet());
+        ShardingContexts skipped = new ShardingContexts(result.getTaskId(), result.getJobName(), result.getShardingTotalCount(),
+                result.getJobParameter(), Collections.<Integer, String>emptyMap(), result.getJobEventSamplingCount());
+        skipped.setCurrentJobEventSamplingCount(result.getCurrentJobEventSamplingCount());
+        skipped.setAllowSendJobEvent(result.isAllowSendJobEvent());
+        return skipped;
+    }
+
+    @Override
+    public boolean misfireIfRunning(Collection<Integer> shardingItems) {
+        // 执行器收到 true 时直接返回，不登记开始运行
+        if (!failoverHeartbeatMonitor.isLeaseValid()) {
+            logger.warn("作业 {} 心跳租约已失效，跳过本次执行，分片项：{}", jobName, shardingItems);
+            return true;
+        }
+        return super.misfireIfRunning(shardingItems);
+    }
+
+    @Override
+    public void registerJobBegin(ShardingContexts shardingContexts) {
+        super.registerJobBegin(shardingContexts);
+        if (failoverHeartbeatMonitor.isLeaseValid() && failoverHeartbeatMonitor.isInstanceOwned(jobName)) {
+            return;
+        }
+        Set<Integer> shardingItems = shardingContexts.getShardingItemParameters().keySet();
+        failoverHeartbeatMonitor.releaseRunningItems(jobName, shardingItems);
+        JobRegistry.getInstance().setJobRunning(jobName, false);
+        throw new JobSystemException("Job '%s' lease expired or instance fenced before execution, sharding items %s aborted.", jobName, shardingItems);
+    }
+}
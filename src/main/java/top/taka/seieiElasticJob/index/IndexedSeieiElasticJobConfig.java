@@ -0,0 +1,66 @@
+package top.taka.seieiElasticJob.index;
+
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 由作业索引构建的 @SeieiElasticJobConfig 注解实例
+ * 创建时将索引中的字符串属性值一次性转换为注解方法的返回类型，之后的调用直接返回转换结果
+ */
+final class IndexedSeieiElasticJobConfig implements InvocationHandler {
+
+    private final String jobClassName;
+
+    // 注解属性名 -> 属性值
+    private final Map<String, Object> values = new HashMap<>();
+
+    IndexedSeieiElasticJobConfig(String jobClassName, Map<String, String> attributes) {
+        this.jobClassName = jobClassName;
+        for (Method each : SeieiElasticJobConfig.class.getDeclaredMethods()) {
+            String value = attributes.get(each.getName());
+            values.put(each.getName(), null == value ? each.getDefaultValue() : convert(each, value));
+        }
+    }
+
+    private Object convert(Method method, String value) {
+        Class<?> returnType = method.getReturnType();
+        if (String.class == returnType) {
+            return value;
+        }
+        if (int.class == returnType) {
+            return Integer.valueOf(value);
+        }
+        if (long.class == returnType) {
+            return Long.valueOf(value);
+        }
+        if (boolean.class == returnType) {
+            return Boolean.valueOf(value);
+        }
+        throw new IllegalStateException(String.format("作业索引不支持 %s 类型的注解属性 %s", returnType.getName(), method.getName()));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "annotationType":
+                return SeieiElasticJobConfig.class;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "@" + SeieiElasticJobConfig.class.getName() + values + " on " + jobClassName;
+            default:
+                Object result = values.get(method.getName());
+                if (null == result) {
+                    // 没有默认值且索引中缺少的属性（如 jobName）
+                    throw new IllegalStateException(String.format("作业索引中缺少 %s 的注解属性 %s", jobClassName, method.getName()));
+                }
+                return result;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package top.taka.seieiElasticJob.index;
+
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 编译期生成的作业索引
+ * 由 SeieiElasticJobIndexProcessor 在编译时写入 META-INF/seiei-elastic-job.index，每个作业两类条目：
+ *     作业类名=作业类型（SimpleJob、DataflowJob、ScriptJob）
+ *     作业类名#注解属性名=属性值（包括默认值）
+ * classpath 中存在多个索引文件（如作业分布在多个 jar 中）时合并读取
+ */
+public final class SeieiElasticJobIndex {
+
+    // 索引文件位置
+    public static final String INDEX_LOCATION = "META-INF/seiei-elastic-job.index";
+
+    // 注解处理器编译期不能引用注解的 Class，使用类名
+    static final String ANNOTATION_CLASS_NAME = "top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig";
+
+    // 作业类名与注解属性名的分隔符
+    static final String ATTRIBUTE_SEPARATOR = "#";
+
+    // 作业类名 -> 作业类型
+    private final Map<String, String> jobTypes = new LinkedHashMap<>();
+
+    // 作业类名 -> 注解属性值
+    private final Map<String, Map<String, String>> attributes = new HashMap<>();
+
+    private SeieiElasticJobIndex() {
+    }
+
+    /**
+     * 读取 classpath 中的所有作业索引
+     * @param classLoader 类加载器
+     * @return 不存在索引文件时返回 null
+     * @throws IOException
+     */
+    public static SeieiElasticJobIndex load(ClassLoader classLoader) throws IOException {
+        Enumeration<URL> urls = classLoader.getResources(INDEX_LOCATION);
+        if (!urls.hasMoreElements()) {
+            return null;
+        }
+        SeieiElasticJobIndex result = new SeieiElasticJobIndex();
+        while (urls.hasMoreElements()) {
+            Properties properties = new Properties();
+            try (InputStream inputStream = urls.nextElement().openStream()) {
+                properties.load(inputStream);
+            }
+            result.merge(properties);
+        }
+        return result;
+    }
+
+    private void merge(Properties properties) {
+        for (String key : properties.stringPropertyNames()) {
+            int separatorIndex = key.indexOf(ATTRIBUTE_SEPARATOR);
+            if (separatorIndex < 0) {
+                jobTypes.put(key, properties.getProperty(key));
+                continue;
+            }
+            String className = key.substring(0, separatorIndex);
+            Map<String, String> jobAttributes = attributes.get(className);
+            if (null == jobAttributes) {
+                jobAttributes = new HashMap<>();
+                attributes.put(className, jobAttributes);
+            }
+            jobAttributes.put(key.substring(separatorIndex + 1), properties.getProperty(key));
+        }
+    }
+
+    /**
+     * 获取索引中的所有作业类名
+     * @return
+     */
+    public List<String> getJobClassNames() {
+        return new ArrayList<>(jobTypes.keySet());
+    }
+
+    /**
+     * 获取编译期解析的作业类型
+     * @param jobClassName 作业类名
+     * @return 未实现任何作业接口时返回空字符串
+     */
+    public String getJobType(String jobClassName) {
+        return jobTypes.get(jobClassName);
+    }
+
+    /**
+     * 获取由索引中的属性值构建的注解实例，索引中缺少的属性（如索引生成后注解新增的属性）使用注解的默认值
+     * @param jobClassName 作业类名
+     * @return
+     */
+    public SeieiElasticJobConfig getJobConfig(String jobClassName) {
+        Map<String, String> jobAttributes = attributes.get(jobClassName);
+        return createJobConfig(jobClassName, null == jobAttributes ? new HashMap<String, String>() : jobAttributes);
+    }
+
+    /**
+     * 由属性值构建注解实例，缺少的属性使用注解的默认值，也用于运行时注册作业（SeieiJobRegistry）
+     * @param jobClassName 作业类名
+     * @param attributes 注解属性名 -> 属性值
+     * @return
+     */
+    public static SeieiElasticJobConfig createJobConfig(String jobClassName, Map<String, String> attributes) {
+        return (SeieiElasticJobConfig) Proxy.newProxyInstance(SeieiElasticJobConfig.class.getClassLoader(), new Class<?>[] {SeieiElasticJobConfig.class},
+                new IndexedSeieiElasticJobConfig(jobClassName, attributes));
+    }
+}
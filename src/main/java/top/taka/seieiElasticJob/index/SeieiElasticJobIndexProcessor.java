@@ -0,0 +1,154 @@
+package top.taka.seieiElasticJob.index;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 编译期生成作业索引的注解处理器
+ * 编译时收集所有标记了 @SeieiElasticJobConfig 的类，将作业类型和注解的全部属性值（包括默认值）写入 META-INF/seiei-elastic-job.index，
+ * 启动时 SeieiElasticJobConfigParser 直接读取索引，不再扫描注解、反射读取属性、比较接口名称
+ * 使用方只需依赖 seiei-elastic-job 即可，javac 会通过 META-INF/services 自动发现本处理器
+ */
+@SupportedAnnotationTypes(SeieiElasticJobIndex.ANNOTATION_CLASS_NAME)
+public class SeieiElasticJobIndexProcessor extends AbstractProcessor {
+
+    // 作业接口与作业类型的对应关系，与 ElasticJobType 一致，BatchSimpleJob 继承了 SimpleJob，需要先于 SimpleJob 判断
+    private static final String[][] JOB_TYPES = {
+            {"top.taka.seieiElasticJob.job.BatchSimpleJob", "BatchSimpleJob"},
+            {"com.dangdang.ddframe.job.api.simple.SimpleJob", "SimpleJob"},
+            {"com.dangdang.ddframe.job.api.dataflow.DataflowJob", "DataflowJob"},
+            {"com.dangdang.ddframe.job.api.script.ScriptJob", "ScriptJob"}
+    };
+
+    // 本次编译收集到的作业类型，key 为作业类的二进制名称
+    private final Map<String, String> jobTypes = new LinkedHashMap<>();
+
+    // 本次编译收集到的注解属性值，key 为作业类的二进制名称
+    private final Map<String, Map<String, String>> jobs = new LinkedHashMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement annotationElement = processingEnv.getElementUtils().getTypeElement(SeieiElasticJobIndex.ANNOTATION_CLASS_NAME);
+        if (null != annotationElement) {
+            for (Element each : roundEnv.getElementsAnnotatedWith(annotationElement)) {
+                if (ElementKind.CLASS == each.getKind()) {
+                    collect((TypeElement) each, annotationElement);
+                }
+            }
+        }
+        if (roundEnv.processingOver() && !jobs.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private void collect(TypeElement typeElement, TypeElement annotationElement) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        for (AnnotationMirror annotationMirror : typeElement.getAnnotationMirrors()) {
+            if (!processingEnv.getTypeUtils().isSameType(annotationMirror.getAnnotationType(), annotationElement.asType())) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : processingEnv.getElementUtils().getElementValuesWithDefaults(annotationMirror).entrySet()) {
+                attributes.put(entry.getKey().getSimpleName().toString(), String.valueOf(entry.getValue().getValue()));
+            }
+        }
+        String className = processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+        jobTypes.put(className, resolveJobType(typeElement));
+        jobs.put(className, attributes);
+    }
+
+    /**
+     * 根据作业类实现的接口（包括父类实现的接口）判断作业类型，未实现任何作业接口时返回空字符串
+     */
+    private String resolveJobType(TypeElement typeElement) {
+        TypeMirror type = processingEnv.getTypeUtils().erasure(typeElement.asType());
+        for (String[] each : JOB_TYPES) {
+            TypeElement jobInterface = processingEnv.getElementUtils().getTypeElement(each[0]);
+            if (null != jobInterface && processingEnv.getTypeUtils().isAssignable(type, processingEnv.getTypeUtils().erasure(jobInterface.asType()))) {
+                return each[1];
+            }
+        }
+        return "";
+    }
+
+    private void writeIndex() {
+        Properties index = readExistingIndex();
+        for (Map.Entry<String, Map<String, String>> job : jobs.entrySet()) {
+            index.setProperty(job.getKey(), jobTypes.get(job.getKey()));
+            for (Map.Entry<String, String> attribute : job.getValue().entrySet()) {
+                index.setProperty(job.getKey() + SeieiElasticJobIndex.ATTRIBUTE_SEPARATOR + attribute.getKey(), attribute.getValue());
+            }
+        }
+        try {
+            FileObject fileObject = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SeieiElasticJobIndex.INDEX_LOCATION);
+            try (OutputStream outputStream = fileObject.openOutputStream()) {
+                index.store(outputStream, "Generated by " + getClass().getName());
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "写入作业索引失败：" + e);
+        }
+    }
+
+    /**
+     * 增量编译时只处理了发生变化的类，读取上一次生成的索引，保留仍然存在且仍标记了注解、但本次没有处理的作业
+     */
+    private Properties readExistingIndex() {
+        Properties result = new Properties();
+        Properties existing = new Properties();
+        try {
+            FileObject fileObject = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SeieiElasticJobIndex.INDEX_LOCATION);
+            try (InputStream inputStream = fileObject.openInputStream()) {
+                existing.load(inputStream);
+            }
+        } catch (IOException e) {
+            // 没有上一次生成的索引
+            return result;
+        }
+        for (String key : existing.stringPropertyNames()) {
+            int separatorIndex = key.indexOf(SeieiElasticJobIndex.ATTRIBUTE_SEPARATOR);
+            String className = separatorIndex < 0 ? key : key.substring(0, separatorIndex);
+            if (!jobs.containsKey(className) && isAnnotatedJob(className)) {
+                result.setProperty(key, existing.getProperty(key));
+            }
+        }
+        return result;
+    }
+
+    private boolean isAnnotatedJob(String className) {
+        TypeElement typeElement = processingEnv.getElementUtils().getTypeElement(className.replace('$', '.'));
+        if (null == typeElement) {
+            return false;
+        }
+        for (AnnotationMirror each : typeElement.getAnnotationMirrors()) {
+            if (SeieiElasticJobIndex.ANNOTATION_CLASS_NAME.equals(each.getAnnotationType().toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,207 @@
+package top.taka.seieiElasticJob.job;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.event.type.JobExecutionEvent;
+import com.dangdang.ddframe.job.exception.JobSystemException;
+import com.dangdang.ddframe.job.executor.JobFacade;
+import com.dangdang.ddframe.job.executor.ShardingContexts;
+import top.taka.seieiElasticJob.facade.DelegatingJobFacade;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 批量分片简单作业的 JobFacade
+ * elastic-job 的作业执行器只有一个分片项时直接在触发线程中执行，多个分片项时逐个提交到执行线程池，无法扩展；
+ * 这里在获取分片上下文时将本实例的所有分片项合并为只包含第一个分片项的上下文，执行器只会调用一次 execute，
+ * 由 BatchSimpleJob 通过 getShardingContexts 取回所有分片项。
+ * 执行器以合并后的上下文调用的其他方法（运行状态、错过执行、监听）都换回所有分片项，
+ * 第一个分片项的执行事件也会为每个分片项各发布一次，作业事件追踪和运行指标仍按分片项统计。
+ * 同一作业在一个实例内不会并发执行，每个作业只需记录当前这一次执行
+ */
+public class BatchShardingJobFacade extends DelegatingJobFacade {
+
+    // 各个作业当前的批量执行，供 BatchSimpleJob 获取所有分片项
+    private static final ConcurrentMap<String, Batch> BATCH_MAP = new ConcurrentHashMap<>();
+
+    private volatile Batch currentBatch;
+
+    public BatchShardingJobFacade(JobFacade delegate) {
+        super(delegate);
+    }
+
+    /**
+     * 获取合并后的分片项对应的所有分片项
+     * @param shardingContext 执行器传入的分片项
+     * @return 不是合并后的分片项时（如本实例只分配到一个分片项）只返回该分片项
+     */
+    public static List<ShardingContext> getShardingContexts(ShardingContext shardingContext) {
+        Batch batch = BATCH_MAP.get(shardingContext.getJobName());
+        if (null == batch || !batch.isMerged(shardingContext.getTaskId(), shardingContext.getShardingItem())) {
+            return Collections.singletonList(shardingContext);
+        }
+        batch.failureCause = null;
+        return batch.shardingContextList;
+    }
+
+    /**
+     * 记录批量执行失败的原因，所有分片项的执行失败事件使用同一个原因
+     * @param shardingContext 执行器传入的分片项
+     * @param cause 失败原因
+     */
+    static void executionFailed(ShardingContext shardingContext, Throwable cause) {
+        Batch batch = BATCH_MAP.get(shardingContext.getJobName());
+        if (null != batch && batch.isMerged(shardingContext.getTaskId(), shardingContext.getShardingItem())) {
+            batch.failureCause = cause;
+        }
+    }
+
+    @Override
+    public ShardingContexts getShardingContexts() {
+        ShardingContexts result = super.getShardingContexts();
+        if (result.getShardingItemParameters().size() <= 1) {
+            currentBatch = null;
+            BATCH_MAP.remove(result.getJobName());
+            return result;
+        }
+        Batch batch = new Batch(result);
+        currentBatch = batch;
+        BATCH_MAP.put(result.getJobName(), batch);
+        return batch.merged;
+    }
+
+    @Override
+    public void registerJobBegin(ShardingContexts shardingContexts) {
+        super.registerJobBegin(unmerge(shardingContexts));
+    }
+
+    @Override
+    public void registerJobCompleted(ShardingContexts shardingContexts) {
+        super.registerJobCompleted(unmerge(shardingContexts));
+    }
+
+    @Override
+    public boolean misfireIfRunning(Collection<Integer> shardingItems) {
+        return super.misfireIfRunning(unmerge(shardingItems));
+    }
+
+    @Override
+    public void clearMisfire(Collection<Integer> shardingItems) {
+        super.clearMisfire(unmerge(shardingItems));
+    }
+
+    @Override
+    public boolean isExecuteMisfired(Collection<Integer> shardingItems) {
+        return super.isExecuteMisfired(unmerge(shardingItems));
+    }
+
+    @Override
+    public void beforeJobExecuted(ShardingContexts shardingContexts) {
+        super.beforeJobExecuted(unmerge(shardingContexts));
+    }
+
+    @Override
+    public void afterJobExecuted(ShardingContexts shardingContexts) {
+        Batch batch = currentBatch;
+        if (null != batch && batch.merged == shardingContexts) {
+            currentBatch = null;
+            BATCH_MAP.remove(shardingContexts.getJobName(), batch);
+        }
+        super.afterJobExecuted(null != batch && batch.merged == shardingContexts ? batch.all : shardingContexts);
+    }
+
+    /**
+     * 将合并后的分片项的执行事件展开为每个分片项的执行事件
+     * @param jobExecutionEvent 执行器发布的执行事件
+     */
+    @Override
+    public void postJobExecutionEvent(JobExecutionEvent jobExecutionEvent) {
+        Batch batch = currentBatch;
+        if (null == batch || !batch.isMerged(jobExecutionEvent.getTaskId(), jobExecutionEvent.getShardingItem())) {
+            super.postJobExecutionEvent(jobExecutionEvent);
+            return;
+        }
+        // 开始事件
+        if (null == jobExecutionEvent.getCompleteTime()) {
+            for (ShardingContext each : batch.shardingContextList) {
+                JobExecutionEvent startEvent = each.getShardingItem() == batch.mergedItem
+                        ? jobExecutionEvent : new JobExecutionEvent(jobExecutionEvent.getTaskId(), jobExecutionEvent.getJobName(), jobExecutionEvent.getSource(), each.getShardingItem());
+                batch.startEvents.put(each.getShardingItem(), startEvent);
+                super.postJobExecutionEvent(startEvent);
+            }
+            return;
+        }
+        // 结束事件，事件采样未命中时执行器只发布失败事件，此时没有开始事件
+        Throwable failureCause = null == batch.failureCause
+                ? new JobSystemException("Batch execution of sharding items %s failed.", batch.all.getShardingItemParameters().keySet()) : batch.failureCause;
+        for (ShardingContext each : batch.shardingContextList) {
+            if (each.getShardingItem() == batch.mergedItem) {
+                super.postJobExecutionEvent(jobExecutionEvent);
+                continue;
+            }
+            JobExecutionEvent startEvent = batch.startEvents.get(each.getShardingItem());
+            if (null == startEvent) {
+                startEvent = new JobExecutionEvent(jobExecutionEvent.getTaskId(), jobExecutionEvent.getJobName(), jobExecutionEvent.getSource(), each.getShardingItem());
+            }
+            super.postJobExecutionEvent(jobExecutionEvent.isSuccess() ? startEvent.executionSuccess() : startEvent.executionFailure(failureCause));
+        }
+        batch.startEvents.clear();
+    }
+
+    private ShardingContexts unmerge(ShardingContexts shardingContexts) {
+        Batch batch = currentBatch;
+        return null != batch && batch.merged == shardingContexts ? batch.all : shardingContexts;
+    }
+
+    private Collection<Integer> unmerge(Collection<Integer> shardingItems) {
+        Batch batch = currentBatch;
+        return null != batch && 1 == shardingItems.size() && shardingItems.contains(batch.mergedItem) ? batch.all.getShardingItemParameters().keySet() : shardingItems;
+    }
+
+    /**
+     * 一次批量执行
+     */
+    private static final class Batch {
+
+        // 本实例本次执行的所有分片项
+        private final ShardingContexts all;
+
+        // 只包含第一个分片项的上下文，交给作业执行器
+        private final ShardingContexts merged;
+
+        private final int mergedItem;
+
+        private final List<ShardingContext> shardingContextList;
+
+        // 各个分片项的开始事件，结束事件需要沿用开始事件的 ID 和开始时间
+        private final Map<Integer, JobExecutionEvent> startEvents = new HashMap<>();
+
+        private volatile Throwable failureCause;
+
+        private Batch(ShardingContexts all) {
+            this.all = all;
+            Map<Integer, String> sortedItemParameters = new TreeMap<>(all.getShardingItemParameters());
+            mergedItem = sortedItemParameters.keySet().iterator().next();
+            merged = new ShardingContexts(all.getTaskId(), all.getJobName(), all.getShardingTotalCount(), all.getJobParameter(),
+                    Collections.singletonMap(mergedItem, sortedItemParameters.get(mergedItem)), all.getJobEventSamplingCount());
+            merged.setCurrentJobEventSamplingCount(all.getCurrentJobEventSamplingCount());
+            merged.setAllowSendJobEvent(all.isAllowSendJobEvent());
+            List<ShardingContext> shardingContexts = new ArrayList<>(sortedItemParameters.size());
+            for (int each : sortedItemParameters.keySet()) {
+                shardingContexts.add(new ShardingContext(all, each));
+            }
+            shardingContextList = Collections.unmodifiableList(shardingContexts);
+        }
+
+        private boolean isMerged(String taskId, int item) {
+            return mergedItem == item && all.getTaskId().equals(taskId);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package top.taka.seieiElasticJob.job;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.api.simple.SimpleJob;
+
+import java.util.List;
+
+/**
+ * 批量分片简单作业
+ * elastic-job 的简单作业为本实例分配到的每个分片项调用一次 execute，多个分片项在作业执行线程池中并发执行，
+ * 每个分片项各自查询、写入数据库；实现本接口的作业一次收到本实例分配到的所有分片项，
+ * 可以用一条 WHERE shard IN (...) 查询或一次批量写入处理所有分片项。
+ * 作业以简单作业的方式注册，由 BatchShardingJobFacade 将所有分片项合并为一次执行，
+ * 分片项的运行状态、错过执行、失效转移、作业事件和监听仍按每个分片项处理；
+ * 一次执行失败时所有分片项都记录为执行失败
+ */
+public interface BatchSimpleJob extends SimpleJob {
+
+    /**
+     * 执行作业
+     * @param shardingContexts 本实例本次执行的所有分片项，按分片项排序
+     */
+    void execute(List<ShardingContext> shardingContexts);
+
+    /**
+     * 由 elastic-job 的 SimpleJobExecutor 调用，转换为本次执行的所有分片项并记录失败原因，实现类不应重写
+     * @param shardingContext 合并后的分片项
+     */
+    @Override
+    default void execute(ShardingContext shardingContext) {
+        try {
+            execute(BatchShardingJobFacade.getShardingContexts(shardingContext));
+        } catch (final Throwable cause) {
+            BatchShardingJobFacade.executionFailed(shardingContext, cause);
+            throw cause;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package top.taka.seieiElasticJob.job;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.api.dataflow.DataflowJob;
+import com.dangdang.ddframe.job.exception.JobConfigurationException;
+import top.taka.seieiElasticJob.checkpoint.JobCheckpointStore;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 断点续处理流式作业基类
+ * 每处理完一批数据后保存该分片项的断点（如最后处理的主键、时间戳），下一次抓取数据时将断点交给 fetchPage，
+ * 作业重启、失效转移到其他实例后从断点继续处理，而不是从头重新读取已经处理过的数据。
+ * 继承本类的作业必须配置 checkpointDataSource，断点的写入方式见 JobCheckpointStore；
+ * 同一次执行内直接使用内存中的断点，每次执行开始时才从存储读取
+ * @param <T> 数据类型
+ */
+public abstract class CheckpointDataflowJob<T> implements DataflowJob<T> {
+
+    // 各个分片项当前执行使用的断点
+    private final Map<Integer, Cursor> cursorMap = new ConcurrentHashMap<>();
+
+    /**
+     * 从断点之后抓取一批数据
+     * @param shardingContext 分片上下文
+     * @param checkpoint 断点，第一次执行或断点被清除时为 null
+     * @return 返回空列表时表示已处理完所有数据
+     */
+    protected abstract List<T> fetchPage(ShardingContext shardingContext, String checkpoint);
+
+    /**
+     * 处理一批数据，抛出异常时不保存断点，下一次从原断点重新抓取
+     * @param shardingContext 分片上下文
+     * @param data 数据
+     */
+    protected abstract void processPage(ShardingContext shardingContext, List<T> data);
+
+    /**
+     * 获取处理完一批数据后的断点，通常为最后一条数据的主键或时间戳
+     * @param shardingContext 分片上下文
+     * @param data 已处理的数据
+     * @return 返回 null 时不保存断点
+     */
+    protected abstract String getCheckpoint(ShardingContext shardingContext, List<T> data);
+
+    @Override
+    public final List<T> fetchData(ShardingContext shardingContext) {
+        Cursor cursor = getCursor(shardingContext);
+        List<T> result = fetchPage(shardingContext, cursor.checkpoint);
+        // 已处理完所有数据，尽快写入最终的断点
+        if (null == result || result.isEmpty()) {
+            getStore(shardingContext).requestFlush();
+        }
+        return result;
+    }
+
+    @Override
+    public final void processData(ShardingContext shardingContext, List<T> data) {
+        processPage(shardingContext, data);
+        String checkpoint = getCheckpoint(shardingContext, data);
+        if (null == checkpoint) {
+            return;
+        }
+        getStore(shardingContext).save(shardingContext.getJobName(), shardingContext.getShardingItem(), checkpoint);
+        getCursor(shardingContext).checkpoint = checkpoint;
+    }
+
+    /**
+     * 清除分片项的断点，下一次抓取从头开始
+     * @param shardingContext 分片上下文
+     */
+    protected void resetCheckpoint(ShardingContext shardingContext) {
+        getStore(shardingContext).remove(shardingContext.getJobName(), shardingContext.getShardingItem());
+        getCursor(shardingContext).checkpoint = null;
+    }
+
+    private Cursor getCursor(ShardingContext shardingContext) {
+        Cursor result = cursorMap.get(shardingContext.getShardingItem());
+        // elastic-job 每次执行为每个分片项创建新的分片上下文，流式处理时同一次执行内的多次抓取使用同一个分片上下文
+        if (null == result || result.shardingContext != shardingContext) {
+            result = new Cursor(shardingContext, getStore(shardingContext).load(shardingContext.getJobName(), shardingContext.getShardingItem()));
+            cursorMap.put(shardingContext.getShardingItem(), result);
+        }
+        return result;
+    }
+
+    private JobCheckpointStore getStore(ShardingContext shardingContext) {
+        JobCheckpointStore result = JobCheckpointStore.getStore(shardingContext.getJobName());
+        if (null == result) {
+            throw new JobConfigurationException("Cannot find checkpoint store for job '%s', please configure checkpointDataSource.", shardingContext.getJobName());
+        }
+        return result;
+    }
+
+    /**
+     * 分片项在一次执行中的断点
+     */
+    private static final class Cursor {
+
+        private final ShardingContext shardingContext;
+
+        private volatile String checkpoint;
+
+        private Cursor(ShardingContext shardingContext, String checkpoint) {
+            this.shardingContext = shardingContext;
+            this.checkpoint = checkpoint;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package top.taka.seieiElasticJob.job;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.api.dataflow.DataflowJob;
+import com.dangdang.ddframe.job.exception.JobSystemException;
+import com.dangdang.ddframe.job.executor.ShardingContexts;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 预取流式作业基类
+ * elastic-job 的流式处理严格交替执行 fetchData 和 processData，读取和写入无法重叠；
+ * 继承本类的作业在处理当前页时，由后台线程提前抓取后续的页放入有界队列，并可将每一页拆分给多个线程并行处理。
+ * 继承本类的作业会被自动识别为流式作业（streamingProcess = true），抓取到空页时结束本次执行。
+ * 注意：处理当前页时下一页已经抓取，所以 fetchPage 必须基于上一页定位下一页（如按主键游标），而不能依赖当前页的处理结果。
+ * 处理异常时停止该分片项的预取；elastic-job 的流式循环中途退出（作业暂停、关闭或需要重新分片）时，
+ * 由 PrefetchDataflowJobFacade 在本次执行结束时停止遗留的预取；作业移除或容器关闭时由 shutdown 停止预取并关闭线程池
+ * @param <T> 数据类型
+ */
+public abstract class PrefetchDataflowJob<T> implements DataflowJob<T> {
+
+    // 各个作业的运行指标
+    private static final ConcurrentMap<String, PrefetchDataflowMetrics> METRICS_MAP = new ConcurrentHashMap<>();
+
+    // 各个作业已开始执行的作业实例，作业实例由 elastic-job 创建，不是 spring 的 bean，需要在这里关闭线程池
+    private static final ConcurrentMap<String, PrefetchDataflowJob<?>> JOB_MAP = new ConcurrentHashMap<>();
+
+    // 默认预取页数
+    public static final int DEFAULT_PREFETCH_PAGES = 2;
+
+    // 停止预取的检查间隔
+    private static final long OFFER_TIMEOUT_MILLISECONDS = 100L;
+
+    // 预取线程序号
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger(1);
+
+    private final int prefetchPages;
+
+    private final int processWorkers;
+
+    // 各个分片项正在运行的预取任务
+    private final Map<Integer, Prefetcher> prefetcherMap = new ConcurrentHashMap<>();
+
+    private final ExecutorService fetchExecutorService;
+
+    // 并行处理线程池，处理线程数为 1 时为 null
+    private final ExecutorService processExecutorService;
+
+    private volatile boolean shutdown;
+
+    protected PrefetchDataflowJob() {
+        this(DEFAULT_PREFETCH_PAGES, 1);
+    }
+
+    /**
+     * @param prefetchPages 最多预取的页数
+     * @param processWorkers 处理每一页数据的线程数
+     */
+    protected PrefetchDataflowJob(int prefetchPages, int processWorkers) {
+        this.prefetchPages = Math.max(prefetchPages, 1);
+        this.processWorkers = Math.max(processWorkers, 1);
+        fetchExecutorService = Executors.newCachedThreadPool(newThreadFactory("seiei-elastic-job-prefetch-"));
+        processExecutorService = this.processWorkers > 1 ? Executors.newFixedThreadPool(this.processWorkers - 1, newThreadFactory("seiei-elastic-job-process-")) : null;
+    }
+
+    private ThreadFactory newThreadFactory(final String namePrefix) {
+        return new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, namePrefix + THREAD_NUMBER.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * 获取作业的运行指标
+     * @param jobName 作业名称
+     * @return 作业尚未执行过时返回 null
+     */
+    public static PrefetchDataflowMetrics getMetrics(String jobName) {
+        return METRICS_MAP.get(jobName);
+    }
+
+    /**
+     * 获取所有预取流式作业的运行指标
+     * @return
+     */
+    public static Map<String, PrefetchDataflowMetrics> getAllMetrics() {
+        return Collections.unmodifiableMap(METRICS_MAP);
+    }
+
+    /**
+     * 移除作业的运行指标，作业移除时调用
+     * @param jobName 作业名称
+     */
+    public static void removeMetrics(String jobName) {
+        METRICS_MAP.remove(jobName);
+    }
+
+    /**
+     * 停止作业所有的预取任务并关闭线程池，作业移除时调用；正在执行的抓取和处理会继续完成
+     * @param jobName 作业名称
+     */
+    public static void shutdown(String jobName) {
+        PrefetchDataflowJob<?> job = JOB_MAP.remove(jobName);
+        if (null != job) {
+            job.shutdown();
+        }
+    }
+
+    /**
+     * 停止所有作业的预取任务并关闭线程池，容器关闭时调用
+     */
+    public static void shutdownAll() {
+        for (String each : JOB_MAP.keySet()) {
+            shutdown(each);
+        }
+    }
+
+    /**
+     * 停止一次执行遗留的预取任务，执行正常结束时各分片项的预取任务已经结束
+     * @param shardingContexts 本次执行的分片上下文
+     */
+    static void stopPrefetchers(ShardingContexts shardingContexts) {
+        PrefetchDataflowJob<?> job = JOB_MAP.get(shardingContexts.getJobName());
+        if (null == job) {
+            return;
+        }
+        for (int each : shardingContexts.getShardingItemParameters().keySet()) {
+            job.stopPrefetcher(each, shardingContexts.getTaskId());
+        }
+    }
+
+    /**
+     * 抓取一页数据，在后台预取线程中执行
+     * @param shardingContext 分片上下文
+     * @param previousPage 上一页数据，第一页时为 null
+     * @return 返回空列表时表示数据已全部抓取
+     */
+    protected abstract List<T> fetchPage(ShardingContext shardingContext, List<T> previousPage);
+
+    /**
+     * 处理数据，处理线程数大于 1 时每一页会被拆分为多份并行调用
+     * @param shardingContext 分片上下文
+     * @param data 待处理的数据
+     */
+    protected abstract void processPage(ShardingContext shardingContext, List<T> data);
+
+    @Override
+    public final List<T> fetchData(ShardingContext shardingContext) {
+        // 同一次执行中 elastic-job 对同一分片项传入的是同一个 ShardingContext 对象，以此区分新的一次执行
+        Prefetcher prefetcher = prefetcherMap.get(shardingContext.getShardingItem());
+        if (null == prefetcher || prefetcher.shardingContext != shardingContext) {
+            if (null != prefetcher) {
+                // 上一次执行中途退出（如处理异常或分片变化）时遗留的预取任务
+                prefetcher.stop();
+            }
+            if (shutdown) {
+                throw new JobSystemException("Job '%s' has been shutdown.", shardingContext.getJobName());
+            }
+            JOB_MAP.put(shardingContext.getJobName(), this);
+            prefetcher = new Prefetcher(shardingContext, getOrCreateMetrics(shardingContext.getJobName()));
+            prefetcherMap.put(shardingContext.getShardingItem(), prefetcher);
+            fetchExecutorService.execute(prefetcher);
+        }
+        List<T> result;
+        try {
+            result = prefetcher.take();
+        } catch (RuntimeException e) {
+            prefetcherMap.remove(shardingContext.getShardingItem(), prefetcher);
+            throw e;
+        }
+        if (result.isEmpty()) {
+            prefetcherMap.remove(shardingContext.getShardingItem(), prefetcher);
+        }
+        return result;
+    }
+
+    @Override
+    public final void processData(ShardingContext shardingContext, List<T> data) {
+        PrefetchDataflowMetrics metrics = getOrCreateMetrics(shardingContext.getJobName());
+        long startTime = System.nanoTime();
+        try {
+            if (null == processExecutorService || data.size() < 2) {
+                processPage(shardingContext, data);
+            } else {
+                processInParallel(shardingContext, data);
+            }
+        } catch (RuntimeException | Error e) {
+            // elastic-job 的流式循环在处理异常时结束本次执行，不会再抓取该分片项
+            stopPrefetcher(shardingContext.getShardingItem(), shardingContext.getTaskId());
+            throw e;
+        }
+        metrics.recordProcess(data.size(), System.nanoTime() - startTime);
+    }
+
+    /**
+     * 将一页数据拆分为多份并行处理，最后一份在当前线程处理
+     * 任意一份处理异常时取消其他尚未完成的部分，避免异常结束后仍有线程在处理这一页
+     */
+    private void processInParallel(final ShardingContext shardingContext, List<T> data) {
+        int parts = Math.min(processWorkers, data.size());
+        int partSize = (data.size() + parts - 1) / parts;
+        List<Future<?>> futures = new ArrayList<>(parts - 1);
+        boolean completed = false;
+        try {
+            int fromIndex = 0;
+            for (; fromIndex + partSize < data.size(); fromIndex += partSize) {
+                final List<T> part = data.subList(fromIndex, fromIndex + partSize);
+                futures.add(processExecutorService.submit(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        processPage(shardingContext, part);
+                    }
+                }));
+            }
+            processPage(shardingContext, data.subList(fromIndex, data.size()));
+            for (Future<?> each : futures) {
+                try {
+                    each.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new JobSystemException(e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new JobSystemException(e.getCause());
+                }
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                for (Future<?> each : futures) {
+                    each.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * 停止并移除分片项在指定执行中的预取任务
+     * @param shardingItem 分片项
+     * @param taskId 执行的任务 ID，其他执行的预取任务不受影响
+     */
+    private void stopPrefetcher(int shardingItem, String taskId) {
+        Prefetcher prefetcher = prefetcherMap.get(shardingItem);
+        if (null != prefetcher && prefetcher.shardingContext.getTaskId().equals(taskId) && prefetcherMap.remove(shardingItem, prefetcher)) {
+            prefetcher.stop();
+        }
+    }
+
+    private void shutdown() {
+        shutdown = true;
+        for (Prefetcher each : prefetcherMap.values()) {
+            each.stop();
+        }
+        prefetcherMap.clear();
+        fetchExecutorService.shutdown();
+        if (null != processExecutorService) {
+            processExecutorService.shutdown();
+        }
+    }
+
+    private PrefetchDataflowMetrics getOrCreateMetrics(String jobName) {
+        PrefetchDataflowMetrics result = METRICS_MAP.get(jobName);
+        if (null == result) {
+            METRICS_MAP.putIfAbsent(jobName, new PrefetchDataflowMetrics(jobName));
+            result = METRICS_MAP.get(jobName);
+        }
+        return result;
+    }
+
+    /**
+     * 单个分片项一次执行的预取任务，抓取到空页或抓取异常时结束
+     */
+    private final class Prefetcher implements Runnable {
+
+        private final ShardingContext shardingContext;
+
+        private final PrefetchDataflowMetrics metrics;
+
+        private final BlockingQueue<Page> queue;
+
+        private volatile boolean stopped;
+
+        private Prefetcher(ShardingContext shardingContext, PrefetchDataflowMetrics metrics) {
+            this.shardingContext = shardingContext;
+            this.metrics = metrics;
+            queue = new ArrayBlockingQueue<>(prefetchPages);
+        }
+
+        @Override
+        public void run() {
+            List<T> previousPage = null;
+            while (!stopped) {
+                Page page;
+                try {
+                    long startTime = System.nanoTime();
+                    List<T> data = fetchPage(shardingContext, previousPage);
+                    data = null == data ? Collections.<T>emptyList() : data;
+                    metrics.recordFetch(data.size(), System.nanoTime() - startTime);
+                    page = new Page(data, null);
+                    previousPage = data;
+                } catch (Throwable e) {
+                    page = new Page(Collections.<T>emptyList(), e);
+                }
+                if (!put(page) || page.isLast()) {
+                    return;
+                }
+            }
+        }
+
+        private boolean put(Page page) {
+            try {
+                while (!stopped) {
+                    if (queue.offer(page, OFFER_TIMEOUT_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+                        metrics.incrementQueueDepth();
+                        if (stopped) {
+                            // 放入队列的同时预取任务被停止，清空队列以免遗留的页计入队列深度
+                            clear();
+                            return false;
+                        }
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+
+        private List<T> take() {
+            Page page;
+            try {
+                page = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JobSystemException(e);
+            }
+            metrics.decrementQueueDepth(1);
+            if (null != page.cause) {
+                if (page.cause instanceof RuntimeException) {
+                    throw (RuntimeException) page.cause;
+                }
+                throw new JobSystemException(page.cause);
+            }
+            return page.data;
+        }
+
+        private void stop() {
+            stopped = true;
+            clear();
+        }
+
+        private void clear() {
+            List<Page> remaining = new ArrayList<>(prefetchPages);
+            metrics.decrementQueueDepth(queue.drainTo(remaining));
+        }
+    }
+
+    /**
+     * 预取到的一页数据，抓取异常时 cause 不为 null
+     */
+    private final class Page {
+
+        private final List<T> data;
+
+        private final Throwable cause;
+
+        private Page(List<T> data, Throwable cause) {
+            this.data = data;
+            this.cause = cause;
+        }
+
+        private boolean isLast() {
+            return data.isEmpty() || null != cause;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package top.taka.seieiElasticJob.job;
+
+import com.dangdang.ddframe.job.executor.JobFacade;
+import com.dangdang.ddframe.job.executor.ShardingContexts;
+import top.taka.seieiElasticJob.facade.DelegatingJobFacade;
+
+/**
+ * 预取流式作业的 JobFacade
+ * elastic-job 的流式循环在作业暂停、关闭或需要重新分片时中途退出，不会再调用 fetchData，预取任务会一直等待放入队列；
+ * 重新分片后不再分配到本实例的分片项也不会再执行。registerJobCompleted 在每次执行结束时调用（执行异常时也会调用），
+ * 这里在执行结束时停止本次执行遗留的预取任务
+ */
+public class PrefetchDataflowJobFacade extends DelegatingJobFacade {
+
+    public PrefetchDataflowJobFacade(JobFacade delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public void registerJobCompleted(ShardingContexts shardingContexts) {
+        try {
+            super.registerJobCompleted(shardingContexts);
+        } finally {
+            PrefetchDataflowJob.stopPrefetchers(shardingContexts);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package top.taka.seieiElasticJob.job;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 预取流式作业的运行指标，按作业名称统计，同一作业的所有分片累加
+ */
+public class PrefetchDataflowMetrics {
+
+    private final String jobName;
+
+    // 指标创建时间，用于计算吞吐量
+    private final long createTimeNanos = System.nanoTime();
+
+    // 已抓取的页数
+    private final AtomicLong fetchedPageCount = new AtomicLong();
+
+    // 已抓取的数据条数
+    private final AtomicLong fetchedItemCount = new AtomicLong();
+
+    // 已处理的数据条数
+    private final AtomicLong processedItemCount = new AtomicLong();
+
+    // 抓取数据的累计耗时
+    private final AtomicLong fetchNanos = new AtomicLong();
+
+    // 处理数据的累计耗时
+    private final AtomicLong processNanos = new AtomicLong();
+
+    // 当前已预取、等待处理的页数
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    // 出现过的最大等待处理页数
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    public PrefetchDataflowMetrics(String jobName) {
+        this.jobName = jobName;
+    }
+
+    void recordFetch(int itemCount, long elapsedNanos) {
+        fetchedPageCount.incrementAndGet();
+        fetchedItemCount.addAndGet(itemCount);
+        fetchNanos.addAndGet(elapsedNanos);
+    }
+
+    void recordProcess(int itemCount, long elapsedNanos) {
+        processedItemCount.addAndGet(itemCount);
+        processNanos.addAndGet(elapsedNanos);
+    }
+
+    void incrementQueueDepth() {
+        int depth = queueDepth.incrementAndGet();
+        int max;
+        while (depth > (max = maxQueueDepth.get()) && !maxQueueDepth.compareAndSet(max, depth)) {
+            // CAS 失败时重试
+        }
+    }
+
+    void decrementQueueDepth(int count) {
+        queueDepth.addAndGet(-count);
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public long getFetchedPageCount() {
+        return fetchedPageCount.get();
+    }
+
+    public long getFetchedItemCount() {
+        return fetchedItemCount.get();
+    }
+
+    public long getProcessedItemCount() {
+        return processedItemCount.get();
+    }
+
+    public long getFetchMilliseconds() {
+        return TimeUnit.NANOSECONDS.toMillis(fetchNanos.get());
+    }
+
+    public long getProcessMilliseconds() {
+        return TimeUnit.NANOSECONDS.toMillis(processNanos.get());
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * 平均吞吐量（条/秒），按指标创建以来的时间计算
+     * @return
+     */
+    public double getThroughput() {
+        long elapsedNanos = System.nanoTime() - createTimeNanos;
+        return elapsedNanos <= 0 ? 0 : processedItemCount.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "PrefetchDataflowMetrics{jobName=" + jobName + ", fetchedPageCount=" + getFetchedPageCount() + ", fetchedItemCount=" + getFetchedItemCount()
+                + ", processedItemCount=" + getProcessedItemCount() + ", fetchMilliseconds=" + getFetchMilliseconds() + ", processMilliseconds=" + getProcessMilliseconds()
+                + ", queueDepth=" + getQueueDepth() + ", maxQueueDepth=" + getMaxQueueDepth() + "}";
+    }
+}
@@ -0,0 +1,55 @@
+package top.taka.seieiElasticJob.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import top.taka.seieiElasticJob.event.BatchJobEventRdbWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 作业事件异步批量写入器的运行指标
+ * 同一数据源的所有作业共用一个写入器，指标以数据源的 BeanName 区分，直接读取写入器的计数，写入过程中不做额外的计数
+ */
+public class BatchJobEventRdbWriterMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    // 已注册的指标，关闭时移除
+    private final List<Meter> meters = new ArrayList<>();
+
+    public BatchJobEventRdbWriterMetrics(MeterRegistry meterRegistry, BatchJobEventRdbWriter writer, String dataSourceName) {
+        this.meterRegistry = meterRegistry;
+        Tags tags = Tags.of("dataSource", dataSourceName);
+        meters.add(FunctionCounter.builder(JobMetricsListener.METRIC_PREFIX + ".event.queued", writer, BatchJobEventRdbWriter::getQueuedCount)
+                .description("放入缓冲区的作业事件数")
+                .tags(tags)
+                .register(meterRegistry));
+        meters.add(FunctionCounter.builder(JobMetricsListener.METRIC_PREFIX + ".event.flushed", writer, BatchJobEventRdbWriter::getFlushedCount)
+                .description("已写入数据库的作业事件数")
+                .tags(tags)
+                .register(meterRegistry));
+        meters.add(FunctionCounter.builder(JobMetricsListener.METRIC_PREFIX + ".event.dropped", writer, BatchJobEventRdbWriter::getDroppedCount)
+                .description("因缓冲区已满而丢弃的作业事件数")
+                .tags(tags)
+                .register(meterRegistry));
+        meters.add(FunctionCounter.builder(JobMetricsListener.METRIC_PREFIX + ".event.failed", writer, BatchJobEventRdbWriter::getFailedCount)
+                .description("写入数据库失败的作业事件数")
+                .tags(tags)
+                .register(meterRegistry));
+        meters.add(Gauge.builder(JobMetricsListener.METRIC_PREFIX + ".event.pending", writer, BatchJobEventRdbWriter::getPendingCount)
+                .description("缓冲区中等待写入的作业事件数")
+                .tags(tags)
+                .register(meterRegistry));
+    }
+
+    public void close() {
+        for (Meter each : meters) {
+            meterRegistry.remove(each);
+        }
+        meters.clear();
+    }
+}
@@ -0,0 +1,336 @@
+package top.taka.seieiElasticJob.metrics;
+
+import com.dangdang.ddframe.job.executor.ShardingContexts;
+import com.dangdang.ddframe.job.lite.api.listener.ElasticJobListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import top.taka.seieiElasticJob.executor.JobExecutorServices;
+import top.taka.seieiElasticJob.executor.MonitoredExecutorService;
+import top.taka.seieiElasticJob.overlap.JobOverlapListener;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 作业运行指标监听
+ * 作为 ElasticJobListener 统计每次作业执行的耗时和正在执行的作业数，
+ * 同时接收 MetricsJobFacade 回调的分片项执行结果和 MetricsTriggerListener 回调的触发延迟、错过执行次数，
+ * 配置了执行重叠策略的作业还接收 JobOverlapController 回调的错过触发和补偿执行，使用内置预设线程池的作业还发布线程池的排队和活跃线程数。
+ * 所有指标在创建监听或首次遇到分片项时注册并缓存，执行过程中只做计数和计时，不再创建标签等对象
+ */
+public class JobMetricsListener implements ElasticJobListener, JobOverlapListener {
+
+    public static final String METRIC_PREFIX = "seiei.elastic.job";
+
+    private final MeterRegistry meterRegistry;
+
+    private final String jobName;
+
+    private final Tags jobTags;
+
+    // 作业执行耗时
+    private final Timer executionTimer;
+
+    // 作业触发延迟（实际触发时间 - 计划触发时间）
+    private final Timer triggerLagTimer;
+
+    // Quartz 判定的错过执行次数
+    private final Counter quartzMisfireCounter;
+
+    // 上一次执行尚未结束，本次触发被标记为错过执行的次数
+    private final Counter runningMisfireCounter;
+
+    // 排队等待补偿执行的次数
+    private final AtomicInteger overlapBacklog = new AtomicInteger();
+
+    // 以下执行重叠指标只有配置了执行重叠策略的作业才注册
+
+    // 一次执行期间错过的触发次数
+    private volatile DistributionSummary overlapMissedSummary;
+
+    // 按策略丢弃的触发次数
+    private volatile Counter overlapSkippedCounter;
+
+    // 补偿执行次数
+    private volatile Counter catchUpCounter;
+
+    // 补偿执行开始时间与被错过的计划触发时间的差值
+    private volatile Timer catchUpLagTimer;
+
+    // 是否已注册线程池指标
+    private boolean executorMetersRegistered;
+
+    // 正在执行的作业数
+    private final AtomicInteger inFlightJobs = new AtomicInteger();
+
+    // 正在执行的分片项数
+    private final AtomicInteger inFlightShards = new AtomicInteger();
+
+    // 各个分片项的指标
+    private final ConcurrentMap<Integer, ShardMeters> shardMetersMap = new ConcurrentHashMap<>();
+
+    // 已注册的指标，关闭时移除
+    private final List<Meter> meters = new CopyOnWriteArrayList<>();
+
+    // 作业本次执行的开始时间，同一作业实例不会并发执行
+    private volatile long executionStartNanos;
+
+    public JobMetricsListener(MeterRegistry meterRegistry, String jobName) {
+        this.meterRegistry = meterRegistry;
+        this.jobName = jobName;
+        jobTags = Tags.of("job", jobName);
+        executionTimer = Timer.builder(METRIC_PREFIX + ".execution")
+                .description("作业执行耗时")
+                .tags(jobTags)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        meters.add(executionTimer);
+        triggerLagTimer = Timer.builder(METRIC_PREFIX + ".trigger.lag")
+                .description("作业实际触发时间与计划触发时间的差值")
+                .tags(jobTags)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        meters.add(triggerLagTimer);
+        quartzMisfireCounter = Counter.builder(METRIC_PREFIX + ".misfire")
+                .description("作业错过执行次数")
+                .tags(jobTags.and("source", "quartz"))
+                .register(meterRegistry);
+        meters.add(quartzMisfireCounter);
+        runningMisfireCounter = Counter.builder(METRIC_PREFIX + ".misfire")
+                .description("作业错过执行次数")
+                .tags(jobTags.and("source", "running"))
+                .register(meterRegistry);
+        meters.add(runningMisfireCounter);
+        meters.add(Gauge.builder(METRIC_PREFIX + ".in.flight", inFlightJobs, AtomicInteger::get)
+                .description("正在执行的作业数")
+                .tags(jobTags)
+                .register(meterRegistry));
+        meters.add(Gauge.builder(METRIC_PREFIX + ".shard.in.flight", inFlightShards, AtomicInteger::get)
+                .description("正在执行的分片项数")
+                .tags(jobTags)
+                .register(meterRegistry));
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    @Override
+    public void beforeJobExecuted(ShardingContexts shardingContexts) {
+        inFlightJobs.incrementAndGet();
+        executionStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void afterJobExecuted(ShardingContexts shardingContexts) {
+        executionTimer.record(System.nanoTime() - executionStartNanos, TimeUnit.NANOSECONDS);
+        inFlightJobs.decrementAndGet();
+    }
+
+    /**
+     * 分片项开始执行
+     * @param item 分片项
+     */
+    public void shardStarted(int item) {
+        getShardMeters(item).startNanos = System.nanoTime();
+        inFlightShards.incrementAndGet();
+    }
+
+    /**
+     * 分片项执行结束
+     * @param item 分片项
+     * @param success 是否执行成功
+     */
+    public void shardCompleted(int item, boolean success) {
+        ShardMeters shardMeters = getShardMeters(item);
+        shardMeters.timer.record(System.nanoTime() - shardMeters.startNanos, TimeUnit.NANOSECONDS);
+        (success ? shardMeters.successCounter : shardMeters.failureCounter).increment();
+        inFlightShards.decrementAndGet();
+    }
+
+    /**
+     * 作业被触发
+     * @param lagMilliseconds 实际触发时间与计划触发时间的差值
+     */
+    public void triggerFired(long lagMilliseconds) {
+        triggerLagTimer.record(Math.max(lagMilliseconds, 0L), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Quartz 判定作业错过执行
+     */
+    public void quartzMisfired() {
+        quartzMisfireCounter.increment();
+    }
+
+    /**
+     * 上一次执行尚未结束，本次触发被标记为错过执行
+     */
+    public void runningMisfired() {
+        runningMisfireCounter.increment();
+    }
+
+    /**
+     * 注册执行重叠指标，作业配置了执行重叠策略时调用
+     */
+    public synchronized void registerOverlapMeters() {
+        if (null != catchUpCounter) {
+            return;
+        }
+        overlapMissedSummary = DistributionSummary.builder(METRIC_PREFIX + ".overlap.missed")
+                .description("上一次执行尚未结束，期间错过的触发次数")
+                .tags(jobTags)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        meters.add(overlapMissedSummary);
+        overlapSkippedCounter = Counter.builder(METRIC_PREFIX + ".overlap.skipped")
+                .description("按执行重叠策略丢弃的触发次数")
+                .tags(jobTags)
+                .register(meterRegistry);
+        meters.add(overlapSkippedCounter);
+        catchUpLagTimer = Timer.builder(METRIC_PREFIX + ".overlap.catchup.lag")
+                .description("补偿执行开始时间与被错过的计划触发时间的差值")
+                .tags(jobTags)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        meters.add(catchUpLagTimer);
+        meters.add(Gauge.builder(METRIC_PREFIX + ".overlap.backlog", overlapBacklog, AtomicInteger::get)
+                .description("排队等待补偿执行的次数")
+                .tags(jobTags)
+                .register(meterRegistry));
+        catchUpCounter = Counter.builder(METRIC_PREFIX + ".overlap.catchup")
+                .description("补偿执行次数")
+                .tags(jobTags)
+                .register(meterRegistry);
+        meters.add(catchUpCounter);
+    }
+
+    /**
+     * 注册线程池指标，作业使用内置预设线程池时调用；线程池在作业第一次执行时才创建，创建之前各项指标为 0
+     */
+    public synchronized void registerExecutorMeters() {
+        if (executorMetersRegistered) {
+            return;
+        }
+        executorMetersRegistered = true;
+        meters.add(Gauge.builder(METRIC_PREFIX + ".executor.queued", jobName, JobMetricsListener::getExecutorQueueSize)
+                .description("已提交尚未开始执行的分片项数")
+                .tags(jobTags)
+                .register(meterRegistry));
+        meters.add(Gauge.builder(METRIC_PREFIX + ".executor.active", jobName, JobMetricsListener::getExecutorActiveCount)
+                .description("正在执行分片项的线程数")
+                .tags(jobTags)
+                .register(meterRegistry));
+        meters.add(Gauge.builder(METRIC_PREFIX + ".executor.pool.size", jobName, JobMetricsListener::getExecutorPoolSize)
+                .description("线程池当前的线程数，shared 预设为所有作业共用线程池的线程数")
+                .tags(jobTags)
+                .register(meterRegistry));
+        meters.add(FunctionCounter.builder(METRIC_PREFIX + ".executor.caller.runs", jobName, JobMetricsListener::getExecutorCallerRunsCount)
+                .description("线程池饱和后由作业触发线程直接执行的分片项数")
+                .tags(jobTags)
+                .register(meterRegistry));
+    }
+
+    @Override
+    public void overlapped(int missed, int skipped, int backlog) {
+        if (null == catchUpCounter) {
+            return;
+        }
+        overlapMissedSummary.record(missed);
+        overlapSkippedCounter.increment(skipped);
+        overlapBacklog.set(backlog);
+    }
+
+    @Override
+    public void catchUpStarted(long lagMilliseconds, int backlog) {
+        if (null == catchUpCounter) {
+            return;
+        }
+        catchUpCounter.increment();
+        catchUpLagTimer.record(Math.max(lagMilliseconds, 0L), TimeUnit.MILLISECONDS);
+        overlapBacklog.set(backlog);
+    }
+
+    /**
+     * 从 MeterRegistry 中移除该作业的所有指标，作业被移除后重新注册同名作业时，指标会重新绑定到新的监听
+     */
+    public void close() {
+        for (Meter each : meters) {
+            meterRegistry.remove(each);
+        }
+        meters.clear();
+    }
+
+    private static double getExecutorQueueSize(String jobName) {
+        MonitoredExecutorService executorService = JobExecutorServices.get(jobName);
+        return null == executorService ? 0 : executorService.getQueueSize();
+    }
+
+    private static double getExecutorActiveCount(String jobName) {
+        MonitoredExecutorService executorService = JobExecutorServices.get(jobName);
+        return null == executorService ? 0 : executorService.getActiveCount();
+    }
+
+    private static double getExecutorPoolSize(String jobName) {
+        MonitoredExecutorService executorService = JobExecutorServices.get(jobName);
+        return null == executorService ? 0 : executorService.getPoolSize();
+    }
+
+    private static double getExecutorCallerRunsCount(String jobName) {
+        MonitoredExecutorService executorService = JobExecutorServices.get(jobName);
+        return null == executorService ? 0 : executorService.getCallerRunsCount();
+    }
+
+    private ShardMeters getShardMeters(int item) {
+        ShardMeters result = shardMetersMap.get(item);
+        if (null == result) {
+            shardMetersMap.putIfAbsent(item, new ShardMeters(item));
+            result = shardMetersMap.get(item);
+        }
+        return result;
+    }
+
+    /**
+     * 单个分片项的指标，同一分片项不会并发执行
+     */
+    private final class ShardMeters {
+
+        private final Timer timer;
+
+        private final Counter successCounter;
+
+        private final Counter failureCounter;
+
+        private volatile long startNanos;
+
+        private ShardMeters(int item) {
+            Tags shardTags = jobTags.and("item", String.valueOf(item));
+            timer = Timer.builder(METRIC_PREFIX + ".shard.execution")
+                    .description("分片项执行耗时")
+                    .tags(shardTags)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            meters.add(timer);
+            successCounter = Counter.builder(METRIC_PREFIX + ".shard.result")
+                    .description("分片项执行结果")
+                    .tags(shardTags.and("result", "success"))
+                    .register(meterRegistry);
+            meters.add(successCounter);
+            failureCounter = Counter.builder(METRIC_PREFIX + ".shard.result")
+                    .description("分片项执行结果")
+                    .tags(shardTags.and("result", "failure"))
+                    .register(meterRegistry);
+            meters.add(failureCounter);
+        }
+    }
+}
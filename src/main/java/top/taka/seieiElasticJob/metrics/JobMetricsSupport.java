@@ -0,0 +1,137 @@
+package top.taka.seieiElasticJob.metrics;
+
+import com.dangdang.ddframe.job.exception.JobSystemException;
+import com.dangdang.ddframe.job.lite.api.JobScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.KeyMatcher;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.util.ClassUtils;
+import top.taka.seieiElasticJob.overlap.JobOverlapController;
+import top.taka.seieiElasticJob.scheduler.JobSchedulerAccessor;
+
+/**
+ * 为作业挂载运行指标
+ * micrometer 是可选依赖，解析器只通过本类的静态方法访问指标相关的类，方法签名中不出现 micrometer 的类型，
+ * 没有引入 micrometer 时只要不调用 isAvailable 以外的方法就不会加载 micrometer 的类
+ */
+public final class JobMetricsSupport {
+
+    private static final String METER_REGISTRY_CLASS_NAME = "io.micrometer.core.instrument.MeterRegistry";
+
+    private JobMetricsSupport() {
+    }
+
+    /**
+     * 是否引入了 micrometer 且 spring 容器中存在 MeterRegistry
+     * @param applicationContext Spring 应用容器
+     * @return
+     */
+    public static boolean isAvailable(ApplicationContext applicationContext) {
+        return ClassUtils.isPresent(METER_REGISTRY_CLASS_NAME, JobMetricsSupport.class.getClassLoader()) && null != getMeterRegistry(applicationContext);
+    }
+
+    private static MeterRegistry getMeterRegistry(ApplicationContext applicationContext) {
+        // 存在多个 MeterRegistry 时使用 @Primary 的 CompositeMeterRegistry
+        return applicationContext.getBeanProvider(MeterRegistry.class).getIfUnique();
+    }
+
+    /**
+     * 为作业注册指标监听到 spring 容器
+     * @param applicationContext Spring 应用容器
+     * @param jobName 作业名称
+     * @return 指标监听的 BeanName
+     */
+    public static String registerJobMetricsListener(ApplicationContext applicationContext, String jobName) {
+        String registerBeanName = getJobMetricsListenerBeanName(jobName);
+        DefaultListableBeanFactory defaultListableBeanFactory = (DefaultListableBeanFactory) applicationContext.getAutowireCapableBeanFactory();
+        if (!defaultListableBeanFactory.containsBeanDefinition(registerBeanName)) {
+            BeanDefinitionBuilder factory = BeanDefinitionBuilder.genericBeanDefinition(JobMetricsListener.class);
+            factory.addConstructorArgValue(getMeterRegistry(applicationContext));
+            factory.addConstructorArgValue(jobName);
+            // 作业被移除时从 MeterRegistry 中移除该作业的指标
+            factory.setDestroyMethodName("close");
+            defaultListableBeanFactory.registerBeanDefinition(registerBeanName, factory.getBeanDefinition());
+        }
+        return registerBeanName;
+    }
+
+    /**
+     * 包装作业的 JobFacade 以统计分片项执行结果，需在 JobScheduler.init 之前调用
+     * @param applicationContext Spring 应用容器
+     * @param jobScheduler 作业调度器
+     * @param jobName 作业名称
+     */
+    public static void decorateJobFacade(ApplicationContext applicationContext, JobScheduler jobScheduler, String jobName) {
+        JobMetricsListener jobMetricsListener = applicationContext.getBean(getJobMetricsListenerBeanName(jobName), JobMetricsListener.class);
+        JobSchedulerAccessor.setJobFacade(jobScheduler, new MetricsJobFacade(JobSchedulerAccessor.getJobFacade(jobScheduler), jobMetricsListener));
+    }
+
+    /**
+     * 为作业添加统计触发延迟和错过执行次数的触发器监听，需在 JobScheduler.init 之后调用
+     * @param applicationContext Spring 应用容器
+     * @param jobName 作业名称
+     */
+    public static void registerTriggerListener(ApplicationContext applicationContext, String jobName) {
+        Scheduler scheduler = JobSchedulerAccessor.getScheduler(jobName);
+        if (null == scheduler) {
+            return;
+        }
+        JobMetricsListener jobMetricsListener = applicationContext.getBean(getJobMetricsListenerBeanName(jobName), JobMetricsListener.class);
+        try {
+            scheduler.getListenerManager().addTriggerListener(new MetricsTriggerListener(jobMetricsListener), KeyMatcher.keyEquals(TriggerKey.triggerKey(jobName)));
+        } catch (SchedulerException e) {
+            throw new JobSystemException(e);
+        }
+    }
+
+    /**
+     * 为配置了执行重叠策略的作业注册执行重叠指标
+     * @param applicationContext Spring 应用容器
+     * @param jobOverlapController 作业的执行重叠控制器
+     */
+    public static void bindJobOverlapController(ApplicationContext applicationContext, JobOverlapController jobOverlapController) {
+        JobMetricsListener jobMetricsListener = applicationContext.getBean(getJobMetricsListenerBeanName(jobOverlapController.getJobName()), JobMetricsListener.class);
+        jobMetricsListener.registerOverlapMeters();
+        jobOverlapController.setJobOverlapListener(jobMetricsListener);
+    }
+
+    /**
+     * 为使用内置预设线程池的作业注册线程池指标
+     * @param applicationContext Spring 应用容器
+     * @param jobName 作业名称
+     */
+    public static void bindExecutorService(ApplicationContext applicationContext, String jobName) {
+        applicationContext.getBean(getJobMetricsListenerBeanName(jobName), JobMetricsListener.class).registerExecutorMeters();
+    }
+
+    /**
+     * 为作业事件异步批量写入器注册写入指标，同一数据源只注册一次
+     * @param applicationContext Spring 应用容器
+     * @param writerBeanName 写入器的 BeanName
+     * @param dataSourceName 事件追踪数据源的 BeanName
+     */
+    public static void registerBatchJobEventRdbWriterMetrics(ApplicationContext applicationContext, String writerBeanName, String dataSourceName) {
+        String registerBeanName = writerBeanName + "Metrics";
+        DefaultListableBeanFactory defaultListableBeanFactory = (DefaultListableBeanFactory) applicationContext.getAutowireCapableBeanFactory();
+        if (defaultListableBeanFactory.containsBeanDefinition(registerBeanName)) {
+            return;
+        }
+        BeanDefinitionBuilder factory = BeanDefinitionBuilder.genericBeanDefinition(BatchJobEventRdbWriterMetrics.class);
+        factory.addConstructorArgValue(getMeterRegistry(applicationContext));
+        factory.addConstructorArgReference(writerBeanName);
+        factory.addConstructorArgValue(dataSourceName);
+        factory.setDestroyMethodName("close");
+        defaultListableBeanFactory.registerBeanDefinition(registerBeanName, factory.getBeanDefinition());
+        // 没有其他 bean 引用指标，需要主动创建
+        applicationContext.getBean(registerBeanName);
+    }
+
+    private static String getJobMetricsListenerBeanName(String jobName) {
+        return jobName + "JobMetricsListener";
+    }
+}
@@ -0,0 +1,40 @@
+package top.taka.seieiElasticJob.metrics;
+
+import com.dangdang.ddframe.job.event.type.JobExecutionEvent;
+import com.dangdang.ddframe.job.executor.JobFacade;
+import top.taka.seieiElasticJob.facade.DelegatingJobFacade;
+
+import java.util.Collection;
+
+/**
+ * 统计分片项执行结果的 JobFacade
+ * elastic-job 在每个分片项执行前后都会调用 postJobExecutionEvent，这里在执行线程中同步记录分片项的耗时和结果，不依赖作业事件总线
+ */
+public class MetricsJobFacade extends DelegatingJobFacade {
+
+    private final JobMetricsListener jobMetricsListener;
+
+    public MetricsJobFacade(JobFacade delegate, JobMetricsListener jobMetricsListener) {
+        super(delegate);
+        this.jobMetricsListener = jobMetricsListener;
+    }
+
+    @Override
+    public boolean misfireIfRunning(Collection<Integer> shardingItems) {
+        boolean result = super.misfireIfRunning(shardingItems);
+        if (result) {
+            jobMetricsListener.runningMisfired();
+        }
+        return result;
+    }
+
+    @Override
+    public void postJobExecutionEvent(JobExecutionEvent jobExecutionEvent) {
+        if (null == jobExecutionEvent.getCompleteTime()) {
+            jobMetricsListener.shardStarted(jobExecutionEvent.getShardingItem());
+        } else {
+            jobMetricsListener.shardCompleted(jobExecutionEvent.getShardingItem(), jobExecutionEvent.isSuccess());
+        }
+        super.postJobExecutionEvent(jobExecutionEvent);
+    }
+}
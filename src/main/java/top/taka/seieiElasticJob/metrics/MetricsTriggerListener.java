@@ -0,0 +1,38 @@
+package top.taka.seieiElasticJob.metrics;
+
+import org.quartz.JobExecutionContext;
+import org.quartz.Trigger;
+import org.quartz.listeners.TriggerListenerSupport;
+
+/**
+ * 统计作业触发延迟和 Quartz 错过执行次数的触发器监听
+ */
+public class MetricsTriggerListener extends TriggerListenerSupport {
+
+    private final String name;
+
+    private final JobMetricsListener jobMetricsListener;
+
+    public MetricsTriggerListener(JobMetricsListener jobMetricsListener) {
+        this.jobMetricsListener = jobMetricsListener;
+        // Quartz 以监听器名称区分监听器，共享调度模式下多个作业共用一个调度器，所以名称中包含作业名称
+        name = jobMetricsListener.getJobName() + "_SeieiJobMetricsTriggerListener";
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void triggerFired(Trigger trigger, JobExecutionContext context) {
+        if (null != context.getScheduledFireTime()) {
+            jobMetricsListener.triggerFired(context.getFireTime().getTime() - context.getScheduledFireTime().getTime());
+        }
+    }
+
+    @Override
+    public void triggerMisfired(Trigger trigger) {
+        jobMetricsListener.quartzMisfired();
+    }
+}
@@ -0,0 +1,299 @@
+package top.taka.seieiElasticJob.overlap;
+
+import com.dangdang.ddframe.job.exception.JobConfigurationException;
+import com.dangdang.ddframe.job.exception.JobSystemException;
+import com.dangdang.ddframe.job.lite.internal.schedule.JobRegistry;
+import com.dangdang.ddframe.job.lite.internal.schedule.JobScheduleController;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.quartz.JobListener;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.TriggerListener;
+import org.quartz.impl.matchers.KeyMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import top.taka.seieiElasticJob.enums.OverlapPolicy;
+
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 作业执行重叠控制器
+ * elastic-job 的 cron 触发器使用 Quartz 的 DoNothing 错过执行策略，作业执行时间超过触发间隔时，
+ * 执行期间的触发在执行结束后被 Quartz 判定为错过执行并直接丢弃，开启 misfire 时只能依赖注册中心的错过执行标记补偿，且无法限制次数。
+ * 本控制器同时作为作业的 Quartz 触发器监听和任务监听，记录每次执行的开始、结束时间，
+ * Quartz 判定 cron 触发器错过执行时，计算落在上一次执行期间的计划触发时间，按策略丢弃或排队，
+ * 作业空闲时通过 JobScheduleController.triggerJob 逐个发起补偿执行（错过执行回调中由单独的线程发起），补偿执行期间错过的触发同样按策略处理。
+ * 暂停、线程池繁忙等不是由本作业执行重叠导致的错过执行不在控制范围内
+ */
+public class JobOverlapController implements TriggerListener, JobListener {
+
+    private final static Logger logger = LoggerFactory.getLogger(JobOverlapController.class);
+
+    // 一次错过执行最多计算的计划触发时间个数，避免秒级 cron 长时间执行后逐个遍历
+    private static final int MAX_MISSED_FIRE_TIMES = 10000;
+
+    // 错过执行后发起补偿执行的线程，所有作业共用，空闲 60 秒后回收
+    private static final ThreadPoolExecutor CATCH_UP_EXECUTOR = createCatchUpExecutor();
+
+    private final String jobName;
+
+    private final OverlapPolicy overlapPolicy;
+
+    // 最多排队的补偿执行次数
+    private final int capacity;
+
+    // Quartz 以监听器名称区分监听器，共享调度模式下多个作业共用一个调度器，所以名称中包含作业名称
+    private final String name;
+
+    // 排队等待补偿执行的计划触发时间
+    private final Deque<Long> backlog = new ArrayDeque<>();
+
+    // 按策略丢弃的触发次数
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    // 补偿执行次数
+    private final AtomicLong catchUpCount = new AtomicLong();
+
+    private volatile JobOverlapListener jobOverlapListener;
+
+    /* 以下状态只在持有本对象锁时访问 */
+
+    private boolean running;
+
+    private long lastStartTime;
+
+    private long lastCompleteTime;
+
+    // 已发起但尚未开始的补偿执行
+    private boolean catchUpPending;
+
+    // 已发起的补偿执行对应的计划触发时间
+    private long catchUpScheduledTime;
+
+    /**
+     * @param jobName 作业名称
+     * @param overlapPolicy 执行重叠策略，见 OverlapPolicy
+     * @param queueSize queue 策略下最多排队的补偿执行次数
+     */
+    public JobOverlapController(String jobName, String overlapPolicy, int queueSize) {
+        this.jobName = jobName;
+        this.overlapPolicy = OverlapPolicy.of(overlapPolicy);
+        if (null == this.overlapPolicy) {
+            throw new JobConfigurationException("Job '%s' overlapPolicy '%s' is not supported.", jobName, overlapPolicy);
+        }
+        switch (this.overlapPolicy) {
+            case COALESCE:
+                capacity = 1;
+                break;
+            case QUEUE:
+                capacity = Math.max(queueSize, 1);
+                break;
+            default:
+                capacity = 0;
+        }
+        name = jobName + "_SeieiJobOverlapController";
+    }
+
+    /**
+     * 添加到作业的 Quartz 调度器，需在 JobScheduler.init 之后调用
+     * @param scheduler 作业的 Quartz 调度器
+     */
+    public void install(Scheduler scheduler) {
+        try {
+            // 只有 cron 触发器会被判定错过执行，补偿执行和手动触发使用临时触发器，需要按任务监听执行状态
+            scheduler.getListenerManager().addTriggerListener(this, KeyMatcher.keyEquals(TriggerKey.triggerKey(jobName)));
+            scheduler.getListenerManager().addJobListener(this, KeyMatcher.keyEquals(JobKey.jobKey(jobName)));
+        } catch (SchedulerException e) {
+            throw new JobSystemException(e);
+        }
+    }
+
+    public void setJobOverlapListener(JobOverlapListener jobOverlapListener) {
+        this.jobOverlapListener = jobOverlapListener;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void triggerFired(Trigger trigger, JobExecutionContext context) {
+    }
+
+    @Override
+    public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+        return false;
+    }
+
+    /**
+     * Quartz 传入的是应用错过执行策略之前的触发器副本，下一次触发时间即第一个被错过的计划触发时间
+     * @param trigger 触发器
+     */
+    @Override
+    public void triggerMisfired(Trigger trigger) {
+        int missed = 0;
+        int skipped = 0;
+        int backlogSize;
+        synchronized (this) {
+            long windowEnd = running ? System.currentTimeMillis() : lastCompleteTime;
+            Date fireTime = trigger.getNextFireTime();
+            for (int i = 0; null != fireTime && fireTime.getTime() <= windowEnd && i < MAX_MISSED_FIRE_TIMES; i++) {
+                if (fireTime.getTime() >= lastStartTime) {
+                    missed++;
+                    if (!offer(fireTime.getTime())) {
+                        skipped++;
+                    }
+                }
+                fireTime = trigger.getFireTimeAfter(fireTime);
+            }
+            backlogSize = backlog.size();
+        }
+        if (0 == missed) {
+            return;
+        }
+        logger.debug("作业 {} 执行期间错过 {} 次触发，丢弃 {} 次，排队 {} 次", jobName, missed, skipped, backlogSize);
+        notifyOverlapped(missed, skipped, backlogSize);
+        // Quartz 在持有 RAMJobStore 锁时回调错过执行，JobScheduleController.triggerJob 需要先获取控制器的锁再获取 RAMJobStore 的锁，
+        // 而注册中心监听线程会持有控制器的锁查询触发器状态，在当前线程中发起会死锁，所以由单独的线程发起
+        CATCH_UP_EXECUTOR.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                catchUpIfIdle();
+            }
+        });
+    }
+
+    @Override
+    public void triggerComplete(Trigger trigger, JobExecutionContext context, Trigger.CompletedExecutionInstruction triggerInstructionCode) {
+    }
+
+    @Override
+    public void jobToBeExecuted(JobExecutionContext context) {
+        long lag = -1L;
+        int backlogSize = 0;
+        synchronized (this) {
+            running = true;
+            lastStartTime = System.currentTimeMillis();
+            // cron 触发器的正常触发不是补偿执行，补偿执行仍在等待
+            if (catchUpPending && !TriggerKey.triggerKey(jobName).equals(context.getTrigger().getKey())) {
+                catchUpPending = false;
+                lag = lastStartTime - catchUpScheduledTime;
+                backlogSize = backlog.size();
+            }
+        }
+        if (lag >= 0L) {
+            catchUpCount.incrementAndGet();
+            JobOverlapListener listener = jobOverlapListener;
+            if (null != listener) {
+                listener.catchUpStarted(lag, backlogSize);
+            }
+        }
+    }
+
+    @Override
+    public void jobExecutionVetoed(JobExecutionContext context) {
+    }
+
+    @Override
+    public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+        synchronized (this) {
+            running = false;
+            lastCompleteTime = System.currentTimeMillis();
+        }
+        catchUpIfIdle();
+    }
+
+    private boolean offer(long scheduledTime) {
+        if (backlog.size() < capacity) {
+            backlog.offer(scheduledTime);
+            return true;
+        }
+        skippedCount.incrementAndGet();
+        return false;
+    }
+
+    private void notifyOverlapped(int missed, int skipped, int backlogSize) {
+        JobOverlapListener listener = jobOverlapListener;
+        if (null != listener) {
+            listener.overlapped(missed, skipped, backlogSize);
+        }
+    }
+
+    /**
+     * 作业空闲且有排队的补偿执行时，发起一次补偿执行，同一时间最多只有一个已发起但尚未开始的补偿执行
+     */
+    private void catchUpIfIdle() {
+        synchronized (this) {
+            if (running || catchUpPending || backlog.isEmpty()) {
+                return;
+            }
+            catchUpPending = true;
+            catchUpScheduledTime = backlog.poll();
+        }
+        JobScheduleController jobScheduleController = JobRegistry.getInstance().getJobScheduleController(jobName);
+        if (null == jobScheduleController) {
+            // 作业已关闭
+            synchronized (this) {
+                catchUpPending = false;
+            }
+            return;
+        }
+        try {
+            jobScheduleController.triggerJob();
+        } catch (JobSystemException e) {
+            // 作业正在关闭
+            synchronized (this) {
+                catchUpPending = false;
+            }
+            logger.debug("作业 {} 发起补偿执行失败", jobName, e);
+        }
+    }
+
+    private static ThreadPoolExecutor createCatchUpExecutor() {
+        ThreadPoolExecutor result = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "seiei-overlap-catch-up");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        result.allowCoreThreadTimeOut(true);
+        return result;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public OverlapPolicy getOverlapPolicy() {
+        return overlapPolicy;
+    }
+
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    public long getCatchUpCount() {
+        return catchUpCount.get();
+    }
+
+    // 当前排队等待补偿执行的次数
+    public synchronized int getBacklogSize() {
+        return backlog.size();
+    }
+}
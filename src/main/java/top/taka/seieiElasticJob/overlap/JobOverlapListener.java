@@ -0,0 +1,22 @@
+package top.taka.seieiElasticJob.overlap;
+
+/**
+ * 作业执行重叠监听，用于统计错过的触发和补偿执行
+ */
+public interface JobOverlapListener {
+
+    /**
+     * 上一次执行尚未结束，期间的触发被错过
+     * @param missed 本次错过的触发次数
+     * @param skipped 其中按策略丢弃的次数
+     * @param backlog 当前排队等待补偿执行的次数
+     */
+    void overlapped(int missed, int skipped, int backlog);
+
+    /**
+     * 开始一次补偿执行
+     * @param lagMilliseconds 补偿执行开始时间与被错过的计划触发时间的差值
+     * @param backlog 当前排队等待补偿执行的次数
+     */
+    void catchUpStarted(long lagMilliseconds, int backlog);
+}
@@ -0,0 +1,28 @@
+package top.taka.seieiElasticJob.overlap;
+
+import com.dangdang.ddframe.job.executor.JobFacade;
+import top.taka.seieiElasticJob.facade.DelegatingJobFacade;
+
+import java.util.Collection;
+
+/**
+ * 配置了执行重叠策略的作业的 JobFacade
+ * Quartz 判定错过执行时，elastic-job 的触发器监听会同时为本实例的分片项设置注册中心的错过执行标记，
+ * 当前执行结束前会循环检查标记并立即重新执行，而同一次错过已由 JobOverlapController 按策略计数和补偿执行，再按标记处理会重复计数。
+ * 配置了执行重叠策略的作业写入注册中心的 misfire 为 false，elastic-job 不再检查标记；
+ * 注册中心中的配置未被本地覆盖（overwrite 为 false）或被控制台改为 true 时，这里清除标记并忽略，错过的触发只由控制器处理
+ */
+public class OverlapJobFacade extends DelegatingJobFacade {
+
+    public OverlapJobFacade(JobFacade delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public boolean isExecuteMisfired(Collection<Integer> shardingItems) {
+        if (super.isExecuteMisfired(shardingItems)) {
+            super.clearMisfire(shardingItems);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,182 @@
+package top.taka.seieiElasticJob.parameter;
+
+import com.dangdang.ddframe.job.exception.JobConfigurationException;
+import com.dangdang.ddframe.job.reg.base.CoordinatorRegistryCenter;
+import top.taka.seieiElasticJob.enums.ParameterStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 作业参数编解码
+ * elastic-job 将 jobParameter 和 shardingItemParameters 原样保存在作业配置节点中，并且频繁重新读取该节点，
+ * 较大的参数（如租户列表）会使 Zookeeper 快照膨胀、监听变慢，甚至接近节点大小上限。
+ * 超过阈值的参数压缩为 seiei-gz:&lt;gzip + base64url&gt;，或者写入 /seiei-parameters/&lt;sha256&gt; 节点，配置中只保存 seiei-ref:&lt;sha256&gt;。
+ * 编码结果不包含逗号和等号，shardingItemParameters 中每个分片项的参数单独编码，elastic-job 仍能正常解析分片项。
+ * 引用节点以参数内容的摘要命名，内容不会变化，同样的参数只保存一份，位于作业节点之外，不会被作业的 TreeCache 缓存和监听；
+ * 不再被引用的节点不会自动删除。
+ * 解码结果按编码后的值缓存，参数未变化时每次执行不会重复解压、读取引用节点
+ */
+public final class JobParameterCodec {
+
+    public static final String GZIP_PREFIX = "seiei-gz:";
+
+    public static final String REFERENCE_PREFIX = "seiei-ref:";
+
+    // 引用节点的根路径，位于注册中心命名空间下
+    public static final String PARAMETER_NODE_ROOT = "/seiei-parameters";
+
+    // 解码结果最多缓存的个数，超过后清空重新缓存
+    private static final int MAX_CACHE_SIZE = 1024;
+
+    // 解码结果，key 为编码后的值
+    private static final ConcurrentMap<String, String> DECODED_CACHE = new ConcurrentHashMap<>();
+
+    private JobParameterCodec() {
+    }
+
+    /**
+     * 是否为编码后的参数
+     * @param value 参数
+     * @return
+     */
+    public static boolean isEncoded(String value) {
+        return null != value && (value.startsWith(GZIP_PREFIX) || value.startsWith(REFERENCE_PREFIX));
+    }
+
+    /**
+     * 编码超过阈值的参数
+     * @param value 参数
+     * @param threshold 阈值，单位：字节，小于 1 表示不编码
+     * @param parameterStorage 存储方式
+     * @param regCenter 注册中心，写入引用节点
+     * @return 未超过阈值，或 inline 方式压缩后没有变小时返回原参数
+     */
+    public static String encode(String value, int threshold, ParameterStorage parameterStorage, CoordinatorRegistryCenter regCenter) {
+        if (threshold < 1 || null == value || isEncoded(value)) {
+            return value;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= threshold) {
+            return value;
+        }
+        String compressed = GZIP_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(gzip(bytes));
+        if (ParameterStorage.NODE == parameterStorage) {
+            String digest = sha256Hex(bytes);
+            String path = PARAMETER_NODE_ROOT + "/" + digest;
+            if (!regCenter.isExisted(path)) {
+                regCenter.persist(path, compressed);
+            }
+            return REFERENCE_PREFIX + digest;
+        }
+        return compressed.length() < value.length() ? compressed : value;
+    }
+
+    /**
+     * 编码 shardingItemParameters 中超过阈值的分片项参数，格式不正确时原样返回，由 elastic-job 报告格式错误
+     * @param shardingItemParameters 分片项参数，如 0=a,1=b
+     * @param threshold 阈值，单位：字节，小于 1 表示不编码
+     * @param parameterStorage 存储方式
+     * @param regCenter 注册中心，写入引用节点
+     * @return
+     */
+    public static String encodeShardingItemParameters(String shardingItemParameters, int threshold, ParameterStorage parameterStorage, CoordinatorRegistryCenter regCenter) {
+        if (threshold < 1 || null == shardingItemParameters || shardingItemParameters.isEmpty()) {
+            return shardingItemParameters;
+        }
+        StringBuilder result = new StringBuilder();
+        for (String each : shardingItemParameters.split(",")) {
+            String[] pair = each.trim().split("=");
+            if (2 != pair.length) {
+                return shardingItemParameters;
+            }
+            if (result.length() > 0) {
+                result.append(',');
+            }
+            result.append(pair[0].trim()).append('=').append(encode(pair[1].trim(), threshold, parameterStorage, regCenter));
+        }
+        return result.toString();
+    }
+
+    /**
+     * 解码参数
+     * @param value 参数
+     * @param regCenter 注册中心，读取引用节点
+     * @return 不是编码后的参数时原样返回
+     */
+    public static String decode(String value, CoordinatorRegistryCenter regCenter) {
+        if (!isEncoded(value)) {
+            return value;
+        }
+        String result = DECODED_CACHE.get(value);
+        if (null != result) {
+            return result;
+        }
+        if (value.startsWith(REFERENCE_PREFIX)) {
+            String path = PARAMETER_NODE_ROOT + "/" + value.substring(REFERENCE_PREFIX.length());
+            String compressed = regCenter.getDirectly(path);
+            if (null == compressed) {
+                throw new JobConfigurationException("Job parameter node '%s' does not exist.", path);
+            }
+            result = gunzip(compressed);
+        } else {
+            result = gunzip(value);
+        }
+        if (DECODED_CACHE.size() >= MAX_CACHE_SIZE) {
+            DECODED_CACHE.clear();
+        }
+        DECODED_CACHE.put(value, result);
+        return result;
+    }
+
+    private static String sha256Hex(byte[] bytes) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder result = new StringBuilder(digest.length * 2);
+        for (byte each : digest) {
+            result.append(Character.forDigit((each >> 4) & 0xF, 16)).append(Character.forDigit(each & 0xF, 16));
+        }
+        return result.toString();
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream result = new ByteArrayOutputStream(bytes.length / 4 + 32);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(result)) {
+            gzipOutputStream.write(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return result.toByteArray();
+    }
+
+    private static String gunzip(String compressed) {
+        if (!compressed.startsWith(GZIP_PREFIX)) {
+            throw new JobConfigurationException("Job parameter '%s' is not compressed.", compressed);
+        }
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(compressed.substring(GZIP_PREFIX.length()))))) {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int length;
+            while ((length = inputStream.read(buffer)) > 0) {
+                result.write(buffer, 0, length);
+            }
+            return new String(result.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new JobConfigurationException("Job parameter can not be decompressed: %s", e.getMessage());
+        }
+    }
+}
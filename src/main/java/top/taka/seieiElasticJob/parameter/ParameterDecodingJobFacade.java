@@ -0,0 +1,45 @@
+package top.taka.seieiElasticJob.parameter;
+
+import com.dangdang.ddframe.job.executor.JobFacade;
+import com.dangdang.ddframe.job.executor.ShardingContexts;
+import com.dangdang.ddframe.job.reg.base.CoordinatorRegistryCenter;
+import top.taka.seieiElasticJob.facade.DelegatingJobFacade;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 解码作业参数的 JobFacade
+ * 作业执行器通过 getShardingContexts 获取作业参数和分片项参数，这里将其中编码后的参数替换为原始参数，
+ * 简单、流式、脚本作业和各个监听收到的都是原始参数；没有编码后的参数时直接返回原分片上下文
+ */
+public class ParameterDecodingJobFacade extends DelegatingJobFacade {
+
+    private final CoordinatorRegistryCenter regCenter;
+
+    public ParameterDecodingJobFacade(JobFacade delegate, CoordinatorRegistryCenter regCenter) {
+        super(delegate);
+        this.regCenter = regCenter;
+    }
+
+    @Override
+    public ShardingContexts getShardingContexts() {
+        ShardingContexts result = super.getShardingContexts();
+        boolean encoded = JobParameterCodec.isEncoded(result.getJobParameter());
+        for (String each : result.getShardingItemParameters().values()) {
+            encoded = encoded || JobParameterCodec.isEncoded(each);
+        }
+        if (!encoded) {
+            return result;
+        }
+        Map<Integer, String> shardingItemParameters = new HashMap<>(result.getShardingItemParameters().size() * 2);
+        for (Map.Entry<Integer, String> entry : result.getShardingItemParameters().entrySet()) {
+            shardingItemParameters.put(entry.getKey(), JobParameterCodec.decode(entry.getValue(), regCenter));
+        }
+        ShardingContexts decoded = new ShardingContexts(result.getTaskId(), result.getJobName(), result.getShardingTotalCount(),
+                JobParameterCodec.decode(result.getJobParameter(), regCenter), shardingItemParameters, result.getJobEventSamplingCount());
+        decoded.setCurrentJobEventSamplingCount(result.getCurrentJobEventSamplingCount());
+        decoded.setAllowSendJobEvent(result.isAllowSendJobEvent());
+        return decoded;
+    }
+}
@@ -6,27 +6,80 @@ import com.dangdang.ddframe.job.config.dataflow.DataflowJobConfiguration;
 import com.dangdang.ddframe.job.config.script.ScriptJobConfiguration;
 import com.dangdang.ddframe.job.config.simple.SimpleJobConfiguration;
 import com.dangdang.ddframe.job.event.rdb.JobEventRdbConfiguration;
+import com.dangdang.ddframe.job.exception.JobConfigurationException;
+import com.dangdang.ddframe.job.exception.JobSystemException;
 import com.dangdang.ddframe.job.executor.handler.JobProperties;
 import com.dangdang.ddframe.job.lite.api.JobScheduler;
 import com.dangdang.ddframe.job.lite.config.LiteJobConfiguration;
-import com.dangdang.ddframe.job.reg.zookeeper.ZookeeperRegistryCenter;
+import com.dangdang.ddframe.job.reg.base.CoordinatorRegistryCenter;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.support.ManagedList;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationListener;
+import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+import top.taka.seieiElasticJob.autoConfigure.SeieiElasticJobProperties;
+import top.taka.seieiElasticJob.checkpoint.JobCheckpointStore;
 import top.taka.seieiElasticJob.enums.ElasticJobType;
+import top.taka.seieiElasticJob.enums.EventTraceMode;
+import top.taka.seieiElasticJob.enums.ExecutorPreset;
+import top.taka.seieiElasticJob.enums.FailoverMode;
+import top.taka.seieiElasticJob.enums.OverlapPolicy;
+import top.taka.seieiElasticJob.enums.ParameterStorage;
+import top.taka.seieiElasticJob.event.BatchJobEventRdbConfiguration;
+import top.taka.seieiElasticJob.event.BatchJobEventRdbWriter;
+import top.taka.seieiElasticJob.event.JobEventHistory;
+import top.taka.seieiElasticJob.executor.JobExecutorServices;
+import top.taka.seieiElasticJob.failover.FailoverHeartbeatMonitor;
+import top.taka.seieiElasticJob.failover.FailoverLeaseJobFacade;
+import top.taka.seieiElasticJob.index.SeieiElasticJobIndex;
+import top.taka.seieiElasticJob.job.BatchShardingJobFacade;
+import top.taka.seieiElasticJob.job.CheckpointDataflowJob;
+import top.taka.seieiElasticJob.job.PrefetchDataflowJob;
+import top.taka.seieiElasticJob.job.PrefetchDataflowJobFacade;
+import top.taka.seieiElasticJob.metrics.JobMetricsSupport;
+import top.taka.seieiElasticJob.overlap.JobOverlapController;
+import top.taka.seieiElasticJob.overlap.OverlapJobFacade;
+import top.taka.seieiElasticJob.parameter.JobParameterCodec;
+import top.taka.seieiElasticJob.parameter.ParameterDecodingJobFacade;
+import top.taka.seieiElasticJob.regCenter.ConcurrentCacheRegistryCenter;
+import top.taka.seieiElasticJob.regCenter.RegistryCenterRouter;
+import top.taka.seieiElasticJob.scheduler.JobSchedulerAccessor;
+import top.taka.seieiElasticJob.scheduler.SharedJobScheduler;
+import top.taka.seieiElasticJob.scheduler.SharedSchedulerCore;
+import top.taka.seieiElasticJob.script.ScriptWorkerJob;
+import top.taka.seieiElasticJob.script.ScriptWorkerPool;
+import top.taka.seieiElasticJob.strategy.LoadAwareJobShardingStrategy;
+import top.taka.seieiElasticJob.strategy.ShardingDurationEventConfiguration;
+import top.taka.seieiElasticJob.trace.JobTraceRecorder;
+import top.taka.seieiElasticJob.trace.TracingJobFacade;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @EnableSeieiElasticJob 和 @SeieiElasticJobConfig 注解解析器
@@ -34,12 +87,35 @@ import java.util.Map;
  */
 // 需要添加 @Component 注解注入到 Spirng 中
 @Component
-public class SeieiElasticJobConfigParser implements ApplicationListener<ApplicationReadyEvent> {
+public class SeieiElasticJobConfigParser implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
 
     private final static Logger logger = LoggerFactory.getLogger(SeieiElasticJobConfigParser.class);
 
+    // 注册中心路由，按作业配置的注册中心名称选择注册中心
     @Autowired
-    private ZookeeperRegistryCenter zookeeperRegistryCenter;
+    private RegistryCenterRouter registryCenterRouter;
+
+    @Autowired
+    private SeieiElasticJobProperties seieiElasticJobProperties;
+
+    // 共享调度核心，只有共享调度模式下才存在
+    @Autowired(required = false)
+    private SharedSchedulerCore sharedSchedulerCore;
+
+    // 作业执行阶段耗时记录器，只有开启 traceEnabled 时才存在
+    @Autowired(required = false)
+    private JobTraceRecorder jobTraceRecorder;
+
+    // 并行批量启动模式下各个注册中心的包装类，key 为注册中心名称，串行启动时为空
+    private final Map<String, ConcurrentCacheRegistryCenter> concurrentCacheRegistryCenterMap = new HashMap<>();
+
+    // 快速失效转移模式下各个注册中心的实例心跳，key 为注册中心名称
+    private final Map<String, FailoverHeartbeatMonitor> failoverHeartbeatMonitorMap = new HashMap<>();
+
+    // 是否为作业发布运行指标，存在 micrometer 的 MeterRegistry 且未关闭时为 true
+    private boolean metricsEnabled;
+
+    private FailoverMode failoverMode;
 
     /**
      * ApplicationListener<ApplicationReadyEvent> 接口的 onApplicationEvent 方法是，spring 容器所有 bean 组件加载初始化完成之后的生命周期接口
@@ -47,158 +123,713 @@ public class SeieiElasticJobConfigParser implements ApplicationListener<Applicat
      */
     @Override
     public void onApplicationEvent(ApplicationReadyEvent event) {
-
+        // Spring 应用容器
+        ApplicationContext applicationContext = event.getApplicationContext();
+        metricsEnabled = seieiElasticJobProperties.isMetricsEnabled() && JobMetricsSupport.isAvailable(applicationContext);
+        failoverMode = FailoverMode.of(seieiElasticJobProperties.getFailoverMode());
+        if (null == failoverMode) {
+            throw new JobConfigurationException("failoverMode '%s' is not supported.", seieiElasticJobProperties.getFailoverMode());
+        }
+        // 预设线程池在作业第一次执行时才由 elastic-job 创建，需在启动作业之前写入配置
+        JobExecutorServices.configure(seieiElasticJobProperties.getExecutorSharedParallelism(), seieiElasticJobProperties.getExecutorQueueSize(),
+                seieiElasticJobProperties.getExecutorShardingMaxThreads(), seieiElasticJobProperties.getExecutorIoThreadsPerCore());
         try {
-            // Spring 应用容器
-            ApplicationContext applicationContext = event.getApplicationContext();
-            // 获取所有标记了 @SeieiElasticJobConfig 注解的组件类列表
-            Map<String, Object> beanMap = applicationContext.getBeansWithAnnotation(SeieiElasticJobConfig.class);
-            // 组件列表
-            for (Object configBean : beanMap.values()) {
-                // 获取组件的 Class
-                Class<?> clazz = configBean.getClass();
-                String className = clazz.getName();
-                // 确保获取到的 Class 是正确的，以防一些内部类，内部类使用 getName 方法获取出来的名称带有 $ 符号
-                // 意义不大，因为正常来讲是添加在主类上，由主类实现诸如 SimpleJob 接口，而非注册到内部类中
-                // 如果用户注册到内部类中，而该主类又没有实现 SimpleJob 接口，那么这样获取这个 Class 也没用
-                if (className.indexOf("$") != -1) {
-                    className = clazz.getName().substring(0, clazz.getName().indexOf("$"));
-                    clazz = Class.forName(className);
-                }
-                // 获取该类的所有接口类型列表，判断该作业实现是什么类型的任务
-                String jobType = "";
-                Class<?>[] interfaces = clazz.getInterfaces();
-                // 循环接口列表
-                for (Class<?> interfaceItem : interfaces) {
-                    // 获取
-                    if (interfaceItem.getSimpleName().equals(ElasticJobType.SIMPLE.value)) {
-                        jobType = ElasticJobType.SIMPLE.value;
-                        break;
-                    }
-                    if (interfaceItem.getSimpleName().equals(ElasticJobType.DATAFLOW.value)) {
-                        jobType = ElasticJobType.DATAFLOW.value;
-                        break;
-                    }
-                    if (interfaceItem.getSimpleName().equals(ElasticJobType.SCRIPT.value)) {
-                        jobType = ElasticJobType.SCRIPT.value;
-                        break;
-                    }
-                }
+            // 获取所有待启动的作业，优先使用编译期生成的作业索引
+            List<SeieiElasticJobDefinition> jobDefinitions = loadJobDefinitions(applicationContext);
+            if (seieiElasticJobProperties.getBootstrapThreads() > 1) {
+                parallelBootstrap(applicationContext, jobDefinitions);
+                return;
+            }
+            for (SeieiElasticJobDefinition jobDefinition : jobDefinitions) {
                 // 获取注解（配置项注解）
-                SeieiElasticJobConfig seieiElasticJobConfig = clazz.getAnnotation(SeieiElasticJobConfig.class);
-                // 获取在该注解声明的参数
-                String jobName = seieiElasticJobConfig.jobName();
-                String cron = seieiElasticJobConfig.cron();
-                int shardingTotalCount = seieiElasticJobConfig.shardingTotalCount();
-                String shardingItemParameters = seieiElasticJobConfig.shardingItemParameters();
-                String jobParameter = seieiElasticJobConfig.jobParameter();
-                boolean failover = seieiElasticJobConfig.failover();
-                boolean misfire = seieiElasticJobConfig.misfire();
-                String description = seieiElasticJobConfig.description();
-                boolean overwrite = seieiElasticJobConfig.overwrite();
-                boolean streamingProcess = seieiElasticJobConfig.streamingProcess();
-                String scriptCommandLine = seieiElasticJobConfig.scriptCommandLine();
-                boolean monitorExecution = seieiElasticJobConfig.monitorExecution();
-                int monitorPort = seieiElasticJobConfig.monitorPort();
-                int maxTimeDiffSeconds = seieiElasticJobConfig.maxTimeDiffSeconds();
-                String jobShardingStrategyClass = seieiElasticJobConfig.jobShardingStrategyClass();
-                int reconcileIntervalMinutes = seieiElasticJobConfig.reconcileIntervalMinutes();
-                String eventTraceRdbDataSource = seieiElasticJobConfig.eventTraceRdbDataSource();
-                boolean disabled = seieiElasticJobConfig.disabled();
-                String jobExceptionHandler = seieiElasticJobConfig.jobExceptionHandler();
-                String executorServiceHandler = seieiElasticJobConfig.executorServiceHandler();
-
-                // 定义 JobCoreConfiguration(作业核心配置)
-                JobCoreConfiguration jobCoreConfig = JobCoreConfiguration.newBuilder(jobName, cron, shardingTotalCount)
-                        .shardingItemParameters(shardingItemParameters)
-                        .jobParameter(jobParameter)
-                        .failover(failover)
-                        .misfire(misfire)
-                        .description(description)
-                        .jobProperties(JobProperties.JobPropertiesEnum.JOB_EXCEPTION_HANDLER.getKey(), jobExceptionHandler)
-                        .jobProperties(JobProperties.JobPropertiesEnum.EXECUTOR_SERVICE_HANDLER.getKey(), executorServiceHandler)
-                        .build();
-
-                // 根据 Job 类型不同，创建不同的任务
-                JobTypeConfiguration jobTypeConfiguration = null;
-                // 简单任务
-                if (jobType.equals(ElasticJobType.SIMPLE.value)) {
-                    jobTypeConfiguration = new SimpleJobConfiguration(jobCoreConfig, clazz.getCanonicalName());
-                }
-                // 流任务
-                else if (jobType.equals(ElasticJobType.DATAFLOW.value)) {
-                    jobTypeConfiguration = new DataflowJobConfiguration(jobCoreConfig, clazz.getCanonicalName(), streamingProcess);
-                }
-                // 脚本任务
-                else if (jobType.equals(ElasticJobType.SCRIPT.value)) {
-                    jobTypeConfiguration = new ScriptJobConfiguration(jobCoreConfig, scriptCommandLine);
+                SeieiElasticJobConfig seieiElasticJobConfig = jobDefinition.getConfig();
+                // 构建 JobScheduler 配置，注入到 spring 容器并获取实例
+                JobScheduler jobScheduler = registerJobScheduler(applicationContext, getRegistryCenter(seieiElasticJobConfig), jobDefinition);
+                initJobScheduler(applicationContext, jobScheduler, seieiElasticJobConfig.jobName());
+                logger.info("启动seiei-elastic-job作业: " + seieiElasticJobConfig.jobName());
+            }
+            logger.info("共计启动elastic-job作业数量为: {} 个", jobDefinitions.size());
+        } catch (ClassNotFoundException | IOException e) {
+            // 抛出异常由 SpringApplication 关闭容器并终止启动，不直接结束进程
+            throw new JobSystemException(e);
+        }
+    }
+
+    /**
+     * 获取所有待启动的作业
+     * 存在编译期生成的作业索引时以索引为准，直接使用索引中的作业类型和注解属性值，不再扫描注解；
+     * 启动前用组件扫描时已读取的注解元数据检查索引是否过期（如 IDE 编译时没有运行注解处理器），
+     * 该检查不实例化组件、不加载类，发现容器中有标记了注解但不在索引中的作业类、或索引中的作业类已去掉注解时，输出警告并按注解启动；
+     * 索引不存在或已关闭时按注解启动
+     * @param applicationContext Spring 应用容器
+     * @return
+     * @throws ClassNotFoundException
+     * @throws IOException
+     */
+    private List<SeieiElasticJobDefinition> loadJobDefinitions(ApplicationContext applicationContext) throws ClassNotFoundException, IOException {
+        ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+        SeieiElasticJobIndex jobIndex = seieiElasticJobProperties.isJobIndexEnabled() ? SeieiElasticJobIndex.load(classLoader) : null;
+        if (null == jobIndex) {
+            return scanJobDefinitions(applicationContext);
+        }
+        // 组件类名 -> 是否标记了 @SeieiElasticJobConfig 注解
+        Map<String, Boolean> annotatedClassNames = getAnnotatedBeanClassNames(applicationContext);
+        Set<String> staleClassNames = new TreeSet<>();
+        for (Map.Entry<String, Boolean> entry : annotatedClassNames.entrySet()) {
+            if (entry.getValue() != (null != jobIndex.getJobType(entry.getKey()))) {
+                staleClassNames.add(entry.getKey());
+            }
+        }
+        if (!staleClassNames.isEmpty()) {
+            logger.warn("作业类 {} 的注解与编译期作业索引 {} 不一致，索引已过期，本次按注解启动，请重新编译生成索引", staleClassNames, SeieiElasticJobIndex.INDEX_LOCATION);
+            return scanJobDefinitions(applicationContext);
+        }
+        List<SeieiElasticJobDefinition> result = new ArrayList<>();
+        for (String jobClassName : jobIndex.getJobClassNames()) {
+            Class<?> clazz = ClassUtils.forName(jobClassName, classLoader);
+            // 索引包含所有编译过的作业类，未注册为组件的（如被 @Profile、@Conditional 排除）不启动
+            // 不是扫描得到的组件（如 @Bean 方法注册的作业）按类型查找，同样能匹配到 CGLIB 代理生成的子类
+            if (!annotatedClassNames.containsKey(jobClassName) && 0 == applicationContext.getBeanNamesForType(clazz, true, false).length) {
+                logger.debug("作业类 {} 未注册到 Spring 容器，跳过", jobClassName);
+                continue;
+            }
+            result.add(new SeieiElasticJobDefinition(clazz, jobIndex.getJobType(jobClassName), jobIndex.getJobConfig(jobClassName)));
+        }
+        logger.info("使用编译期作业索引 {}，共 {} 个作业", SeieiElasticJobIndex.INDEX_LOCATION, result.size());
+        return result;
+    }
+
+    /**
+     * 扫描容器中所有标记了 @SeieiElasticJobConfig 注解的组件
+     * @param applicationContext Spring 应用容器
+     * @return
+     */
+    private List<SeieiElasticJobDefinition> scanJobDefinitions(ApplicationContext applicationContext) {
+        List<SeieiElasticJobDefinition> result = new ArrayList<>();
+        // 获取所有标记了 @SeieiElasticJobConfig 注解的组件类列表
+        Map<String, Object> beanMap = applicationContext.getBeansWithAnnotation(SeieiElasticJobConfig.class);
+        // 组件列表
+        for (Object configBean : beanMap.values()) {
+            // 获取组件的 Class
+            Class<?> clazz = resolveJobClass(configBean);
+            result.add(new SeieiElasticJobDefinition(clazz, resolveJobType(clazz), clazz.getAnnotation(SeieiElasticJobConfig.class)));
+        }
+        return result;
+    }
+
+    /**
+     * 读取组件定义中已解析的注解元数据（组件扫描时通过 ASM 读取），判断组件类是否标记了 @SeieiElasticJobConfig 注解
+     * 只包含直接由类注册的组件，@Bean 方法注册的组件的元数据属于配置类，不包含在内
+     * @param applicationContext Spring 应用容器
+     * @return 组件类名（与索引一致，内部类为 Outer$Inner） -> 是否标记了注解
+     */
+    private Map<String, Boolean> getAnnotatedBeanClassNames(ApplicationContext applicationContext) {
+        DefaultListableBeanFactory defaultListableBeanFactory = (DefaultListableBeanFactory) applicationContext.getAutowireCapableBeanFactory();
+        Map<String, Boolean> result = new HashMap<>();
+        for (String each : defaultListableBeanFactory.getBeanDefinitionNames()) {
+            BeanDefinition beanDefinition = defaultListableBeanFactory.getBeanDefinition(each);
+            if (!(beanDefinition instanceof AnnotatedBeanDefinition) || null != beanDefinition.getFactoryMethodName()) {
+                continue;
+            }
+            AnnotationMetadata metadata = ((AnnotatedBeanDefinition) beanDefinition).getMetadata();
+            boolean annotated = metadata.hasAnnotation(SeieiElasticJobConfig.class.getName());
+            // 同一个类注册为多个组件时，任意一个标记了注解即可
+            Boolean existing = result.get(metadata.getClassName());
+            result.put(metadata.getClassName(), annotated || (null != existing && existing));
+        }
+        return result;
+    }
+
+    /**
+     * 并行批量启动模式
+     * 第一阶段：串行解析所有作业配置，注册 JobScheduler 的 BeanDefinition 并创建实例（只涉及内存操作）
+     * 第二阶段：在有界线程池中并发执行 JobScheduler.init（包含多次阻塞的 Zookeeper 读写）
+     * 单个作业启动失败只记录日志，不影响其他作业，最后输出每个作业的启动耗时报告
+     * 等待超过 bootstrapTimeoutSeconds 仍未完成初始化的作业在报告中记为超时，初始化在后台继续进行
+     * @param applicationContext Spring 应用容器
+     * @param jobDefinitions 待启动的作业
+     */
+    private void parallelBootstrap(ApplicationContext applicationContext, List<SeieiElasticJobDefinition> jobDefinitions) {
+        long bootstrapStartTime = System.currentTimeMillis();
+        // 记录每个作业的启动耗时（毫秒），启动失败的作业记录为 -1，超时的作业记录为 -2
+        final Map<String, Long> elapsedMap = new LinkedHashMap<>();
+        final List<String> failedJobNames = new ArrayList<>();
+
+        /* 第一阶段：解析配置并创建 JobScheduler */
+        final Map<String, JobScheduler> jobSchedulerMap = new LinkedHashMap<>();
+        for (SeieiElasticJobDefinition jobDefinition : jobDefinitions) {
+            String jobName = jobDefinition.getJobClass().getName();
+            try {
+                jobName = jobDefinition.getConfig().jobName();
+                jobSchedulerMap.put(jobName, registerJobScheduler(applicationContext, getConcurrentCacheRegistryCenter(jobDefinition.getConfig()), jobDefinition));
+            } catch (Exception e) {
+                logger.error("解析seiei-elastic-job作业配置失败: " + jobName, e);
+                failedJobNames.add(jobName);
+                elapsedMap.put(jobName, -1L);
+            }
+        }
+        long resolveElapsed = System.currentTimeMillis() - bootstrapStartTime;
+
+        /* 第二阶段：并发初始化 JobScheduler */
+        int threads = Math.min(seieiElasticJobProperties.getBootstrapThreads(), Math.max(jobSchedulerMap.size(), 1));
+        ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+            private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "seiei-elastic-job-bootstrap-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        final ApplicationContext context = applicationContext;
+        for (final Map.Entry<String, JobScheduler> entry : jobSchedulerMap.entrySet()) {
+            executorService.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    long startTime = System.currentTimeMillis();
+                    try {
+                        initJobScheduler(context, entry.getValue(), entry.getKey());
+                        synchronized (elapsedMap) {
+                            elapsedMap.put(entry.getKey(), System.currentTimeMillis() - startTime);
+                        }
+                        logger.info("启动seiei-elastic-job作业: " + entry.getKey());
+                    } catch (Throwable e) {
+                        logger.error("启动seiei-elastic-job作业失败: " + entry.getKey(), e);
+                        synchronized (elapsedMap) {
+                            failedJobNames.add(entry.getKey());
+                            elapsedMap.put(entry.getKey(), -1L);
+                        }
+                    }
                 }
+            });
+        }
+        executorService.shutdown();
+        boolean terminated = false;
+        try {
+            terminated = executorService.awaitTermination(seieiElasticJobProperties.getBootstrapTimeoutSeconds(), TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
 
-                // 配置 LiteJobConfiguration
-                LiteJobConfiguration liteJobConfiguration = LiteJobConfiguration.newBuilder(jobTypeConfiguration)
-                        .overwrite(overwrite)
-                        .disabled(disabled)
-                        .monitorPort(monitorPort)
-                        .monitorExecution(monitorExecution)
-                        .maxTimeDiffSeconds(maxTimeDiffSeconds)
-                        .jobShardingStrategyClass(jobShardingStrategyClass)
-                        .reconcileIntervalMinutes(reconcileIntervalMinutes)
-                        .build();
-
-                /* 构建 JobScheduler 配置，并注入到 spring 容器 */
-
-                // 创建一个 spring 的 BeanDefinitionBuilder
-                BeanDefinitionBuilder factory = BeanDefinitionBuilder.genericBeanDefinition(JobScheduler.class);
-                // 模式：多例 取消了也没有影响，但教程就有说要使用多例模式
-                //factory.setScope("prototype");
-
-                /* 填充构造器参数 */
-                // 填充 Zookeeper 注册中心
-                factory.addConstructorArgValue(zookeeperRegistryCenter);
-                // 填充 作业配置
-                factory.addConstructorArgValue(liteJobConfiguration);
-                // 填充 日志数据库事件溯源配置
-                if (StringUtils.isNotBlank(eventTraceRdbDataSource)) {
-                    BeanDefinitionBuilder rdbFactory = BeanDefinitionBuilder.genericBeanDefinition(JobEventRdbConfiguration.class);
-                    //rdbFactory.setScope("prototype");
-                    // 填充构造器参数
-                    // addConstructorArgReference，根据 BeanName 获取 Spring 容器里的 Bean 作为参数
-                    rdbFactory.addConstructorArgReference(eventTraceRdbDataSource);
-                    // 将 日志数据库事件溯源配置 填充到上述 factory 的构造器参数中
-                    factory.addConstructorArgValue(rdbFactory.getBeanDefinition());
+        /* 输出启动耗时报告 */
+        synchronized (elapsedMap) {
+            // 未记录耗时的作业仍在初始化
+            List<String> timedOutJobNames = new ArrayList<>();
+            for (String each : jobSchedulerMap.keySet()) {
+                if (!elapsedMap.containsKey(each)) {
+                    timedOutJobNames.add(each);
+                    elapsedMap.put(each, -2L);
                 }
-                // 添加监听
-                List<BeanDefinition> elasticJobListeners = getTargetElasticJobListeners(seieiElasticJobConfig);
-                factory.addConstructorArgValue(elasticJobListeners);
+            }
+            if (!terminated) {
+                logger.error("seiei-elastic-job作业并行启动超时，超过 {} 秒仍未完成初始化的作业: {}", seieiElasticJobProperties.getBootstrapTimeoutSeconds(), timedOutJobNames);
+            }
+            StringBuilder report = new StringBuilder();
+            for (Map.Entry<String, Long> entry : elapsedMap.entrySet()) {
+                report.append("\n    ").append(entry.getKey()).append(": ")
+                        .append(-2L == entry.getValue() ? "超时" : entry.getValue() < 0 ? "失败" : entry.getValue() + " ms");
+            }
+            logger.info("seiei-elastic-job作业启动耗时报告（线程数 {}，解析配置 {} ms，总耗时 {} ms）:{}",
+                    threads, resolveElapsed, System.currentTimeMillis() - bootstrapStartTime, report);
+            logger.info("共计启动elastic-job作业数量为: {} 个，失败 {} 个{}，超时 {} 个{}", elapsedMap.size() - failedJobNames.size() - timedOutJobNames.size(),
+                    failedJobNames.size(), failedJobNames.isEmpty() ? "" : "：" + failedJobNames,
+                    timedOutJobNames.size(), timedOutJobNames.isEmpty() ? "" : "：" + timedOutJobNames);
+        }
+    }
+
+    /**
+     * 运行时注册并启动单个作业，与启动时注册作业使用相同的配置构建流程，供 SeieiJobRegistry 使用
+     * @param applicationContext Spring 应用容器
+     * @param jobClass 作业类
+     * @param seieiElasticJobConfig 作业配置
+     * @return 已初始化的作业调度器
+     */
+    public synchronized JobScheduler startJob(ApplicationContext applicationContext, Class<?> jobClass, SeieiElasticJobConfig seieiElasticJobConfig) {
+        SeieiElasticJobDefinition jobDefinition = new SeieiElasticJobDefinition(jobClass, resolveJobType(jobClass), seieiElasticJobConfig);
+        JobScheduler jobScheduler = registerJobScheduler(applicationContext, getRegistryCenter(seieiElasticJobConfig), jobDefinition);
+        initJobScheduler(applicationContext, jobScheduler, seieiElasticJobConfig.jobName());
+        logger.info("启动seiei-elastic-job作业: " + seieiElasticJobConfig.jobName());
+        return jobScheduler;
+    }
 
-                /* 注入到 Spring 容器中 */
-                // 获取注册类
-                DefaultListableBeanFactory defaultListableBeanFactory = (DefaultListableBeanFactory) applicationContext.getAutowireCapableBeanFactory();
-                // 创建 bean 名
-                String registerBeanName = seieiElasticJobConfig.jobName() + "SpringJobScheduler";
-                // 注册到容器中
-                defaultListableBeanFactory.registerBeanDefinition(registerBeanName, factory.getBeanDefinition());
-                // 获取注册到容器的 JobScheduler 实例，并调用 init 方法
-                JobScheduler jobScheduler = (JobScheduler) applicationContext.getBean(registerBeanName);
-                jobScheduler.init();
-                logger.info("启动seiei-elastic-job作业: " + jobName);
+    /**
+     * 获取作业配置的注册中心
+     * @param seieiElasticJobConfig 作业配置注解
+     * @return
+     */
+    private CoordinatorRegistryCenter getRegistryCenter(SeieiElasticJobConfig seieiElasticJobConfig) {
+        CoordinatorRegistryCenter result = registryCenterRouter.getRegistryCenter(seieiElasticJobConfig.registryCenter());
+        if (null == result) {
+            throw new JobConfigurationException("Job '%s' registryCenter '%s' is not configured in elastic.job.zk.registries.",
+                    seieiElasticJobConfig.jobName(), seieiElasticJobConfig.registryCenter());
+        }
+        return result;
+    }
+
+    /**
+     * 获取并行批量启动模式下作业配置的注册中心的包装类，同一注册中心的作业共用一个包装类
+     * @param seieiElasticJobConfig 作业配置注解
+     * @return
+     */
+    private ConcurrentCacheRegistryCenter getConcurrentCacheRegistryCenter(SeieiElasticJobConfig seieiElasticJobConfig) {
+        CoordinatorRegistryCenter registryCenter = getRegistryCenter(seieiElasticJobConfig);
+        String registryCenterName = StringUtils.defaultString(seieiElasticJobConfig.registryCenter()).trim();
+        ConcurrentCacheRegistryCenter result = concurrentCacheRegistryCenterMap.get(registryCenterName);
+        if (null == result) {
+            result = new ConcurrentCacheRegistryCenter(registryCenter);
+            concurrentCacheRegistryCenterMap.put(registryCenterName, result);
+        }
+        return result;
+    }
+
+    /**
+     * 初始化作业，并挂载需要在初始化之后才能添加的扩展
+     * @param applicationContext Spring 应用容器
+     * @param jobScheduler 作业调度器
+     * @param jobName 作业名称
+     */
+    private void initJobScheduler(ApplicationContext applicationContext, JobScheduler jobScheduler, String jobName) {
+        jobScheduler.init();
+        // 触发器监听需要作业的 Quartz 调度器，只能在初始化之后添加
+        if (metricsEnabled) {
+            JobMetricsSupport.registerTriggerListener(applicationContext, jobName);
+        }
+        String jobOverlapControllerBeanName = jobName + "JobOverlapController";
+        if (applicationContext.containsBean(jobOverlapControllerBeanName)) {
+            JobOverlapController jobOverlapController = applicationContext.getBean(jobOverlapControllerBeanName, JobOverlapController.class);
+            if (metricsEnabled) {
+                JobMetricsSupport.bindJobOverlapController(applicationContext, jobOverlapController);
             }
-            logger.info("共计启动elastic-job作业数量为: {} 个", beanMap.values().size());
-        } catch (ClassNotFoundException e) {
-            logger.error("elasticjob 启动异常, 系统强制退出", e);
-            System.exit(1);
+            jobOverlapController.install(JobSchedulerAccessor.getScheduler(jobName));
         }
     }
 
+    /**
+     * 获取作业组件的真实 Class
+     * @param configBean 作业组件
+     * @return
+     */
+    private Class<?> resolveJobClass(Object configBean) {
+        // 获取组件的 Class，组件被 AOP 代理时获取被代理的目标类，被 CGLIB 增强时（如 @Configuration）获取原始类
+        // 内部类保留 Outer$Inner 形式的名称，与作业索引中的类名一致，注解直接从该类读取
+        return ClassUtils.getUserClass(AopProxyUtils.ultimateTargetClass(configBean));
+    }
+
+    /**
+     * 解析压缩后参数的存储方式
+     * @param seieiElasticJobConfig 作业配置注解
+     * @return
+     */
+    private ParameterStorage resolveParameterStorage(SeieiElasticJobConfig seieiElasticJobConfig) {
+        ParameterStorage result = ParameterStorage.of(seieiElasticJobConfig.parameterStorage());
+        if (null == result) {
+            throw new JobConfigurationException("Job '%s' parameterStorage '%s' is not supported.", seieiElasticJobConfig.jobName(), seieiElasticJobConfig.parameterStorage());
+        }
+        return result;
+    }
+
+    /**
+     * 判断该作业实现是什么类型的任务
+     * @param clazz 作业类
+     * @return
+     */
+    private String resolveJobType(Class<?> clazz) {
+        // 获取该类的所有接口类型列表（包括父类实现的接口，如继承 PrefetchDataflowJob 的作业），判断该作业实现是什么类型的任务
+        String jobType = "";
+        Set<Class<?>> interfaces = ClassUtils.getAllInterfacesForClassAsSet(clazz);
+        // 循环接口列表
+        for (Class<?> interfaceItem : interfaces) {
+            // 获取
+            if (interfaceItem.getSimpleName().equals(ElasticJobType.BATCH_SIMPLE.value)) {
+                jobType = ElasticJobType.BATCH_SIMPLE.value;
+                break;
+            }
+            if (interfaceItem.getSimpleName().equals(ElasticJobType.SIMPLE.value)) {
+                jobType = ElasticJobType.SIMPLE.value;
+                break;
+            }
+            if (interfaceItem.getSimpleName().equals(ElasticJobType.DATAFLOW.value)) {
+                jobType = ElasticJobType.DATAFLOW.value;
+                break;
+            }
+            if (interfaceItem.getSimpleName().equals(ElasticJobType.SCRIPT.value)) {
+                jobType = ElasticJobType.SCRIPT.value;
+                break;
+            }
+        }
+        return jobType;
+    }
+
+    /**
+     * 根据注解构建作业配置
+     * @param jobDefinition 作业定义
+     * @return
+     */
+    private LiteJobConfiguration buildLiteJobConfiguration(SeieiElasticJobDefinition jobDefinition, CoordinatorRegistryCenter regCenter) {
+        Class<?> clazz = jobDefinition.getJobClass();
+        String jobType = jobDefinition.getJobType();
+        SeieiElasticJobConfig seieiElasticJobConfig = jobDefinition.getConfig();
+        // 获取在该注解声明的参数
+        String jobName = seieiElasticJobConfig.jobName();
+        String cron = seieiElasticJobConfig.cron();
+        int shardingTotalCount = seieiElasticJobConfig.shardingTotalCount();
+        // 超过阈值的参数压缩后写入注册中心，作业执行时由 ParameterDecodingJobFacade 解压
+        ParameterStorage parameterStorage = resolveParameterStorage(seieiElasticJobConfig);
+        int parameterCompressThreshold = seieiElasticJobConfig.parameterCompressThreshold();
+        String shardingItemParameters = JobParameterCodec.encodeShardingItemParameters(seieiElasticJobConfig.shardingItemParameters(), parameterCompressThreshold, parameterStorage, regCenter);
+        String jobParameter = JobParameterCodec.encode(seieiElasticJobConfig.jobParameter(), parameterCompressThreshold, parameterStorage, regCenter);
+        boolean failover = seieiElasticJobConfig.failover();
+        // 配置了执行重叠策略时错过的触发由 JobOverlapController 处理，关闭 elastic-job 的错过执行，避免同一次错过被重复补偿
+        boolean misfire = seieiElasticJobConfig.misfire() && OverlapPolicy.MISFIRE == OverlapPolicy.of(seieiElasticJobConfig.overlapPolicy());
+        String description = seieiElasticJobConfig.description();
+        boolean overwrite = seieiElasticJobConfig.overwrite();
+        // 预取流式作业依赖流式处理逐页抓取，抓取到空页时才结束本次执行
+        boolean streamingProcess = seieiElasticJobConfig.streamingProcess() || PrefetchDataflowJob.class.isAssignableFrom(clazz);
+        String scriptCommandLine = seieiElasticJobConfig.scriptCommandLine();
+        boolean monitorExecution = seieiElasticJobConfig.monitorExecution();
+        int monitorPort = seieiElasticJobConfig.monitorPort();
+        int maxTimeDiffSeconds = seieiElasticJobConfig.maxTimeDiffSeconds();
+        // 开启负载均衡分片时使用内置的 LoadAwareJobShardingStrategy
+        String jobShardingStrategyClass = seieiElasticJobConfig.loadAwareSharding() ? LoadAwareJobShardingStrategy.class.getName() : seieiElasticJobConfig.jobShardingStrategyClass();
+        int reconcileIntervalMinutes = seieiElasticJobConfig.reconcileIntervalMinutes();
+        boolean disabled = seieiElasticJobConfig.disabled();
+        String jobExceptionHandler = seieiElasticJobConfig.jobExceptionHandler();
+        // 预设线程池名称转换为对应的 ExecutorServiceHandler 类
+        ExecutorPreset executorPreset = ExecutorPreset.of(seieiElasticJobConfig.executorServiceHandler());
+        String executorServiceHandler = null == executorPreset ? seieiElasticJobConfig.executorServiceHandler() : executorPreset.handlerClassName;
+
+        // 定义 JobCoreConfiguration(作业核心配置)
+        JobCoreConfiguration jobCoreConfig = JobCoreConfiguration.newBuilder(jobName, cron, shardingTotalCount)
+                .shardingItemParameters(shardingItemParameters)
+                .jobParameter(jobParameter)
+                .failover(failover)
+                .misfire(misfire)
+                .description(description)
+                .jobProperties(JobProperties.JobPropertiesEnum.JOB_EXCEPTION_HANDLER.getKey(), jobExceptionHandler)
+                .jobProperties(JobProperties.JobPropertiesEnum.EXECUTOR_SERVICE_HANDLER.getKey(), executorServiceHandler)
+                .build();
+
+        // 根据 Job 类型不同，创建不同的任务
+        JobTypeConfiguration jobTypeConfiguration = null;
+        // 简单任务
+        if (jobType.equals(ElasticJobType.SIMPLE.value)) {
+            jobTypeConfiguration = new SimpleJobConfiguration(jobCoreConfig, clazz.getName());
+        }
+        // 批量分片简单任务，以简单任务的方式注册，由 BatchShardingJobFacade 合并分片项
+        else if (jobType.equals(ElasticJobType.BATCH_SIMPLE.value)) {
+            jobTypeConfiguration = new SimpleJobConfiguration(jobCoreConfig, clazz.getName());
+        }
+        // 流任务
+        else if (jobType.equals(ElasticJobType.DATAFLOW.value)) {
+            jobTypeConfiguration = new DataflowJobConfiguration(jobCoreConfig, clazz.getName(), streamingProcess);
+        }
+        // 脚本任务（常驻工作进程模式），以简单任务的方式注册，由 ScriptWorkerJob 交给工作进程池执行
+        else if (jobType.equals(ElasticJobType.SCRIPT.value) && seieiElasticJobConfig.scriptWorkers() > 0) {
+            jobTypeConfiguration = new SimpleJobConfiguration(jobCoreConfig, ScriptWorkerJob.class.getCanonicalName());
+        }
+        // 脚本任务
+        else if (jobType.equals(ElasticJobType.SCRIPT.value)) {
+            jobTypeConfiguration = new ScriptJobConfiguration(jobCoreConfig, scriptCommandLine);
+        }
+
+        // 配置 LiteJobConfiguration
+        return LiteJobConfiguration.newBuilder(jobTypeConfiguration)
+                .overwrite(overwrite)
+                .disabled(disabled)
+                .monitorPort(monitorPort)
+                .monitorExecution(monitorExecution)
+                .maxTimeDiffSeconds(maxTimeDiffSeconds)
+                .jobShardingStrategyClass(jobShardingStrategyClass)
+                .reconcileIntervalMinutes(reconcileIntervalMinutes)
+                .build();
+    }
+
+    /**
+     * 构建 JobScheduler 配置，注入到 spring 容器，并返回容器中的 JobScheduler 实例（未调用 init 方法）
+     * @param applicationContext Spring 应用容器
+     * @param regCenter 注册中心
+     * @param jobDefinition 作业定义
+     * @return
+     */
+    private JobScheduler registerJobScheduler(ApplicationContext applicationContext, CoordinatorRegistryCenter regCenter,
+                                              SeieiElasticJobDefinition jobDefinition) {
+        SeieiElasticJobConfig seieiElasticJobConfig = jobDefinition.getConfig();
+        // 配置 LiteJobConfiguration
+        LiteJobConfiguration liteJobConfiguration = buildLiteJobConfiguration(jobDefinition, regCenter);
+        // 常驻工作进程模式的脚本任务，需在作业初始化之前启动工作进程池
+        if (ElasticJobType.SCRIPT.value.equals(jobDefinition.getJobType()) && seieiElasticJobConfig.scriptWorkers() > 0) {
+            registerScriptWorkerPool(applicationContext, seieiElasticJobConfig);
+        }
+        // 断点续处理作业，需在作业执行之前指定断点存储
+        if (CheckpointDataflowJob.class.isAssignableFrom(jobDefinition.getJobClass()) && StringUtils.isBlank(seieiElasticJobConfig.checkpointDataSource())) {
+            throw new JobConfigurationException("Job '%s' extends CheckpointDataflowJob, checkpointDataSource can not be empty.", seieiElasticJobConfig.jobName());
+        }
+        if (StringUtils.isNotBlank(seieiElasticJobConfig.checkpointDataSource())) {
+            JobCheckpointStore.bind(seieiElasticJobConfig.jobName(), registerJobCheckpointStore(applicationContext, seieiElasticJobConfig));
+        }
+        OverlapPolicy overlapPolicy = OverlapPolicy.of(seieiElasticJobConfig.overlapPolicy());
+        if (null == overlapPolicy) {
+            throw new JobConfigurationException("Job '%s' overlapPolicy '%s' is not supported.", seieiElasticJobConfig.jobName(), seieiElasticJobConfig.overlapPolicy());
+        }
+        String eventTraceRdbDataSource = seieiElasticJobConfig.eventTraceRdbDataSource();
+        // 同一数据源的作业共用事件追踪表的维护和查询
+        if (StringUtils.isNotBlank(eventTraceRdbDataSource)) {
+            JobEventHistory.bind(seieiElasticJobConfig.jobName(), registerJobEventHistory(applicationContext, eventTraceRdbDataSource));
+        }
+
+        /* 构建 JobScheduler 配置，并注入到 spring 容器 */
+
+        // 创建一个 spring 的 BeanDefinitionBuilder，共享调度模式下使用 SharedJobScheduler
+        BeanDefinitionBuilder factory = BeanDefinitionBuilder.genericBeanDefinition(null == sharedSchedulerCore ? JobScheduler.class : SharedJobScheduler.class);
+        // 模式：多例 取消了也没有影响，但教程就有说要使用多例模式
+        //factory.setScope("prototype");
+
+        /* 填充构造器参数 */
+        // 填充 共享调度核心
+        if (null != sharedSchedulerCore) {
+            factory.addConstructorArgValue(sharedSchedulerCore);
+        }
+        // 填充 Zookeeper 注册中心
+        factory.addConstructorArgValue(regCenter);
+        // 填充 作业配置
+        factory.addConstructorArgValue(liteJobConfiguration);
+        // 填充 日志数据库事件溯源配置
+        BeanDefinition jobEventConfiguration = null;
+        if (StringUtils.isNotBlank(eventTraceRdbDataSource) && EventTraceMode.ASYNC.value.equalsIgnoreCase(seieiElasticJobConfig.eventTraceMode())) {
+            BeanDefinitionBuilder rdbFactory = BeanDefinitionBuilder.genericBeanDefinition(BatchJobEventRdbConfiguration.class);
+            // 同一数据源的作业共用一个批量写入器
+            rdbFactory.addConstructorArgReference(registerBatchJobEventRdbWriter(applicationContext, seieiElasticJobConfig));
+            jobEventConfiguration = rdbFactory.getBeanDefinition();
+        }
+        else if (StringUtils.isNotBlank(eventTraceRdbDataSource)) {
+            BeanDefinitionBuilder rdbFactory = BeanDefinitionBuilder.genericBeanDefinition(JobEventRdbConfiguration.class);
+            //rdbFactory.setScope("prototype");
+            // 填充构造器参数
+            // addConstructorArgReference，根据 BeanName 获取 Spring 容器里的 Bean 作为参数
+            rdbFactory.addConstructorArgReference(eventTraceRdbDataSource);
+            jobEventConfiguration = rdbFactory.getBeanDefinition();
+        }
+        // 负载均衡分片策略需要通过作业事件记录分片项耗时，包装原有的事件溯源配置
+        if (LoadAwareJobShardingStrategy.class.getName().equals(liteJobConfiguration.getJobShardingStrategyClass())) {
+            BeanDefinitionBuilder durationFactory = BeanDefinitionBuilder.genericBeanDefinition(ShardingDurationEventConfiguration.class);
+            if (null != jobEventConfiguration) {
+                durationFactory.addConstructorArgValue(jobEventConfiguration);
+            }
+            jobEventConfiguration = durationFactory.getBeanDefinition();
+        }
+        // 将 日志数据库事件溯源配置 填充到上述 factory 的构造器参数中
+        if (null != jobEventConfiguration) {
+            factory.addConstructorArgValue(jobEventConfiguration);
+        }
+        // 添加监听
+        List<Object> elasticJobListeners = getTargetElasticJobListeners(applicationContext, seieiElasticJobConfig);
+        factory.addConstructorArgValue(elasticJobListeners);
+
+        /* 注入到 Spring 容器中 */
+        // 获取注册类
+        DefaultListableBeanFactory defaultListableBeanFactory = (DefaultListableBeanFactory) applicationContext.getAutowireCapableBeanFactory();
+        // 创建 bean 名
+        String registerBeanName = seieiElasticJobConfig.jobName() + "SpringJobScheduler";
+        // 注册到容器中
+        defaultListableBeanFactory.registerBeanDefinition(registerBeanName, factory.getBeanDefinition());
+        // 获取注册到容器的 JobScheduler 实例
+        JobScheduler jobScheduler = (JobScheduler) applicationContext.getBean(registerBeanName);
+        // 解码作业参数需要在最内层，其他包装类拿到的都是原始参数；注册中心中的参数可能由其他实例或控制台写入，所以所有作业都需要解码
+        JobSchedulerAccessor.setJobFacade(jobScheduler, new ParameterDecodingJobFacade(JobSchedulerAccessor.getJobFacade(jobScheduler), regCenter));
+        // 快速失效转移作业在心跳租约失效后不再开始新的执行，心跳需在作业初始化之前开始
+        if (FailoverMode.HEARTBEAT == failoverMode && seieiElasticJobConfig.failover()) {
+            JobSchedulerAccessor.setJobFacade(jobScheduler, new FailoverLeaseJobFacade(JobSchedulerAccessor.getJobFacade(jobScheduler),
+                    seieiElasticJobConfig.jobName(), getFailoverHeartbeatMonitor(seieiElasticJobConfig)));
+        }
+        // 包装 JobFacade 统计分片项执行结果，需在 init 之前完成
+        if (metricsEnabled) {
+            JobMetricsSupport.decorateJobFacade(applicationContext, jobScheduler, seieiElasticJobConfig.jobName());
+            // 内置预设线程池（默认线程池除外）发布排队和活跃线程数
+            ExecutorPreset executorPreset = ExecutorPreset.of(seieiElasticJobConfig.executorServiceHandler());
+            if (null != executorPreset && ExecutorPreset.DEFAULT != executorPreset) {
+                JobMetricsSupport.bindExecutorService(applicationContext, seieiElasticJobConfig.jobName());
+            }
+        }
+        // 执行重叠策略忽略注册中心的错过执行标记，控制器的 Quartz 监听在 init 之后添加
+        if (OverlapPolicy.MISFIRE != overlapPolicy) {
+            registerJobOverlapController(applicationContext, seieiElasticJobConfig);
+            JobSchedulerAccessor.setJobFacade(jobScheduler, new OverlapJobFacade(JobSchedulerAccessor.getJobFacade(jobScheduler)));
+        }
+        // 记录执行阶段耗时，包装在除批量分片以外的最外层，批量分片简单任务仍按展开后的分片项记录
+        if (null != jobTraceRecorder) {
+            JobSchedulerAccessor.setJobFacade(jobScheduler, new TracingJobFacade(JobSchedulerAccessor.getJobFacade(jobScheduler), jobTraceRecorder));
+        }
+        // 预取流式作业在每次执行结束时停止遗留的预取任务
+        if (PrefetchDataflowJob.class.isAssignableFrom(jobDefinition.getJobClass())) {
+            JobSchedulerAccessor.setJobFacade(jobScheduler, new PrefetchDataflowJobFacade(JobSchedulerAccessor.getJobFacade(jobScheduler)));
+        }
+        // 批量分片简单任务合并分片项，需要包装在指标等包装类的外层，展开后的分片项执行事件才能被指标等内层的包装类统计
+        if (ElasticJobType.BATCH_SIMPLE.value.equals(jobDefinition.getJobType())) {
+            JobSchedulerAccessor.setJobFacade(jobScheduler, new BatchShardingJobFacade(JobSchedulerAccessor.getJobFacade(jobScheduler)));
+        }
+        return jobScheduler;
+    }
+
+    /**
+     * 获取作业配置的注册中心的实例心跳，同一注册中心的作业共用一个实例心跳，第一次获取时开始心跳
+     * @param seieiElasticJobConfig 作业配置注解
+     * @return
+     */
+    private synchronized FailoverHeartbeatMonitor getFailoverHeartbeatMonitor(SeieiElasticJobConfig seieiElasticJobConfig) {
+        // 正在运行的分片项由注册中心中的运行状态节点识别，失联实例仍在运行的分片项不会被隔离后接管
+        if (!seieiElasticJobConfig.monitorExecution()) {
+            throw new JobConfigurationException("Job '%s' failoverMode 'heartbeat' requires monitorExecution.", seieiElasticJobConfig.jobName());
+        }
+        String registryCenterName = StringUtils.defaultString(seieiElasticJobConfig.registryCenter()).trim();
+        FailoverHeartbeatMonitor result = failoverHeartbeatMonitorMap.get(registryCenterName);
+        if (null == result) {
+            result = new FailoverHeartbeatMonitor(getRegistryCenter(seieiElasticJobConfig),
+                    seieiElasticJobProperties.getFailoverHeartbeatIntervalMilliseconds(), seieiElasticJobProperties.getFailoverHeartbeatTimeoutMilliseconds());
+            result.start();
+            failoverHeartbeatMonitorMap.put(registryCenterName, result);
+        }
+        result.addJob(seieiElasticJobConfig.jobName());
+        return result;
+    }
+
+    /**
+     * 从所有实例心跳中移除作业，作业移除时调用，心跳继续供同一注册中心的其他作业使用
+     * @param jobName 作业名称
+     */
+    public synchronized void removeFailoverHeartbeatJob(String jobName) {
+        for (FailoverHeartbeatMonitor each : failoverHeartbeatMonitorMap.values()) {
+            each.removeJob(jobName);
+        }
+    }
+
+    /**
+     * 注册作业事件批量写入器到 spring 容器，同一数据源只注册一次
+     * @param applicationContext Spring 应用容器
+     * @param seieiElasticJobConfig 作业配置注解
+     * @return 写入器的 BeanName
+     */
+    private synchronized String registerBatchJobEventRdbWriter(ApplicationContext applicationContext, SeieiElasticJobConfig seieiElasticJobConfig) {
+        String eventTraceRdbDataSource = seieiElasticJobConfig.eventTraceRdbDataSource();
+        String registerBeanName = eventTraceRdbDataSource + "BatchJobEventRdbWriter";
+        DefaultListableBeanFactory defaultListableBeanFactory = (DefaultListableBeanFactory) applicationContext.getAutowireCapableBeanFactory();
+        if (!defaultListableBeanFactory.containsBeanDefinition(registerBeanName)) {
+            BeanDefinitionBuilder writerFactory = BeanDefinitionBuilder.genericBeanDefinition(BatchJobEventRdbWriter.class);
+            writerFactory.addConstructorArgReference(eventTraceRdbDataSource);
+            // 同一数据源的所有作业共用一个写入器，写入参数使用全局配置，不受作业启动顺序影响
+            writerFactory.addConstructorArgValue(seieiElasticJobProperties.getEventTraceBufferSize());
+            writerFactory.addConstructorArgValue(seieiElasticJobProperties.getEventTraceFlushSize());
+            writerFactory.addConstructorArgValue(seieiElasticJobProperties.getEventTraceFlushIntervalMilliseconds());
+            writerFactory.addConstructorArgValue(seieiElasticJobProperties.getEventTraceOverflowPolicy());
+            writerFactory.setInitMethodName("start");
+            writerFactory.setDestroyMethodName("shutdown");
+            defaultListableBeanFactory.registerBeanDefinition(registerBeanName, writerFactory.getBeanDefinition());
+            if (metricsEnabled) {
+                JobMetricsSupport.registerBatchJobEventRdbWriterMetrics(applicationContext, registerBeanName, eventTraceRdbDataSource);
+            }
+        }
+        return registerBeanName;
+    }
+
+    /**
+     * 注册作业事件历史到 spring 容器并启动，同一数据源只注册一次
+     * @param applicationContext Spring 应用容器
+     * @param eventTraceRdbDataSource 事件追踪数据源的 BeanName
+     * @return 事件历史
+     */
+    private synchronized JobEventHistory registerJobEventHistory(ApplicationContext applicationContext, String eventTraceRdbDataSource) {
+        String registerBeanName = eventTraceRdbDataSource + "JobEventHistory";
+        DefaultListableBeanFactory defaultListableBeanFactory = (DefaultListableBeanFactory) applicationContext.getAutowireCapableBeanFactory();
+        if (!defaultListableBeanFactory.containsBeanDefinition(registerBeanName)) {
+            BeanDefinitionBuilder historyFactory = BeanDefinitionBuilder.genericBeanDefinition(JobEventHistory.class);
+            historyFactory.addConstructorArgReference(eventTraceRdbDataSource);
+            historyFactory.addConstructorArgValue(seieiElasticJobProperties.getEventTraceRetentionDays());
+            historyFactory.addConstructorArgValue(seieiElasticJobProperties.getEventTracePurgeBatchSize());
+            historyFactory.addConstructorArgValue(seieiElasticJobProperties.getEventTracePurgeIntervalMinutes());
+            historyFactory.addConstructorArgValue(seieiElasticJobProperties.isEventTraceIndexEnabled());
+            historyFactory.setInitMethodName("start");
+            historyFactory.setDestroyMethodName("shutdown");
+            defaultListableBeanFactory.registerBeanDefinition(registerBeanName, historyFactory.getBeanDefinition());
+        }
+        return applicationContext.getBean(registerBeanName, JobEventHistory.class);
+    }
+
+    /**
+     * 注册作业断点存储到 spring 容器并启动，同一数据源只注册一次
+     * @param applicationContext Spring 应用容器
+     * @param seieiElasticJobConfig 作业配置注解
+     * @return 断点存储
+     */
+    private synchronized JobCheckpointStore registerJobCheckpointStore(ApplicationContext applicationContext, SeieiElasticJobConfig seieiElasticJobConfig) {
+        String checkpointDataSource = seieiElasticJobConfig.checkpointDataSource();
+        String registerBeanName = checkpointDataSource + "JobCheckpointStore";
+        DefaultListableBeanFactory defaultListableBeanFactory = (DefaultListableBeanFactory) applicationContext.getAutowireCapableBeanFactory();
+        if (!defaultListableBeanFactory.containsBeanDefinition(registerBeanName)) {
+            BeanDefinitionBuilder storeFactory = BeanDefinitionBuilder.genericBeanDefinition(JobCheckpointStore.class);
+            storeFactory.addConstructorArgReference(checkpointDataSource);
+            // 同一数据源的所有作业共用一个断点存储，写入间隔使用全局配置，不受作业启动顺序影响
+            storeFactory.addConstructorArgValue(seieiElasticJobProperties.getCheckpointFlushIntervalMilliseconds());
+            storeFactory.setInitMethodName("start");
+            storeFactory.setDestroyMethodName("shutdown");
+            defaultListableBeanFactory.registerBeanDefinition(registerBeanName, storeFactory.getBeanDefinition());
+        }
+        return applicationContext.getBean(registerBeanName, JobCheckpointStore.class);
+    }
+
+    /**
+     * 注册作业的执行重叠控制器到 spring 容器
+     * @param applicationContext Spring 应用容器
+     * @param seieiElasticJobConfig 作业配置注解
+     * @return 执行重叠控制器
+     */
+    private JobOverlapController registerJobOverlapController(ApplicationContext applicationContext, SeieiElasticJobConfig seieiElasticJobConfig) {
+        BeanDefinitionBuilder controllerFactory = BeanDefinitionBuilder.genericBeanDefinition(JobOverlapController.class);
+        controllerFactory.addConstructorArgValue(seieiElasticJobConfig.jobName());
+        controllerFactory.addConstructorArgValue(seieiElasticJobConfig.overlapPolicy());
+        controllerFactory.addConstructorArgValue(seieiElasticJobConfig.overlapQueueSize());
+        String registerBeanName = seieiElasticJobConfig.jobName() + "JobOverlapController";
+        DefaultListableBeanFactory defaultListableBeanFactory = (DefaultListableBeanFactory) applicationContext.getAutowireCapableBeanFactory();
+        defaultListableBeanFactory.registerBeanDefinition(registerBeanName, controllerFactory.getBeanDefinition());
+        return applicationContext.getBean(registerBeanName, JobOverlapController.class);
+    }
+
+    /**
+     * 注册脚本作业的常驻工作进程池到 spring 容器并启动，容器关闭时结束所有工作进程
+     * @param applicationContext Spring 应用容器
+     * @param seieiElasticJobConfig 作业配置注解
+     */
+    private void registerScriptWorkerPool(ApplicationContext applicationContext, SeieiElasticJobConfig seieiElasticJobConfig) {
+        BeanDefinitionBuilder poolFactory = BeanDefinitionBuilder.genericBeanDefinition(ScriptWorkerPool.class);
+        poolFactory.addConstructorArgValue(seieiElasticJobConfig.jobName());
+        poolFactory.addConstructorArgValue(seieiElasticJobConfig.scriptCommandLine());
+        poolFactory.addConstructorArgValue(seieiElasticJobConfig.scriptWorkers());
+        poolFactory.addConstructorArgValue(seieiElasticJobConfig.scriptWorkerMaxRuns());
+        poolFactory.addConstructorArgValue(seieiElasticJobConfig.scriptWorkerTimeoutMilliseconds());
+        poolFactory.addConstructorArgValue(seieiElasticJobConfig.scriptWorkerHealthCheckIntervalMilliseconds());
+        poolFactory.setInitMethodName("start");
+        poolFactory.setDestroyMethodName("shutdown");
+        String registerBeanName = seieiElasticJobConfig.jobName() + "ScriptWorkerPool";
+        DefaultListableBeanFactory defaultListableBeanFactory = (DefaultListableBeanFactory) applicationContext.getAutowireCapableBeanFactory();
+        defaultListableBeanFactory.registerBeanDefinition(registerBeanName, poolFactory.getBeanDefinition());
+        applicationContext.getBean(registerBeanName);
+    }
+
     /**
      * 获取监听 BeanDefinition
+     * @param applicationContext Spring 应用容器
      * @param config 配置信息
      * @return
      */
-    private List<BeanDefinition> getTargetElasticJobListeners(SeieiElasticJobConfig config) {
+    private List<Object> getTargetElasticJobListeners(ApplicationContext applicationContext, SeieiElasticJobConfig config) {
         // ManagedList 存储管理运行中的 bean 引用（用于解析为bean对象）
         // 直接使用 ArrayList 会报错
-        List<BeanDefinition> result = new ManagedList<BeanDefinition>();
+        List<Object> result = new ManagedList<Object>();
+        // 运行指标监听，与其他监听一起挂载到每个作业
+        if (metricsEnabled) {
+            result.add(new RuntimeBeanReference(JobMetricsSupport.registerJobMetricsListener(applicationContext, config.jobName())));
+        }
         // 普通监听
         if (StringUtils.isNotBlank(config.listener())) {
             BeanDefinitionBuilder beanDefinitionBuilder = BeanDefinitionBuilder.genericBeanDefinition(config.listener());
@@ -218,4 +849,19 @@ public class SeieiElasticJobConfigParser implements ApplicationListener<Applicat
         return result;
     }
 
+    /**
+     * 容器关闭时停止实例心跳，释放并行批量启动模式下创建的作业缓存，需在注册中心关闭之前执行；
+     * 同时停止预取流式作业的预取任务并关闭其线程池
+     */
+    @Override
+    public void destroy() {
+        PrefetchDataflowJob.shutdownAll();
+        for (FailoverHeartbeatMonitor each : failoverHeartbeatMonitorMap.values()) {
+            each.stop();
+        }
+        for (ConcurrentCacheRegistryCenter each : concurrentCacheRegistryCenterMap.values()) {
+            each.closeCaches();
+        }
+    }
+
 }
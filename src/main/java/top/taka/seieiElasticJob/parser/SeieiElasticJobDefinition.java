@@ -0,0 +1,36 @@
+package top.taka.seieiElasticJob.parser;
+
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+
+/**
+ * 待启动的作业定义，来自编译期作业索引或运行时注解扫描
+ */
+public final class SeieiElasticJobDefinition {
+
+    // 作业类
+    private final Class<?> jobClass;
+
+    // 作业类型，对应 ElasticJobType 的 value
+    private final String jobType;
+
+    // 作业配置
+    private final SeieiElasticJobConfig config;
+
+    public SeieiElasticJobDefinition(Class<?> jobClass, String jobType, SeieiElasticJobConfig config) {
+        this.jobClass = jobClass;
+        this.jobType = jobType;
+        this.config = config;
+    }
+
+    public Class<?> getJobClass() {
+        return jobClass;
+    }
+
+    public String getJobType() {
+        return jobType;
+    }
+
+    public SeieiElasticJobConfig getConfig() {
+        return config;
+    }
+}
@@ -0,0 +1,164 @@
+package top.taka.seieiElasticJob.regCenter;
+
+import com.dangdang.ddframe.job.reg.base.CoordinatorRegistryCenter;
+import com.dangdang.ddframe.job.reg.exception.RegExceptionHandler;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 支持并发注册作业缓存的注册中心包装类
+ * ZookeeperRegistryCenter 内部使用 HashMap 保存各个作业的 TreeCache，而 JobScheduler.init 会调用 addCacheData 写入该 Map，
+ * 多个作业并行启动时会出现并发写入的问题，且 ZookeeperRegistryCenter 是 final 类无法继承，
+ * 所以这里使用 ConcurrentHashMap 自行管理 TreeCache，其余操作全部委托给原注册中心
+ */
+public class ConcurrentCacheRegistryCenter implements CoordinatorRegistryCenter {
+
+    private final CoordinatorRegistryCenter delegate;
+
+    // 作业缓存，key 为缓存路径 + "/"，与 ZookeeperRegistryCenter 保持一致
+    private final Map<String, TreeCache> caches = new ConcurrentHashMap<>();
+
+    public ConcurrentCacheRegistryCenter(CoordinatorRegistryCenter delegate) {
+        this.delegate = delegate;
+    }
+
+    public CoordinatorRegistryCenter getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void init() {
+        delegate.init();
+    }
+
+    /**
+     * 关闭本类管理的作业缓存，不关闭被包装的注册中心（由 Spring 容器负责关闭）
+     */
+    public void closeCaches() {
+        for (TreeCache each : caches.values()) {
+            each.close();
+        }
+        caches.clear();
+    }
+
+    @Override
+    public void close() {
+        closeCaches();
+        delegate.close();
+    }
+
+    @Override
+    public String get(String key) {
+        TreeCache cache = findTreeCache(key);
+        if (null == cache) {
+            return delegate.getDirectly(key);
+        }
+        ChildData resultInCache = cache.getCurrentData(key);
+        if (null != resultInCache) {
+            return null == resultInCache.getData() ? null : new String(resultInCache.getData(), StandardCharsets.UTF_8);
+        }
+        return delegate.getDirectly(key);
+    }
+
+    private TreeCache findTreeCache(String key) {
+        for (Map.Entry<String, TreeCache> entry : caches.entrySet()) {
+            if (key.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String getDirectly(String key) {
+        return delegate.getDirectly(key);
+    }
+
+    @Override
+    public List<String> getChildrenKeys(String key) {
+        return delegate.getChildrenKeys(key);
+    }
+
+    @Override
+    public int getNumChildren(String key) {
+        return delegate.getNumChildren(key);
+    }
+
+    @Override
+    public boolean isExisted(String key) {
+        return delegate.isExisted(key);
+    }
+
+    @Override
+    public void persist(String key, String value) {
+        delegate.persist(key, value);
+    }
+
+    @Override
+    public void update(String key, String value) {
+        delegate.update(key, value);
+    }
+
+    @Override
+    public void persistEphemeral(String key, String value) {
+        delegate.persistEphemeral(key, value);
+    }
+
+    @Override
+    public String persistSequential(String key, String value) {
+        return delegate.persistSequential(key, value);
+    }
+
+    @Override
+    public void persistEphemeralSequential(String key) {
+        delegate.persistEphemeralSequential(key);
+    }
+
+    @Override
+    public void remove(String key) {
+        delegate.remove(key);
+    }
+
+    @Override
+    public long getRegistryCenterTime(String key) {
+        return delegate.getRegistryCenterTime(key);
+    }
+
+    @Override
+    public Object getRawClient() {
+        return delegate.getRawClient();
+    }
+
+    @Override
+    public void addCacheData(String cachePath) {
+        TreeCache cache = new TreeCache((CuratorFramework) delegate.getRawClient(), cachePath);
+        try {
+            cache.start();
+        } catch (Exception ex) {
+            RegExceptionHandler.handleException(ex);
+        }
+        TreeCache previous = caches.put(cachePath + "/", cache);
+        if (null != previous) {
+            previous.close();
+        }
+    }
+
+    @Override
+    public void evictCacheData(String cachePath) {
+        TreeCache cache = caches.remove(cachePath + "/");
+        if (null != cache) {
+            cache.close();
+        }
+    }
+
+    @Override
+    public Object getRawCache(String cachePath) {
+        return caches.get(cachePath + "/");
+    }
+}
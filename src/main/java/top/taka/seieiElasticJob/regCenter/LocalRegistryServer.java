@@ -0,0 +1,118 @@
+package top.taka.seieiElasticJob.regCenter;
+
+import com.dangdang.ddframe.job.reg.exception.RegException;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+import org.apache.zookeeper.server.persistence.FileTxnSnapLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+
+/**
+ * 进程内的本地注册中心
+ * elastic-job 的选主、事务写入和所有作业监听都会把注册中心的 getRawClient 强制转换为 CuratorFramework、getRawCache 强制转换为 TreeCache，
+ * 无法替换为其他 CoordinatorRegistryCenter 实现，所以本地模式在当前进程内启动一个只监听回环地址的单机 Zookeeper 服务，
+ * 作业仍使用 ZookeeperRegistryCenter 连接，调度、分片、监听的逻辑与连接 Zookeeper 集群时完全一致，
+ * 省去的是跨机器的网络延迟和集群间的写入同步，每次注册中心调用仍有一次回环地址上的 TCP 往返。
+ * 未指定数据目录时数据保存在临时目录，关闭时删除；指定数据目录时关闭前写入快照，重启后恢复作业配置和分片状态
+ */
+public class LocalRegistryServer {
+
+    private final static Logger logger = LoggerFactory.getLogger(LocalRegistryServer.class);
+
+    private static final int TICK_TIME = 2000;
+
+    private static final int MAX_CLIENT_CONNECTIONS = 60;
+
+    private static final String FORCE_SYNC = "zookeeper.forceSync";
+
+    private final String dataDir;
+
+    private final int port;
+
+    private File directory;
+
+    // 是否为临时目录，关闭时删除
+    private boolean temporary;
+
+    private ZooKeeperServer zooKeeperServer;
+
+    private ServerCnxnFactory serverCnxnFactory;
+
+    /**
+     * @param dataDir 数据目录，为空时使用临时目录
+     * @param port 监听端口，0 表示随机端口
+     */
+    public LocalRegistryServer(String dataDir, int port) {
+        this.dataDir = dataDir;
+        this.port = port;
+    }
+
+    public void start() {
+        try {
+            temporary = StringUtils.isBlank(dataDir);
+            directory = temporary ? Files.createTempDirectory("seiei-elastic-job-local-").toFile() : new File(dataDir);
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("无法创建本地注册中心数据目录 " + directory);
+            }
+            zooKeeperServer = new ZooKeeperServer(createTxnSnapLog(), TICK_TIME, new ZooKeeperServer.BasicDataTreeBuilder());
+            serverCnxnFactory = ServerCnxnFactory.createFactory(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), MAX_CLIENT_CONNECTIONS);
+            serverCnxnFactory.startup(zooKeeperServer);
+        } catch (IOException e) {
+            throw new RegException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RegException(e);
+        }
+        logger.info("启动本地注册中心成功！地址：{}，数据目录：{}", getConnectString(), temporary ? directory + "（临时）" : directory);
+    }
+
+    /**
+     * 创建事务日志和快照
+     * 本地注册中心只服务当前进程，事务日志无需每次写入都刷盘。Zookeeper 只在创建事务日志时读取一次 zookeeper.forceSync，
+     * 所以只在创建期间设置并随即恢复，不影响同一进程中的其他 Zookeeper 服务；用户已显式配置时不覆盖
+     * @return
+     * @throws IOException
+     */
+    private FileTxnSnapLog createTxnSnapLog() throws IOException {
+        if (null != System.getProperty(FORCE_SYNC)) {
+            return new FileTxnSnapLog(directory, directory);
+        }
+        System.setProperty(FORCE_SYNC, "no");
+        try {
+            return new FileTxnSnapLog(directory, directory);
+        } finally {
+            System.clearProperty(FORCE_SYNC);
+        }
+    }
+
+    /**
+     * 获取本地注册中心的连接地址
+     * @return
+     */
+    public String getConnectString() {
+        return InetAddress.getLoopbackAddress().getHostAddress() + ":" + serverCnxnFactory.getLocalPort();
+    }
+
+    public void close() {
+        if (null == serverCnxnFactory) {
+            return;
+        }
+        if (!temporary) {
+            zooKeeperServer.takeSnapshot();
+        }
+        serverCnxnFactory.shutdown();
+        serverCnxnFactory = null;
+        if (temporary) {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+        logger.info("关闭本地注册中心");
+    }
+}
@@ -0,0 +1,63 @@
+package top.taka.seieiElasticJob.regCenter;
+
+import com.dangdang.ddframe.job.reg.base.CoordinatorRegistryCenter;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按名称选择作业使用的注册中心
+ * 所有作业共用一个注册中心时，一个 Zookeeper 集群要承担所有作业的监听和写入，每个注册中心对应一个独立的 Curator 会话，
+ * 配置多个命名的注册中心后可以将负载较重的作业分散到其他集群或命名空间。
+ * 默认注册中心由 Spring 容器管理，命名的注册中心由本类在容器关闭时关闭
+ */
+public class RegistryCenterRouter {
+
+    private final static Logger logger = LoggerFactory.getLogger(RegistryCenterRouter.class);
+
+    private final CoordinatorRegistryCenter defaultRegistryCenter;
+
+    private final Map<String, CoordinatorRegistryCenter> registryCenterMap;
+
+    /**
+     * @param defaultRegistryCenter 默认注册中心
+     * @param registryCenterMap 已初始化的命名注册中心
+     */
+    public RegistryCenterRouter(CoordinatorRegistryCenter defaultRegistryCenter, Map<String, CoordinatorRegistryCenter> registryCenterMap) {
+        this.defaultRegistryCenter = defaultRegistryCenter;
+        this.registryCenterMap = new LinkedHashMap<>(registryCenterMap);
+    }
+
+    /**
+     * 获取注册中心
+     * @param name 注册中心名称，为空时返回默认注册中心
+     * @return 未配置该名称的注册中心时返回 null
+     */
+    public CoordinatorRegistryCenter getRegistryCenter(String name) {
+        return StringUtils.isBlank(name) ? defaultRegistryCenter : registryCenterMap.get(name);
+    }
+
+    public CoordinatorRegistryCenter getDefaultRegistryCenter() {
+        return defaultRegistryCenter;
+    }
+
+    // 所有命名注册中心的名称
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(registryCenterMap.keySet());
+    }
+
+    /**
+     * 关闭所有命名的注册中心，默认注册中心由 Spring 容器关闭
+     */
+    public void close() {
+        for (Map.Entry<String, CoordinatorRegistryCenter> entry : registryCenterMap.entrySet()) {
+            entry.getValue().close();
+            logger.info("关闭注册中心：{}", entry.getKey());
+        }
+    }
+}
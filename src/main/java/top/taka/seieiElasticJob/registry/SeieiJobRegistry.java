@@ -0,0 +1,362 @@
+package top.taka.seieiElasticJob.registry;
+
+import com.dangdang.ddframe.job.api.ElasticJob;
+import com.dangdang.ddframe.job.exception.JobConfigurationException;
+import com.dangdang.ddframe.job.lite.api.JobScheduler;
+import com.dangdang.ddframe.job.lite.config.LiteJobConfiguration;
+import com.dangdang.ddframe.job.lite.internal.config.ConfigurationService;
+import com.dangdang.ddframe.job.lite.internal.instance.InstanceService;
+import com.dangdang.ddframe.job.lite.internal.schedule.JobRegistry;
+import com.dangdang.ddframe.job.lite.internal.schedule.JobScheduleController;
+import com.dangdang.ddframe.job.lite.internal.storage.JobNodePath;
+import com.dangdang.ddframe.job.reg.base.CoordinatorRegistryCenter;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.transaction.CuratorTransaction;
+import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+import org.quartz.CronExpression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+import top.taka.seieiElasticJob.checkpoint.JobCheckpointStore;
+import top.taka.seieiElasticJob.event.JobEventHistory;
+import top.taka.seieiElasticJob.executor.JobExecutorServices;
+import top.taka.seieiElasticJob.index.SeieiElasticJobIndex;
+import top.taka.seieiElasticJob.job.PrefetchDataflowJob;
+import top.taka.seieiElasticJob.parser.SeieiElasticJobConfigParser;
+import top.taka.seieiElasticJob.strategy.ShardingDurationStore;
+import top.taka.seieiElasticJob.trace.JobTraceRecorder;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 运行时作业管理
+ * 在不重启应用的情况下注册、修改、暂停、恢复和移除作业：
+ *     注册作业与启动时使用相同的配置构建流程（SeieiElasticJobConfigParser）；
+ *     修改 cron 和分片总数直接写入注册中心的作业配置，所有作业实例通过 elastic-job 的配置监听重新调度或重新分片；
+ *     暂停和恢复只作用于当前实例；
+ *     移除作业会关闭当前实例的作业，移除 spring 容器中与作业相关的 BeanDefinition 和按作业名称保存的运行状态，
+ *     没有其他实例运行该作业时同时删除注册中心中的作业节点（按版本在一个事务中删除，与其他实例启动同名作业并发时保留）
+ */
+@Component
+public class SeieiJobRegistry {
+
+    private final static Logger logger = LoggerFactory.getLogger(SeieiJobRegistry.class);
+
+    // 作业调度器的 BeanName 后缀，与 SeieiElasticJobConfigParser 一致
+    private static final String JOB_SCHEDULER_BEAN_NAME_SUFFIX = "SpringJobScheduler";
+
+    // 作业移除时需要一并移除的 BeanName 后缀
+    private static final String[] JOB_BEAN_NAME_SUFFIXES = {JOB_SCHEDULER_BEAN_NAME_SUFFIX, "JobMetricsListener", "ScriptWorkerPool", "JobOverlapController"};
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private SeieiElasticJobConfigParser seieiElasticJobConfigParser;
+
+    // 作业执行阶段耗时记录器，只有开启 traceEnabled 时才存在
+    @Autowired(required = false)
+    private JobTraceRecorder jobTraceRecorder;
+
+    /**
+     * 获取所有已注册的作业名称
+     * @return
+     */
+    public List<String> getJobNames() {
+        List<String> result = new ArrayList<>();
+        for (String each : applicationContext.getBeanNamesForType(JobScheduler.class, true, false)) {
+            if (each.endsWith(JOB_SCHEDULER_BEAN_NAME_SUFFIX)) {
+                result.add(each.substring(0, each.length() - JOB_SCHEDULER_BEAN_NAME_SUFFIX.length()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 作业是否已在当前实例启动
+     * @param jobName 作业名称
+     * @return
+     */
+    public boolean isRunning(String jobName) {
+        return null != JobRegistry.getInstance().getJobScheduleController(jobName);
+    }
+
+    /**
+     * 从注册中心读取作业当前生效的配置
+     * @param jobName 作业名称
+     * @return
+     */
+    public LiteJobConfiguration getJobConfiguration(String jobName) {
+        return new ConfigurationService(getRegCenter(jobName), jobName).load(false);
+    }
+
+    /**
+     * 作业在当前实例是否已暂停
+     * @param jobName 作业名称
+     * @return
+     */
+    public boolean isPaused(String jobName) {
+        return getJobScheduleController(jobName).isPaused();
+    }
+
+    /**
+     * 使用作业类上的 @SeieiElasticJobConfig 注解注册并启动作业
+     * @param jobClass 作业类
+     * @return 作业名称
+     */
+    public String register(Class<?> jobClass) {
+        return register(jobClass, new HashMap<String, String>());
+    }
+
+    /**
+     * 按类名注册并启动作业，用于 actuator 端点等外部输入的类名
+     * 只接受作业索引中的作业类和 spring 容器中已有 bean 的作业类，不会加载或启动任意类
+     * @param jobClassName 作业类的全限定名
+     * @param attributes @SeieiElasticJobConfig 的属性值，见 {@link #register(Class, Map)}
+     * @return 作业名称
+     * @throws ClassNotFoundException
+     * @throws IOException 读取作业索引失败
+     */
+    public synchronized String register(String jobClassName, Map<String, String> attributes) throws ClassNotFoundException, IOException {
+        ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+        SeieiElasticJobIndex seieiElasticJobIndex = SeieiElasticJobIndex.load(classLoader);
+        boolean indexed = null != seieiElasticJobIndex && seieiElasticJobIndex.getJobClassNames().contains(jobClassName);
+        // 只加载不初始化，类型检查通过前不会执行类的静态代码
+        Class<?> jobClass = ClassUtils.forName(jobClassName, classLoader);
+        if (!indexed && 0 == applicationContext.getBeanNamesForType(jobClass, true, false).length) {
+            throw new JobConfigurationException("Job class '%s' is neither in the job index nor a spring bean.", jobClassName);
+        }
+        return register(jobClass, attributes);
+    }
+
+    /**
+     * 注册并启动作业
+     * @param jobClass 作业类，需实现 SimpleJob、DataflowJob 或 ScriptJob
+     * @param attributes @SeieiElasticJobConfig 的属性值，覆盖作业类上注解的同名属性；作业类上没有注解时必须包含 jobName
+     * @return 作业名称
+     */
+    public synchronized String register(Class<?> jobClass, Map<String, String> attributes) {
+        // 脚本作业（包括脚本工作进程模式）使用 ScriptJob，同样是 ElasticJob
+        if (!ElasticJob.class.isAssignableFrom(jobClass)) {
+            throw new JobConfigurationException("Job class '%s' must implement SimpleJob, DataflowJob or ScriptJob.", jobClass.getName());
+        }
+        Map<String, String> mergedAttributes = new HashMap<>();
+        SeieiElasticJobConfig annotation = jobClass.getAnnotation(SeieiElasticJobConfig.class);
+        if (null != annotation) {
+            for (Method each : SeieiElasticJobConfig.class.getDeclaredMethods()) {
+                mergedAttributes.put(each.getName(), String.valueOf(ReflectionUtils.invokeMethod(each, annotation)));
+            }
+        }
+        mergedAttributes.putAll(attributes);
+        String jobName = mergedAttributes.get("jobName");
+        if (null == jobName || jobName.isEmpty()) {
+            throw new JobConfigurationException("Job name of '%s' is required.", jobClass.getName());
+        }
+        if (getDefaultListableBeanFactory().containsBeanDefinition(jobName + JOB_SCHEDULER_BEAN_NAME_SUFFIX)) {
+            throw new JobConfigurationException("Job '%s' is already registered.", jobName);
+        }
+        seieiElasticJobConfigParser.startJob(applicationContext, jobClass, SeieiElasticJobIndex.createJobConfig(jobClass.getName(), mergedAttributes));
+        return jobName;
+    }
+
+    /**
+     * 修改作业的 cron 表达式，所有作业实例重新调度
+     * @param jobName 作业名称
+     * @param cron cron 表达式
+     */
+    public void reschedule(String jobName, String cron) {
+        updateConfiguration(jobName, cron, null);
+    }
+
+    /**
+     * 修改作业的分片总数，下次执行前重新分片
+     * @param jobName 作业名称
+     * @param shardingTotalCount 分片总数
+     */
+    public void reshard(String jobName, int shardingTotalCount) {
+        updateConfiguration(jobName, null, shardingTotalCount);
+    }
+
+    /**
+     * 修改注册中心中的作业配置，参数为 null 表示不修改
+     * 直接修改配置节点的 JSON，保留其他配置项（包括在运维平台修改过的配置）不变
+     * @param jobName 作业名称
+     * @param cron cron 表达式
+     * @param shardingTotalCount 分片总数
+     */
+    public synchronized void updateConfiguration(String jobName, String cron, Integer shardingTotalCount) {
+        if (null != cron && !CronExpression.isValidExpression(cron)) {
+            throw new JobConfigurationException("Cron expression '%s' is invalid.", cron);
+        }
+        if (null != shardingTotalCount && shardingTotalCount < 1) {
+            throw new JobConfigurationException("Sharding total count of job '%s' must be positive.", jobName);
+        }
+        CoordinatorRegistryCenter regCenter = getRegCenter(jobName);
+        String configNodePath = new JobNodePath(jobName).getConfigNodePath();
+        JsonObject config = new JsonParser().parse(regCenter.getDirectly(configNodePath)).getAsJsonObject();
+        if (null != cron) {
+            config.addProperty("cron", cron);
+        }
+        if (null != shardingTotalCount) {
+            config.addProperty("shardingTotalCount", shardingTotalCount);
+        }
+        regCenter.update(configNodePath, config.toString());
+        logger.info("修改seiei-elastic-job作业配置: {}，cron: {}，分片总数: {}", jobName, cron, shardingTotalCount);
+    }
+
+    /**
+     * 暂停当前实例的作业调度
+     * @param jobName 作业名称
+     */
+    public void pause(String jobName) {
+        getJobScheduleController(jobName).pauseJob();
+        logger.info("暂停seiei-elastic-job作业: {}", jobName);
+    }
+
+    /**
+     * 恢复当前实例的作业调度
+     * @param jobName 作业名称
+     */
+    public void resume(String jobName) {
+        getJobScheduleController(jobName).resumeJob();
+        logger.info("恢复seiei-elastic-job作业: {}", jobName);
+    }
+
+    /**
+     * 关闭并移除作业
+     * @param jobName 作业名称
+     */
+    public synchronized void remove(String jobName) {
+        DefaultListableBeanFactory defaultListableBeanFactory = getDefaultListableBeanFactory();
+        String jobSchedulerBeanName = jobName + JOB_SCHEDULER_BEAN_NAME_SUFFIX;
+        if (!defaultListableBeanFactory.containsBeanDefinition(jobSchedulerBeanName)) {
+            throw new JobConfigurationException("Job '%s' is not registered.", jobName);
+        }
+        CoordinatorRegistryCenter regCenter = JobRegistry.getInstance().getRegCenter(jobName);
+        if (isRunning(jobName)) {
+            // 实例节点是临时节点，作业关闭后会一直保留到会话结束，需要在 JobRegistry 清除作业实例信息之前主动移除
+            new InstanceService(regCenter, jobName).removeInstance();
+            applicationContext.getBean(jobSchedulerBeanName, JobScheduler.class).getSchedulerFacade().shutdownInstance();
+        }
+        for (String each : JOB_BEAN_NAME_SUFFIXES) {
+            if (defaultListableBeanFactory.containsBeanDefinition(jobName + each)) {
+                // 移除 BeanDefinition 的同时销毁单例，执行 destroy 方法（如关闭脚本工作进程、移除运行指标）
+                defaultListableBeanFactory.removeBeanDefinition(jobName + each);
+            }
+        }
+        unbind(jobName);
+        if (null != regCenter) {
+            removeJobNode(regCenter, jobName);
+        }
+        logger.info("移除seiei-elastic-job作业: {}", jobName);
+    }
+
+    /**
+     * 没有其他实例运行该作业时删除作业在注册中心的节点
+     * 其他实例可能正在启动同名作业（已写入配置、尚未写入实例节点），所以先读取整个作业节点及各个节点的版本，
+     * 再在一个事务中按读取时的版本从下往上删除：期间有节点被修改（版本变化）或新增了子节点（父节点非空）时事务整体失败，保留作业节点；
+     * 作业节点下存在临时节点（其他实例的会话仍然有效）时同样保留
+     * @param regCenter 注册中心
+     * @param jobName 作业名称
+     */
+    private void removeJobNode(CoordinatorRegistryCenter regCenter, String jobName) {
+        CuratorFramework client = (CuratorFramework) regCenter.getRawClient();
+        String instancesNodePath = new JobNodePath(jobName).getInstancesNodePath();
+        try {
+            Stat instancesStat = client.checkExists().forPath(instancesNodePath);
+            if (null != instancesStat && instancesStat.getNumChildren() > 0) {
+                return;
+            }
+            // 节点路径 -> 读取时的版本，子节点在父节点之前
+            Map<String, Integer> nodeVersions = new LinkedHashMap<>();
+            if (!collectNodeVersions(client, "/" + jobName, nodeVersions)) {
+                logger.info("作业 {} 在注册中心存在其他实例的临时节点，保留作业节点", jobName);
+                return;
+            }
+            CuratorTransaction transaction = client.inTransaction();
+            for (Map.Entry<String, Integer> entry : nodeVersions.entrySet()) {
+                transaction = transaction.delete().withVersion(entry.getValue()).forPath(entry.getKey()).and();
+            }
+            ((CuratorTransactionFinal) transaction).commit();
+            logger.info("删除seiei-elastic-job作业在注册中心的节点: {}", jobName);
+        } catch (KeeperException.NoNodeException | KeeperException.NotEmptyException | KeeperException.BadVersionException e) {
+            logger.info("作业 {} 在注册中心的节点已被其他实例修改，保留作业节点", jobName);
+        } catch (Exception e) {
+            logger.warn("删除作业 {} 在注册中心的节点失败", jobName, e);
+        }
+    }
+
+    /**
+     * 按子节点在前的顺序读取节点及其所有子节点的版本
+     * @return 存在临时节点时返回 false
+     */
+    private boolean collectNodeVersions(CuratorFramework client, String path, Map<String, Integer> nodeVersions) throws Exception {
+        Stat stat = client.checkExists().forPath(path);
+        if (null == stat) {
+            throw new KeeperException.NoNodeException(path);
+        }
+        if (0 != stat.getEphemeralOwner()) {
+            return false;
+        }
+        for (String each : client.getChildren().forPath(path)) {
+            if (!collectNodeVersions(client, path + "/" + each, nodeVersions)) {
+                return false;
+            }
+        }
+        nodeVersions.put(path, stat.getVersion());
+        return true;
+    }
+
+    /**
+     * 清除按作业名称保存的运行状态，作业关闭后调用，同名作业重新注册时不会沿用旧的状态
+     * @param jobName 作业名称
+     */
+    private void unbind(String jobName) {
+        JobCheckpointStore.unbind(jobName);
+        JobEventHistory.unbind(jobName);
+        seieiElasticJobConfigParser.removeFailoverHeartbeatJob(jobName);
+        JobExecutorServices.remove(jobName);
+        ShardingDurationStore.getInstance().remove(jobName);
+        PrefetchDataflowJob.shutdown(jobName);
+        PrefetchDataflowJob.removeMetrics(jobName);
+        if (null != jobTraceRecorder) {
+            jobTraceRecorder.clear(jobName);
+        }
+    }
+
+    private JobScheduleController getJobScheduleController(String jobName) {
+        JobScheduleController result = JobRegistry.getInstance().getJobScheduleController(jobName);
+        if (null == result) {
+            throw new JobConfigurationException("Job '%s' is not running.", jobName);
+        }
+        return result;
+    }
+
+    private CoordinatorRegistryCenter getRegCenter(String jobName) {
+        CoordinatorRegistryCenter result = JobRegistry.getInstance().getRegCenter(jobName);
+        if (null == result) {
+            throw new JobConfigurationException("Job '%s' is not running.", jobName);
+        }
+        return result;
+    }
+
+    private DefaultListableBeanFactory getDefaultListableBeanFactory() {
+        return (DefaultListableBeanFactory) applicationContext.getAutowireCapableBeanFactory();
+    }
+}
@@ -0,0 +1,105 @@
+package top.taka.seieiElasticJob.registry;
+
+import com.dangdang.ddframe.job.lite.config.LiteJobConfiguration;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 运行时作业管理的 actuator 端点，引入 spring-boot-actuator 并配置 elastic.job.zk.registryEndpointEnabled=true 时注册
+ * 端点可以注册和移除作业，默认不注册：spring boot 2.1 默认开启 JMX 并通过 JMX 暴露所有端点，注册后即可通过 JMX 访问；
+ * web 默认只暴露 health 和 info，需通过 management.endpoints.web.exposure.include 暴露，暴露前应配置访问控制
+ *     GET    /actuator/seieijobs             所有作业
+ *     GET    /actuator/seieijobs/{jobName}   单个作业
+ *     POST   /actuator/seieijobs             注册作业，参数 jobClass（必填，作业索引中或已是 spring bean 的作业类）、jobName、cron、shardingTotalCount、shardingItemParameters、jobParameter
+ *     POST   /actuator/seieijobs/{jobName}   修改作业，参数 cron、shardingTotalCount、paused
+ *     DELETE /actuator/seieijobs/{jobName}   移除作业
+ */
+@Endpoint(id = "seieijobs")
+public class SeieiJobRegistryEndpoint {
+
+    private final SeieiJobRegistry seieiJobRegistry;
+
+    public SeieiJobRegistryEndpoint(SeieiJobRegistry seieiJobRegistry) {
+        this.seieiJobRegistry = seieiJobRegistry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> jobs() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String each : seieiJobRegistry.getJobNames()) {
+            result.put(each, getJobInfo(each));
+        }
+        return result;
+    }
+
+    @ReadOperation
+    public Map<String, Object> job(@Selector String jobName) {
+        return getJobInfo(jobName);
+    }
+
+    @WriteOperation
+    public Map<String, Object> register(String jobClass, @Nullable String jobName, @Nullable String cron, @Nullable Integer shardingTotalCount,
+                                        @Nullable String shardingItemParameters, @Nullable String jobParameter) throws ClassNotFoundException, IOException {
+        Map<String, String> attributes = new HashMap<>();
+        putIfNotNull(attributes, "jobName", jobName);
+        putIfNotNull(attributes, "cron", cron);
+        putIfNotNull(attributes, "shardingTotalCount", shardingTotalCount);
+        putIfNotNull(attributes, "shardingItemParameters", shardingItemParameters);
+        putIfNotNull(attributes, "jobParameter", jobParameter);
+        String registeredJobName = seieiJobRegistry.register(jobClass, attributes);
+        return getJobInfo(registeredJobName);
+    }
+
+    @WriteOperation
+    public Map<String, Object> update(@Selector String jobName, @Nullable String cron, @Nullable Integer shardingTotalCount, @Nullable Boolean paused) {
+        if (null != cron || null != shardingTotalCount) {
+            seieiJobRegistry.updateConfiguration(jobName, cron, shardingTotalCount);
+        }
+        if (Boolean.TRUE.equals(paused)) {
+            seieiJobRegistry.pause(jobName);
+        } else if (Boolean.FALSE.equals(paused)) {
+            seieiJobRegistry.resume(jobName);
+        }
+        return getJobInfo(jobName);
+    }
+
+    @DeleteOperation
+    public void remove(@Selector String jobName) {
+        seieiJobRegistry.remove(jobName);
+    }
+
+    private void putIfNotNull(Map<String, String> attributes, String name, Object value) {
+        if (null != value) {
+            attributes.put(name, value.toString());
+        }
+    }
+
+    private Map<String, Object> getJobInfo(String jobName) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("jobName", jobName);
+        boolean running = seieiJobRegistry.isRunning(jobName);
+        result.put("running", running);
+        if (!running) {
+            return result;
+        }
+        LiteJobConfiguration liteJobConfiguration = seieiJobRegistry.getJobConfiguration(jobName);
+        result.put("jobType", liteJobConfiguration.getTypeConfig().getJobType().name());
+        result.put("jobClass", liteJobConfiguration.getTypeConfig().getJobClass());
+        result.put("cron", liteJobConfiguration.getTypeConfig().getCoreConfig().getCron());
+        result.put("shardingTotalCount", liteJobConfiguration.getTypeConfig().getCoreConfig().getShardingTotalCount());
+        result.put("shardingItemParameters", liteJobConfiguration.getTypeConfig().getCoreConfig().getShardingItemParameters());
+        result.put("jobParameter", liteJobConfiguration.getTypeConfig().getCoreConfig().getJobParameter());
+        result.put("disabled", liteJobConfiguration.isDisabled());
+        result.put("paused", seieiJobRegistry.isPaused(jobName));
+        return result;
+    }
+}
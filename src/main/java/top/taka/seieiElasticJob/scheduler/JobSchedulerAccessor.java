@@ -0,0 +1,58 @@
+package top.taka.seieiElasticJob.scheduler;
+
+import com.dangdang.ddframe.job.executor.JobFacade;
+import com.dangdang.ddframe.job.lite.api.JobScheduler;
+import com.dangdang.ddframe.job.lite.internal.schedule.JobRegistry;
+import com.dangdang.ddframe.job.lite.internal.schedule.JobScheduleController;
+import org.quartz.Scheduler;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+
+/**
+ * 访问 elastic-job 未公开的作业调度器内部对象
+ * JobScheduler 没有提供获取、替换 JobFacade 的方法，JobScheduleController 也没有提供获取 Quartz 调度器的方法，这里统一通过反射访问
+ */
+public final class JobSchedulerAccessor {
+
+    private static final Field JOB_FACADE_FIELD = findField(JobScheduler.class, "jobFacade");
+
+    private static final Field SCHEDULER_FIELD = findField(JobScheduleController.class, "scheduler");
+
+    private JobSchedulerAccessor() {
+    }
+
+    private static Field findField(Class<?> clazz, String name) {
+        Field result = ReflectionUtils.findField(clazz, name);
+        ReflectionUtils.makeAccessible(result);
+        return result;
+    }
+
+    /**
+     * 获取 JobScheduler 构造时创建的 JobFacade
+     * @param jobScheduler 作业调度器
+     * @return
+     */
+    public static JobFacade getJobFacade(JobScheduler jobScheduler) {
+        return (JobFacade) ReflectionUtils.getField(JOB_FACADE_FIELD, jobScheduler);
+    }
+
+    /**
+     * 替换 JobScheduler 的 JobFacade，必须在 init 之前调用，init 时会将 JobFacade 放入 Quartz 的 JobDataMap
+     * @param jobScheduler 作业调度器
+     * @param jobFacade 新的 JobFacade，通常是包装原有 JobFacade 的 DelegatingJobFacade
+     */
+    public static void setJobFacade(JobScheduler jobScheduler, JobFacade jobFacade) {
+        ReflectionUtils.setField(JOB_FACADE_FIELD, jobScheduler, jobFacade);
+    }
+
+    /**
+     * 获取作业使用的 Quartz 调度器，共享调度模式下返回 SharedSchedulerCore 为该作业创建的调度器视图
+     * @param jobName 作业名称
+     * @return 作业尚未初始化时返回 null
+     */
+    public static Scheduler getScheduler(String jobName) {
+        JobScheduleController jobScheduleController = JobRegistry.getInstance().getJobScheduleController(jobName);
+        return null == jobScheduleController ? null : (Scheduler) ReflectionUtils.getField(SCHEDULER_FIELD, jobScheduleController);
+    }
+}
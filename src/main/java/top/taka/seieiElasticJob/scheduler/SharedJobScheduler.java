@@ -0,0 +1,77 @@
+package top.taka.seieiElasticJob.scheduler;
+
+import com.dangdang.ddframe.job.api.ElasticJob;
+import com.dangdang.ddframe.job.api.script.ScriptJob;
+import com.dangdang.ddframe.job.event.JobEventConfiguration;
+import com.dangdang.ddframe.job.exception.JobConfigurationException;
+import com.dangdang.ddframe.job.lite.api.JobScheduler;
+import com.dangdang.ddframe.job.lite.api.listener.ElasticJobListener;
+import com.dangdang.ddframe.job.lite.config.LiteJobConfiguration;
+import com.dangdang.ddframe.job.lite.internal.schedule.JobRegistry;
+import com.dangdang.ddframe.job.lite.internal.schedule.JobScheduleController;
+import com.dangdang.ddframe.job.reg.base.CoordinatorRegistryCenter;
+import com.google.common.base.Optional;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+
+/**
+ * 使用共享调度核心的作业调度器
+ * 作业的注册、分片、监听等逻辑与 elastic-job 的 JobScheduler 完全一致，只是 init 时不再为作业单独创建 Quartz 调度器，
+ * 而是将作业注册到 SharedSchedulerCore 的共享调度器中
+ */
+public class SharedJobScheduler extends JobScheduler {
+
+    private final SharedSchedulerCore sharedSchedulerCore;
+
+    private final CoordinatorRegistryCenter regCenter;
+
+    private final LiteJobConfiguration liteJobConfig;
+
+    public SharedJobScheduler(SharedSchedulerCore sharedSchedulerCore, CoordinatorRegistryCenter regCenter,
+                              LiteJobConfiguration liteJobConfig, ElasticJobListener... elasticJobListeners) {
+        super(regCenter, liteJobConfig, elasticJobListeners);
+        this.sharedSchedulerCore = sharedSchedulerCore;
+        this.regCenter = regCenter;
+        this.liteJobConfig = liteJobConfig;
+    }
+
+    public SharedJobScheduler(SharedSchedulerCore sharedSchedulerCore, CoordinatorRegistryCenter regCenter, LiteJobConfiguration liteJobConfig,
+                              JobEventConfiguration jobEventConfig, ElasticJobListener... elasticJobListeners) {
+        super(regCenter, liteJobConfig, jobEventConfig, elasticJobListeners);
+        this.sharedSchedulerCore = sharedSchedulerCore;
+        this.regCenter = regCenter;
+        this.liteJobConfig = liteJobConfig;
+    }
+
+    /**
+     * 初始化作业，流程与 JobScheduler.init 一致
+     */
+    @Override
+    public void init() {
+        String jobName = liteJobConfig.getJobName();
+        LiteJobConfiguration liteJobConfigFromRegCenter = getSchedulerFacade().updateJobConfiguration(liteJobConfig);
+        JobRegistry.getInstance().setCurrentShardingTotalCount(jobName, liteJobConfigFromRegCenter.getTypeConfig().getCoreConfig().getShardingTotalCount());
+        sharedSchedulerCore.addTriggerListener(jobName, getSchedulerFacade().newJobTriggerListener());
+        JobScheduleController jobScheduleController = new JobScheduleController(
+                sharedSchedulerCore.createJobScheduler(jobName), createJobDetail(liteJobConfigFromRegCenter.getTypeConfig().getJobClass()), jobName);
+        JobRegistry.getInstance().registerJob(jobName, jobScheduleController, regCenter);
+        getSchedulerFacade().registerStartUpInfo(!liteJobConfigFromRegCenter.isDisabled());
+        jobScheduleController.scheduleJob(liteJobConfigFromRegCenter.getTypeConfig().getCoreConfig().getCron());
+    }
+
+    private JobDetail createJobDetail(String jobClass) {
+        JobDetail result = JobBuilder.newJob(SharedLiteJob.class).withIdentity(liteJobConfig.getJobName()).build();
+        result.getJobDataMap().put("jobFacade", JobSchedulerAccessor.getJobFacade(this));
+        Optional<ElasticJob> elasticJobInstance = createElasticJobInstance();
+        if (elasticJobInstance.isPresent()) {
+            result.getJobDataMap().put(ELASTIC_JOB_DATA_MAP_KEY, elasticJobInstance.get());
+        } else if (!jobClass.equals(ScriptJob.class.getCanonicalName())) {
+            try {
+                result.getJobDataMap().put(ELASTIC_JOB_DATA_MAP_KEY, Class.forName(jobClass).getDeclaredConstructor().newInstance());
+            } catch (ReflectiveOperationException ex) {
+                throw new JobConfigurationException("Elastic-Job: Job class '%s' can not initialize.", jobClass);
+            }
+        }
+        return result;
+    }
+}
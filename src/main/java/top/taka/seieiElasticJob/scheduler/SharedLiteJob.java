@@ -0,0 +1,35 @@
+package top.taka.seieiElasticJob.scheduler;
+
+import com.dangdang.ddframe.job.api.ElasticJob;
+import com.dangdang.ddframe.job.executor.JobExecutorFactory;
+import com.dangdang.ddframe.job.executor.JobFacade;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+
+/**
+ * 共享调度器中执行的 Quartz 作业，等同于 elastic-job 的 LiteJob
+ * 独立调度器只有一个执行线程，同一作业天然不会并发执行；共享调度器有多个执行线程，
+ * 所以需要 @DisallowConcurrentExecution 保证同一作业上一次执行未完成时不会再次执行，而是按错过执行处理
+ */
+@DisallowConcurrentExecution
+public class SharedLiteJob implements Job {
+
+    // 由 Quartz 根据 JobDataMap 注入
+    private ElasticJob elasticJob;
+
+    private JobFacade jobFacade;
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        JobExecutorFactory.getJobExecutor(elasticJob, jobFacade).execute();
+    }
+
+    public void setElasticJob(ElasticJob elasticJob) {
+        this.elasticJob = elasticJob;
+    }
+
+    public void setJobFacade(JobFacade jobFacade) {
+        this.jobFacade = jobFacade;
+    }
+}
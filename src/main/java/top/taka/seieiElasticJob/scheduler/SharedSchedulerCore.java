@@ -0,0 +1,249 @@
+package top.taka.seieiElasticJob.scheduler;
+
+import com.dangdang.ddframe.job.exception.JobSystemException;
+import com.dangdang.ddframe.job.lite.internal.election.LeaderService;
+import com.dangdang.ddframe.job.lite.internal.instance.InstanceService;
+import com.dangdang.ddframe.job.lite.internal.schedule.JobRegistry;
+import com.dangdang.ddframe.job.reg.base.CoordinatorRegistryCenter;
+import org.quartz.JobKey;
+import org.quartz.JobListener;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.TriggerListener;
+import org.quartz.impl.DefaultThreadExecutor;
+import org.quartz.impl.DirectSchedulerFactory;
+import org.quartz.impl.matchers.KeyMatcher;
+import org.quartz.listeners.TriggerListenerSupport;
+import org.quartz.simpl.RAMJobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 共享调度核心
+ * 所有作业共用一个 Quartz 调度器：一个调度线程基于按下次触发时间排序的触发器队列（RAMJobStore）统一触发，
+ * 再分发到按需创建线程的执行线程池（SharedSchedulerThreadPool）中执行，取代每个作业各自一个调度器和调度线程的方式。
+ * 执行线程达到上限时触发排队，排队超过错过执行阈值（1 秒）的触发按错过执行处理，只有开启了 misfire 的作业会在下一次执行后补偿执行，
+ * 这里统计所有作业的错过执行次数，并定期输出警告
+ */
+public class SharedSchedulerCore {
+
+    private final static Logger logger = LoggerFactory.getLogger(SharedSchedulerCore.class);
+
+    public static final String SCHEDULER_NAME = "SeieiElasticJobSharedScheduler";
+
+    // elastic-job 为每个作业单独创建调度器，因此使用 1 毫秒作为错过执行的阈值；
+    // 共享调度器中同一时刻触发的作业需要排队分发，阈值过小会把正常排队的触发误判为错过执行，所以放宽到 1 秒
+    private static final long MISFIRE_THRESHOLD_MILLISECONDS = 1000L;
+
+    // 错过执行警告的最小间隔
+    private static final long MISFIRE_WARN_INTERVAL_MILLISECONDS = 60000L;
+
+    private final Scheduler scheduler;
+
+    private final SharedSchedulerThreadPool threadPool;
+
+    // 已注册到共享调度器的作业名称
+    private final Set<String> jobNames = ConcurrentHashMap.newKeySet();
+
+    // 所有作业的错过执行次数
+    private final AtomicLong misfiredCount = new AtomicLong();
+
+    // 上一次输出警告时的错过执行次数和时间
+    private long lastWarnedMisfiredCount;
+
+    private long lastWarnTime;
+
+    /**
+     * @param threadCount 同时执行的作业数上限，小于等于 0 时随已注册的作业数量增长，不少于 CPU 核数的 2 倍
+     */
+    public SharedSchedulerCore(int threadCount) {
+        threadPool = new SharedSchedulerThreadPool(threadCount, jobNames);
+        RAMJobStore jobStore = new RAMJobStore();
+        jobStore.setMisfireThreshold(MISFIRE_THRESHOLD_MILLISECONDS);
+        try {
+            // 调度线程每次取出的即将触发的触发器数量由执行线程池的可用线程数决定，避免同一时刻触发的多个作业被逐个取出
+            DirectSchedulerFactory.getInstance().createScheduler(SCHEDULER_NAME, SCHEDULER_NAME, threadPool, new DefaultThreadExecutor(), jobStore,
+                    null, null, 0, -1L, -1L, false, null, Integer.MAX_VALUE, 0L);
+            scheduler = DirectSchedulerFactory.getInstance().getScheduler(SCHEDULER_NAME);
+            scheduler.getListenerManager().addTriggerListener(new TriggerListenerSupport() {
+
+                @Override
+                public String getName() {
+                    return SCHEDULER_NAME + "_MisfireListener";
+                }
+
+                @Override
+                public void triggerMisfired(Trigger trigger) {
+                    misfired(trigger.getJobKey().getName());
+                }
+            });
+        } catch (SchedulerException e) {
+            throw new JobSystemException(e);
+        }
+    }
+
+    private void misfired(String jobName) {
+        long count = misfiredCount.incrementAndGet();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (now - lastWarnTime < MISFIRE_WARN_INTERVAL_MILLISECONDS) {
+                return;
+            }
+            logger.warn("共享调度器自上次警告以来错过执行 {} 次（累计 {} 次，最近一次为作业 {}），同时执行的作业数上限为 {}；"
+                            + "执行线程不足或作业执行时间超过触发间隔时会错过执行，请增大 sharedSchedulerThreads 或错开作业的触发时间",
+                    count - lastWarnedMisfiredCount, count, jobName, threadPool.getThreadLimit());
+            lastWarnTime = now;
+            lastWarnedMisfiredCount = count;
+        }
+    }
+
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * 当前同时执行的作业数上限
+     * @return
+     */
+    public int getThreadCount() {
+        return threadPool.getThreadLimit();
+    }
+
+    /**
+     * 所有作业的错过执行次数，包括执行线程不足和上一次执行未完成导致的错过执行
+     * @return
+     */
+    public long getMisfiredCount() {
+        return misfiredCount.get();
+    }
+
+    public Set<String> getJobNames() {
+        return jobNames;
+    }
+
+    /**
+     * 为作业创建共享调度器的视图
+     * elastic-job 的 JobScheduleController 暂停、恢复、关闭作业时调用的是 pauseAll、resumeAll、shutdown，
+     * 直接使用共享调度器会影响所有作业，所以这里将这几个操作限定为只作用于该作业自身的触发器
+     * @param jobName 作业名称
+     * @return
+     */
+    public Scheduler createJobScheduler(final String jobName) {
+        jobNames.add(jobName);
+        return (Scheduler) Proxy.newProxyInstance(Scheduler.class.getClassLoader(), new Class<?>[] {Scheduler.class}, new InvocationHandler() {
+
+            private volatile boolean shutdown;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "pauseAll":
+                        scheduler.pauseTrigger(TriggerKey.triggerKey(jobName));
+                        return null;
+                    case "resumeAll":
+                        scheduler.resumeTrigger(TriggerKey.triggerKey(jobName));
+                        return null;
+                    case "shutdown":
+                        shutdown = true;
+                        removeJob(jobName);
+                        return null;
+                    case "isShutdown":
+                        return shutdown || scheduler.isShutdown();
+                    case "toString":
+                        return SCHEDULER_NAME + "[" + jobName + "]";
+                    default:
+                        try {
+                            return method.invoke(scheduler, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                }
+            }
+        });
+    }
+
+    /**
+     * 为作业添加只监听该作业触发器的监听器
+     * Quartz 以监听器名称区分监听器，elastic-job 的 JobTriggerListener 名称固定，所以需要包装一层并以作业名称命名
+     * @param jobName 作业名称
+     * @param triggerListener 触发器监听
+     */
+    public void addTriggerListener(String jobName, final TriggerListener triggerListener) {
+        final String listenerName = jobName + "_" + triggerListener.getName();
+        try {
+            scheduler.getListenerManager().addTriggerListener(new TriggerListenerSupport() {
+
+                @Override
+                public String getName() {
+                    return listenerName;
+                }
+
+                @Override
+                public void triggerMisfired(Trigger trigger) {
+                    triggerListener.triggerMisfired(trigger);
+                }
+            }, KeyMatcher.keyEquals(TriggerKey.triggerKey(jobName)));
+        } catch (SchedulerException e) {
+            throw new JobSystemException(e);
+        }
+    }
+
+    private void removeJob(String jobName) throws SchedulerException {
+        jobNames.remove(jobName);
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        scheduler.deleteJob(JobKey.jobKey(jobName));
+        for (TriggerListener each : new ArrayList<>(scheduler.getListenerManager().getTriggerListeners())) {
+            if (each.getName().startsWith(jobName + "_")) {
+                scheduler.getListenerManager().removeTriggerListener(each.getName());
+            }
+        }
+        for (JobListener each : new ArrayList<>(scheduler.getListenerManager().getJobListeners())) {
+            if (each.getName().startsWith(jobName + "_")) {
+                scheduler.getListenerManager().removeJobListener(each.getName());
+            }
+        }
+    }
+
+    /**
+     * 关闭共享调度器
+     * 与 elastic-job 的 JobShutdownHookPlugin 一致，关闭前移除各个作业在注册中心的主节点和实例节点
+     */
+    public void shutdown() {
+        for (String jobName : new ArrayList<>(jobNames)) {
+            CoordinatorRegistryCenter regCenter = JobRegistry.getInstance().getRegCenter(jobName);
+            if (null != regCenter) {
+                try {
+                    LeaderService leaderService = new LeaderService(regCenter, jobName);
+                    if (leaderService.isLeader()) {
+                        leaderService.removeLeader();
+                    }
+                    new InstanceService(regCenter, jobName).removeInstance();
+                } catch (Exception e) {
+                    logger.warn("移除作业 {} 的注册中心实例信息失败", jobName, e);
+                }
+            }
+            JobRegistry.getInstance().shutdown(jobName);
+        }
+        try {
+            if (!scheduler.isShutdown()) {
+                scheduler.shutdown();
+            }
+        } catch (SchedulerException e) {
+            throw new JobSystemException(e);
+        }
+        logger.info("关闭共享调度器 {}", SCHEDULER_NAME);
+    }
+}
@@ -0,0 +1,176 @@
+package top.taka.seieiElasticJob.scheduler;
+
+import org.quartz.spi.ThreadPool;
+
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 共享调度器的执行线程池
+ * Quartz 的 SimpleThreadPool 启动时创建固定数量的线程，数量按作业少的情况配置时，同一时刻触发的作业多了就会排队，
+ * 排队超过错过执行阈值的触发被丢弃；按作业多的情况配置时，空闲线程又一直占用资源。
+ * 这里在触发时按需创建线程，空闲超过 60 秒后回收，同时执行的作业数不超过上限：
+ *     配置了 maxThreads（大于 0）时为 maxThreads；
+ *     未配置时随已注册的作业数量增长，但不少于 CPU 核数的 2 倍，每个作业同一时刻最多执行一次，不会因线程不足错过触发
+ * 调度线程取出即将触发的触发器之前通过 blockForAvailableThreads 获取可用线程数，达到上限时等待
+ * Quartz 创建调度器时通过反射设置线程池的属性，所以需要是 public 的类
+ */
+public final class SharedSchedulerThreadPool implements ThreadPool {
+
+    // 空闲线程的回收时间
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    // 等待空闲线程时重新计算上限的间隔，作业数量增加后上限随之提高
+    private static final long WAIT_MILLISECONDS = 500L;
+
+    private final int maxThreads;
+
+    private final int minThreads;
+
+    // 已注册到共享调度器的作业名称
+    private final Set<String> jobNames;
+
+    private final Object lock = new Object();
+
+    private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+    // 正在执行的作业数
+    private int busyCount;
+
+    private boolean shutdown;
+
+    private String instanceName = SharedSchedulerCore.SCHEDULER_NAME;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * @param maxThreads 同时执行的作业数上限，小于等于 0 时随作业数量增长
+     * @param jobNames 已注册到共享调度器的作业名称
+     */
+    SharedSchedulerThreadPool(int maxThreads, Set<String> jobNames) {
+        this.maxThreads = maxThreads;
+        this.minThreads = Runtime.getRuntime().availableProcessors() * 2;
+        this.jobNames = jobNames;
+    }
+
+    /**
+     * 当前同时执行的作业数上限
+     * @return
+     */
+    int getThreadLimit() {
+        return maxThreads > 0 ? maxThreads : Math.max(minThreads, jobNames.size());
+    }
+
+    @Override
+    public void initialize() {
+        executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                // 与 SimpleThreadPool 一致，执行线程不是守护线程
+                return new Thread(runnable, instanceName + "_Worker-" + threadNumber.getAndIncrement());
+            }
+        });
+    }
+
+    @Override
+    public boolean runInThread(final Runnable runnable) {
+        synchronized (lock) {
+            if (!awaitAvailable()) {
+                return false;
+            }
+            busyCount++;
+        }
+        try {
+            executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        runnable.run();
+                    } finally {
+                        release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int blockForAvailableThreads() {
+        synchronized (lock) {
+            if (!awaitAvailable()) {
+                return 0;
+            }
+            return getThreadLimit() - busyCount;
+        }
+    }
+
+    /**
+     * 等待到有可用的线程，需持有 lock
+     * @return 线程池已关闭或等待被中断时返回 false
+     */
+    private boolean awaitAvailable() {
+        while (!shutdown && busyCount >= getThreadLimit()) {
+            try {
+                lock.wait(WAIT_MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return !shutdown;
+    }
+
+    private void release() {
+        synchronized (lock) {
+            busyCount--;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void shutdown(boolean waitForJobsToComplete) {
+        synchronized (lock) {
+            shutdown = true;
+            lock.notifyAll();
+        }
+        if (null == executor) {
+            return;
+        }
+        executor.shutdown();
+        if (!waitForJobsToComplete) {
+            return;
+        }
+        try {
+            while (!executor.awaitTermination(1L, TimeUnit.SECONDS)) {
+                // 等待正在执行的作业完成
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public int getPoolSize() {
+        return getThreadLimit();
+    }
+
+    @Override
+    public void setInstanceId(String instanceId) {
+    }
+
+    @Override
+    public void setInstanceName(String instanceName) {
+        this.instanceName = instanceName;
+    }
+}
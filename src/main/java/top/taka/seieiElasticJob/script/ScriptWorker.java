@@ -0,0 +1,152 @@
+package top.taka.seieiElasticJob.script;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 常驻脚本工作进程
+ * 通过标准输入输出按行交互，协议见 ScriptWorkerPool；
+ * 标准输出由单独的读取线程逐行读取放入队列，以便执行和健康检查可以按超时时间等待响应
+ */
+final class ScriptWorker {
+
+    private final static Logger logger = LoggerFactory.getLogger(ScriptWorker.class);
+
+    // 标准输出结束（进程退出）时放入队列的标记
+    private static final String EOF = new String("EOF");
+
+    // 工作进程序号
+    private static final AtomicInteger WORKER_NUMBER = new AtomicInteger(1);
+
+    private final String name;
+
+    private final Process process;
+
+    private final Writer writer;
+
+    private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+
+    // 已执行的次数
+    private int runs;
+
+    ScriptWorker(String jobName, List<String> command) throws IOException {
+        name = jobName + "-script-worker-" + WORKER_NUMBER.getAndIncrement();
+        process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        writer = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+        Thread readerThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                readLines();
+            }
+        }, name);
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    private void readLines() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while (null != (line = reader.readLine())) {
+                lines.add(line);
+            }
+        } catch (IOException e) {
+            logger.debug("读取脚本工作进程 {} 的输出结束", name, e);
+        } finally {
+            lines.add(EOF);
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getRuns() {
+        return runs;
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+
+    /**
+     * 发送一行请求
+     * @param line 请求内容
+     * @throws IOException 进程已退出
+     */
+    void send(String line) throws IOException {
+        writer.write(line);
+        writer.write('\n');
+        writer.flush();
+    }
+
+    /**
+     * 读取输出直到出现以 prefix 开头的响应行，其他输出行为脚本自己的输出，以 INFO 级别写入日志
+     * @param prefix 响应行前缀
+     * @param deadlineNanos 截止时间（System.nanoTime）
+     * @return 响应行；超时返回 null
+     * @throws IOException 进程已退出
+     * @throws InterruptedException
+     */
+    String await(String prefix, long deadlineNanos) throws IOException, InterruptedException {
+        while (true) {
+            long remainingNanos = deadlineNanos - System.nanoTime();
+            String line = remainingNanos > 0 ? lines.poll(remainingNanos, TimeUnit.NANOSECONDS) : lines.poll();
+            if (null == line) {
+                return null;
+            }
+            if (EOF == line) {
+                lines.add(EOF);
+                throw new IOException("脚本工作进程 " + name + " 已退出");
+            }
+            if (line.startsWith(prefix)) {
+                return line;
+            }
+            // 非协议输出为脚本自己的输出
+            logger.info("脚本工作进程 {} 输出: {}", name, line);
+        }
+    }
+
+    void incrementRuns() {
+        runs++;
+    }
+
+    /**
+     * 关闭标准输入通知进程退出，在等待时间内未退出时强制结束
+     * @param waitMilliseconds 等待时间
+     */
+    void close(long waitMilliseconds) {
+        closeInput();
+        try {
+            if (waitMilliseconds > 0 && process.waitFor(waitMilliseconds, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        process.destroyForcibly();
+    }
+
+    /**
+     * 关闭标准输入，通知进程退出
+     */
+    void closeInput() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.debug("关闭脚本工作进程 {} 的标准输入失败", name, e);
+        }
+    }
+}
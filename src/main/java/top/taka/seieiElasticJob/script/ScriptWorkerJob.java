@@ -0,0 +1,22 @@
+package top.taka.seieiElasticJob.script;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.api.simple.SimpleJob;
+import com.dangdang.ddframe.job.exception.JobConfigurationException;
+
+/**
+ * 常驻工作进程模式下脚本作业的实际作业类
+ * elastic-job 的 ScriptJobExecutor 固定为每个分片项创建新进程，所以常驻模式下脚本作业以简单作业的方式注册，
+ * 由本类将分片项交给该作业的 ScriptWorkerPool 执行；作业事件、监听、失效转移等流程与简单作业一致
+ */
+public class ScriptWorkerJob implements SimpleJob {
+
+    @Override
+    public void execute(ShardingContext shardingContext) {
+        ScriptWorkerPool scriptWorkerPool = ScriptWorkerPool.getPool(shardingContext.getJobName());
+        if (null == scriptWorkerPool) {
+            throw new JobConfigurationException("Cannot find script worker pool for job '%s', job is not executed.", shardingContext.getJobName());
+        }
+        scriptWorkerPool.execute(shardingContext);
+    }
+}
@@ -0,0 +1,393 @@
+package top.taka.seieiElasticJob.script;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.exception.JobSystemException;
+import com.dangdang.ddframe.job.util.json.GsonFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 脚本作业的常驻工作进程池
+ * elastic-job 的脚本作业每次触发时为每个分片项创建一个新进程，并将分片上下文 JSON 作为最后一个参数传入；
+ * 常驻模式下启动时创建固定数量的工作进程，每个分片项从池中取出一个空闲进程，通过标准输入输出按行交互：
+ *     请求：@@SEIEI RUN {分片上下文 JSON}      响应：@@SEIEI DONE {退出码}，退出码为 0 表示执行成功
+ *     请求：@@SEIEI PING                     响应：@@SEIEI PONG
+ * 响应行之前的其他输出行以 INFO 级别写入 ScriptWorker 的日志，标准错误直接继承当前进程的标准错误；标准输入关闭时工作进程应退出。
+ * 工作进程执行超时、异常退出或健康检查无响应时会被结束并重建，执行指定次数后回收重建以释放脚本中可能泄漏的资源。
+ * 一个最简单的 shell 工作进程：
+ *     while IFS= read -r line; do
+ *         case "$line" in
+ *             "@@SEIEI PING") echo "@@SEIEI PONG" ;;
+ *             "@@SEIEI RUN "*) handle "${line#@@SEIEI RUN }"; echo "@@SEIEI DONE $?" ;;
+ *         esac
+ *     done
+ */
+public class ScriptWorkerPool {
+
+    private final static Logger logger = LoggerFactory.getLogger(ScriptWorkerPool.class);
+
+    public static final String RUN_REQUEST = "@@SEIEI RUN ";
+
+    public static final String DONE_RESPONSE = "@@SEIEI DONE ";
+
+    public static final String PING_REQUEST = "@@SEIEI PING";
+
+    public static final String PONG_RESPONSE = "@@SEIEI PONG";
+
+    // 各个作业的工作进程池
+    private static final ConcurrentMap<String, ScriptWorkerPool> POOL_MAP = new ConcurrentHashMap<>();
+
+    // 回收工作进程时等待其自行退出的时间
+    private static final long CLOSE_WAIT_MILLISECONDS = 5000L;
+
+    private final String jobName;
+
+    private final List<String> command;
+
+    private final int workers;
+
+    private final int maxRuns;
+
+    private final long timeoutMilliseconds;
+
+    private final long healthCheckIntervalMilliseconds;
+
+    // 空闲的工作进程
+    private final BlockingQueue<ScriptWorker> idleWorkers = new LinkedBlockingQueue<>();
+
+    // 执行健康检查和回收工作进程的线程
+    private ScheduledExecutorService maintenanceExecutorService;
+
+    private volatile boolean shutdown;
+
+    // 当前存活（空闲或正在执行）的工作进程数
+    private final AtomicInteger workerCount = new AtomicInteger();
+
+    // 执行次数
+    private final AtomicLong executedCount = new AtomicLong();
+
+    // 执行失败次数（包括超时）
+    private final AtomicLong failedCount = new AtomicLong();
+
+    // 执行超时次数
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    // 创建工作进程的次数（包括启动时创建的）
+    private final AtomicLong startedWorkerCount = new AtomicLong();
+
+    /**
+     * @param jobName 作业名称
+     * @param scriptCommandLine 工作进程的启动命令
+     * @param workers 工作进程数
+     * @param maxRuns 每个工作进程执行多少次后回收重建，小于 1 表示不回收
+     * @param timeoutMilliseconds 单个分片项的执行超时时间，同时是等待空闲工作进程的最长时间
+     * @param healthCheckIntervalMilliseconds 空闲工作进程的健康检查间隔，小于 1 表示不检查
+     */
+    public ScriptWorkerPool(String jobName, String scriptCommandLine, int workers, int maxRuns, long timeoutMilliseconds, long healthCheckIntervalMilliseconds) {
+        this.jobName = jobName;
+        this.command = tokenize(scriptCommandLine);
+        this.workers = Math.max(workers, 1);
+        this.maxRuns = maxRuns;
+        this.timeoutMilliseconds = timeoutMilliseconds;
+        this.healthCheckIntervalMilliseconds = healthCheckIntervalMilliseconds;
+    }
+
+    /**
+     * 拆分命令行，支持单引号和双引号包裹含空格的参数，引号本身不传给工作进程
+     */
+    private static List<String> tokenize(String commandLine) {
+        List<String> result = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        char quote = 0;
+        boolean inToken = false;
+        for (char each : commandLine.toCharArray()) {
+            if (0 != quote) {
+                if (each == quote) {
+                    quote = 0;
+                } else {
+                    current.append(each);
+                }
+            } else if ('\'' == each || '"' == each) {
+                quote = each;
+                inToken = true;
+            } else if (' ' == each) {
+                if (inToken) {
+                    result.add(current.toString());
+                    current.setLength(0);
+                    inToken = false;
+                }
+            } else {
+                current.append(each);
+                inToken = true;
+            }
+        }
+        if (0 != quote) {
+            throw new IllegalArgumentException("脚本命令行的引号不匹配：" + commandLine);
+        }
+        if (inToken) {
+            result.add(current.toString());
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("脚本命令行为空");
+        }
+        return result;
+    }
+
+    /**
+     * 获取作业的工作进程池
+     * @param jobName 作业名称
+     * @return 作业未使用常驻工作进程模式时返回 null
+     */
+    public static ScriptWorkerPool getPool(String jobName) {
+        return POOL_MAP.get(jobName);
+    }
+
+    /**
+     * 获取所有工作进程池
+     * @return
+     */
+    public static Map<String, ScriptWorkerPool> getAllPools() {
+        return Collections.unmodifiableMap(POOL_MAP);
+    }
+
+    /**
+     * 启动全部工作进程，并开始定时健康检查
+     */
+    public void start() {
+        maintenanceExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, jobName + "-script-worker-maintenance");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        for (int i = 0; i < workers; i++) {
+            idleWorkers.add(startWorker());
+        }
+        if (healthCheckIntervalMilliseconds > 0) {
+            maintenanceExecutorService.scheduleWithFixedDelay(new Runnable() {
+
+                @Override
+                public void run() {
+                    healthCheck();
+                }
+            }, healthCheckIntervalMilliseconds, healthCheckIntervalMilliseconds, TimeUnit.MILLISECONDS);
+        }
+        POOL_MAP.put(jobName, this);
+        logger.info("作业 {} 启动 {} 个常驻脚本工作进程: {}", jobName, workers, command);
+    }
+
+    private ScriptWorker startWorker() {
+        try {
+            ScriptWorker result = new ScriptWorker(jobName, command);
+            workerCount.incrementAndGet();
+            startedWorkerCount.incrementAndGet();
+            return result;
+        } catch (IOException e) {
+            throw new JobSystemException(e);
+        }
+    }
+
+    /**
+     * 使用一个空闲的工作进程执行分片项，阻塞直到执行结束
+     * @param shardingContext 分片上下文
+     */
+    public void execute(ShardingContext shardingContext) {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMilliseconds);
+        ScriptWorker worker = borrow(deadlineNanos);
+        executedCount.incrementAndGet();
+        String response;
+        try {
+            worker.send(RUN_REQUEST + GsonFactory.getGson().toJson(shardingContext));
+            response = worker.await(DONE_RESPONSE, deadlineNanos);
+        } catch (IOException e) {
+            failedCount.incrementAndGet();
+            replace(worker);
+            throw new JobSystemException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedCount.incrementAndGet();
+            replace(worker);
+            throw new JobSystemException(e);
+        }
+        if (null == response) {
+            failedCount.incrementAndGet();
+            timeoutCount.incrementAndGet();
+            replace(worker);
+            throw new JobSystemException(String.format("作业 %s 分片项 %s 执行超过 %s 毫秒，结束工作进程 %s",
+                    jobName, shardingContext.getShardingItem(), timeoutMilliseconds, worker.getName()));
+        }
+        worker.incrementRuns();
+        if (maxRuns > 0 && worker.getRuns() >= maxRuns) {
+            replace(worker);
+        } else {
+            release(worker);
+        }
+        String exitCode = response.substring(DONE_RESPONSE.length()).trim();
+        if (!"0".equals(exitCode)) {
+            failedCount.incrementAndGet();
+            throw new JobSystemException(String.format("作业 %s 分片项 %s 执行失败，退出码 %s", jobName, shardingContext.getShardingItem(), exitCode));
+        }
+    }
+
+    private ScriptWorker borrow(long deadlineNanos) {
+        ScriptWorker result;
+        try {
+            result = idleWorkers.poll(Math.max(deadlineNanos - System.nanoTime(), 0L), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JobSystemException(e);
+        }
+        if (null == result) {
+            throw new JobSystemException(String.format("作业 %s 等待空闲脚本工作进程超过 %s 毫秒", jobName, timeoutMilliseconds));
+        }
+        if (!result.isAlive()) {
+            // 空闲期间异常退出的工作进程
+            logger.warn("脚本工作进程 {} 已退出，重新创建", result.getName());
+            workerCount.decrementAndGet();
+            result.close(0L);
+            result = startWorker();
+        }
+        return result;
+    }
+
+    private void release(ScriptWorker worker) {
+        if (shutdown) {
+            workerCount.decrementAndGet();
+            worker.close(0L);
+            return;
+        }
+        idleWorkers.add(worker);
+    }
+
+    /**
+     * 结束工作进程并创建新的工作进程放回池中，旧进程在后台等待退出，不阻塞作业线程
+     */
+    private void replace(final ScriptWorker worker) {
+        workerCount.decrementAndGet();
+        if (shutdown) {
+            worker.close(0L);
+            return;
+        }
+        maintenanceExecutorService.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                worker.close(CLOSE_WAIT_MILLISECONDS);
+            }
+        });
+        try {
+            idleWorkers.add(startWorker());
+        } catch (JobSystemException e) {
+            // 创建失败时池中少一个工作进程，由下一次健康检查补齐
+            logger.error("作业 {} 重建脚本工作进程失败", jobName, e);
+        }
+    }
+
+    /**
+     * 逐个检查空闲的工作进程，无响应的结束并重建；正在执行的工作进程不检查，由执行超时处理
+     * 同时补齐因重建失败而缺少的工作进程
+     */
+    private void healthCheck() {
+        for (int i = idleWorkers.size(); i > 0 && !shutdown; i--) {
+            ScriptWorker worker = idleWorkers.poll();
+            if (null == worker) {
+                break;
+            }
+            boolean healthy = false;
+            try {
+                worker.send(PING_REQUEST);
+                healthy = null != worker.await(PONG_RESPONSE, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMilliseconds));
+            } catch (IOException e) {
+                logger.debug("脚本工作进程 {} 健康检查失败", worker.getName(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                release(worker);
+                return;
+            }
+            if (healthy) {
+                release(worker);
+            } else {
+                logger.warn("脚本工作进程 {} 健康检查无响应，重新创建", worker.getName());
+                replace(worker);
+            }
+        }
+        while (!shutdown && workerCount.get() < workers) {
+            try {
+                release(startWorker());
+            } catch (JobSystemException e) {
+                logger.error("作业 {} 补齐脚本工作进程失败", jobName, e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 关闭所有空闲的工作进程，正在执行的工作进程在执行结束后关闭
+     */
+    public void shutdown() {
+        shutdown = true;
+        POOL_MAP.remove(jobName, this);
+        List<ScriptWorker> remaining = new ArrayList<>();
+        idleWorkers.drainTo(remaining);
+        // 先通知所有工作进程退出，再统一等待
+        for (ScriptWorker each : remaining) {
+            workerCount.decrementAndGet();
+            each.closeInput();
+        }
+        long deadline = System.currentTimeMillis() + CLOSE_WAIT_MILLISECONDS;
+        for (ScriptWorker each : remaining) {
+            each.close(Math.max(deadline - System.currentTimeMillis(), 0L));
+        }
+        if (null != maintenanceExecutorService) {
+            maintenanceExecutorService.shutdownNow();
+        }
+        logger.info("作业 {} 关闭常驻脚本工作进程", jobName);
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public int getIdleWorkers() {
+        return idleWorkers.size();
+    }
+
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public long getStartedWorkerCount() {
+        return startedWorkerCount.get();
+    }
+}
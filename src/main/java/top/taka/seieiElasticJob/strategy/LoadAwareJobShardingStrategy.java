@@ -0,0 +1,95 @@
+package top.taka.seieiElasticJob.strategy;
+
+import com.dangdang.ddframe.job.lite.api.strategy.JobInstance;
+import com.dangdang.ddframe.job.lite.api.strategy.JobShardingStrategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于分片项历史耗时的负载均衡分片策略
+ * 按分片项的平均耗时从大到小依次分配给当前预计总耗时最小的作业实例（最长处理时间优先），
+ * 使各个实例的预计总耗时尽量接近；没有执行记录的分片项按已知分片项的平均耗时估算，全部没有记录时退化为按数量平均分配。
+ * 分片项耗时由 ShardingDurationStore 记录，只有重新分片时（如作业实例上下线）才会使用最新的耗时
+ */
+public final class LoadAwareJobShardingStrategy implements JobShardingStrategy {
+
+    @Override
+    public Map<JobInstance, List<Integer>> sharding(List<JobInstance> jobInstances, String jobName, int shardingTotalCount) {
+        if (jobInstances.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return sharding(jobInstances, shardingTotalCount, ShardingDurationStore.getInstance().load(jobName, shardingTotalCount));
+    }
+
+    /**
+     * 根据各个分片项的耗时分配分片项
+     * @param jobInstances 作业实例
+     * @param shardingTotalCount 分片总数
+     * @param durations 分片项耗时，没有记录的分片项按平均耗时估算
+     * @return
+     */
+    public static Map<JobInstance, List<Integer>> sharding(List<JobInstance> jobInstances, int shardingTotalCount, Map<Integer, Long> durations) {
+        final long[] costs = estimateCosts(shardingTotalCount, durations);
+        List<Integer> items = new ArrayList<>(shardingTotalCount);
+        for (int i = 0; i < shardingTotalCount; i++) {
+            items.add(i);
+        }
+        // 耗时相同时按分片项升序，保证分片结果稳定
+        Collections.sort(items, new Comparator<Integer>() {
+
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                int result = Long.compare(costs[o2], costs[o1]);
+                return 0 != result ? result : Integer.compare(o1, o2);
+            }
+        });
+        int instanceCount = jobInstances.size();
+        long[] loads = new long[instanceCount];
+        List<List<Integer>> assignments = new ArrayList<>(instanceCount);
+        for (int i = 0; i < instanceCount; i++) {
+            assignments.add(new ArrayList<Integer>());
+        }
+        for (Integer each : items) {
+            // 预计总耗时最小的实例，相同时取分片项较少的实例
+            int target = 0;
+            for (int i = 1; i < instanceCount; i++) {
+                if (loads[i] < loads[target] || (loads[i] == loads[target] && assignments.get(i).size() < assignments.get(target).size())) {
+                    target = i;
+                }
+            }
+            loads[target] += costs[each];
+            assignments.get(target).add(each);
+        }
+        Map<JobInstance, List<Integer>> result = new LinkedHashMap<>(instanceCount, 1);
+        for (int i = 0; i < instanceCount; i++) {
+            Collections.sort(assignments.get(i));
+            result.put(jobInstances.get(i), assignments.get(i));
+        }
+        return result;
+    }
+
+    private static long[] estimateCosts(int shardingTotalCount, Map<Integer, Long> durations) {
+        long total = 0;
+        int known = 0;
+        for (int i = 0; i < shardingTotalCount; i++) {
+            Long duration = durations.get(i);
+            if (null != duration) {
+                total += duration;
+                known++;
+            }
+        }
+        // 耗时为 0 的分片项按 1 毫秒计算，避免全部为 0 时所有分片项分配到同一实例
+        long defaultCost = 0 == known ? 1L : Math.max(total / known, 1L);
+        long[] result = new long[shardingTotalCount];
+        for (int i = 0; i < shardingTotalCount; i++) {
+            Long duration = durations.get(i);
+            result[i] = null == duration ? defaultCost : Math.max(duration, 1L);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,72 @@
+package top.taka.seieiElasticJob.strategy;
+
+import com.dangdang.ddframe.job.event.JobEventConfiguration;
+import com.dangdang.ddframe.job.event.JobEventListener;
+import com.dangdang.ddframe.job.event.JobEventListenerConfigurationException;
+import com.dangdang.ddframe.job.event.type.JobExecutionEvent;
+import com.dangdang.ddframe.job.event.type.JobStatusTraceEvent;
+
+import java.io.Serializable;
+
+/**
+ * 记录分片项执行耗时的作业事件配置
+ * elastic-job 每个分片项执行前后都会发布 JobExecutionEvent，这里借助作业事件总线（异步执行，不占用作业执行线程）记录分片项耗时，
+ * 同时配置了事件追踪数据源时，事件继续转发给原有的事件监听
+ */
+public class ShardingDurationEventConfiguration implements JobEventConfiguration, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // 原有的事件配置，没有配置事件追踪时为 null
+    private final transient JobEventConfiguration delegate;
+
+    public ShardingDurationEventConfiguration() {
+        this(null);
+    }
+
+    public ShardingDurationEventConfiguration(JobEventConfiguration delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public JobEventListener createJobEventListener() throws JobEventListenerConfigurationException {
+        return new ShardingDurationEventListener(null == delegate ? null : delegate.createJobEventListener());
+    }
+
+    @Override
+    public String getIdentity() {
+        return null == delegate ? "sharding-duration" : delegate.getIdentity();
+    }
+
+    private static final class ShardingDurationEventListener implements JobEventListener {
+
+        private final JobEventListener delegate;
+
+        private ShardingDurationEventListener(JobEventListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getIdentity() {
+            return null == delegate ? "sharding-duration" : delegate.getIdentity();
+        }
+
+        @Override
+        public void listen(JobExecutionEvent jobExecutionEvent) {
+            if (null != jobExecutionEvent.getCompleteTime()) {
+                ShardingDurationStore.getInstance().record(jobExecutionEvent.getJobName(), jobExecutionEvent.getShardingItem(),
+                        jobExecutionEvent.getCompleteTime().getTime() - jobExecutionEvent.getStartTime().getTime());
+            }
+            if (null != delegate) {
+                delegate.listen(jobExecutionEvent);
+            }
+        }
+
+        @Override
+        public void listen(JobStatusTraceEvent jobStatusTraceEvent) {
+            if (null != delegate) {
+                delegate.listen(jobStatusTraceEvent);
+            }
+        }
+    }
+}
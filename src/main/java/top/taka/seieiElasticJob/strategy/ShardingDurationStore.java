@@ -0,0 +1,139 @@
+package top.taka.seieiElasticJob.strategy;
+
+import com.dangdang.ddframe.job.lite.internal.schedule.JobRegistry;
+import com.dangdang.ddframe.job.reg.base.CoordinatorRegistryCenter;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 分片项执行耗时存储
+ * 各个作业实例在本地按指数加权移动平均记录自己执行的分片项耗时，并定期写入注册中心的 /{jobName}/sharding-duration/{item} 节点，
+ * 主节点分片时从注册中心读取所有分片项的耗时；未连接注册中心时只使用本地记录
+ */
+public final class ShardingDurationStore {
+
+    private final static Logger logger = LoggerFactory.getLogger(ShardingDurationStore.class);
+
+    private static final ShardingDurationStore INSTANCE = new ShardingDurationStore();
+
+    private static final String ROOT_NODE = "sharding-duration";
+
+    // 指数加权移动平均的权重，越大越偏向最近一次的耗时
+    private static final double ALPHA = 0.3;
+
+    // 同一分片项写入注册中心的最小间隔
+    private static final long PERSIST_INTERVAL_MILLISECONDS = 10000L;
+
+    // key 为作业名称，value 为分片项与耗时的对应关系
+    private final ConcurrentMap<String, ConcurrentMap<Integer, ItemDuration>> durationMap = new ConcurrentHashMap<>();
+
+    private ShardingDurationStore() {
+    }
+
+    public static ShardingDurationStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 记录分片项一次执行的耗时
+     * @param jobName 作业名称
+     * @param item 分片项
+     * @param elapsedMilliseconds 耗时
+     */
+    public void record(String jobName, int item, long elapsedMilliseconds) {
+        ConcurrentMap<Integer, ItemDuration> itemMap = durationMap.get(jobName);
+        if (null == itemMap) {
+            durationMap.putIfAbsent(jobName, new ConcurrentHashMap<Integer, ItemDuration>());
+            itemMap = durationMap.get(jobName);
+        }
+        ItemDuration itemDuration = itemMap.get(item);
+        if (null == itemDuration) {
+            itemMap.putIfAbsent(item, new ItemDuration());
+            itemDuration = itemMap.get(item);
+        }
+        long average;
+        boolean persist;
+        synchronized (itemDuration) {
+            itemDuration.average = itemDuration.count == 0 ? elapsedMilliseconds : ALPHA * elapsedMilliseconds + (1 - ALPHA) * itemDuration.average;
+            itemDuration.count++;
+            long now = System.currentTimeMillis();
+            persist = now - itemDuration.lastPersistTime >= PERSIST_INTERVAL_MILLISECONDS;
+            if (persist) {
+                itemDuration.lastPersistTime = now;
+            }
+            average = Math.round(itemDuration.average);
+        }
+        if (persist) {
+            CoordinatorRegistryCenter regCenter = JobRegistry.getInstance().getRegCenter(jobName);
+            if (null != regCenter) {
+                try {
+                    regCenter.persist(getItemNodePath(jobName, item), String.valueOf(average));
+                } catch (Exception e) {
+                    logger.warn("写入作业 {} 分片项 {} 的执行耗时失败", jobName, item, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取作业各个分片项的平均耗时（毫秒），优先使用注册中心中的记录，没有执行记录的分片项不包含在结果中
+     * @param jobName 作业名称
+     * @param shardingTotalCount 分片总数
+     * @return
+     */
+    public Map<Integer, Long> load(String jobName, int shardingTotalCount) {
+        Map<Integer, Long> result = new HashMap<>(shardingTotalCount, 1);
+        ConcurrentMap<Integer, ItemDuration> itemMap = durationMap.get(jobName);
+        if (null != itemMap) {
+            for (Map.Entry<Integer, ItemDuration> entry : itemMap.entrySet()) {
+                if (entry.getKey() < shardingTotalCount) {
+                    synchronized (entry.getValue()) {
+                        result.put(entry.getKey(), Math.round(entry.getValue().average));
+                    }
+                }
+            }
+        }
+        CoordinatorRegistryCenter regCenter = JobRegistry.getInstance().getRegCenter(jobName);
+        if (null == regCenter) {
+            return result;
+        }
+        for (int item = 0; item < shardingTotalCount; item++) {
+            try {
+                String value = regCenter.getDirectly(getItemNodePath(jobName, item));
+                if (StringUtils.isNumeric(value)) {
+                    result.put(item, Long.valueOf(value));
+                }
+            } catch (Exception e) {
+                logger.warn("读取作业 {} 分片项 {} 的执行耗时失败", jobName, item, e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 清除作业在本实例记录的执行耗时，作业移除时调用，注册中心中的记录随作业节点删除
+     * @param jobName 作业名称
+     */
+    public void remove(String jobName) {
+        durationMap.remove(jobName);
+    }
+
+    private String getItemNodePath(String jobName, int item) {
+        return "/" + jobName + "/" + ROOT_NODE + "/" + item;
+    }
+
+    private static final class ItemDuration {
+
+        private double average;
+
+        private long count;
+
+        private long lastPersistTime;
+    }
+}
@@ -0,0 +1,95 @@
+package top.taka.seieiElasticJob.trace;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 作业一次执行的阶段耗时记录
+ */
+public final class JobTrace {
+
+    private final String jobName;
+
+    private final String taskId;
+
+    private final long startTime;
+
+    private final long durationMicros;
+
+    private final Collection<Integer> shardingItems;
+
+    // 分片项仍在运行，本次触发被标记为错过执行，没有执行业务方法
+    private final boolean misfired;
+
+    private final List<JobTraceSpan> spans;
+
+    public JobTrace(String jobName, String taskId, long startTime, long durationMicros, Collection<Integer> shardingItems, boolean misfired, List<JobTraceSpan> spans) {
+        this.jobName = jobName;
+        this.taskId = taskId;
+        this.startTime = startTime;
+        this.durationMicros = durationMicros;
+        this.shardingItems = shardingItems;
+        this.misfired = misfired;
+        this.spans = Collections.unmodifiableList(spans);
+    }
+
+    /**
+     * 各个阶段的耗时，作业级别的阶段累加，分片项级别的阶段取耗时最长的分片项
+     * @return key 为阶段名称，value 为耗时，单位：微秒
+     */
+    public Map<String, Long> getPhaseMicros() {
+        Map<String, Long> jobPhases = new LinkedHashMap<>();
+        Map<String, Map<Integer, Long>> itemPhases = new LinkedHashMap<>();
+        for (JobTraceSpan each : spans) {
+            if (null == each.getItem()) {
+                Long value = jobPhases.get(each.getPhase());
+                jobPhases.put(each.getPhase(), (null == value ? 0L : value) + each.getDurationMicros());
+                continue;
+            }
+            Map<Integer, Long> items = itemPhases.get(each.getPhase());
+            if (null == items) {
+                items = new LinkedHashMap<>();
+                itemPhases.put(each.getPhase(), items);
+            }
+            Long value = items.get(each.getItem());
+            items.put(each.getItem(), (null == value ? 0L : value) + each.getDurationMicros());
+        }
+        Map<String, Long> result = new LinkedHashMap<>(jobPhases);
+        for (Map.Entry<String, Map<Integer, Long>> entry : itemPhases.entrySet()) {
+            Long value = result.get(entry.getKey());
+            result.put(entry.getKey(), (null == value ? 0L : value) + Collections.max(entry.getValue().values()));
+        }
+        return result;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public Collection<Integer> getShardingItems() {
+        return shardingItems;
+    }
+
+    public boolean isMisfired() {
+        return misfired;
+    }
+
+    public List<JobTraceSpan> getSpans() {
+        return spans;
+    }
+}
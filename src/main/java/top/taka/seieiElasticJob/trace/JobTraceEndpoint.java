@@ -0,0 +1,43 @@
+package top.taka.seieiElasticJob.trace;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 作业执行阶段耗时的 actuator 端点，开启 elastic.job.zk.traceEnabled 并引入 spring-boot-actuator 时自动注册，
+ * 需通过 management.endpoints.web.exposure.include 暴露
+ *     GET /actuator/seieijobtraces             所有作业最近一次执行的记录
+ *     GET /actuator/seieijobtraces/{jobName}   单个作业最近的执行记录，按执行开始时间倒序
+ */
+@Endpoint(id = "seieijobtraces")
+public class JobTraceEndpoint {
+
+    private final JobTraceRecorder jobTraceRecorder;
+
+    public JobTraceEndpoint(JobTraceRecorder jobTraceRecorder) {
+        this.jobTraceRecorder = jobTraceRecorder;
+    }
+
+    @ReadOperation
+    public Map<String, JobTrace> latest() {
+        Map<String, JobTrace> result = new LinkedHashMap<>();
+        for (String each : new TreeSet<>(jobTraceRecorder.getJobNames())) {
+            List<JobTrace> traces = jobTraceRecorder.getTraces(each);
+            if (!traces.isEmpty()) {
+                result.put(each, traces.get(0));
+            }
+        }
+        return result;
+    }
+
+    @ReadOperation
+    public List<JobTrace> traces(@Selector String jobName) {
+        return jobTraceRecorder.getTraces(jobName);
+    }
+}
@@ -0,0 +1,109 @@
+package top.taka.seieiElasticJob.trace;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 作业执行阶段耗时记录器
+ * 每个作业在内存中保留最近若干次执行的记录，超出后覆盖最早的记录，每次执行只在结束时加锁写入一次；
+ * 执行耗时超过阈值时按阶段输出耗时日志，便于在生产环境定位耗时的阶段
+ */
+public class JobTraceRecorder {
+
+    private final static Logger logger = LoggerFactory.getLogger(JobTraceRecorder.class);
+
+    private final int bufferSize;
+
+    private final long slowThresholdMicros;
+
+    // 各个作业最近的执行记录
+    private final ConcurrentMap<String, TraceRing> ringMap = new ConcurrentHashMap<>();
+
+    /**
+     * @param bufferSize 每个作业保留的执行记录数
+     * @param slowThresholdMilliseconds 执行耗时超过该值时输出日志，小于 1 表示不输出
+     */
+    public JobTraceRecorder(int bufferSize, long slowThresholdMilliseconds) {
+        this.bufferSize = Math.max(bufferSize, 1);
+        this.slowThresholdMicros = slowThresholdMilliseconds < 1 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toMicros(slowThresholdMilliseconds);
+    }
+
+    /**
+     * 记录一次执行
+     * @param jobTrace 执行记录
+     */
+    public void record(JobTrace jobTrace) {
+        TraceRing ring = ringMap.get(jobTrace.getJobName());
+        if (null == ring) {
+            ringMap.putIfAbsent(jobTrace.getJobName(), new TraceRing(bufferSize));
+            ring = ringMap.get(jobTrace.getJobName());
+        }
+        ring.add(jobTrace);
+        if (jobTrace.getDurationMicros() >= slowThresholdMicros) {
+            logger.warn("作业 {} 执行耗时 {} ms，分片项：{}，各阶段耗时（微秒）：{}", jobTrace.getJobName(),
+                    TimeUnit.MICROSECONDS.toMillis(jobTrace.getDurationMicros()), jobTrace.getShardingItems(), jobTrace.getPhaseMicros());
+        }
+    }
+
+    /**
+     * 获取作业最近的执行记录
+     * @param jobName 作业名称
+     * @return 按执行开始时间倒序
+     */
+    public List<JobTrace> getTraces(String jobName) {
+        TraceRing ring = ringMap.get(jobName);
+        return null == ring ? Collections.<JobTrace>emptyList() : ring.snapshot();
+    }
+
+    // 有执行记录的作业名称
+    public Set<String> getJobNames() {
+        return Collections.unmodifiableSet(ringMap.keySet());
+    }
+
+    /**
+     * 清除作业的执行记录
+     * @param jobName 作业名称
+     */
+    public void clear(String jobName) {
+        ringMap.remove(jobName);
+    }
+
+    /**
+     * 固定大小的环形缓冲区
+     */
+    private static final class TraceRing {
+
+        private final JobTrace[] traces;
+
+        // 下一次写入的位置
+        private int next;
+
+        private int size;
+
+        private TraceRing(int capacity) {
+            traces = new JobTrace[capacity];
+        }
+
+        private synchronized void add(JobTrace jobTrace) {
+            traces[next] = jobTrace;
+            next = (next + 1) % traces.length;
+            size = Math.min(size + 1, traces.length);
+        }
+
+        private synchronized List<JobTrace> snapshot() {
+            List<JobTrace> result = new ArrayList<>(size);
+            for (int i = 1; i <= size; i++) {
+                result.add(traces[(next - i + traces.length) % traces.length]);
+            }
+            return result;
+        }
+    }
+}
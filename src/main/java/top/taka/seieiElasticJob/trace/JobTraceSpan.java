@@ -0,0 +1,47 @@
+package top.taka.seieiElasticJob.trace;
+
+/**
+ * 作业一次执行中的一个阶段
+ */
+public final class JobTraceSpan {
+
+    private final String phase;
+
+    // 分片项，作业级别的阶段为 null
+    private final Integer item;
+
+    // 相对于执行开始的时间，单位：微秒
+    private final long offsetMicros;
+
+    private final long durationMicros;
+
+    private final String thread;
+
+    public JobTraceSpan(String phase, Integer item, long offsetMicros, long durationMicros, String thread) {
+        this.phase = phase;
+        this.item = item;
+        this.offsetMicros = offsetMicros;
+        this.durationMicros = durationMicros;
+        this.thread = thread;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public Integer getItem() {
+        return item;
+    }
+
+    public long getOffsetMicros() {
+        return offsetMicros;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+}
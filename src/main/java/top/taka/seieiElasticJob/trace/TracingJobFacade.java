@@ -0,0 +1,266 @@
+package top.taka.seieiElasticJob.trace;
+
+import com.dangdang.ddframe.job.event.type.JobExecutionEvent;
+import com.dangdang.ddframe.job.event.type.JobStatusTraceEvent;
+import com.dangdang.ddframe.job.exception.JobExecutionEnvironmentException;
+import com.dangdang.ddframe.job.executor.JobFacade;
+import com.dangdang.ddframe.job.executor.ShardingContexts;
+import top.taka.seieiElasticJob.enums.JobTracePhase;
+import top.taka.seieiElasticJob.facade.DelegatingJobFacade;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 记录作业执行各阶段耗时的 JobFacade
+ * elastic-job 的作业执行器按固定顺序调用 JobFacade：检查执行环境、获取分片上下文、检查是否仍在运行、执行前监听、
+ * 登记开始运行、逐个分片项执行、登记运行结束、检查错过的执行、失效转移、执行后监听，这里记录每次调用的耗时。
+ * 分片项的阶段由执行事件推算：分片项提交到执行线程池到发布开始事件为排队时间，开始事件到结束事件之间为业务方法耗时；
+ * 作业配置了事件采样时，未采样的执行只发布失败事件，不记录分片项的阶段。
+ * 包装在其他包装类的外层（BatchShardingJobFacade 除外），记录的耗时包括内层包装类的开销；
+ * 同一作业在一个实例内不会并发执行，每个作业只需记录当前这一次执行
+ */
+public class TracingJobFacade extends DelegatingJobFacade {
+
+    private final JobTraceRecorder jobTraceRecorder;
+
+    private volatile ActiveTrace current;
+
+    public TracingJobFacade(JobFacade delegate, JobTraceRecorder jobTraceRecorder) {
+        super(delegate);
+        this.jobTraceRecorder = jobTraceRecorder;
+    }
+
+    @Override
+    public void checkJobExecutionEnvironment() throws JobExecutionEnvironmentException {
+        // 每次执行第一个调用的方法
+        ActiveTrace trace = new ActiveTrace();
+        current = trace;
+        long startNanos = System.nanoTime();
+        try {
+            super.checkJobExecutionEnvironment();
+        } finally {
+            trace.span(JobTracePhase.ENVIRONMENT, null, startNanos);
+        }
+    }
+
+    @Override
+    public ShardingContexts getShardingContexts() {
+        ActiveTrace trace = getTrace();
+        long startNanos = System.nanoTime();
+        try {
+            ShardingContexts result = super.getShardingContexts();
+            trace.jobName = result.getJobName();
+            trace.taskId = result.getTaskId();
+            trace.shardingItems = new ArrayList<>(result.getShardingItemParameters().keySet());
+            return result;
+        } finally {
+            trace.span(JobTracePhase.SHARDING, null, startNanos);
+        }
+    }
+
+    @Override
+    public boolean misfireIfRunning(Collection<Integer> shardingItems) {
+        ActiveTrace trace = getTrace();
+        long startNanos = System.nanoTime();
+        boolean result = false;
+        try {
+            result = super.misfireIfRunning(shardingItems);
+            return result;
+        } finally {
+            trace.span(JobTracePhase.MISFIRE_CHECK, null, startNanos);
+            // 分片项仍在运行时执行器直接返回，不会再调用其他方法
+            if (result) {
+                finish(trace, true);
+            }
+        }
+    }
+
+    @Override
+    public void beforeJobExecuted(ShardingContexts shardingContexts) {
+        ActiveTrace trace = getTrace();
+        long startNanos = System.nanoTime();
+        try {
+            super.beforeJobExecuted(shardingContexts);
+        } finally {
+            trace.span(JobTracePhase.BEFORE_LISTENER, null, startNanos);
+        }
+    }
+
+    @Override
+    public void registerJobBegin(ShardingContexts shardingContexts) {
+        ActiveTrace trace = getTrace();
+        long startNanos = System.nanoTime();
+        try {
+            super.registerJobBegin(shardingContexts);
+        } finally {
+            trace.dispatchNanos = trace.span(JobTracePhase.REGISTER_BEGIN, null, startNanos);
+        }
+    }
+
+    @Override
+    public void postJobStatusTraceEvent(String taskId, JobStatusTraceEvent.State state, String message) {
+        ActiveTrace trace = getTrace();
+        long startNanos = System.nanoTime();
+        try {
+            super.postJobStatusTraceEvent(taskId, state, message);
+        } finally {
+            long endNanos = trace.span(JobTracePhase.EVENT_TRACE, null, startNanos);
+            // 执行器登记开始运行后发布运行中事件，之后才开始提交分片项
+            if (JobStatusTraceEvent.State.TASK_RUNNING == state) {
+                trace.dispatchNanos = endNanos;
+            }
+        }
+    }
+
+    @Override
+    public void postJobExecutionEvent(JobExecutionEvent jobExecutionEvent) {
+        ActiveTrace trace = getTrace();
+        int item = jobExecutionEvent.getShardingItem();
+        long startNanos = System.nanoTime();
+        boolean startEvent = null == jobExecutionEvent.getCompleteTime();
+        if (startEvent) {
+            trace.span(JobTracePhase.QUEUE, item, trace.dispatchNanos, startNanos);
+        } else {
+            Long executionStartNanos = trace.itemStartNanos.remove(item);
+            if (null != executionStartNanos) {
+                trace.span(JobTracePhase.EXECUTION, item, executionStartNanos, startNanos);
+            }
+        }
+        try {
+            super.postJobExecutionEvent(jobExecutionEvent);
+        } finally {
+            long endNanos = trace.span(JobTracePhase.EVENT_TRACE, item, startNanos);
+            if (startEvent) {
+                trace.itemStartNanos.put(item, endNanos);
+            }
+        }
+    }
+
+    @Override
+    public void registerJobCompleted(ShardingContexts shardingContexts) {
+        ActiveTrace trace = getTrace();
+        long startNanos = System.nanoTime();
+        try {
+            super.registerJobCompleted(shardingContexts);
+        } finally {
+            trace.span(JobTracePhase.REGISTER_COMPLETED, null, startNanos);
+        }
+    }
+
+    @Override
+    public boolean isExecuteMisfired(Collection<Integer> shardingItems) {
+        ActiveTrace trace = getTrace();
+        long startNanos = System.nanoTime();
+        try {
+            return super.isExecuteMisfired(shardingItems);
+        } finally {
+            trace.span(JobTracePhase.MISFIRE_CHECK, null, startNanos);
+        }
+    }
+
+    @Override
+    public void clearMisfire(Collection<Integer> shardingItems) {
+        ActiveTrace trace = getTrace();
+        long startNanos = System.nanoTime();
+        try {
+            super.clearMisfire(shardingItems);
+        } finally {
+            trace.span(JobTracePhase.MISFIRE_CHECK, null, startNanos);
+        }
+    }
+
+    @Override
+    public void failoverIfNecessary() {
+        ActiveTrace trace = getTrace();
+        long startNanos = System.nanoTime();
+        try {
+            super.failoverIfNecessary();
+        } finally {
+            trace.span(JobTracePhase.FAILOVER, null, startNanos);
+        }
+    }
+
+    @Override
+    public void afterJobExecuted(ShardingContexts shardingContexts) {
+        ActiveTrace trace = getTrace();
+        long startNanos = System.nanoTime();
+        try {
+            super.afterJobExecuted(shardingContexts);
+        } finally {
+            trace.span(JobTracePhase.AFTER_LISTENER, null, startNanos);
+            // 每次执行最后调用的方法
+            finish(trace, false);
+        }
+    }
+
+    private ActiveTrace getTrace() {
+        ActiveTrace result = current;
+        if (null == result) {
+            result = new ActiveTrace();
+            current = result;
+        }
+        return result;
+    }
+
+    private void finish(ActiveTrace trace, boolean misfired) {
+        if (current == trace) {
+            current = null;
+        }
+        if (null == trace.jobName) {
+            return;
+        }
+        List<JobTraceSpan> spans;
+        synchronized (trace.spans) {
+            spans = new ArrayList<>(trace.spans);
+        }
+        jobTraceRecorder.record(new JobTrace(trace.jobName, trace.taskId, trace.startTime, (System.nanoTime() - trace.startNanos) / 1000L,
+                null == trace.shardingItems ? Collections.<Integer>emptyList() : trace.shardingItems, misfired, spans));
+    }
+
+    /**
+     * 正在进行的一次执行，分片项的阶段由执行线程池中的线程并发写入
+     */
+    private static final class ActiveTrace {
+
+        private final long startTime = System.currentTimeMillis();
+
+        private final long startNanos = System.nanoTime();
+
+        private final List<JobTraceSpan> spans = new ArrayList<>();
+
+        // 各个分片项业务方法的开始时间
+        private final Map<Integer, Long> itemStartNanos = new ConcurrentHashMap<>();
+
+        private volatile String jobName;
+
+        private volatile String taskId;
+
+        private volatile List<Integer> shardingItems;
+
+        // 分片项开始提交到执行线程池的时间
+        private volatile long dispatchNanos = startNanos;
+
+        /**
+         * 记录从 startNanos 到当前时间的阶段
+         * @return 当前时间
+         */
+        private long span(JobTracePhase phase, Integer item, long startNanos) {
+            long endNanos = System.nanoTime();
+            span(phase, item, startNanos, endNanos);
+            return endNanos;
+        }
+
+        private void span(JobTracePhase phase, Integer item, long startNanos, long endNanos) {
+            JobTraceSpan span = new JobTraceSpan(phase.value, item, (startNanos - this.startNanos) / 1000L,
+                    Math.max(endNanos - startNanos, 0L) / 1000L, Thread.currentThread().getName());
+            synchronized (spans) {
+                spans.add(span);
+            }
+        }
+    }
+}
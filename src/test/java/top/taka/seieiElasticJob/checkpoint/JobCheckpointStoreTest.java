@@ -0,0 +1,127 @@
+package top.taka.seieiElasticJob.checkpoint;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 断点存储在 H2（默认模式，不开启 MySQL 兼容）上的写入、合并和重启后读取
+ */
+public class JobCheckpointStoreTest {
+
+    private static final String JOB_NAME = "checkpointJob";
+
+    // 足够长，测试中只在 requestFlush 或 shutdown 时写入
+    private static final long FLUSH_INTERVAL_MILLISECONDS = TimeUnit.HOURS.toMillis(1);
+
+    private JdbcDataSource dataSource;
+
+    private JobCheckpointStore jobCheckpointStore;
+
+    @Before
+    public void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:job_checkpoint_test;DB_CLOSE_DELAY=-1");
+        jobCheckpointStore = new JobCheckpointStore(dataSource, FLUSH_INTERVAL_MILLISECONDS);
+        jobCheckpointStore.start();
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        jobCheckpointStore.shutdown();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE " + JobCheckpointMapper.TABLE_JOB_CHECKPOINT);
+        }
+    }
+
+    @Test
+    public void assertInsertUpdateAndDelete() throws Exception {
+        jobCheckpointStore.save(JOB_NAME, 0, "100");
+        jobCheckpointStore.save(JOB_NAME, 1, "200");
+        flushAndWait();
+        assertEquals("100", selectCheckpoint(0));
+        assertEquals("200", selectCheckpoint(1));
+        // 已有断点的分片项走更新，新的分片项走插入，同一次写入中混合
+        jobCheckpointStore.save(JOB_NAME, 0, "101");
+        jobCheckpointStore.save(JOB_NAME, 2, "300");
+        flushAndWait();
+        assertEquals("101", selectCheckpoint(0));
+        assertEquals("200", selectCheckpoint(1));
+        assertEquals("300", selectCheckpoint(2));
+        jobCheckpointStore.remove(JOB_NAME, 1);
+        flushAndWait();
+        assertNull(selectCheckpoint(1));
+        assertEquals(0L, jobCheckpointStore.getFailedCount());
+    }
+
+    @Test
+    public void assertCoalesceCheckpointsBeforeFlush() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            jobCheckpointStore.save(JOB_NAME, 0, String.valueOf(i));
+            jobCheckpointStore.save(JOB_NAME, 1, String.valueOf(i * 2));
+        }
+        assertEquals(2, jobCheckpointStore.getPendingCount());
+        // 未写入的断点优先从内存读取
+        assertEquals("99", jobCheckpointStore.load(JOB_NAME, 0));
+        assertNull(selectCheckpoint(0));
+        flushAndWait();
+        assertEquals(200L, jobCheckpointStore.getSavedCount());
+        assertEquals(2L, jobCheckpointStore.getFlushedCount());
+        assertEquals("99", selectCheckpoint(0));
+        assertEquals("198", selectCheckpoint(1));
+    }
+
+    @Test
+    public void assertResumeFromCheckpointAfterRestart() {
+        jobCheckpointStore.save(JOB_NAME, 0, "500");
+        jobCheckpointStore.save(JOB_NAME, 3, "800");
+        // 关闭前写入所有未写入的断点
+        jobCheckpointStore.shutdown();
+        assertEquals(0, jobCheckpointStore.getPendingCount());
+        jobCheckpointStore = new JobCheckpointStore(dataSource, FLUSH_INTERVAL_MILLISECONDS);
+        jobCheckpointStore.start();
+        assertEquals("500", jobCheckpointStore.load(JOB_NAME, 0));
+        assertEquals("800", jobCheckpointStore.load(JOB_NAME, 3));
+        assertNull(jobCheckpointStore.load(JOB_NAME, 1));
+        // 重启后继续保存，已有的断点走更新
+        jobCheckpointStore.save(JOB_NAME, 0, "501");
+        jobCheckpointStore.shutdown();
+        jobCheckpointStore = new JobCheckpointStore(dataSource, FLUSH_INTERVAL_MILLISECONDS);
+        jobCheckpointStore.start();
+        assertEquals("501", jobCheckpointStore.load(JOB_NAME, 0));
+    }
+
+    private void flushAndWait() throws InterruptedException {
+        long flushedCount = jobCheckpointStore.getFlushedCount();
+        jobCheckpointStore.requestFlush();
+        long deadline = System.currentTimeMillis() + 5000L;
+        while ((jobCheckpointStore.getPendingCount() > 0 || jobCheckpointStore.getFlushedCount() == flushedCount) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertTrue("pending: " + jobCheckpointStore.getPendingCount(), 0 == jobCheckpointStore.getPendingCount());
+    }
+
+    private String selectCheckpoint(int shardingItem) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(
+                     "SELECT checkpoint FROM " + JobCheckpointMapper.TABLE_JOB_CHECKPOINT + " WHERE job_name = ? AND sharding_item = ?")) {
+            preparedStatement.setString(1, JOB_NAME);
+            preparedStatement.setInt(2, shardingItem);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        }
+    }
+}
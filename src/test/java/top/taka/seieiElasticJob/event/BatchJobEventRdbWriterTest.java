@@ -0,0 +1,384 @@
+package top.taka.seieiElasticJob.event;
+
+import com.dangdang.ddframe.job.context.ExecutionType;
+import com.dangdang.ddframe.job.event.type.JobExecutionEvent;
+import com.dangdang.ddframe.job.event.type.JobStatusTraceEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import top.taka.seieiElasticJob.metrics.BatchJobEventRdbWriterMetrics;
+import top.taka.seieiElasticJob.metrics.JobMetricsListener;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 作业事件批量写入器在 H2 上的多行写入、批量更新、失败后逐行重试、失败计数、写入指标和缓冲区溢出策略
+ */
+public class BatchJobEventRdbWriterTest {
+
+    private static final String JOB_NAME = "eventTraceJob";
+
+    private JdbcDataSource h2DataSource;
+
+    private RecordingDataSource recordingDataSource;
+
+    private BatchJobEventRdbWriter writer;
+
+    @Before
+    public void setUp() {
+        h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:batch_job_event_test;DB_CLOSE_DELAY=-1");
+        recordingDataSource = new RecordingDataSource(h2DataSource);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        if (null != writer) {
+            writer.shutdown();
+        }
+        try (Connection connection = h2DataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    @Test
+    public void assertInsertExecutionsAndStatusTracesWithMultiRowInsert() throws Exception {
+        writer = startWriter(1024, 10, 60000L, "drop", 0L);
+        List<JobExecutionEvent> startEvents = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            startEvents.add(new JobExecutionEvent("task-" + i, JOB_NAME, JobExecutionEvent.ExecutionSource.NORMAL_TRIGGER, i));
+            writer.write(startEvents.get(i));
+            writer.write(new JobStatusTraceEvent(JOB_NAME, "task-" + i, "slave", JobStatusTraceEvent.Source.LITE_EXECUTOR,
+                    ExecutionType.READY, String.valueOf(i), JobStatusTraceEvent.State.TASK_STAGING, "staging"));
+        }
+        awaitFlushed(10L);
+        assertEquals(5, countRows("JOB_EXECUTION_LOG"));
+        assertEquals(5, countRows("JOB_STATUS_TRACE_LOG"));
+        // 一个批次的 5 条执行记录和 5 条状态记录各用一条多行 INSERT 写入
+        assertEquals(1, recordingDataSource.count("INSERT INTO JOB_EXECUTION_LOG"));
+        assertEquals(1, recordingDataSource.count("INSERT INTO JOB_STATUS_TRACE_LOG"));
+        for (JobExecutionEvent each : startEvents) {
+            assertNull(selectCompleteTime(each.getId()));
+        }
+    }
+
+    @Test
+    public void assertMergeStartAndCompleteInSameBatch() throws Exception {
+        writer = startWriter(1024, 10, 60000L, "drop", 0L);
+        JobExecutionEvent startEvent = new JobExecutionEvent("task-0", JOB_NAME, JobExecutionEvent.ExecutionSource.NORMAL_TRIGGER, 0);
+        writer.write(startEvent);
+        writer.write(startEvent.executionSuccess());
+        writer.shutdown();
+        assertEquals(1, countRows("JOB_EXECUTION_LOG"));
+        assertNotNull(selectCompleteTime(startEvent.getId()));
+        assertEquals(0, recordingDataSource.count("UPDATE JOB_EXECUTION_LOG"));
+    }
+
+    @Test
+    public void assertUpdateCompletionsWithBatchedUpdate() throws Exception {
+        writer = startWriter(1024, 5, 60000L, "drop", 0L);
+        List<JobExecutionEvent> startEvents = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            startEvents.add(new JobExecutionEvent("task-" + i, JOB_NAME, JobExecutionEvent.ExecutionSource.NORMAL_TRIGGER, i));
+            writer.write(startEvents.get(i));
+        }
+        awaitFlushed(5L);
+        for (JobExecutionEvent each : startEvents) {
+            writer.write(each.executionSuccess());
+        }
+        awaitFlushed(10L);
+        assertEquals(5, countRows("JOB_EXECUTION_LOG"));
+        for (JobExecutionEvent each : startEvents) {
+            assertNotNull(selectCompleteTime(each.getId()));
+        }
+        // 5 个完成事件在一条预编译语句中批量更新
+        assertEquals(1, recordingDataSource.count("UPDATE JOB_EXECUTION_LOG"));
+        assertEquals(5, recordingDataSource.getBatchSize("UPDATE JOB_EXECUTION_LOG"));
+    }
+
+    @Test
+    public void assertFallbackToRowByRowAfterBatchFailure() throws Exception {
+        writer = startWriter(1024, 3, 60000L, "drop", 0L);
+        // 已写入的开始事件，后续批次中的同一执行与其主键冲突
+        JobExecutionEvent existedEvent = new JobExecutionEvent("task-0", JOB_NAME, JobExecutionEvent.ExecutionSource.NORMAL_TRIGGER, 0);
+        insertStartEvent(existedEvent);
+        JobExecutionEvent newEvent1 = new JobExecutionEvent("task-1", JOB_NAME, JobExecutionEvent.ExecutionSource.NORMAL_TRIGGER, 1);
+        JobExecutionEvent newEvent2 = new JobExecutionEvent("task-2", JOB_NAME, JobExecutionEvent.ExecutionSource.NORMAL_TRIGGER, 2);
+        // 同一批次中的开始事件和完成事件合并为一行写入，冲突时改为更新
+        writer.write(existedEvent);
+        writer.write(newEvent1);
+        writer.write(existedEvent.executionSuccess());
+        writer.write(newEvent2);
+        writer.shutdown();
+        assertEquals(3, countRows("JOB_EXECUTION_LOG"));
+        assertNotNull(selectCompleteTime(existedEvent.getId()));
+        assertNull(selectCompleteTime(newEvent1.getId()));
+        assertNull(selectCompleteTime(newEvent2.getId()));
+        // 第一个批次的多行写入失败后逐行写入
+        assertTrue(recordingDataSource.count("INSERT INTO JOB_EXECUTION_LOG") >= 4);
+        assertEquals(4L, writer.getFlushedCount());
+        assertEquals(0L, writer.getFailedCount());
+    }
+
+    @Test
+    public void assertCountOnlyUnwrittenEventsAsFailed() throws Exception {
+        writer = startWriter(1024, 10, 60000L, "drop", 0L);
+        // 状态记录写入失败，同一批次中先写入的执行记录已自动提交
+        try (Connection connection = h2DataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE JOB_STATUS_TRACE_LOG");
+        }
+        JobExecutionEvent mergedEvent = new JobExecutionEvent("task-0", JOB_NAME, JobExecutionEvent.ExecutionSource.NORMAL_TRIGGER, 0);
+        writer.write(mergedEvent);
+        writer.write(mergedEvent.executionSuccess());
+        writer.write(new JobExecutionEvent("task-1", JOB_NAME, JobExecutionEvent.ExecutionSource.NORMAL_TRIGGER, 1));
+        for (int i = 0; i < 2; i++) {
+            writer.write(new JobStatusTraceEvent(JOB_NAME, "task-" + i, "slave", JobStatusTraceEvent.Source.LITE_EXECUTOR,
+                    ExecutionType.READY, String.valueOf(i), JobStatusTraceEvent.State.TASK_STAGING, "staging"));
+        }
+        writer.shutdown();
+        assertEquals(2, countRows("JOB_EXECUTION_LOG"));
+        assertEquals(3L, writer.getFlushedCount());
+        assertEquals(2L, writer.getFailedCount());
+    }
+
+    @Test
+    public void assertPublishCountersAsMeters() throws Exception {
+        writer = startWriter(1024, 10, 60000L, "drop", 0L);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BatchJobEventRdbWriterMetrics metrics = new BatchJobEventRdbWriterMetrics(meterRegistry, writer, "eventTraceDataSource");
+        for (int i = 0; i < 3; i++) {
+            writer.write(new JobExecutionEvent("task-" + i, JOB_NAME, JobExecutionEvent.ExecutionSource.NORMAL_TRIGGER, i));
+        }
+        writer.shutdown();
+        assertEquals(3.0, meterRegistry.get(JobMetricsListener.METRIC_PREFIX + ".event.queued").tag("dataSource", "eventTraceDataSource").functionCounter().count(), 0.0);
+        assertEquals(3.0, meterRegistry.get(JobMetricsListener.METRIC_PREFIX + ".event.flushed").functionCounter().count(), 0.0);
+        assertEquals(0.0, meterRegistry.get(JobMetricsListener.METRIC_PREFIX + ".event.dropped").functionCounter().count(), 0.0);
+        assertEquals(0.0, meterRegistry.get(JobMetricsListener.METRIC_PREFIX + ".event.failed").functionCounter().count(), 0.0);
+        assertEquals(0.0, meterRegistry.get(JobMetricsListener.METRIC_PREFIX + ".event.pending").gauge().value(), 0.0);
+        metrics.close();
+        assertTrue(meterRegistry.getMeters().isEmpty());
+    }
+
+    @Test
+    public void assertDropEventsWhenBufferIsFull() throws Exception {
+        // 每次获取连接都很慢，写入线程来不及取出事件
+        writer = startWriter(4, 1, 1L, "drop", 20L);
+        int total = 200;
+        int accepted = 0;
+        for (int i = 0; i < total; i++) {
+            if (writer.write(new JobExecutionEvent("task-" + i, JOB_NAME, JobExecutionEvent.ExecutionSource.NORMAL_TRIGGER, i))) {
+                accepted++;
+            }
+        }
+        assertTrue("dropped: " + writer.getDroppedCount(), writer.getDroppedCount() > 0L);
+        assertEquals(total, writer.getQueuedCount() + writer.getDroppedCount());
+        assertEquals(accepted, writer.getQueuedCount());
+        writer.shutdown();
+        assertEquals(writer.getQueuedCount(), writer.getFlushedCount());
+        assertEquals(writer.getQueuedCount(), countRows("JOB_EXECUTION_LOG"));
+    }
+
+    @Test
+    public void assertBlockProducerWhenBufferIsFull() throws Exception {
+        writer = startWriter(4, 1, 1L, "block", 2L);
+        int total = 100;
+        // 缓冲区只能容纳 4 个事件，其余事件要等写入线程逐个写入后才能放入，不会被丢弃
+        for (int i = 0; i < total; i++) {
+            assertTrue(writer.write(new JobExecutionEvent("task-" + i, JOB_NAME, JobExecutionEvent.ExecutionSource.NORMAL_TRIGGER, i)));
+        }
+        assertEquals(0L, writer.getDroppedCount());
+        assertEquals(total, writer.getQueuedCount());
+        writer.shutdown();
+        assertEquals(total, writer.getFlushedCount());
+        assertEquals(total, countRows("JOB_EXECUTION_LOG"));
+    }
+
+    private BatchJobEventRdbWriter startWriter(int bufferSize, int flushSize, long flushIntervalMilliseconds, String overflowPolicy,
+                                               long connectionDelayMilliseconds) throws SQLException {
+        BatchJobEventRdbWriter result = new BatchJobEventRdbWriter(recordingDataSource.proxy, bufferSize, flushSize, flushIntervalMilliseconds, overflowPolicy);
+        result.start();
+        // 建表语句不计入
+        recordingDataSource.reset();
+        recordingDataSource.connectionDelayMilliseconds = connectionDelayMilliseconds;
+        return result;
+    }
+
+    private void awaitFlushed(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (writer.getFlushedCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals(expected, writer.getFlushedCount());
+    }
+
+    private void insertStartEvent(JobExecutionEvent event) throws SQLException {
+        try (Connection connection = h2DataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(
+                     "INSERT INTO JOB_EXECUTION_LOG (id, job_name, task_id, hostname, ip, sharding_item, execution_source, is_success, start_time) "
+                             + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            preparedStatement.setString(1, event.getId());
+            preparedStatement.setString(2, event.getJobName());
+            preparedStatement.setString(3, event.getTaskId());
+            preparedStatement.setString(4, event.getHostname());
+            preparedStatement.setString(5, event.getIp());
+            preparedStatement.setInt(6, event.getShardingItem());
+            preparedStatement.setString(7, event.getSource().toString());
+            preparedStatement.setBoolean(8, false);
+            preparedStatement.setTimestamp(9, new Timestamp(event.getStartTime().getTime()));
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private int countRows(String table) throws SQLException {
+        try (Connection connection = h2DataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private Timestamp selectCompleteTime(String id) throws SQLException {
+        try (Connection connection = h2DataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement("SELECT complete_time FROM JOB_EXECUTION_LOG WHERE id = ?")) {
+            preparedStatement.setString(1, id);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                assertTrue(resultSet.next());
+                return resultSet.getTimestamp(1);
+            }
+        }
+    }
+
+    /**
+     * 记录写入器预编译的语句和批量大小，可以延迟获取连接模拟慢数据库
+     */
+    private static final class RecordingDataSource implements InvocationHandler {
+
+        private final DataSource target;
+
+        private final List<String> statements = Collections.synchronizedList(new ArrayList<String>());
+
+        private final List<String> batchStatements = Collections.synchronizedList(new ArrayList<String>());
+
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+
+        private volatile long connectionDelayMilliseconds;
+
+        private final DataSource proxy;
+
+        private RecordingDataSource(DataSource target) {
+            this.target = target;
+            proxy = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {DataSource.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxyObject, Method method, Object[] args) throws Throwable {
+            Object result = invokeTarget(target, method, args);
+            if ("getConnection".equals(method.getName())) {
+                if (connectionDelayMilliseconds > 0L) {
+                    Thread.sleep(connectionDelayMilliseconds);
+                }
+                return wrapConnection((Connection) result);
+            }
+            return result;
+        }
+
+        private Connection wrapConnection(final Connection connection) {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class}, new InvocationHandler() {
+
+                @Override
+                public Object invoke(Object proxyObject, Method method, Object[] args) throws Throwable {
+                    Object result = invokeTarget(connection, method, args);
+                    if ("prepareStatement".equals(method.getName())) {
+                        return wrapPreparedStatement((PreparedStatement) result, (String) args[0]);
+                    }
+                    return result;
+                }
+            });
+        }
+
+        private PreparedStatement wrapPreparedStatement(final PreparedStatement preparedStatement, final String sql) {
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {PreparedStatement.class}, new InvocationHandler() {
+
+                private int batchSize;
+
+                @Override
+                public Object invoke(Object proxyObject, Method method, Object[] args) throws Throwable {
+                    if ("addBatch".equals(method.getName())) {
+                        batchSize++;
+                    } else if ("executeBatch".equals(method.getName())) {
+                        synchronized (batchStatements) {
+                            batchStatements.add(sql);
+                            batchSizes.add(batchSize);
+                        }
+                        statements.add(sql);
+                    } else if ("executeUpdate".equals(method.getName()) || "executeQuery".equals(method.getName())) {
+                        statements.add(sql);
+                    }
+                    return invokeTarget(preparedStatement, method, args);
+                }
+            });
+        }
+
+        private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+
+        private void reset() {
+            statements.clear();
+            synchronized (batchStatements) {
+                batchStatements.clear();
+                batchSizes.clear();
+            }
+        }
+
+        // 以指定前缀开头的已执行语句数
+        private int count(String sqlPrefix) {
+            int result = 0;
+            synchronized (statements) {
+                for (String each : statements) {
+                    if (each.startsWith(sqlPrefix)) {
+                        result++;
+                    }
+                }
+            }
+            return result;
+        }
+
+        // 以指定前缀开头的批量语句的批量大小之和
+        private int getBatchSize(String sqlPrefix) {
+            int result = 0;
+            synchronized (batchStatements) {
+                for (int i = 0; i < batchStatements.size(); i++) {
+                    if (batchStatements.get(i).startsWith(sqlPrefix)) {
+                        result += batchSizes.get(i);
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package top.taka.seieiElasticJob.event;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 作业事件历史在 H2 上的分批清理和查询条件组合
+ * 作业 A 在第 0、1、2、3 分钟各执行一次（第 1 分钟失败），作业 B 在第 1、2 分钟各执行一次（第 2 分钟失败），状态记录的时间与执行记录相同
+ */
+public class JobEventHistoryTest {
+
+    private static final String JOB_A = "eventHistoryJobA";
+
+    private static final String JOB_B = "eventHistoryJobB";
+
+    private static final long BASE_TIME = Timestamp.valueOf("2019-06-01 00:00:00").getTime();
+
+    // 每批删除 3 条，清理测试中的过期记录需要多个批次
+    private static final int PURGE_BATCH_SIZE = 3;
+
+    private JdbcDataSource dataSource;
+
+    private JobEventHistory jobEventHistory;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:job_event_history_test;DB_CLOSE_DELAY=-1");
+        // 不清理、不建索引时不启动后台线程，只建表
+        jobEventHistory = new JobEventHistory(dataSource, 0, PURGE_BATCH_SIZE, 60L, false);
+        jobEventHistory.start();
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        jobEventHistory.shutdown();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    @Test
+    public void assertPurgeInSeveralBatches() throws SQLException {
+        for (int i = 0; i < 10; i++) {
+            insertExecution("expired-" + i, 0 == i % 2 ? JOB_A : JOB_B, minutes(i), true);
+        }
+        for (int i = 0; i < 7; i++) {
+            insertStatusTrace("expired-" + i, JOB_A, minutes(i));
+        }
+        insertExecution("recent-0", JOB_A, TimeUnit.DAYS.toMillis(1), true);
+        insertExecution("recent-1", JOB_B, TimeUnit.DAYS.toMillis(1), false);
+        insertStatusTrace("recent-0", JOB_A, TimeUnit.DAYS.toMillis(1));
+        assertEquals(17L, jobEventHistory.purge(new Date(BASE_TIME + TimeUnit.HOURS.toMillis(1))));
+        assertEquals(10L, jobEventHistory.getPurgedExecutionCount());
+        assertEquals(7L, jobEventHistory.getPurgedStatusTraceCount());
+        assertEquals(2, countRows(JobEventHistoryMapper.TABLE_JOB_EXECUTION_LOG));
+        assertEquals(1, countRows(JobEventHistoryMapper.TABLE_JOB_STATUS_TRACE_LOG));
+        assertEquals(0L, jobEventHistory.purge(new Date(BASE_TIME + TimeUnit.HOURS.toMillis(1))));
+    }
+
+    @Test
+    public void assertFindExecutionsWithFilterCombinations() throws SQLException {
+        insertFilterData();
+        assertExecutions(6, null, null, null, null);
+        assertExecutions(4, JOB_A, null, null, null);
+        // 作业名称为空时其他条件仍然生效
+        assertExecutions(3, null, minutes(2), null, null);
+        assertExecutions(1, null, null, minutes(1), null);
+        assertExecutions(4, null, minutes(1), minutes(3), null);
+        assertExecutions(2, null, null, null, false);
+        assertExecutions(2, null, minutes(2), null, true);
+        assertExecutions(2, JOB_A, minutes(1), minutes(3), null);
+        assertExecutions(1, JOB_B, null, null, true);
+        assertExecutions(0, JOB_B, minutes(3), null, null);
+    }
+
+    @Test
+    public void assertFindExecutionsOrderedByStartTimeDescending() throws SQLException {
+        insertFilterData();
+        List<JobExecutionRecord> actual = jobEventHistory.findExecutions(JOB_A, null, null, null, 1, 2);
+        assertEquals(2, actual.size());
+        assertEquals("jobA-2", actual.get(0).getId());
+        assertEquals("jobA-1", actual.get(1).getId());
+        assertEquals(false, actual.get(1).isSuccess());
+        assertEquals(JOB_A, actual.get(1).getJobName());
+    }
+
+    @Test
+    public void assertFindStatusTracesWithFilterCombinations() throws SQLException {
+        insertFilterData();
+        assertEquals(6, jobEventHistory.findStatusTraces(null, null, null, 0, 10).size());
+        assertEquals(3, jobEventHistory.findStatusTraces(null, new Date(BASE_TIME + minutes(2)), null, 0, 10).size());
+        assertEquals(1, jobEventHistory.findStatusTraces(JOB_B, null, new Date(BASE_TIME + minutes(2)), 0, 10).size());
+        assertEquals(2, jobEventHistory.findStatusTraces(JOB_A, new Date(BASE_TIME + minutes(1)), new Date(BASE_TIME + minutes(3)), 0, 10).size());
+        List<JobStatusTraceRecord> actual = jobEventHistory.findStatusTraces("jobB-task-2");
+        assertEquals(1, actual.size());
+        assertEquals(JOB_B, actual.get(0).getJobName());
+    }
+
+    private void assertExecutions(int expected, String jobName, Long from, Long to, Boolean success) {
+        Date fromDate = null == from ? null : new Date(BASE_TIME + from);
+        Date toDate = null == to ? null : new Date(BASE_TIME + to);
+        assertEquals(expected, jobEventHistory.findExecutions(jobName, fromDate, toDate, success, 0, 10).size());
+        assertEquals(expected, jobEventHistory.countExecutions(jobName, fromDate, toDate, success));
+    }
+
+    private void insertFilterData() throws SQLException {
+        for (int i = 0; i < 4; i++) {
+            insertExecution("jobA-" + i, JOB_A, minutes(i), 1 != i);
+            insertStatusTrace("jobA-" + i, JOB_A, minutes(i));
+        }
+        for (int i = 1; i < 3; i++) {
+            insertExecution("jobB-" + i, JOB_B, minutes(i), 2 != i);
+            insertStatusTrace("jobB-" + i, JOB_B, minutes(i));
+        }
+    }
+
+    private static long minutes(int minutes) {
+        return TimeUnit.MINUTES.toMillis(minutes);
+    }
+
+    private void insertExecution(String id, String jobName, long offset, boolean success) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(
+                "INSERT INTO JOB_EXECUTION_LOG (id, job_name, task_id, hostname, ip, sharding_item, execution_source, is_success, start_time) "
+                        + "VALUES (?, ?, ?, 'localhost', '127.0.0.1', 0, 'NORMAL_TRIGGER', ?, ?)")) {
+            preparedStatement.setString(1, id);
+            preparedStatement.setString(2, jobName);
+            preparedStatement.setString(3, id.replace("-", "-task-"));
+            preparedStatement.setInt(4, success ? 1 : 0);
+            preparedStatement.setTimestamp(5, new Timestamp(BASE_TIME + offset));
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private void insertStatusTrace(String id, String jobName, long offset) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(
+                "INSERT INTO JOB_STATUS_TRACE_LOG (id, job_name, original_task_id, task_id, slave_id, source, execution_type, sharding_item, state, creation_time) "
+                        + "VALUES (?, ?, '', ?, 'slave', 'LITE_EXECUTOR', 'READY', '0', 'TASK_STAGING', ?)")) {
+            preparedStatement.setString(1, id);
+            preparedStatement.setString(2, jobName);
+            preparedStatement.setString(3, id.replace("-", "-task-"));
+            preparedStatement.setTimestamp(4, new Timestamp(BASE_TIME + offset));
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private int countRows(String tableName) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + tableName)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package top.taka.seieiElasticJob.job;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.exception.JobSystemException;
+import com.dangdang.ddframe.job.executor.ShardingContexts;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 预取流式作业在处理异常、执行中途结束、作业移除时停止预取，并行处理异常时取消其他部分
+ * 直接调用 fetchData 和 processData，模拟 elastic-job 流式循环的各种退出方式
+ */
+public class PrefetchDataflowJobTest {
+
+    private static final String JOB_NAME = "prefetchDataflowTestJob";
+
+    // 预取任务检查停止标记的间隔为 100 毫秒，等待足够长确认预取已经停止
+    private static final long SETTLE_MILLISECONDS = 300L;
+
+    @After
+    public void tearDown() {
+        PrefetchDataflowJob.shutdown(JOB_NAME);
+        PrefetchDataflowJob.removeMetrics(JOB_NAME);
+    }
+
+    @Test
+    public void assertProcessFailureStopsPrefetch() throws InterruptedException {
+        TestingPrefetchJob job = new TestingPrefetchJob(1);
+        ShardingContext shardingContext = createShardingContext(createShardingContexts("task-1"));
+        List<Integer> data = job.fetchData(shardingContext);
+        job.failing = true;
+        try {
+            job.processData(shardingContext, data);
+            fail("processData should throw");
+        } catch (IllegalStateException e) {
+            assertEquals("process failed", e.getMessage());
+        }
+        assertPrefetchStopped(job);
+    }
+
+    @Test
+    public void assertExecutionEndStopsLeftoverPrefetch() throws InterruptedException {
+        TestingPrefetchJob job = new TestingPrefetchJob(1);
+        ShardingContexts shardingContexts = createShardingContexts("task-1");
+        ShardingContext shardingContext = createShardingContext(shardingContexts);
+        job.processData(shardingContext, job.fetchData(shardingContext));
+        // 其他执行结束时不影响本次执行的预取
+        PrefetchDataflowJob.stopPrefetchers(createShardingContexts("task-2"));
+        assertEquals(Arrays.asList(3, 4), job.fetchData(shardingContext));
+        // 流式循环中途退出，不再调用 fetchData，由 PrefetchDataflowJobFacade 在执行结束时停止
+        PrefetchDataflowJob.stopPrefetchers(shardingContexts);
+        assertPrefetchStopped(job);
+    }
+
+    @Test
+    public void assertShutdownRejectsNewExecution() throws InterruptedException {
+        TestingPrefetchJob job = new TestingPrefetchJob(1);
+        ShardingContext shardingContext = createShardingContext(createShardingContexts("task-1"));
+        job.fetchData(shardingContext);
+        PrefetchDataflowJob.shutdown(JOB_NAME);
+        assertPrefetchStopped(job);
+        try {
+            job.fetchData(createShardingContext(createShardingContexts("task-2")));
+            fail("fetchData should throw after shutdown");
+        } catch (JobSystemException e) {
+            assertTrue(e.getMessage().contains(JOB_NAME));
+        }
+    }
+
+    @Test
+    public void assertParallelFailureCancelsOtherParts() throws InterruptedException {
+        TestingPrefetchJob job = new TestingPrefetchJob(2);
+        ShardingContext shardingContext = createShardingContext(createShardingContexts("task-1"));
+        job.blocking = true;
+        try {
+            // 拆分为两份，第一份在处理线程中阻塞，第二份在当前线程中失败
+            job.processData(shardingContext, Arrays.asList(1, 2));
+            fail("processData should throw");
+        } catch (IllegalStateException e) {
+            assertEquals("process failed", e.getMessage());
+        }
+        assertTrue(job.interruptedLatch.await(5L, TimeUnit.SECONDS));
+    }
+
+    private void assertPrefetchStopped(TestingPrefetchJob job) throws InterruptedException {
+        Thread.sleep(SETTLE_MILLISECONDS);
+        int fetchCount = job.fetchCount.get();
+        Thread.sleep(SETTLE_MILLISECONDS);
+        assertEquals(fetchCount, job.fetchCount.get());
+        assertEquals(0, PrefetchDataflowJob.getMetrics(JOB_NAME).getQueueDepth());
+    }
+
+    private static ShardingContexts createShardingContexts(String taskId) {
+        return new ShardingContexts(taskId, JOB_NAME, 1, "", Collections.singletonMap(0, ""));
+    }
+
+    private static ShardingContext createShardingContext(ShardingContexts shardingContexts) {
+        return new ShardingContext(shardingContexts, 0);
+    }
+
+    /**
+     * 每页两条数据，不会抓取到空页；failing 时处理失败，
+     * blocking 时第一条数据所在的部分阻塞到被中断，其他部分等第一部分开始处理后再失败，确保取消的是正在处理的部分
+     */
+    private static final class TestingPrefetchJob extends PrefetchDataflowJob<Integer> {
+
+        private final AtomicInteger fetchCount = new AtomicInteger();
+
+        private final CountDownLatch startedLatch = new CountDownLatch(1);
+
+        private final CountDownLatch interruptedLatch = new CountDownLatch(1);
+
+        private volatile boolean failing;
+
+        private volatile boolean blocking;
+
+        private TestingPrefetchJob(int processWorkers) {
+            super(DEFAULT_PREFETCH_PAGES, processWorkers);
+        }
+
+        @Override
+        protected List<Integer> fetchPage(ShardingContext shardingContext, List<Integer> previousPage) {
+            int last = null == previousPage ? 0 : previousPage.get(previousPage.size() - 1);
+            fetchCount.incrementAndGet();
+            return Arrays.asList(last + 1, last + 2);
+        }
+
+        @Override
+        protected void processPage(ShardingContext shardingContext, List<Integer> data) {
+            if (blocking && data.contains(1)) {
+                startedLatch.countDown();
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+                } catch (InterruptedException e) {
+                    interruptedLatch.countDown();
+                }
+                return;
+            }
+            if (blocking) {
+                try {
+                    startedLatch.await(5L, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failing || blocking) {
+                throw new IllegalStateException("process failed");
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package top.taka.seieiElasticJob.overlap;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.api.simple.SimpleJob;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JobOverlapControllerTest 使用的作业，开始慢执行之前立即返回
+ * 不加 @Component，只由测试应用导入
+ */
+@SeieiElasticJobConfig(jobName = JobOverlapControllerTest.JOB_NAME, cron = "0/1 * * * * ?", overlapPolicy = "coalesce", overwrite = true)
+public class CoalesceOverlapJob implements SimpleJob {
+
+    // 每秒触发一次，每次执行 2500 毫秒
+    private static final long EXECUTION_MILLISECONDS = 2500L;
+
+    static volatile boolean slow;
+
+    static final AtomicInteger slowRunCount = new AtomicInteger();
+
+    static void reset() {
+        slow = false;
+        slowRunCount.set(0);
+    }
+
+    @Override
+    public void execute(ShardingContext shardingContext) {
+        if (!slow) {
+            return;
+        }
+        slowRunCount.incrementAndGet();
+        try {
+            Thread.sleep(EXECUTION_MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package top.taka.seieiElasticJob.overlap;
+
+import com.dangdang.ddframe.job.lite.api.JobScheduler;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import top.taka.seieiElasticJob.annotation.EnableSeieiElasticJob;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * coalesce 策略下执行时间超过触发间隔的作业，每次执行期间错过的触发只计数一次、只补偿执行一次
+ * 作业默认开启 misfire，elastic-job 的触发器监听同时会设置注册中心的错过执行标记，不能再按标记重复计数和补偿
+ */
+public class JobOverlapControllerTest {
+
+    private static final String NAMESPACE = "seiei-overlap-test";
+
+    static final String JOB_NAME = "coalesceOverlapJob";
+
+    private static final long OBSERVE_MILLISECONDS = 12000L;
+
+    private TestingServer testingServer;
+
+    private ConfigurableApplicationContext applicationContext;
+
+    @Before
+    public void setUp() throws Exception {
+        CoalesceOverlapJob.reset();
+        testingServer = new TestingServer(true);
+        applicationContext = new SpringApplicationBuilder(OverlapTestApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off")
+                .run("--elastic.job.zk.serverLists=" + testingServer.getConnectString(),
+                        "--elastic.job.zk.namespace=" + NAMESPACE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (null != applicationContext) {
+            // elastic-job 的作业调度器不随 spring 容器关闭
+            for (JobScheduler each : applicationContext.getBeansOfType(JobScheduler.class).values()) {
+                each.getSchedulerFacade().shutdownInstance();
+            }
+            applicationContext.close();
+        }
+        if (null != testingServer) {
+            testingServer.close();
+        }
+    }
+
+    @Test
+    public void assertCoalesceCountsEachOverrunOnce() throws Exception {
+        // 执行重叠策略接管错过的触发，注册中心中的 misfire 为 false
+        try (CuratorFramework client = CuratorFrameworkFactory.newClient(testingServer.getConnectString(), new RetryOneTime(1000))) {
+            client.start();
+            String config = new String(client.getData().forPath("/" + NAMESPACE + "/" + JOB_NAME + "/config"), StandardCharsets.UTF_8);
+            assertTrue(config, config.contains("\"misfire\":false"));
+        }
+
+        JobOverlapController jobOverlapController = applicationContext.getBean(JOB_NAME + "JobOverlapController", JobOverlapController.class);
+        final AtomicInteger missedCount = new AtomicInteger();
+        final AtomicInteger overlappedCount = new AtomicInteger();
+        final AtomicInteger catchUpCount = new AtomicInteger();
+        jobOverlapController.setJobOverlapListener(new JobOverlapListener() {
+
+            @Override
+            public void overlapped(int missed, int skipped, int backlog) {
+                overlappedCount.incrementAndGet();
+                missedCount.addAndGet(missed);
+            }
+
+            @Override
+            public void catchUpStarted(long lagMilliseconds, int backlog) {
+                catchUpCount.incrementAndGet();
+            }
+        });
+        // 等当前的快速执行结束后再开始慢执行，错过的触发都发生在监听设置之后
+        Thread.sleep(1000L);
+        long startTime = System.currentTimeMillis();
+        CoalesceOverlapJob.slow = true;
+        Thread.sleep(OBSERVE_MILLISECONDS);
+        int missed = missedCount.get();
+        int overlapped = overlappedCount.get();
+        int catchUps = catchUpCount.get();
+        int slowRuns = CoalesceOverlapJob.slowRunCount.get();
+        long elapsedFireTimes = (System.currentTimeMillis() - startTime) / 1000L + 1L;
+
+        assertTrue("catch-ups: " + catchUps, catchUps >= 2);
+        // 每次执行超时只通知一次、补偿执行一次，不会因注册中心的错过执行标记额外计数和补偿
+        assertTrue("overlapped: " + overlapped + ", slow runs: " + slowRuns, overlapped <= slowRuns);
+        assertTrue("catch-ups: " + catchUps + ", slow runs: " + slowRuns, catchUps <= slowRuns);
+        // 正常触发和错过的触发不会超过实际经过的触发次数
+        int normalRuns = slowRuns - catchUps;
+        assertTrue("missed: " + missed + ", normal runs: " + normalRuns + ", fire times: " + elapsedFireTimes,
+                missed + normalRuns <= elapsedFireTimes);
+    }
+
+    @EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class, MybatisAutoConfiguration.class})
+    @EnableSeieiElasticJob
+    @Import(CoalesceOverlapJob.class)
+    public static class OverlapTestApplication {
+    }
+}
@@ -0,0 +1,144 @@
+package top.taka.seieiElasticJob.parameter;
+
+import com.dangdang.ddframe.job.exception.JobConfigurationException;
+import com.dangdang.ddframe.job.reg.zookeeper.ZookeeperConfiguration;
+import com.dangdang.ddframe.job.reg.zookeeper.ZookeeperRegistryCenter;
+import org.apache.curator.test.TestingServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import top.taka.seieiElasticJob.enums.ParameterStorage;
+
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 作业参数在 inline 和 node 两种存储方式下的编解码，seiei-ref: 引用节点的读取，以及 shardingItemParameters 按分片项编码
+ */
+public class JobParameterCodecTest {
+
+    private static final int THRESHOLD = 1024;
+
+    private TestingServer testingServer;
+
+    private ZookeeperRegistryCenter regCenter;
+
+    @Before
+    public void setUp() throws Exception {
+        testingServer = new TestingServer(true);
+        regCenter = new ZookeeperRegistryCenter(new ZookeeperConfiguration(testingServer.getConnectString(), "seiei-parameter-test"));
+        regCenter.init();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        regCenter.close();
+        testingServer.close();
+    }
+
+    @Test
+    public void assertSmallParameterNotEncoded() {
+        String value = "tenant-1;tenant-2";
+        assertSame(value, JobParameterCodec.encode(value, THRESHOLD, ParameterStorage.INLINE, regCenter));
+        assertSame(value, JobParameterCodec.encode(value, THRESHOLD, ParameterStorage.NODE, regCenter));
+        // 阈值小于 1 时不编码
+        String largeValue = createLargeParameter();
+        assertSame(largeValue, JobParameterCodec.encode(largeValue, 0, ParameterStorage.INLINE, regCenter));
+        assertSame(value, JobParameterCodec.decode(value, regCenter));
+    }
+
+    @Test
+    public void assertInlineStorage() {
+        String value = createLargeParameter();
+        String encoded = JobParameterCodec.encode(value, THRESHOLD, ParameterStorage.INLINE, regCenter);
+        assertTrue(encoded.startsWith(JobParameterCodec.GZIP_PREFIX));
+        assertTrue(encoded.length() < value.length());
+        assertFalse(encoded.contains(",") || encoded.contains("="));
+        assertFalse(regCenter.isExisted(JobParameterCodec.PARAMETER_NODE_ROOT));
+        assertEquals(value, JobParameterCodec.decode(encoded, regCenter));
+        // 已编码的参数不会重复编码
+        assertSame(encoded, JobParameterCodec.encode(encoded, THRESHOLD, ParameterStorage.INLINE, regCenter));
+    }
+
+    @Test
+    public void assertInlineStorageKeepsIncompressibleParameter() {
+        byte[] bytes = new byte[THRESHOLD * 2];
+        new Random(20190601L).nextBytes(bytes);
+        String value = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        assertSame(value, JobParameterCodec.encode(value, THRESHOLD, ParameterStorage.INLINE, regCenter));
+    }
+
+    @Test
+    public void assertNodeStorage() {
+        String value = createLargeParameter();
+        String encoded = JobParameterCodec.encode(value, THRESHOLD, ParameterStorage.NODE, regCenter);
+        assertTrue(encoded.startsWith(JobParameterCodec.REFERENCE_PREFIX));
+        String path = JobParameterCodec.PARAMETER_NODE_ROOT + "/" + encoded.substring(JobParameterCodec.REFERENCE_PREFIX.length());
+        assertTrue(regCenter.getDirectly(path).startsWith(JobParameterCodec.GZIP_PREFIX));
+        // 同样的参数只保存一份
+        assertEquals(encoded, JobParameterCodec.encode(value, THRESHOLD, ParameterStorage.NODE, regCenter));
+        assertEquals(1, regCenter.getNumChildren(JobParameterCodec.PARAMETER_NODE_ROOT));
+        assertEquals(value, JobParameterCodec.decode(encoded, regCenter));
+    }
+
+    @Test
+    public void assertReferenceLookup() {
+        String value = createLargeParameter() + "reference";
+        String encoded = JobParameterCodec.encode(value, THRESHOLD, ParameterStorage.NODE, regCenter);
+        // 其他实例写入的引用节点，本实例只根据引用读取
+        ZookeeperRegistryCenter otherRegCenter = new ZookeeperRegistryCenter(new ZookeeperConfiguration(testingServer.getConnectString(), "seiei-parameter-test"));
+        otherRegCenter.init();
+        try {
+            assertEquals(value, JobParameterCodec.decode(encoded, otherRegCenter));
+        } finally {
+            otherRegCenter.close();
+        }
+    }
+
+    @Test
+    public void assertMissingReferenceNode() {
+        try {
+            JobParameterCodec.decode(JobParameterCodec.REFERENCE_PREFIX + "0000", regCenter);
+            fail("decode should throw");
+        } catch (JobConfigurationException e) {
+            assertTrue(e.getMessage().contains(JobParameterCodec.PARAMETER_NODE_ROOT + "/0000"));
+        }
+    }
+
+    @Test
+    public void assertShardingItemParametersEncodedByItem() {
+        String largeValue = createLargeParameter();
+        String encoded = JobParameterCodec.encodeShardingItemParameters(" 0 = a , 1=" + largeValue + ",2=c", THRESHOLD, ParameterStorage.INLINE, regCenter);
+        String[] items = encoded.split(",");
+        assertEquals(3, items.length);
+        assertEquals("0=a", items[0]);
+        assertTrue(items[1].startsWith("1=" + JobParameterCodec.GZIP_PREFIX));
+        assertEquals(2, items[1].split("=").length);
+        assertEquals(largeValue, JobParameterCodec.decode(items[1].substring("1=".length()), regCenter));
+        assertEquals("2=c", items[2]);
+    }
+
+    @Test
+    public void assertShardingItemParametersWithEqualsInValueKept() {
+        // elastic-job 的分片项参数格式为 int=xx，值中包含等号时格式错误，原样返回由 elastic-job 报告
+        String shardingItemParameters = "0=a,1=" + createLargeParameter() + "=x";
+        assertSame(shardingItemParameters, JobParameterCodec.encodeShardingItemParameters(shardingItemParameters, THRESHOLD, ParameterStorage.INLINE, regCenter));
+        String keyValue = "0=key=value";
+        assertSame(keyValue, JobParameterCodec.encodeShardingItemParameters(keyValue, 1, ParameterStorage.NODE, regCenter));
+        assertFalse(regCenter.isExisted(JobParameterCodec.PARAMETER_NODE_ROOT));
+    }
+
+    private static String createLargeParameter() {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; result.length() <= THRESHOLD * 4; i++) {
+            result.append("tenant-").append(i).append(';');
+        }
+        return result.toString();
+    }
+}
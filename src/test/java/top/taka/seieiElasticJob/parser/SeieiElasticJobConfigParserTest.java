@@ -0,0 +1,147 @@
+package top.taka.seieiElasticJob.parser;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.api.simple.SimpleJob;
+import com.dangdang.ddframe.job.lite.api.JobScheduler;
+import org.apache.curator.test.TestingServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import top.taka.seieiElasticJob.annotation.EnableSeieiElasticJob;
+import top.taka.seieiElasticJob.annotation.SeieiElasticJobConfig;
+import top.taka.seieiElasticJob.index.SeieiElasticJobIndex;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按作业索引或注解加载作业：索引存在且与注解一致时以索引为准，索引过期或不存在时按注解启动，内部类作业两种方式都能启动
+ * 作业索引通过线程上下文类加载器放到 classpath 中（SeieiElasticJobConfigParser 使用默认类加载器读取索引）
+ */
+public class SeieiElasticJobConfigParserTest {
+
+    private static final String NAMESPACE = "seiei-parser-test";
+
+    // 注解中的作业名称
+    private static final String ANNOTATED_JOB_NAME = "nestedParserJob";
+
+    // 索引中的作业名称，与注解不同，用于区分作业是按索引还是按注解启动的
+    private static final String INDEXED_JOB_NAME = "indexedNestedParserJob";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private TestingServer testingServer;
+
+    private ConfigurableApplicationContext applicationContext;
+
+    private ClassLoader originalClassLoader;
+
+    @Before
+    public void setUp() throws Exception {
+        testingServer = new TestingServer(true);
+        originalClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Thread.currentThread().setContextClassLoader(originalClassLoader);
+        if (null != applicationContext) {
+            // elastic-job 的作业调度器不随 spring 容器关闭
+            for (JobScheduler each : applicationContext.getBeansOfType(JobScheduler.class).values()) {
+                each.getSchedulerFacade().shutdownInstance();
+            }
+            applicationContext.close();
+        }
+        if (null != testingServer) {
+            testingServer.close();
+        }
+    }
+
+    @Test
+    public void assertNestedJobStartsByAnnotationWithoutIndex() {
+        start();
+        assertTrue(isStarted(ANNOTATED_JOB_NAME));
+    }
+
+    @Test
+    public void assertNestedJobStartsByIndex() throws IOException {
+        Properties index = new Properties();
+        index.setProperty(NestedJob.class.getName(), "SimpleJob");
+        index.setProperty(NestedJob.class.getName() + "#jobName", INDEXED_JOB_NAME);
+        index.setProperty(NestedJob.class.getName() + "#cron", "0 0 0 * * ?");
+        useIndex(index);
+        start();
+        assertTrue(isStarted(INDEXED_JOB_NAME));
+        assertFalse(isStarted(ANNOTATED_JOB_NAME));
+    }
+
+    @Test
+    public void assertStaleIndexFallsBackToAnnotation() throws IOException {
+        // 索引中没有容器里标记了注解的作业类
+        Properties index = new Properties();
+        index.setProperty("top.taka.seieiElasticJob.parser.RemovedJob", "SimpleJob");
+        index.setProperty("top.taka.seieiElasticJob.parser.RemovedJob#jobName", INDEXED_JOB_NAME);
+        useIndex(index);
+        start();
+        assertTrue(isStarted(ANNOTATED_JOB_NAME));
+        assertFalse(isStarted(INDEXED_JOB_NAME));
+    }
+
+    private void useIndex(Properties index) throws IOException {
+        File root = temporaryFolder.newFolder();
+        File indexFile = new File(root, SeieiElasticJobIndex.INDEX_LOCATION);
+        assertTrue(indexFile.getParentFile().mkdirs());
+        try (OutputStream outputStream = Files.newOutputStream(indexFile.toPath())) {
+            index.store(outputStream, null);
+        }
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[] {root.toURI().toURL()}, originalClassLoader));
+    }
+
+    private void start() {
+        applicationContext = new SpringApplicationBuilder(ParserTestApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off")
+                .run("--elastic.job.zk.serverLists=" + testingServer.getConnectString(),
+                        "--elastic.job.zk.namespace=" + NAMESPACE);
+    }
+
+    private boolean isStarted(String jobName) {
+        return applicationContext.containsBean(jobName + "SpringJobScheduler");
+    }
+
+    /**
+     * 内部类作业，作业索引中的类名为 SeieiElasticJobConfigParserTest$NestedJob
+     * 不加 @Component，只由测试应用导入
+     */
+    @SeieiElasticJobConfig(jobName = ANNOTATED_JOB_NAME, cron = "0 0 0 * * ?", overwrite = true)
+    public static class NestedJob implements SimpleJob {
+
+        @Override
+        public void execute(ShardingContext shardingContext) {
+        }
+    }
+
+    @EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class, MybatisAutoConfiguration.class})
+    @EnableSeieiElasticJob
+    @Import(NestedJob.class)
+    public static class ParserTestApplication {
+    }
+}
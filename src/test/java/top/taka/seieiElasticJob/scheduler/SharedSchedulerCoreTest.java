@@ -0,0 +1,90 @@
+package top.taka.seieiElasticJob.scheduler;
+
+import org.junit.After;
+import org.junit.Test;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.TriggerBuilder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 共享调度器的执行线程上限和错过执行统计
+ * 两个作业每 2 秒同时触发一次，每次执行 1500 毫秒：上限为 1 时后执行的作业等待超过 1 秒的错过执行阈值，
+ * 上限随作业数量增长时两个作业同时执行，不会错过执行
+ */
+public class SharedSchedulerCoreTest {
+
+    private static final String[] JOB_NAMES = {"sharedSchedulerJobA", "sharedSchedulerJobB"};
+
+    private static final long OBSERVE_MILLISECONDS = 7000L;
+
+    private SharedSchedulerCore sharedSchedulerCore;
+
+    @After
+    public void tearDown() {
+        if (null != sharedSchedulerCore) {
+            sharedSchedulerCore.shutdown();
+        }
+    }
+
+    @Test
+    public void assertMisfireCountedWhenThreadsExhausted() throws Exception {
+        sharedSchedulerCore = new SharedSchedulerCore(1);
+        assertEquals(1, sharedSchedulerCore.getThreadCount());
+        SlowJob.EXECUTION_COUNT.set(0);
+        scheduleJobs();
+        Thread.sleep(OBSERVE_MILLISECONDS);
+        assertTrue(sharedSchedulerCore.getMisfiredCount() > 0);
+    }
+
+    @Test
+    public void assertThreadLimitGrowsWithJobCount() throws Exception {
+        sharedSchedulerCore = new SharedSchedulerCore(0);
+        int minThreads = Runtime.getRuntime().availableProcessors() * 2;
+        assertEquals(minThreads, sharedSchedulerCore.getThreadCount());
+        for (int i = 0; i < minThreads + 1; i++) {
+            sharedSchedulerCore.createJobScheduler("sharedSchedulerIdleJob" + i);
+        }
+        assertEquals(minThreads + 1, sharedSchedulerCore.getThreadCount());
+        SlowJob.EXECUTION_COUNT.set(0);
+        scheduleJobs();
+        Thread.sleep(OBSERVE_MILLISECONDS);
+        assertEquals(0L, sharedSchedulerCore.getMisfiredCount());
+        assertTrue(SlowJob.EXECUTION_COUNT.get() >= JOB_NAMES.length * 3);
+    }
+
+    private void scheduleJobs() throws SchedulerException {
+        for (String each : JOB_NAMES) {
+            Scheduler scheduler = sharedSchedulerCore.createJobScheduler(each);
+            // 与 elastic-job 的 JobScheduleController 一致，错过执行时不补偿
+            scheduler.scheduleJob(JobBuilder.newJob(SlowJob.class).withIdentity(each).build(), TriggerBuilder.newTrigger().withIdentity(each)
+                    .withSchedule(CronScheduleBuilder.cronSchedule("0/2 * * * * ?").withMisfireHandlingInstructionDoNothing()).build());
+        }
+        sharedSchedulerCore.getScheduler().start();
+    }
+
+    @DisallowConcurrentExecution
+    public static class SlowJob implements Job {
+
+        static final AtomicInteger EXECUTION_COUNT = new AtomicInteger();
+
+        @Override
+        public void execute(JobExecutionContext context) {
+            EXECUTION_COUNT.incrementAndGet();
+            try {
+                Thread.sleep(1500L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
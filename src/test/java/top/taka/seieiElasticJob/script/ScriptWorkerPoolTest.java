@@ -0,0 +1,161 @@
+package top.taka.seieiElasticJob.script;
+
+import com.dangdang.ddframe.job.api.ShardingContext;
+import com.dangdang.ddframe.job.exception.JobSystemException;
+import com.dangdang.ddframe.job.executor.ShardingContexts;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 常驻脚本工作进程的超时、按次数回收和异常退出后的重建
+ * 使用一个按作业参数决定行为的 shell 工作进程：sleep 时不响应，fail 时返回退出码 3，exit 时直接退出，quit 时响应后退出
+ */
+public class ScriptWorkerPoolTest {
+
+    private static final String JOB_NAME = "scriptWorkerTestJob";
+
+    private static final String[] WORKER_SCRIPT = {
+        "while IFS= read -r line; do",
+        "    case \"$line\" in",
+        "        \"@@SEIEI PING\") echo \"@@SEIEI PONG\" ;;",
+        "        \"@@SEIEI RUN \"*)",
+        "            case \"$line\" in",
+        "                *'\"jobParameter\":\"sleep\"'*) sleep 10 ;;",
+        "                *'\"jobParameter\":\"exit\"'*) exit 1 ;;",
+        "                *'\"jobParameter\":\"fail\"'*) echo \"@@SEIEI DONE 3\"; continue ;;",
+        "                *'\"jobParameter\":\"quit\"'*) echo \"@@SEIEI DONE 0\"; exit 0 ;;",
+        "            esac",
+        "            echo \"worker $$ done\"",
+        "            echo \"@@SEIEI DONE 0\" ;;",
+        "    esac",
+        "done"
+    };
+
+    private static final long TIMEOUT_MILLISECONDS = 1000L;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private String scriptCommandLine;
+
+    private ScriptWorkerPool scriptWorkerPool;
+
+    @Before
+    public void setUp() throws IOException {
+        assumeTrue(new File("/bin/sh").canExecute());
+        File script = temporaryFolder.newFile("worker.sh");
+        Files.write(script.toPath(), Arrays.asList(WORKER_SCRIPT), StandardCharsets.UTF_8);
+        scriptCommandLine = "/bin/sh '" + script.getAbsolutePath() + "'";
+    }
+
+    @After
+    public void tearDown() {
+        if (null != scriptWorkerPool) {
+            scriptWorkerPool.shutdown();
+        }
+    }
+
+    @Test
+    public void assertTimeoutReplacesWorker() {
+        start(0, 0L);
+        try {
+            scriptWorkerPool.execute(createShardingContext("sleep"));
+            fail("execute should time out");
+        } catch (JobSystemException e) {
+            assertTrue(e.getMessage().contains("执行超过"));
+        }
+        assertEquals(1L, scriptWorkerPool.getTimeoutCount());
+        assertEquals(2L, scriptWorkerPool.getStartedWorkerCount());
+        scriptWorkerPool.execute(createShardingContext(""));
+        assertEquals(2L, scriptWorkerPool.getExecutedCount());
+        assertEquals(1L, scriptWorkerPool.getFailedCount());
+    }
+
+    @Test
+    public void assertWorkerRecycledAfterMaxRuns() {
+        start(2, 0L);
+        for (int i = 0; i < 5; i++) {
+            scriptWorkerPool.execute(createShardingContext(""));
+        }
+        // 第 2、4 次执行后回收重建
+        assertEquals(3L, scriptWorkerPool.getStartedWorkerCount());
+        assertEquals(0L, scriptWorkerPool.getFailedCount());
+    }
+
+    @Test
+    public void assertNonZeroExitCodeKeepsWorker() {
+        start(0, 0L);
+        try {
+            scriptWorkerPool.execute(createShardingContext("fail"));
+            fail("execute should fail");
+        } catch (JobSystemException e) {
+            assertTrue(e.getMessage().contains("退出码 3"));
+        }
+        scriptWorkerPool.execute(createShardingContext(""));
+        assertEquals(1L, scriptWorkerPool.getStartedWorkerCount());
+        assertEquals(1L, scriptWorkerPool.getFailedCount());
+    }
+
+    @Test
+    public void assertWorkerExitedDuringExecutionReplaced() {
+        start(0, 0L);
+        try {
+            scriptWorkerPool.execute(createShardingContext("exit"));
+            fail("execute should fail");
+        } catch (JobSystemException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertEquals(2L, scriptWorkerPool.getStartedWorkerCount());
+        scriptWorkerPool.execute(createShardingContext(""));
+        assertEquals(1L, scriptWorkerPool.getFailedCount());
+    }
+
+    @Test
+    public void assertWorkerExitedWhileIdleReplacedOnBorrow() throws InterruptedException {
+        start(0, 0L);
+        scriptWorkerPool.execute(createShardingContext("quit"));
+        // 等待工作进程退出
+        Thread.sleep(500L);
+        scriptWorkerPool.execute(createShardingContext(""));
+        assertEquals(2L, scriptWorkerPool.getStartedWorkerCount());
+        assertEquals(0L, scriptWorkerPool.getFailedCount());
+    }
+
+    @Test
+    public void assertWorkerExitedWhileIdleReplacedByHealthCheck() throws InterruptedException {
+        start(0, 200L);
+        scriptWorkerPool.execute(createShardingContext("quit"));
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (scriptWorkerPool.getStartedWorkerCount() < 2L && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100L);
+        }
+        assertEquals(2L, scriptWorkerPool.getStartedWorkerCount());
+        assertEquals(1, scriptWorkerPool.getIdleWorkers());
+        scriptWorkerPool.execute(createShardingContext(""));
+        assertEquals(0L, scriptWorkerPool.getFailedCount());
+    }
+
+    private void start(int maxRuns, long healthCheckIntervalMilliseconds) {
+        scriptWorkerPool = new ScriptWorkerPool(JOB_NAME, scriptCommandLine, 1, maxRuns, TIMEOUT_MILLISECONDS, healthCheckIntervalMilliseconds);
+        scriptWorkerPool.start();
+    }
+
+    private static ShardingContext createShardingContext(String jobParameter) {
+        return new ShardingContext(new ShardingContexts("task-1", JOB_NAME, 1, jobParameter, Collections.singletonMap(0, "")), 0);
+    }
+}
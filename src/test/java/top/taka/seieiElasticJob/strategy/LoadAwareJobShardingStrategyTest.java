@@ -0,0 +1,116 @@
+package top.taka.seieiElasticJob.strategy;
+
+import com.dangdang.ddframe.job.lite.api.strategy.JobInstance;
+import com.dangdang.ddframe.job.lite.api.strategy.impl.AverageAllocationJobShardingStrategy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 负载均衡分片策略与 AverageAllocationJobShardingStrategy 的对比
+ * 按给定的分片项耗时分布分别分片，比较各个实例总耗时的最大值（即一次执行的完成时间），多次随机模拟取平均
+ */
+public class LoadAwareJobShardingStrategyTest {
+
+    private static final int SHARDING_TOTAL_COUNT = 64;
+
+    private static final int ROUNDS = 200;
+
+    private static final int[] INSTANCE_COUNTS = {2, 4, 8};
+
+    private final AverageAllocationJobShardingStrategy averageAllocationStrategy = new AverageAllocationJobShardingStrategy();
+
+    @Test
+    public void assertMakespanImprovesWhenFewItemsAreSlow() {
+        for (int each : INSTANCE_COUNTS) {
+            long[] result = simulate(each, new Random(20190601L), 20);
+            assertTrue(String.format("%d 个实例，平均分配 %d，负载均衡 %d", each, result[0], result[1]), result[1] < result[0]);
+        }
+    }
+
+    @Test
+    public void assertMakespanImprovesWithLongTailDurations() {
+        for (int each : INSTANCE_COUNTS) {
+            long[] result = simulate(each, new Random(20190601L), -1);
+            assertTrue(String.format("%d 个实例，平均分配 %d，负载均衡 %d", each, result[0], result[1]), result[1] < result[0]);
+        }
+    }
+
+    @Test
+    public void assertMakespanNotWorseWithUniformDurations() {
+        for (int each : INSTANCE_COUNTS) {
+            long[] result = simulate(each, new Random(20190601L), 1);
+            assertTrue(String.format("%d 个实例，平均分配 %d，负载均衡 %d", each, result[0], result[1]), result[1] <= result[0]);
+        }
+    }
+
+    @Test
+    public void assertEvenCountWithoutDurations() {
+        List<JobInstance> jobInstances = createJobInstances(3);
+        Map<JobInstance, List<Integer>> actual = LoadAwareJobShardingStrategy.sharding(jobInstances, 9, Collections.<Integer, Long>emptyMap());
+        for (JobInstance each : jobInstances) {
+            assertEquals(3, actual.get(each).size());
+        }
+    }
+
+    @Test
+    public void assertEmptyWithoutJobInstances() {
+        assertTrue(new LoadAwareJobShardingStrategy().sharding(Collections.<JobInstance>emptyList(), "loadAwareTestJob", SHARDING_TOTAL_COUNT).isEmpty());
+    }
+
+    /**
+     * @param skew 大于 1 时约 10% 的分片项耗时为其他分片项的 skew 倍，-1 时耗时服从对数正态分布
+     * @return 平均分配和负载均衡的平均完成时间
+     */
+    private long[] simulate(int instanceCount, Random random, int skew) {
+        List<JobInstance> jobInstances = createJobInstances(instanceCount);
+        long averageTotal = 0;
+        long loadAwareTotal = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            Map<Integer, Long> durations = new HashMap<>(SHARDING_TOTAL_COUNT);
+            for (int item = 0; item < SHARDING_TOTAL_COUNT; item++) {
+                long duration;
+                if (skew < 0) {
+                    duration = Math.round(100 * Math.exp(random.nextGaussian()));
+                } else {
+                    duration = 90 + random.nextInt(20);
+                    if (skew > 1 && random.nextInt(10) == 0) {
+                        duration *= skew;
+                    }
+                }
+                durations.put(item, duration);
+            }
+            averageTotal += makespan(averageAllocationStrategy.sharding(jobInstances, "loadAwareTestJob", SHARDING_TOTAL_COUNT), durations);
+            loadAwareTotal += makespan(LoadAwareJobShardingStrategy.sharding(jobInstances, SHARDING_TOTAL_COUNT, durations), durations);
+        }
+        return new long[] {averageTotal / ROUNDS, loadAwareTotal / ROUNDS};
+    }
+
+    private static List<JobInstance> createJobInstances(int instanceCount) {
+        List<JobInstance> result = new ArrayList<>(instanceCount);
+        for (int i = 0; i < instanceCount; i++) {
+            result.add(new JobInstance("192.168.0." + i + "@-@" + (1000 + i)));
+        }
+        return result;
+    }
+
+    private static long makespan(Map<JobInstance, List<Integer>> sharding, Map<Integer, Long> durations) {
+        long result = 0;
+        for (List<Integer> items : sharding.values()) {
+            long total = 0;
+            for (Integer each : items) {
+                total += durations.get(each);
+            }
+            result = Math.max(result, total);
+        }
+        return result;
+    }
+}